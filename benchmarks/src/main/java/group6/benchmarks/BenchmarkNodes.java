@@ -0,0 +1,55 @@
+package group6.benchmarks;
+
+import group6.entity.device.actuator.FanActuator;
+import group6.entity.device.actuator.HeaterActuator;
+import group6.entity.device.sensor.HumiditySensor;
+import group6.entity.device.sensor.LightSensor;
+import group6.entity.device.sensor.Sensor;
+import group6.entity.device.sensor.TemperatureSensor;
+import group6.entity.node.SensorNode;
+
+/**
+ * Builds sensor nodes and DATA payloads of a given size for the benchmarks.
+ */
+final class BenchmarkNodes {
+
+  private BenchmarkNodes() {
+  }
+
+  /**
+   * Creates a sensor node with the given number of sensors, cycling through
+   * a few sensor types, plus one heater and one fan.
+   *
+   * @param sensorCount number of sensors
+   * @return the sensor node
+   */
+  static SensorNode createSensorNode(int sensorCount) {
+    SensorNode node = new SensorNode("bench-node");
+    for (int i = 0; i < sensorCount; i++) {
+      node.addSensor(createSensor(i));
+    }
+    node.addActuator(new HeaterActuator("heater-01"));
+    node.addActuator(new FanActuator("fan-01"));
+    return node;
+  }
+
+  /**
+   * Builds a text DATA payload ({@code type#id:value,...}) with the given
+   * number of readings, as a node of that size would send it.
+   *
+   * @param sensorCount number of readings
+   * @return the payload
+   */
+  static String createDataPayload(int sensorCount) {
+    return createSensorNode(sensorCount).getSensorSnapshot();
+  }
+
+  private static Sensor createSensor(int index) {
+    String suffix = String.format("%05d", index);
+    return switch (index % 3) {
+      case 0 -> new TemperatureSensor("temp-" + suffix);
+      case 1 -> new HumiditySensor("hum-" + suffix);
+      default -> new LightSensor("light-" + suffix);
+    };
+  }
+}
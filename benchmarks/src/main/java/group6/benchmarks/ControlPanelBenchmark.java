@@ -0,0 +1,105 @@
+package group6.benchmarks;
+
+import group6.entity.node.ControlPanel;
+import group6.protocol.Message;
+import group6.protocol.MessageType;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Handling of incoming DATA on the control panel side.
+ *
+ * <p>The control panel only caches data for nodes it connected to, so setup
+ * connects to a port nobody listens on. The connection attempt fails in the
+ * background and leaves an empty cache entry for the benchmark node.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ControlPanelBenchmark {
+
+  private static final String NODE_ID = "bench-node";
+  private static final long FIVE_MINUTES_MS = 5 * 60 * 1000L;
+
+  @Param({"10", "100", "1000", "10000"})
+  private int deviceCount;
+
+  private ControlPanel controlPanel;
+  private Message message;
+  private ByteBuffer frame;
+
+  /**
+   * Builds the control panel and the DATA message for the current device
+   * count.
+   *
+   * @throws IOException if no free port can be found
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    int closedPort;
+    try (ServerSocket socket = new ServerSocket(0)) {
+      closedPort = socket.getLocalPort();
+    }
+    controlPanel = new ControlPanel("bench-panel");
+    controlPanel.connectToSensorNode(NODE_ID, "127.0.0.1", closedPort);
+
+    message = new Message(MessageType.DATA, NODE_ID,
+        BenchmarkNodes.createDataPayload(deviceCount));
+    frame = ByteBuffer.wrap(message.toProtocolString().getBytes(StandardCharsets.UTF_8));
+    for (int i = 0; i < 10; i++) {
+      controlPanel.handleTextData(NODE_ID, frame);
+    }
+  }
+
+  /**
+   * Shuts down the control panel.
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    controlPanel.shutdown();
+  }
+
+  @Benchmark
+  public ControlPanel handleIncomingMessage() {
+    controlPanel.handleIncomingMessage(NODE_ID, message);
+    return controlPanel;
+  }
+
+  @Benchmark
+  public ControlPanel handleTextData() {
+    controlPanel.handleTextData(NODE_ID, frame);
+    return controlPanel;
+  }
+
+  /**
+   * One sensor view refresh: the five-minute average of every sensor.
+   */
+  @Benchmark
+  public double sensorAverages() {
+    ControlPanel.NodeData data = controlPanel.getNodeData(NODE_ID);
+    double total = 0;
+    for (String key : data.getSensorReadings().keySet()) {
+      total += data.getSensorAverage(key, FIVE_MINUTES_MS);
+    }
+    return total;
+  }
+}
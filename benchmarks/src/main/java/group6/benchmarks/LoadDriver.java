@@ -0,0 +1,76 @@
+package group6.benchmarks;
+
+import group6.entity.device.sensor.Sensor;
+import group6.entity.device.sensor.SensorUpdateScheduler;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drives every scheduled sensor at a fixed rate from a small thread pool,
+ * with random start offsets so updates do not arrive in bursts.
+ */
+final class LoadDriver implements SensorUpdateScheduler {
+
+  private final ScheduledExecutorService executor;
+  private final long periodNanos;
+  private final LongAdder produced = new LongAdder();
+  private volatile boolean counting;
+
+  /**
+   * Creates a driver.
+   *
+   * @param threads      number of driver threads
+   * @param readingsPerS readings per second for each sensor
+   */
+  LoadDriver(int threads, double readingsPerS) {
+    if (threads < 1 || readingsPerS <= 0) {
+      throw new IllegalArgumentException("threads and rate must be positive");
+    }
+    AtomicInteger count = new AtomicInteger();
+    this.executor = Executors.newScheduledThreadPool(threads, r -> {
+      Thread thread = new Thread(r, "load-driver-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.periodNanos = Math.max(1L, (long) (1_000_000_000L / readingsPerS));
+  }
+
+  @Override
+  public SensorUpdateHandle schedule(Sensor sensor) {
+    ScheduledFuture<?> future = executor.scheduleAtFixedRate(() -> {
+      sensor.readValue();
+      if (counting) {
+        produced.increment();
+      }
+    }, ThreadLocalRandom.current().nextLong(periodNanos), periodNanos, TimeUnit.NANOSECONDS);
+    return () -> future.cancel(false);
+  }
+
+  @Override
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * Starts or stops counting produced readings.
+   *
+   * @param counting true while measuring
+   */
+  void setCounting(boolean counting) {
+    this.counting = counting;
+  }
+
+  /**
+   * Returns the number of readings produced while counting.
+   *
+   * @return the number of readings
+   */
+  long getProduced() {
+    return produced.sum();
+  }
+}
@@ -0,0 +1,40 @@
+package group6.benchmarks;
+
+import group6.entity.device.SensorType;
+import group6.entity.device.sensor.Sensor;
+
+/**
+ * Sensor whose reading is the time it was produced, in nanoseconds since
+ * the start of the load test. The control panel side subtracts it from the
+ * time the reading reaches its cache to get the end-to-end latency.
+ *
+ * <p>Values below 2^53 ns (about 104 days) survive the text and binary
+ * encodings exactly.
+ */
+final class LoadSensor extends Sensor {
+
+  private final long epochNanos;
+
+  /**
+   * Creates a load sensor.
+   *
+   * @param deviceId   the device ID
+   * @param type       the sensor type reported to the control panel
+   * @param epochNanos the {@link System#nanoTime()} the test started at
+   */
+  LoadSensor(String deviceId, SensorType type, long epochNanos) {
+    super(deviceId, type, 0.0, 0.0); // unread value is 0, which the receiver ignores
+    this.epochNanos = epochNanos;
+  }
+
+  @Override
+  public double readValue() {
+    double value;
+    synchronized (this) {
+      value = System.nanoTime() - epochNanos;
+      currentValue = value;
+    }
+    notifyDeviceUpdated();
+    return value;
+  }
+}
@@ -0,0 +1,228 @@
+package group6.benchmarks;
+
+import group6.entity.device.SensorType;
+import group6.entity.node.ControlPanel;
+import group6.entity.node.SensorNode;
+import group6.logic.events.SensorDataListener;
+import group6.net.ServerMode;
+import group6.net.ThreadMode;
+import group6.protocol.DataEncoding;
+import group6.ui.helpers.EmbeddedSensorNodeManager;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Headless end-to-end load test over loopback.
+ *
+ * <p>Starts N embedded sensor nodes, connects one control panel to all of
+ * them and drives every sensor at a fixed rate. Reports how many readings per
+ * second reach the control panel cache, the latency from reading creation to
+ * the cache, and GC and allocation figures for the whole process.
+ *
+ * <p>Options ({@code --name=value}): {@code nodes} (4), {@code sensors} per
+ * node (50), {@code rate} readings per second per sensor (10), {@code warmup}
+ * and {@code duration} in seconds (5, 20), {@code server} BLOCKING|NIO (NIO),
+ * {@code threads} PLATFORM|VIRTUAL (PLATFORM), {@code encoding} TEXT|BINARY
+ * (TEXT), {@code dict} true|false (true), {@code push} the node push
+ * interval in ms (50, 0 sends every reading on its own) and {@code drivers}
+ * driver threads (2).
+ *
+ * <p>The control panel still writes its sensor history under
+ * {@code history/}, as it does in production.
+ */
+public final class LoopbackLoadTest {
+
+  private static final SensorType[] TYPES = SensorType.values();
+
+  private final Map<String, String> options;
+  private final LatencyHistogram latencies = new LatencyHistogram();
+  private volatile boolean measuring;
+  private long epochNanos;
+
+  private LoopbackLoadTest(Map<String, String> options) {
+    this.options = options;
+  }
+
+  /**
+   * Runs the load test.
+   *
+   * @param args options, see the class documentation
+   * @throws Exception if the test cannot be set up
+   */
+  public static void main(String[] args) throws Exception {
+    new LoopbackLoadTest(parseOptions(args)).run();
+    System.exit(0);
+  }
+
+  private void run() throws IOException, InterruptedException {
+    int nodes = intOption("nodes", 4);
+    int sensors = intOption("sensors", 50);
+    double rate = Double.parseDouble(option("rate", "10"));
+    int warmupS = intOption("warmup", 5);
+    int durationS = intOption("duration", 20);
+    ServerMode serverMode = ServerMode.valueOf(option("server", "NIO").toUpperCase(Locale.ROOT));
+    ThreadMode threadMode =
+        ThreadMode.valueOf(option("threads", "PLATFORM").toUpperCase(Locale.ROOT));
+    DataEncoding encoding =
+        DataEncoding.valueOf(option("encoding", "TEXT").toUpperCase(Locale.ROOT));
+    boolean dictionary = Boolean.parseBoolean(option("dict", "true"));
+    long pushIntervalMs = Long.parseLong(
+        option("push", String.valueOf(SensorNode.DEFAULT_PUSH_INTERVAL_MS)));
+
+    epochNanos = System.nanoTime();
+    LoadDriver driver = new LoadDriver(intOption("drivers", 2), rate);
+    EmbeddedSensorNodeManager manager =
+        new EmbeddedSensorNodeManager(driver, serverMode, threadMode);
+    ControlPanel controlPanel = new ControlPanel("load-panel", threadMode, encoding);
+    controlPanel.setDeviceDictionaryEnabled(dictionary);
+    controlPanel.addSensorDataListener(new LatencyRecorder());
+
+    List<LoadSensor> allSensors = new ArrayList<>();
+    List<String> nodeIds = new ArrayList<>();
+    try {
+      for (int n = 0; n < nodes; n++) {
+        String nodeId = String.format("load-%03d", n);
+        int port = freePort();
+        SensorNode node = manager.createNode(nodeId, "127.0.0.1", port, 5000).getSensorNode();
+        node.setPushCoalescing(pushIntervalMs, SensorNode.DEFAULT_PUSH_BATCH_SIZE);
+        nodeIds.add(nodeId);
+        for (int s = 0; s < sensors; s++) {
+          LoadSensor sensor = new LoadSensor(String.format("s-%05d", s), TYPES[s % TYPES.length],
+              epochNanos);
+          node.addSensor(sensor);
+          allSensors.add(sensor);
+        }
+        controlPanel.connectToSensorNode(nodeId, "127.0.0.1", port);
+      }
+
+      TimeUnit.SECONDS.sleep(1); // let every client finish its handshake
+      for (LoadSensor sensor : allSensors) {
+        driver.schedule(sensor);
+      }
+
+      System.out.printf(
+          "Warming up for %d s: %d nodes x %d sensors at %.1f/s (%s, %s, %s, dict=%s, push=%d ms)%n",
+          warmupS, nodes, sensors, rate, serverMode, threadMode, encoding, dictionary,
+          pushIntervalMs);
+      TimeUnit.SECONDS.sleep(warmupS);
+
+      Snapshot before = Snapshot.take();
+      measuring = true;
+      driver.setCounting(true);
+      TimeUnit.SECONDS.sleep(durationS);
+      measuring = false;
+      driver.setCounting(false);
+      Snapshot after = Snapshot.take();
+
+      report(driver.getProduced(), before, after);
+    } finally {
+      driver.shutdown();
+      controlPanel.shutdown();
+      for (String nodeId : nodeIds) {
+        manager.removeNode(nodeId);
+      }
+    }
+  }
+
+  private void report(long produced, Snapshot before, Snapshot after) {
+    double seconds = (after.nanos - before.nanos) / 1e9;
+    long received = latencies.getCount();
+    long allocated = after.allocatedBytes - before.allocatedBytes;
+
+    System.out.println();
+    System.out.printf("Produced     %,d readings (%,.0f/s)%n", produced, produced / seconds);
+    System.out.printf("Received     %,d readings (%,.0f/s, %.1f%% of produced)%n",
+        received, received / seconds, produced == 0 ? 0.0 : 100.0 * received / produced);
+    System.out.printf("Latency      mean %s  p50 %s  p90 %s  p99 %s  p99.9 %s  max %s%n",
+        millis(latencies.getMean()), millis(latencies.getPercentile(50)),
+        millis(latencies.getPercentile(90)), millis(latencies.getPercentile(99)),
+        millis(latencies.getPercentile(99.9)), millis(latencies.getMax()));
+    System.out.printf("GC           %d collections, %d ms total%n",
+        after.gcCount - before.gcCount, after.gcMillis - before.gcMillis);
+    if (before.allocatedBytes >= 0) {
+      System.out.printf("Allocation   %,.1f MB/s, %,.0f bytes per received reading%n",
+          allocated / seconds / (1024 * 1024), received == 0 ? 0.0 : (double) allocated / received);
+    }
+  }
+
+  private static String millis(double nanos) {
+    return String.format("%.3f ms", nanos / 1e6);
+  }
+
+  // ------- Options -------
+
+  private static Map<String, String> parseOptions(String[] args) {
+    Map<String, String> options = new LinkedHashMap<>();
+    for (String arg : args) {
+      if (!arg.startsWith("--") || arg.indexOf('=') < 0) {
+        throw new IllegalArgumentException("Expected --name=value, got: " + arg);
+      }
+      int eq = arg.indexOf('=');
+      options.put(arg.substring(2, eq), arg.substring(eq + 1));
+    }
+    return options;
+  }
+
+  private String option(String name, String defaultValue) {
+    return options.getOrDefault(name, defaultValue);
+  }
+
+  private int intOption(String name, int defaultValue) {
+    return Integer.parseInt(option(name, Integer.toString(defaultValue)));
+  }
+
+  private static int freePort() throws IOException {
+    try (ServerSocket socket = new ServerSocket(0)) {
+      return socket.getLocalPort();
+    }
+  }
+
+  // ------- Helpers -------
+
+  /**
+   * Records the latency of every reading cached while measuring. Readings of
+   * 0 are the initial snapshot, sent before any sensor was driven.
+   */
+  private final class LatencyRecorder implements SensorDataListener {
+    @Override
+    public void onSensorData(String nodeId, String sensorKey, double value, long timestamp) {
+      if (measuring && value > 0) {
+        latencies.record(System.nanoTime() - epochNanos - (long) value);
+      }
+    }
+  }
+
+  /**
+   * Process-wide counters at one point in time.
+   */
+  private static final class Snapshot {
+    long nanos;
+    long gcCount;
+    long gcMillis;
+    long allocatedBytes = -1;
+
+    static Snapshot take() {
+      Snapshot snapshot = new Snapshot();
+      for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+        snapshot.gcCount += Math.max(0, gc.getCollectionCount());
+        snapshot.gcMillis += Math.max(0, gc.getCollectionTime());
+      }
+      ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+      if (threads instanceof com.sun.management.ThreadMXBean sunThreads
+          && sunThreads.isThreadAllocatedMemorySupported()) {
+        snapshot.allocatedBytes = sunThreads.getTotalThreadAllocatedBytes();
+      }
+      snapshot.nanos = System.nanoTime();
+      return snapshot;
+    }
+  }
+}
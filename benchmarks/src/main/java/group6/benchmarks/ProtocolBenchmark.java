@@ -0,0 +1,66 @@
+package group6.benchmarks;
+
+import group6.protocol.Message;
+import group6.protocol.MessageType;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Encoding and parsing of protocol messages and their entries.
+ *
+ * <p>Message benchmarks use a DATA payload with one reading per device, so
+ * {@code deviceCount} scales the frame size.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProtocolBenchmark {
+
+  @Param({"10", "100", "1000", "10000"})
+  private int deviceCount;
+
+  private Message message;
+  private String protocolString;
+  private ByteBuffer frame;
+
+  /**
+   * Builds the message for the current device count.
+   */
+  @Setup
+  public void setUp() {
+    message = new Message(MessageType.DATA, "bench-node",
+        BenchmarkNodes.createDataPayload(deviceCount));
+    protocolString = message.toProtocolString();
+    frame = ByteBuffer.wrap(protocolString.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Benchmark
+  public String messageToProtocolString() {
+    return message.toProtocolString();
+  }
+
+  @Benchmark
+  public Message messageFromProtocolString() {
+    return Message.fromProtocolString(protocolString);
+  }
+
+  @Benchmark
+  public Message messageFromProtocolBytes() {
+    return Message.fromProtocolBytes(frame, "bench-node");
+  }
+}
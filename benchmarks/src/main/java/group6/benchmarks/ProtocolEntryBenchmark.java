@@ -0,0 +1,40 @@
+package group6.benchmarks;
+
+import group6.protocol.DeviceKey;
+import group6.protocol.SensorReading;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing of single DATA entries, independent of the node size.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProtocolEntryBenchmark {
+
+  // Not final, so the JIT cannot constant-fold the inputs.
+  private String rawKey = "temperature#temp-00001";
+  private String entry = "temperature#temp-00001:22.473829184";
+
+  @Benchmark
+  public DeviceKey deviceKeyParse() {
+    return DeviceKey.parse(rawKey);
+  }
+
+  @Benchmark
+  public SensorReading sensorReadingParse() {
+    return SensorReading.parse(entry);
+  }
+}
@@ -0,0 +1,78 @@
+package group6.benchmarks;
+
+import group6.entity.device.sensor.Sensor;
+import group6.entity.node.SensorNode;
+import group6.protocol.BinaryDataEncoder;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Snapshot and delta building on the sensor node side.
+ *
+ * <p>The drain benchmarks mark every sensor as updated before each call, so
+ * they measure the worst case where the whole node changed since the last
+ * push. Per-invocation setup adds noise for the smallest node sizes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SensorNodeBenchmark {
+
+  @Param({"10", "100", "1000", "10000"})
+  private int deviceCount;
+
+  private SensorNode node;
+  private List<Sensor> sensors;
+  private final BinaryDataEncoder encoder = new BinaryDataEncoder();
+
+  /**
+   * Builds the node for the current device count.
+   */
+  @Setup(Level.Trial)
+  public void setUp() {
+    node = BenchmarkNodes.createSensorNode(deviceCount);
+    sensors = node.getSensors();
+  }
+
+  /**
+   * Marks every sensor as updated.
+   */
+  @Setup(Level.Invocation)
+  public void markSensorsUpdated() {
+    for (Sensor sensor : sensors) {
+      node.onDeviceUpdated(sensor);
+    }
+    encoder.reset();
+  }
+
+  @Benchmark
+  public String getSensorSnapshot() {
+    return node.getSensorSnapshot();
+  }
+
+  @Benchmark
+  public String drainPendingSensorUpdates() {
+    return node.drainPendingSensorUpdates();
+  }
+
+  @Benchmark
+  public BinaryDataEncoder drainPendingSensorUpdatesBinary() {
+    node.drainPendingSensorUpdates(encoder);
+    return encoder;
+  }
+}
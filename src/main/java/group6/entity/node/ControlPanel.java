@@ -1,13 +1,41 @@
 package group6.entity.node;
 
+import group6.entity.device.ActuatorType;
+import group6.entity.device.SensorType;
 import group6.logic.SensorHistoryWriter;
+import group6.logic.events.SensorDataListener;
+import group6.logic.history.QuantileSketch;
+import group6.logic.history.SampleRingBuffer;
+import group6.logic.history.SlidingWindowStats;
+import group6.logic.history.WindowedQuantileSketch;
+import group6.net.KeepAliveTimer;
+import group6.net.ThreadMode;
 import group6.net.client.SensorNodeClient;
+import group6.protocol.BinaryDataDecoder;
+import group6.protocol.DataEncoding;
+import group6.protocol.DataVisitor;
+import group6.protocol.DeviceDictionary;
 import group6.protocol.DeviceKey;
+import group6.protocol.DeviceKeyInterner;
 import group6.protocol.Message;
 import group6.protocol.MessageType;
 import group6.protocol.RefreshTarget;
+import group6.protocol.TextDataParser;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -22,8 +50,16 @@ import org.slf4j.LoggerFactory;
 public class ControlPanel extends Node {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(ControlPanel.class);
+  private static final long[] DEFAULT_STATS_WINDOWS_MS = {5 * 60 * 1000L};
   private final Map<String, SensorNodeClient> sensorClients;
   private final Map<String, NodeData> dataCache;
+  private final List<SensorDataListener> dataListeners = new CopyOnWriteArrayList<>();
+  private final ThreadMode threadMode;
+  private final DataEncoding dataEncoding;
+  private volatile boolean deviceDictionaryEnabled = false;
+  private volatile long keepAliveIdleMs = KeepAliveTimer.DEFAULT_IDLE_MS;
+  private volatile long readTimeoutMs = KeepAliveTimer.DEFAULT_READ_TIMEOUT_MS;
+  private volatile long[] statsWindowsMs = DEFAULT_STATS_WINDOWS_MS;
   private volatile boolean running;
 
   /**
@@ -32,9 +68,35 @@ public class ControlPanel extends Node {
    * @param nodeId unique identifier for this control panel.
    */
   public ControlPanel(String nodeId) {
+    this(nodeId, ThreadMode.PLATFORM);
+  }
+
+  /**
+   * Creates a control panel whose sensor node clients run on the given kind of
+   * thread. Use {@link ThreadMode#VIRTUAL} when connecting to many nodes.
+   *
+   * @param nodeId     unique identifier for this control panel.
+   * @param threadMode kind of thread used per sensor node connection
+   */
+  public ControlPanel(String nodeId, ThreadMode threadMode) {
+    this(nodeId, threadMode, DataEncoding.TEXT);
+  }
+
+  /**
+   * Creates a control panel that asks sensor nodes for the given DATA
+   * encoding. {@link DataEncoding#BINARY} saves bandwidth and parsing for large
+   * nodes; nodes that do not support it keep sending text.
+   *
+   * @param nodeId       unique identifier for this control panel.
+   * @param threadMode   kind of thread used per sensor node connection
+   * @param dataEncoding encoding requested from each sensor node
+   */
+  public ControlPanel(String nodeId, ThreadMode threadMode, DataEncoding dataEncoding) {
     super(nodeId, NodeType.CONTROL);
     this.sensorClients = new ConcurrentHashMap<>();
     this.dataCache = new ConcurrentHashMap<>();
+    this.threadMode = threadMode == null ? ThreadMode.PLATFORM : threadMode;
+    this.dataEncoding = dataEncoding == null ? DataEncoding.TEXT : dataEncoding;
     this.running = true;
   }
 
@@ -42,14 +104,58 @@ public class ControlPanel extends Node {
    * Helper class to cache data from node.
    */
   public static class NodeData {
+    private static final String[] SENSOR_TYPE_NAMES = typeNames(SensorType.values());
+    private static final String[] ACTUATOR_TYPE_NAMES = typeNames(ActuatorType.values());
+
+    private final Map<String, SensorSlot> sensors;
+    private final Map<String, ActuatorSlot> actuators;
     private final Map<String, Double> sensorReadings;
     private final Map<String, Boolean> actuatorStates;
-    private final Map<String, Long> sensorUpdatedAt;
-    private final Map<String, Long> actuatorUpdatedAt;
-    private final Map<String, java.util.Deque<SensorSample>> sensorHistory;
     private long lastUpdate;
     private static final long HISTORY_WINDOW_MS = 5 * 60 * 1000; // 5 minutes (default value)
+    private static final long HISTORY_MIN_INTERVAL_MS = 10; // bounds the ring size per sensor
+    private final long[] statsWindowsMs;
     private final String nodeId;
+    private final List<SensorDataListener> dataListeners;
+    private final DeviceDictionary dictionary = new DeviceDictionary();
+    private final BinaryDataDecoder binaryDecoder = new BinaryDataDecoder();
+    private final TextDataParser textParser =
+        new TextDataParser(SENSOR_TYPE_NAMES, ACTUATOR_TYPE_NAMES);
+    private final DeviceKeyInterner[] sensorKeys = interners(SENSOR_TYPE_NAMES);
+    private final DeviceKeyInterner[] actuatorKeys = interners(ACTUATOR_TYPE_NAMES);
+    private final DataVisitor dataVisitor = new DataVisitor() {
+      @Override
+      public void onReading(int typeOrdinal, CharSequence deviceId, double value,
+          long timestamp) {
+        if (typeOrdinal < sensorKeys.length) {
+          updateSensor(sensorKeys[typeOrdinal].intern(deviceId), value);
+        }
+      }
+
+      @Override
+      public void onActuatorState(int typeOrdinal, CharSequence deviceId, boolean on,
+          long timestamp) {
+        if (typeOrdinal < actuatorKeys.length) {
+          updateActuator(actuatorKeys[typeOrdinal].intern(deviceId), on);
+        }
+      }
+
+      @Override
+      public void onIndexedReading(int index, double value, long timestamp) {
+        String key = resolveIndex(index);
+        if (key != null) {
+          updateSensor(key, value);
+        }
+      }
+
+      @Override
+      public void onIndexedActuatorState(int index, boolean on, long timestamp) {
+        String key = resolveIndex(index);
+        if (key != null) {
+          updateActuator(key, on);
+        }
+      }
+    };
 
     /**
      * Creates a new NodeData cache for the specified node.
@@ -57,31 +163,64 @@ public class ControlPanel extends Node {
      * @param nodeId the ID of the node
      */
     public NodeData(String nodeId) {
+      this(nodeId, List.of());
+    }
+
+    /**
+     * Creates a new NodeData cache that reports every sensor reading to the
+     * given listeners.
+     * 
+     * @param nodeId        the ID of the node
+     * @param dataListeners listeners notified after each reading is cached
+     */
+    public NodeData(String nodeId, List<SensorDataListener> dataListeners) {
+      this(nodeId, dataListeners, DEFAULT_STATS_WINDOWS_MS);
+    }
+
+    /**
+     * Creates a new NodeData cache that keeps constant-time statistics over
+     * the given windows.
+     * 
+     * @param nodeId         the ID of the node
+     * @param dataListeners  listeners notified after each reading is cached
+     * @param statsWindowsMs windows, in milliseconds, to keep per-sensor
+     *                       statistics for
+     */
+    public NodeData(String nodeId, List<SensorDataListener> dataListeners,
+        long[] statsWindowsMs) {
       this.nodeId = nodeId;
-      this.sensorReadings = new ConcurrentHashMap<>();
-      this.actuatorStates = new ConcurrentHashMap<>();
-      this.sensorUpdatedAt = new ConcurrentHashMap<>();
-      this.actuatorUpdatedAt = new ConcurrentHashMap<>();
-      this.sensorHistory = new ConcurrentHashMap<>();
+      this.dataListeners = dataListeners;
+      this.statsWindowsMs = statsWindowsMs.clone();
+      this.sensors = new ConcurrentHashMap<>();
+      this.actuators = new ConcurrentHashMap<>();
+      this.sensorReadings = new SlotMapView<>(sensors, SensorSlot::getValue);
+      this.actuatorStates = new SlotMapView<>(actuators, ActuatorSlot::isOn);
       this.lastUpdate = System.currentTimeMillis();
     }
 
     /**
-     * Updates a sensor reading.
+     * Updates a sensor reading. Called from the node's connection thread only,
+     * since the per-sensor history has a single writer.
      * 
      * @param type  the sensor type
      * @param value the new sensor value
      */
     public void updateSensor(String type, double value) {
-      sensorReadings.put(type, value);
       long now = System.currentTimeMillis();
-      sensorUpdatedAt.put(type, now);
-      java.util.Deque<SensorSample> history = sensorHistory.computeIfAbsent(type,
-          k -> new java.util.concurrent.ConcurrentLinkedDeque<>());
-      history.addLast(new SensorSample(value, now));
-      pruneHistory(history, now);
+      SensorSlot slot = sensors.get(type);
+      if (slot == null) {
+        slot = new SensorSlot(statsWindowsMs);
+        slot.set(value, now); // published complete
+        sensors.put(type, slot);
+      } else {
+        slot.set(value, now);
+      }
+      slot.add(now, value);
       lastUpdate = now;
       SensorHistoryWriter.recordSample(nodeId, type, value, now);
+      for (SensorDataListener listener : dataListeners) {
+        listener.onSensorData(nodeId, type, value, now);
+      }
     }
 
     /**
@@ -91,15 +230,117 @@ public class ControlPanel extends Node {
      * @param state the new actuator state
      */
     public void updateActuator(String type, boolean state) {
-      actuatorStates.put(type, state);
-      actuatorUpdatedAt.put(type, System.currentTimeMillis());
-      lastUpdate = System.currentTimeMillis();
+      long now = System.currentTimeMillis();
+      ActuatorSlot slot = actuators.get(type);
+      if (slot == null) {
+        slot = new ActuatorSlot();
+        slot.set(state, now);
+        actuators.put(type, slot);
+      } else {
+        slot.set(state, now);
+      }
+      lastUpdate = now;
+    }
+
+    /**
+     * Applies a binary DATA frame to the cache.
+     * 
+     * <p>Records with a type this control panel does not know are skipped. A
+     * frame without records only refreshes the last update time.
+     * 
+     * @param frame the frame payload, between position and limit
+     * @throws IllegalArgumentException if the frame is malformed
+     */
+    public void applyBinaryData(ByteBuffer frame) {
+      if (binaryDecoder.decode(frame, dataVisitor) == 0) {
+        touch();
+      }
+    }
+
+    /**
+     * Applies a text DATA frame ({@code DATA|nodeId|data}) to the cache,
+     * reading entries straight from the frame bytes.
+     * 
+     * <p>Entries with an unknown type or an invalid value are skipped. A frame
+     * without entries only refreshes the last update time.
+     * 
+     * @param frame the frame payload, between position and limit
+     * @return the number of skipped entries
+     */
+    public int applyTextData(ByteBuffer frame) {
+      if (textParser.parseFrame(frame, dataVisitor) == 0) {
+        touch();
+      }
+      return textParser.getSkippedCount();
+    }
+
+    /**
+     * Applies the data field of a text DATA message to the cache.
+     * 
+     * @param data the data field ({@code key:value,...})
+     * @return the number of skipped entries
+     */
+    public int applyTextData(String data) {
+      if (textParser.parse(data, dataVisitor) == 0) {
+        touch();
+      }
+      return textParser.getSkippedCount();
+    }
+
+    /**
+     * Applies device dictionary entries sent by the node.
+     * 
+     * @param entries the DICT message data ({@code index:type#id,...})
+     * @throws IllegalArgumentException if an entry is malformed
+     */
+    public void applyDictionary(String entries) {
+      dictionary.apply(entries);
+    }
+
+    /**
+     * Resolves a dictionary index to its protocol key.
+     * 
+     * @param index the index sent by the node
+     * @return the key ({@code type#id}), or null if the index is unknown
+     */
+    public String resolveIndex(int index) {
+      String key = dictionary.getProtocolKey(index);
+      if (key == null) {
+        LOGGER.warn("Unknown device index {} from {}", index, nodeId);
+      }
+      return key;
     }
 
+    private static DeviceKeyInterner[] interners(String[] typeNames) {
+      DeviceKeyInterner[] interners = new DeviceKeyInterner[typeNames.length];
+      for (int i = 0; i < typeNames.length; i++) {
+        interners[i] = new DeviceKeyInterner(typeNames[i]);
+      }
+      return interners;
+    }
+
+    private static String[] typeNames(Enum<?>[] types) {
+      String[] names = new String[types.length];
+      for (int i = 0; i < types.length; i++) {
+        names[i] = types[i].name().toLowerCase(Locale.ROOT);
+      }
+      return names;
+    }
+
+    /**
+     * Returns a read-only live view of the latest sensor values.
+     * 
+     * @return sensor keys mapped to their latest values
+     */
     public Map<String, Double> getSensorReadings() {
       return sensorReadings;
     }
 
+    /**
+     * Returns a read-only live view of the latest actuator states.
+     * 
+     * @return actuator keys mapped to their latest states
+     */
     public Map<String, Boolean> getActuatorStates() {
       return actuatorStates;
     }
@@ -115,9 +356,7 @@ public class ControlPanel extends Node {
      */
     public void removeSensor(String key) {
       if (key != null) {
-        sensorReadings.remove(key);
-        sensorUpdatedAt.remove(key);
-        sensorHistory.remove(key);
+        sensors.remove(key);
       }
     }
 
@@ -128,8 +367,7 @@ public class ControlPanel extends Node {
      */
     public void removeActuator(String key) {
       if (key != null) {
-        actuatorStates.remove(key);
-        actuatorUpdatedAt.remove(key);
+        actuators.remove(key);
       }
     }
 
@@ -147,7 +385,8 @@ public class ControlPanel extends Node {
      * @return the last updated timestamp in milliseconds
      */
     public long getSensorUpdatedAt(String key) {
-      return sensorUpdatedAt.getOrDefault(key, 0L);
+      SensorSlot slot = sensors.get(key);
+      return slot == null ? 0L : slot.getUpdatedAt();
     }
 
     /**
@@ -157,49 +396,259 @@ public class ControlPanel extends Node {
      * @return the last updated timestamp in milliseconds
      */
     public long getActuatorUpdatedAt(String key) {
-      return actuatorUpdatedAt.getOrDefault(key, 0L);
+      ActuatorSlot slot = actuators.get(key);
+      return slot == null ? 0L : slot.getUpdatedAt();
     }
 
     /**
      * Calculates the average value of a sensor over a time window.
      * 
+     * <p>Constant time for the windows this cache keeps statistics for;
+     * other windows are averaged from the last five minutes of samples.
+     * 
      * @param key      the sensor key
      * @param windowMs the time window in milliseconds
      * @return the average value, or Double.NaN if no data
      */
     public double getSensorAverage(String key, long windowMs) {
-      java.util.Deque<SensorSample> history = sensorHistory.get(key);
-      if (history == null || history.isEmpty()) {
+      SensorSlot slot = sensors.get(key);
+      if (slot == null) {
         return Double.NaN;
       }
-      long cutoff = System.currentTimeMillis() - windowMs;
-      double sum = 0.0;
-      int count = 0;
-      for (SensorSample sample : history) {
-        if (sample.timestamp >= cutoff) {
-          sum += sample.value;
-          count++;
+      long now = System.currentTimeMillis();
+      SlidingWindowStats window = slot.window(windowMs);
+      if (window != null) {
+        return window.getAverage(now);
+      }
+      return slot.history.average(now - windowMs);
+    }
+
+    /**
+     * Returns the running statistics of a sensor over one of the configured
+     * windows.
+     * 
+     * @param key      the sensor key
+     * @param windowMs the window in milliseconds
+     * @return the statistics, or null if the sensor has no data or the window
+     *         is not configured
+     */
+    public SlidingWindowStats getSensorStats(String key, long windowMs) {
+      SensorSlot slot = sensors.get(key);
+      return slot == null ? null : slot.window(windowMs);
+    }
+
+    /**
+     * Returns a quantile sketch of a sensor's readings over a recent window,
+     * exact to one minute and covering at most the last hour. The sketch is a
+     * copy: it can be merged with sketches of other sensors or nodes.
+     * 
+     * @param key      the sensor key
+     * @param windowMs the time window in milliseconds
+     * @return the sketch, or null if the sensor has no data
+     */
+    public QuantileSketch getSensorQuantiles(String key, long windowMs) {
+      SensorSlot slot = sensors.get(key);
+      if (slot == null) {
+        return null;
+      }
+      long now = System.currentTimeMillis();
+      return slot.quantiles.query(now - windowMs, now);
+    }
+
+    /**
+     * Returns a percentile of a sensor's readings over a recent window, such
+     * as the median (0.5) or p99 (0.99), within 1% of a real reading.
+     * 
+     * @param key      the sensor key
+     * @param quantile the quantile, from 0 to 1
+     * @param windowMs the time window in milliseconds
+     * @return the value, or Double.NaN if no data
+     */
+    public double getSensorQuantile(String key, double quantile, long windowMs) {
+      QuantileSketch sketch = getSensorQuantiles(key, windowMs);
+      return sketch == null ? Double.NaN : sketch.getQuantile(quantile);
+    }
+
+    /**
+     * Merges the recent sketches of every sensor of one type into a sketch.
+     */
+    void mergeQuantiles(String typeName, QuantileSketch target, long fromMs, long toMs) {
+      for (Map.Entry<String, SensorSlot> entry : sensors.entrySet()) {
+        String key = entry.getKey();
+        if (key.startsWith(typeName) && (key.length() == typeName.length()
+            || key.charAt(typeName.length()) == '#')) {
+          entry.getValue().quantiles.mergeInto(target, fromMs, toMs);
         }
       }
-      if (count == 0) {
-        return Double.NaN;
+    }
+
+    /**
+     * Latest value, recent samples, windowed statistics and quantile
+     * sketches of one sensor, so a reading costs one map lookup.
+     * 
+     * <p>Only the connection thread writes. It stores the value and then
+     * releases the timestamp; readers acquire the timestamp before reading
+     * the value, so they see a value at least as new as the timestamp.
+     */
+    private static final class SensorSlot {
+      private static final VarHandle VALUE;
+      private static final VarHandle UPDATED_AT;
+
+      static {
+        try {
+          MethodHandles.Lookup lookup = MethodHandles.lookup();
+          VALUE = lookup.findVarHandle(SensorSlot.class, "value", double.class);
+          UPDATED_AT = lookup.findVarHandle(SensorSlot.class, "updatedAt", long.class);
+        } catch (ReflectiveOperationException e) {
+          throw new ExceptionInInitializerError(e);
+        }
+      }
+
+      final SampleRingBuffer history =
+          new SampleRingBuffer(HISTORY_WINDOW_MS, HISTORY_MIN_INTERVAL_MS);
+      final WindowedQuantileSketch quantiles = new WindowedQuantileSketch();
+      final SlidingWindowStats[] windows;
+      private double value;
+      private long updatedAt;
+
+      SensorSlot(long[] windowsMs) {
+        windows = new SlidingWindowStats[windowsMs.length];
+        for (int i = 0; i < windowsMs.length; i++) {
+          windows[i] = new SlidingWindowStats(windowsMs[i]);
+        }
+      }
+
+      void set(double value, long timestamp) {
+        VALUE.setOpaque(this, value);
+        UPDATED_AT.setRelease(this, timestamp);
+      }
+
+      double getValue() {
+        UPDATED_AT.getAcquire(this);
+        return (double) VALUE.getOpaque(this);
+      }
+
+      long getUpdatedAt() {
+        return (long) UPDATED_AT.getAcquire(this);
+      }
+
+      void add(long timestamp, double value) {
+        history.add(timestamp, value);
+        quantiles.add(timestamp, value);
+        for (SlidingWindowStats window : windows) {
+          window.add(timestamp, value);
+        }
+      }
+
+      SlidingWindowStats window(long windowMs) {
+        for (SlidingWindowStats window : windows) {
+          if (window.getWindowMs() == windowMs) {
+            return window;
+          }
+        }
+        return null;
       }
-      return sum / count;
     }
 
-    private void pruneHistory(java.util.Deque<SensorSample> history, long now) {
-      while (!history.isEmpty() && now - history.peekFirst().timestamp > HISTORY_WINDOW_MS) {
-        history.pollFirst();
+    /**
+     * Latest state of one actuator, published like {@link SensorSlot}.
+     */
+    private static final class ActuatorSlot {
+      private static final VarHandle ON;
+      private static final VarHandle UPDATED_AT;
+
+      static {
+        try {
+          MethodHandles.Lookup lookup = MethodHandles.lookup();
+          ON = lookup.findVarHandle(ActuatorSlot.class, "on", boolean.class);
+          UPDATED_AT = lookup.findVarHandle(ActuatorSlot.class, "updatedAt", long.class);
+        } catch (ReflectiveOperationException e) {
+          throw new ExceptionInInitializerError(e);
+        }
+      }
+
+      private boolean on;
+      private long updatedAt;
+
+      void set(boolean on, long timestamp) {
+        ON.setOpaque(this, on);
+        UPDATED_AT.setRelease(this, timestamp);
+      }
+
+      boolean isOn() {
+        UPDATED_AT.getAcquire(this);
+        return (boolean) ON.getOpaque(this);
+      }
+
+      long getUpdatedAt() {
+        return (long) UPDATED_AT.getAcquire(this);
       }
     }
 
-    private static class SensorSample {
-      final double value;
-      final long timestamp;
+    /**
+     * Read-only map view of slots, boxing one field only when it is read.
+     */
+    private static final class SlotMapView<S, V> extends AbstractMap<String, V> {
+      private final Map<String, S> slots;
+      private final Function<S, V> field;
+
+      SlotMapView(Map<String, S> slots, Function<S, V> field) {
+        this.slots = slots;
+        this.field = field;
+      }
+
+      @Override
+      public V get(Object key) {
+        S slot = slots.get(key);
+        return slot == null ? null : field.apply(slot);
+      }
+
+      @Override
+      public boolean containsKey(Object key) {
+        return slots.containsKey(key);
+      }
 
-      SensorSample(double value, long timestamp) {
-        this.value = value;
-        this.timestamp = timestamp;
+      @Override
+      public int size() {
+        return slots.size();
+      }
+
+      @Override
+      public boolean isEmpty() {
+        return slots.isEmpty();
+      }
+
+      @Override
+      public Set<String> keySet() {
+        return Collections.unmodifiableSet(slots.keySet());
+      }
+
+      @Override
+      public Set<Map.Entry<String, V>> entrySet() {
+        return new AbstractSet<>() {
+          @Override
+          public Iterator<Map.Entry<String, V>> iterator() {
+            Iterator<Map.Entry<String, S>> it = slots.entrySet().iterator();
+            return new Iterator<>() {
+              @Override
+              public boolean hasNext() {
+                return it.hasNext();
+              }
+
+              @Override
+              public Map.Entry<String, V> next() {
+                Map.Entry<String, S> entry = it.next();
+                return new AbstractMap.SimpleImmutableEntry<>(entry.getKey(),
+                    field.apply(entry.getValue()));
+              }
+            };
+          }
+
+          @Override
+          public int size() {
+            return slots.size();
+          }
+        };
       }
     }
   }
@@ -220,9 +669,10 @@ public class ControlPanel extends Node {
       return;
     }
 
-    SensorNodeClient client = new SensorNodeClient(sensorNodeId, host, port, this);
+    SensorNodeClient client = new SensorNodeClient(sensorNodeId, host, port, this, threadMode,
+        dataEncoding);
     sensorClients.put(sensorNodeId, client);
-    dataCache.put(sensorNodeId, new NodeData(sensorNodeId));
+    dataCache.put(sensorNodeId, new NodeData(sensorNodeId, dataListeners, statsWindowsMs));
     client.start();
 
     LOGGER.info("Connecting to sensor node {} at {}:{}", sensorNodeId, host, port);
@@ -348,16 +798,169 @@ public class ControlPanel extends Node {
           LOGGER.trace("Heartbeat from {}", sensorNodeId);
         }
       }
+      case KEEPALIVE -> {
+        parseAndCacheData(sensorNodeId, null);
+        LOGGER.trace("Keepalive from {}", sensorNodeId);
+      }
       case SUCCESS ->
           LOGGER.info("Command successful from {}: {}", sensorNodeId, msg.getData());
       case FAILURE ->
           LOGGER.warn("Command failed from {}: {}", sensorNodeId, msg.getData());
       case ERROR -> LOGGER.error("Error reported from {}: {}", sensorNodeId, msg.getData());
+      case DICT -> {
+        NodeData nodeData = dataCache.get(sensorNodeId);
+        if (nodeData == null) {
+          return;
+        }
+        try {
+          nodeData.applyDictionary(msg.getData());
+        } catch (IllegalArgumentException e) {
+          LOGGER.warn("Invalid dictionary from {}: {}", sensorNodeId, e.getMessage());
+        }
+      }
       default ->
           LOGGER.info("{} from {}, payload: {}", type, sensorNodeId, msg.getData());
     }
   }
 
+  /**
+   * Registers a listener notified of every sensor reading cached from any
+   * connected node.
+   *
+   * @param listener the listener to add; ignored if null
+   */
+  public void addSensorDataListener(SensorDataListener listener) {
+    if (listener != null) {
+      dataListeners.add(listener);
+    }
+  }
+
+  /**
+   * Unregisters a sensor data listener.
+   *
+   * @param listener the listener to remove
+   */
+  public void removeSensorDataListener(SensorDataListener listener) {
+    dataListeners.remove(listener);
+  }
+
+  /**
+   * Sets the windows new connections keep constant-time sensor statistics
+   * for (see {@link NodeData#getSensorStats}). The default is five minutes,
+   * the window the sensor view averages over; longer windows such as one hour
+   * or one day cost the same per reading.
+   *
+   * @param windowsMs the windows in milliseconds, each at least 60 ms
+   * @throws IllegalArgumentException if a window is shorter than 60 ms
+   */
+  public void setSensorStatsWindows(long... windowsMs) {
+    for (long windowMs : windowsMs) {
+      if (windowMs < SlidingWindowStats.DEFAULT_SLICES) {
+        throw new IllegalArgumentException("Statistics window too short: " + windowMs);
+      }
+    }
+    this.statsWindowsMs = windowsMs.clone();
+  }
+
+  /**
+   * Sets whether new connections ask nodes for a device dictionary, so DATA
+   * refers to devices by small index instead of the full key. Disabled by
+   * default so text DATA stays readable; worth enabling for nodes with many
+   * devices.
+   *
+   * @param enabled true to request a dictionary
+   */
+  public void setDeviceDictionaryEnabled(boolean enabled) {
+    this.deviceDictionaryEnabled = enabled;
+  }
+
+  /**
+   * Returns whether new connections ask nodes for a device dictionary.
+   *
+   * @return true if a dictionary is requested
+   */
+  public boolean isDeviceDictionaryEnabled() {
+    return deviceDictionaryEnabled;
+  }
+
+  /**
+   * Sets when connections send a KEEPALIVE and when they give up on a silent
+   * node. A KEEPALIVE only goes out after nothing was sent for
+   * {@code idleMs}; a connection that received nothing for
+   * {@code readTimeoutMs} is closed. Applies to new connections.
+   *
+   * @param idleMs        time without sending before a KEEPALIVE is sent
+   * @param readTimeoutMs time without receiving before the connection is
+   *                      closed, or 0 to never close it
+   * @throws IllegalArgumentException if idleMs is not positive or
+   *                                  readTimeoutMs is negative
+   */
+  public void setKeepAlive(long idleMs, long readTimeoutMs) {
+    if (idleMs <= 0 || readTimeoutMs < 0) {
+      throw new IllegalArgumentException("Invalid keepalive settings");
+    }
+    this.keepAliveIdleMs = idleMs;
+    this.readTimeoutMs = readTimeoutMs;
+  }
+
+  /**
+   * Returns the time without sending after which a KEEPALIVE is sent.
+   *
+   * @return the idle time in milliseconds
+   */
+  public long getKeepAliveIdleMs() {
+    return keepAliveIdleMs;
+  }
+
+  /**
+   * Returns the time without receiving after which a connection is closed.
+   *
+   * @return the read timeout in milliseconds, 0 if connections never time out
+   */
+  public long getReadTimeoutMs() {
+    return readTimeoutMs;
+  }
+
+  /**
+   * Callback from SensorNodeClient when a binary DATA frame is received.
+   *
+   * @param sensorNodeId the ID of the sensornode
+   * @param frame        the frame payload, only valid during the call
+   */
+  public void handleBinaryData(String sensorNodeId, ByteBuffer frame) {
+    NodeData nodeData = dataCache.get(sensorNodeId);
+    if (nodeData == null) {
+      return;
+    }
+    try {
+      nodeData.applyBinaryData(frame);
+    } catch (IllegalArgumentException e) {
+      LOGGER.warn("Invalid binary data from {}: {}", sensorNodeId, e.getMessage());
+    }
+  }
+
+  /**
+   * Callback from SensorNodeClient when a text DATA frame is received. The
+   * frame is parsed in place, without building a {@link Message} first.
+   *
+   * @param sensorNodeId the ID of the sensornode
+   * @param frame        the frame payload, only valid during the call
+   */
+  public void handleTextData(String sensorNodeId, ByteBuffer frame) {
+    NodeData nodeData = dataCache.get(sensorNodeId);
+    if (nodeData == null) {
+      return;
+    }
+    int skipped = nodeData.applyTextData(frame);
+    if (skipped > 0) {
+      LOGGER.warn("Skipped {} invalid data entries from {}", skipped, sensorNodeId);
+    }
+    if (LOGGER.isTraceEnabled()) {
+      LOGGER.trace("Received data from {}: {}", sensorNodeId,
+          StandardCharsets.UTF_8.decode(frame.duplicate()));
+    }
+  }
+
   /**
    * Parses data string and updates the cache.
    * Data format: "key:value,key:value..."
@@ -377,31 +980,9 @@ public class ControlPanel extends Node {
       return;
     }
 
-    String[] pairs = data.split(",");
-    for (String pair : pairs) {
-      String[] keyValue = pair.split(":");
-      if (keyValue.length != 2) {
-        LOGGER.warn("Invalid data format from {}: {}", sensorNodeId, pair);
-        continue;
-      }
-
-      DeviceKey parsedKey = DeviceKey.parse(keyValue[0]);
-      String key = parsedKey.toProtocolKey();
-      String value = keyValue[1].trim();
-
-      // Check if it's an actuator (0 or 1) FIRST
-      if (value.equals("0") || value.equals("1")) {
-        boolean state = value.equals("1");
-        nodeData.updateActuator(key, state);
-      } else {
-        // Otherwise treat as sensor
-        try {
-          double numericalValue = Double.parseDouble(value);
-          nodeData.updateSensor(key, numericalValue);
-        } catch (NumberFormatException e) {
-          LOGGER.warn("Could not parse value {} for key: {} (node {})", value, key, sensorNodeId);
-        }
-      }
+    int skipped = nodeData.applyTextData(data);
+    if (skipped > 0) {
+      LOGGER.warn("Skipped {} invalid data entries from {}", skipped, sensorNodeId);
     }
   }
 
@@ -416,6 +997,26 @@ public class ControlPanel extends Node {
     return dataCache.get(sensorNodeId);
   }
 
+  /**
+   * Returns a quantile sketch of every sensor of one type across all
+   * connected nodes over a recent window, for fleet-wide percentiles such as
+   * the p95 greenhouse temperature. Exact to one minute, covering at most
+   * the last hour.
+   *
+   * @param type     the sensor type
+   * @param windowMs the time window in milliseconds
+   * @return the merged sketch, empty if no such sensor has data
+   */
+  public QuantileSketch getSensorQuantiles(SensorType type, long windowMs) {
+    String typeName = type.name().toLowerCase(Locale.ROOT);
+    long now = System.currentTimeMillis();
+    QuantileSketch merged = new QuantileSketch();
+    for (NodeData data : dataCache.values()) {
+      data.mergeQuantiles(typeName, merged, now - windowMs, now);
+    }
+    return merged;
+  }
+
   /**
    * Removes cached sensor data for a given sensor node.
    * 
@@ -460,6 +1061,7 @@ public class ControlPanel extends Node {
     }
     sensorClients.clear();
     dataCache.clear();
+    SensorHistoryWriter.flush();
     LOGGER.info("Shutdown complete.");
   }
 
@@ -6,7 +6,11 @@ import group6.entity.device.actuator.Actuator;
 import group6.entity.device.sensor.Sensor;
 import group6.logic.DeviceRegistry;
 import group6.logic.DeviceUpdateTracker;
+import group6.logic.events.AsyncSensorNodeDispatcher;
 import group6.logic.events.SensorNodeUpdateListener;
+import group6.net.KeepAliveTimer;
+import group6.net.OverloadPolicy;
+import group6.protocol.DataVisitor;
 import group6.protocol.DeviceKey;
 import group6.protocol.SensorReading;
 import java.util.List;
@@ -22,6 +26,11 @@ import java.util.concurrent.CopyOnWriteArrayList;
  */
 public class SensorNode extends Node implements DeviceUpdateListener {
 
+  public static final long DEFAULT_PUSH_INTERVAL_MS = 50;
+  public static final int DEFAULT_PUSH_BATCH_SIZE = 256;
+  public static final long DEFAULT_OUTBOUND_LOW_WATERMARK = 256 * 1024;
+  public static final long DEFAULT_OUTBOUND_HIGH_WATERMARK = 1024 * 1024;
+
   /**
    * Distinguishes between sensor and actuator devices in internal helpers.
    */
@@ -33,8 +42,14 @@ public class SensorNode extends Node implements DeviceUpdateListener {
   private final DeviceRegistry<Actuator> actuators;
   private final DeviceRegistry<Sensor> sensors;
   private long interval = 5000;
+  private volatile long pushIntervalMs = DEFAULT_PUSH_INTERVAL_MS;
+  private volatile int pushBatchSize = DEFAULT_PUSH_BATCH_SIZE;
+  private volatile OutboundLimits outboundLimits = new OutboundLimits(
+      DEFAULT_OUTBOUND_LOW_WATERMARK, DEFAULT_OUTBOUND_HIGH_WATERMARK, OverloadPolicy.COALESCE);
+  private volatile long keepAliveIdleMs = KeepAliveTimer.DEFAULT_IDLE_MS;
+  private volatile long readTimeoutMs = KeepAliveTimer.DEFAULT_READ_TIMEOUT_MS;
   private final DeviceUpdateTracker updateTracker;
-  private final List<SensorNodeUpdateListener> updateListeners = new CopyOnWriteArrayList<>();
+  private final List<AsyncSensorNodeDispatcher> updateListeners = new CopyOnWriteArrayList<>();
 
   /**
    * Creates a new {@code SensorNode} with the given ID.
@@ -218,6 +233,41 @@ public class SensorNode extends Node implements DeviceUpdateListener {
     return status.toString();
   }
 
+  /**
+   * Writes all current sensor readings to the given visitor.
+   * 
+   * <p>Structured counterpart of {@link #getSensorSnapshot()}, used to build
+   * binary DATA frames. Actuator effects are applied first.
+   *
+   * @param out receives one reading per sensor
+   */
+  public void writeSensorSnapshot(DataVisitor out) {
+    applyActuatorEffects();
+    for (Sensor sensor : sensors.snapshot()) {
+      writeReading(sensor, out);
+    }
+  }
+
+  /**
+   * Writes all actuator states to the given visitor.
+   * 
+   * <p>Structured counterpart of {@link #getActuatorSnapshot()}.
+   *
+   * @param out receives one state per actuator
+   */
+  public void writeActuatorSnapshot(DataVisitor out) {
+    for (Actuator actuator : actuators.snapshot()) {
+      out.onActuatorState(actuator.getDeviceType().ordinal(),
+          normalizeId(actuator.getDeviceId()), actuator.getState(),
+          updateTracker.getTimestamp(actuator.getDeviceId()));
+    }
+  }
+
+  private void writeReading(Sensor sensor, DataVisitor out) {
+    out.onReading(sensor.getDeviceType().ordinal(), normalizeId(sensor.getDeviceId()),
+        sensor.getCurrentValue(), updateTracker.getTimestamp(sensor.getDeviceId()));
+  }
+
   // ------- Public Helpers -------
 
   /**
@@ -228,15 +278,7 @@ public class SensorNode extends Node implements DeviceUpdateListener {
    * @return the matching actuator, or null if none matches
    */
   public Actuator findActuatorByType(String typeName) {
-    if (typeName == null) {
-      return null;
-    }
-    for (Actuator actuator : actuators.snapshot()) {
-      if (actuator.getDeviceType().toString().equalsIgnoreCase(typeName)) {
-        return actuator;
-      }
-    }
-    return null;
+    return actuators.findByType(typeName);
   }
 
   /**
@@ -247,22 +289,14 @@ public class SensorNode extends Node implements DeviceUpdateListener {
    * @return the matching actuator, or null if none matches
    */
   public Actuator findActuatorByDeviceId(String deviceId) {
-    if (deviceId == null) {
-      return null;
-    }
-    for (Actuator actuator : actuators.snapshot()) {
-      if (actuator.getDeviceId().equalsIgnoreCase(deviceId)) {
-        return actuator;
-      }
-    }
-    return null;
+    return actuators.findById(deviceId);
   }
 
   /**
    * Returns the list of actuators associated with this node.
    * 
-   * <p>The returned list is the internal collection and can be modified. It is
-   * the caller's responsibility to avoid concurrent modification issues.
+   * <p>The returned list is a read-only snapshot; it does not change when
+   * actuators are added or removed later.
    *
    * @return the list of actuators
    */
@@ -273,8 +307,8 @@ public class SensorNode extends Node implements DeviceUpdateListener {
   /**
    * Returns the list of sensors associated with this node.
    * 
-   * <p>The returned list is the internal collection and can be modified. It is
-   * the caller's responsibility to avoid concurrent modification issues.
+   * <p>The returned list is a read-only snapshot; it does not change when
+   * sensors are added or removed later.
    *
    * @return the list of sensors
    */
@@ -305,6 +339,149 @@ public class SensorNode extends Node implements DeviceUpdateListener {
     this.interval = interval;
   }
 
+  /**
+   * Sets how sessions coalesce sensor updates into DATA frames.
+   *
+   * <p>Updates are collected and sent together at most once per interval, or
+   * as soon as the given number of updates has accumulated. An interval of 0
+   * sends every update as it happens.
+   *
+   * @param intervalMs minimum time between sensor pushes in milliseconds
+   * @param batchSize  number of updates that triggers an early push
+   *
+   * @throws IllegalArgumentException if intervalMs is negative or batchSize
+   *                                  is not positive
+   */
+  public void setPushCoalescing(long intervalMs, int batchSize) {
+    if (intervalMs < 0 || batchSize < 1) {
+      throw new IllegalArgumentException("Invalid push coalescing settings");
+    }
+    this.pushIntervalMs = intervalMs;
+    this.pushBatchSize = batchSize;
+  }
+
+  /**
+   * Returns the minimum time between sensor pushes.
+   *
+   * @return the push interval in milliseconds, 0 if not coalesced
+   */
+  public long getPushIntervalMs() {
+    return pushIntervalMs;
+  }
+
+  /**
+   * Returns the number of sensor updates that triggers an early push.
+   *
+   * @return the push batch size
+   */
+  public int getPushBatchSize() {
+    return pushBatchSize;
+  }
+
+  /**
+   * Sets how much each session may queue for a control panel that reads
+   * slower than this node sends, and what happens beyond that.
+   *
+   * <p>When a session's queued bytes pass the high watermark it is overloaded
+   * and the policy decides what happens to sensor deltas, until the queue is
+   * back under the low watermark. Replies and actuator states are still
+   * queued, but a session whose queue would pass four times the high
+   * watermark is closed whatever the policy.
+   *
+   * @param lowWatermarkBytes  queued bytes at which an overload ends
+   * @param highWatermarkBytes queued bytes above which a session is overloaded
+   * @param policy             what to do with an overloaded session
+   *
+   * @throws IllegalArgumentException if a watermark is negative, the low
+   *                                  watermark is above the high one, or the
+   *                                  policy is null
+   */
+  public void setOutboundLimits(long lowWatermarkBytes, long highWatermarkBytes,
+      OverloadPolicy policy) {
+    if (lowWatermarkBytes < 0 || highWatermarkBytes < lowWatermarkBytes || policy == null) {
+      throw new IllegalArgumentException("Invalid outbound queue limits");
+    }
+    this.outboundLimits = new OutboundLimits(lowWatermarkBytes, highWatermarkBytes, policy);
+  }
+
+  /**
+   * Returns the queued bytes at which a session's overload ends.
+   *
+   * @return the low watermark in bytes
+   */
+  public long getOutboundLowWatermark() {
+    return outboundLimits.lowWatermark();
+  }
+
+  /**
+   * Returns the queued bytes above which a session is overloaded.
+   *
+   * @return the high watermark in bytes
+   */
+  public long getOutboundHighWatermark() {
+    return outboundLimits.highWatermark();
+  }
+
+  /**
+   * Returns what happens to a session that passes the high watermark.
+   *
+   * @return the overload policy
+   */
+  public OverloadPolicy getOverloadPolicy() {
+    return outboundLimits.policy();
+  }
+
+  /**
+   * Sets when sessions send a KEEPALIVE and when they give up on a silent
+   * control panel.
+   *
+   * <p>A KEEPALIVE only goes out after the session has sent nothing for
+   * {@code idleMs}, so busy sessions never send one. A session that has
+   * received nothing for {@code readTimeoutMs} is closed, but only if its
+   * control panel announced keepalives in the HELLO; older control panels
+   * stay quiet when idle and are never timed out. This should be well above
+   * the control panels' idle time. Applies to sessions opened afterwards.
+   *
+   * @param idleMs        time without sending before a KEEPALIVE is sent
+   * @param readTimeoutMs time without receiving before the session is
+   *                      closed, or 0 to never close it
+   *
+   * @throws IllegalArgumentException if idleMs is not positive or
+   *                                  readTimeoutMs is negative
+   */
+  public void setKeepAlive(long idleMs, long readTimeoutMs) {
+    if (idleMs <= 0 || readTimeoutMs < 0) {
+      throw new IllegalArgumentException("Invalid keepalive settings");
+    }
+    this.keepAliveIdleMs = idleMs;
+    this.readTimeoutMs = readTimeoutMs;
+  }
+
+  /**
+   * Returns the time without sending after which a KEEPALIVE is sent.
+   *
+   * @return the idle time in milliseconds
+   */
+  public long getKeepAliveIdleMs() {
+    return keepAliveIdleMs;
+  }
+
+  /**
+   * Returns the time without receiving after which a session is closed.
+   *
+   * @return the read timeout in milliseconds, 0 if sessions never time out
+   */
+  public long getReadTimeoutMs() {
+    return readTimeoutMs;
+  }
+
+  /**
+   * Outbound queue settings, replaced as a whole so readers see a
+   * consistent set.
+   */
+  private record OutboundLimits(long lowWatermark, long highWatermark, OverloadPolicy policy) {
+  }
+
   // ------- Simulation Effects -------
 
   /**
@@ -337,7 +514,8 @@ public class SensorNode extends Node implements DeviceUpdateListener {
    * 
    * <p>This method records the update timestamp and notifies registered
    * {@link SensorNodeUpdateListener}s depending on whether a sensor or
-   * actuator was updated.
+   * actuator was updated. Listeners are called asynchronously, so a slow
+   * listener never holds up the device's thread.
    *
    * @param device the updated device, or null
    */
@@ -349,13 +527,13 @@ public class SensorNode extends Node implements DeviceUpdateListener {
 
     if (device instanceof Sensor) {
       updateTracker.recordSensorUpdate(device.getDeviceId());
-      for (SensorNodeUpdateListener listener : updateListeners) {
+      for (AsyncSensorNodeDispatcher listener : updateListeners) {
         listener.onSensorsUpdated(this);
       }
     } else if (device instanceof Actuator) {
       updateTracker.recordActuatorUpdate(device.getDeviceId());
       applyActuatorEffects();
-      for (SensorNodeUpdateListener listener : updateListeners) {
+      for (AsyncSensorNodeDispatcher listener : updateListeners) {
         listener.onActuatorsUpdated(this);
       }
     }
@@ -379,21 +557,30 @@ public class SensorNode extends Node implements DeviceUpdateListener {
    * Registers a listener to receive sensor and actuator update events
    * from this node.
    *
+   * <p>Events are delivered through an {@link AsyncSensorNodeDispatcher}: on
+   * another thread, one at a time per listener, with repeated events of the
+   * same kind coalesced while the listener is busy.
+   *
    * @param listener the listener to register; ignored if null
    */
   public void addUpdateListener(SensorNodeUpdateListener listener) {
     if (listener != null) {
-      updateListeners.add(listener);
+      updateListeners.add(new AsyncSensorNodeDispatcher(listener));
     }
   }
 
   /**
-   * Unregisters a previously registered update listener.
+   * Unregisters a previously registered update listener. Events not yet
+   * delivered to it are dropped.
    *
    * @param listener the listener to remove; no effect if not registered
    */
   public void removeUpdateListener(SensorNodeUpdateListener listener) {
-    updateListeners.remove(listener);
+    for (AsyncSensorNodeDispatcher dispatcher : updateListeners) {
+      if (dispatcher.getTarget() == listener && updateListeners.remove(dispatcher)) {
+        dispatcher.close();
+      }
+    }
   }
 
   // ------- Pending sensor data -------
@@ -416,9 +603,12 @@ public class SensorNode extends Node implements DeviceUpdateListener {
     }
 
     StringBuilder data = new StringBuilder();
-    for (Sensor sensor : sensors.snapshot()) {
-      String deviceKey = normalizeId(sensor.getDeviceId());
-      if (!updateTracker.consumePendingSensor(deviceKey)) {
+    String deviceId;
+    // Bounded, so sensors updating faster than the drain cannot keep it going
+    for (int budget = sensors.snapshot().size();
+        budget > 0 && (deviceId = updateTracker.pollPendingSensor()) != null; budget--) {
+      Sensor sensor = sensors.findById(deviceId);
+      if (sensor == null) {
         continue;
       }
       if (data.length() > 0) {
@@ -432,6 +622,33 @@ public class SensorNode extends Node implements DeviceUpdateListener {
     return data.toString();
   }
 
+  /**
+   * Consumes pending sensor updates and writes them to the given visitor.
+   * 
+   * <p>Structured counterpart of {@link #drainPendingSensorUpdates()}; clears
+   * the same pending set.
+   *
+   * @param out receives one reading per updated sensor
+   * @return true if at least one reading was written
+   */
+  public boolean drainPendingSensorUpdates(DataVisitor out) {
+    if (!updateTracker.hasPendingSensors()) {
+      return false;
+    }
+
+    boolean written = false;
+    String deviceId;
+    for (int budget = sensors.snapshot().size();
+        budget > 0 && (deviceId = updateTracker.pollPendingSensor()) != null; budget--) {
+      Sensor sensor = sensors.findById(deviceId);
+      if (sensor != null) {
+        writeReading(sensor, out);
+        written = true;
+      }
+    }
+    return written;
+  }
+
   // ------- Normalization -------
 
   /**
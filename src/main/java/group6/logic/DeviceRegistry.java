@@ -1,22 +1,33 @@
 package group6.logic;
 
 import group6.entity.device.Device;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.function.Predicate;
 
 /**
  * Thread-safe registry for tracking devices associated with a SensorNode.
  * 
- * <p>Uses CopyOnWriteArrayList for safe concurrent access.
- * Methods to add, remove, snapshot, and find devices are provided.
+ * <p>Devices are kept in an array that is replaced, never changed, when a
+ * device is added or removed, so {@link #snapshot()} hands out the current
+ * array as a read-only list without copying. Two hash indexes, by normalized
+ * device ID and by type name, make command lookups O(1) for nodes with
+ * thousands of devices. Writes are serialized; reads take no lock.
  * 
  * @param <T> the device type
  */
 public final class DeviceRegistry<T extends Device<?>> {
 
-  private final CopyOnWriteArrayList<T> devices = new CopyOnWriteArrayList<>();
+  private final Object writeLock = new Object();
+  private final Map<String, T> byId = new ConcurrentHashMap<>();
+  private final Map<String, T> byType = new ConcurrentHashMap<>();
+  private volatile List<T> devices = List.of();
 
   /**
    * Adds a device to the registry.
@@ -24,7 +35,16 @@ public final class DeviceRegistry<T extends Device<?>> {
    * @param device the device to add
    */
   public void add(T device) {
-    devices.add(Objects.requireNonNull(device, "device"));
+    Objects.requireNonNull(device, "device");
+    synchronized (writeLock) {
+      List<T> current = devices;
+      @SuppressWarnings("unchecked")
+      T[] grown = (T[]) current.toArray(new Device<?>[current.size() + 1]);
+      grown[current.size()] = device;
+      byId.putIfAbsent(normalizeId(device.getDeviceId()), device);
+      byType.putIfAbsent(normalizeType(device), device);
+      devices = Collections.unmodifiableList(Arrays.asList(grown));
+    }
   }
 
   /**
@@ -34,16 +54,60 @@ public final class DeviceRegistry<T extends Device<?>> {
    * @return true if the device was removed, false if it was not
    */
   public boolean remove(T device) {
-    return devices.remove(device);
+    synchronized (writeLock) {
+      List<T> current = devices;
+      int index = current.indexOf(device);
+      if (index < 0) {
+        return false;
+      }
+      @SuppressWarnings("unchecked")
+      T[] shrunk = (T[]) new Device<?>[current.size() - 1];
+      for (int i = 0, j = 0; i < current.size(); i++) {
+        if (i != index) {
+          shrunk[j++] = current.get(i);
+        }
+      }
+      List<T> remaining = Collections.unmodifiableList(Arrays.asList(shrunk));
+      T removed = current.get(index);
+      reindex(byId, normalizeId(removed.getDeviceId()), removed, remaining,
+          d -> normalizeId(d.getDeviceId()));
+      reindex(byType, normalizeType(removed), removed, remaining, DeviceRegistry::normalizeType);
+      devices = remaining;
+      return true;
+    }
   }
 
   /**
-   * Returns a snapshot list of all registered devices.
+   * Returns the registered devices, in the order they were added.
+   * 
+   * <p>The list is read-only and shared, not copied: it never changes, and a
+   * later add or remove replaces it instead.
    * 
    * @return the list of devices
    */
   public List<T> snapshot() {
-    return List.copyOf(devices);
+    return devices;
+  }
+
+  /**
+   * Finds the first added device with the given ID, ignoring case and
+   * surrounding whitespace.
+   * 
+   * @param deviceId the device ID
+   * @return the device, or null if none
+   */
+  public T findById(String deviceId) {
+    return deviceId == null ? null : byId.get(normalizeId(deviceId));
+  }
+
+  /**
+   * Finds the first added device of the given type, ignoring case.
+   * 
+   * @param typeName the type name (for example heater or fan)
+   * @return the device, or null if none
+   */
+  public T findByType(String typeName) {
+    return typeName == null ? null : byType.get(typeName.toLowerCase(Locale.ROOT));
   }
 
   /**
@@ -60,4 +124,30 @@ public final class DeviceRegistry<T extends Device<?>> {
     }
     return null;
   }
+
+  /**
+   * Points an index entry at the next matching device if it pointed at the
+   * removed one.
+   */
+  private static <T> void reindex(Map<String, T> index, String key, T removed,
+      List<T> remaining, Function<T, String> keyOf) {
+    if (index.get(key) != removed) {
+      return;
+    }
+    for (T device : remaining) {
+      if (keyOf.apply(device).equals(key)) {
+        index.put(key, device);
+        return;
+      }
+    }
+    index.remove(key);
+  }
+
+  private static String normalizeId(String id) {
+    return id == null ? "" : id.trim().toLowerCase(Locale.ROOT);
+  }
+
+  private static String normalizeType(Device<?> device) {
+    return device.getDeviceType().toString().toLowerCase(Locale.ROOT);
+  }
 }
@@ -1,19 +1,24 @@
 package group6.logic;
 
 import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * Tracks the last update timestamp for devices and pending sensor updates.
  * 
  * <p>Used to monitor device activity and ensure sensor updates are processed.
- * Methods to record updates, retrieve timestamps, and manage pending sensors
- * are provided.
+ * Pending sensors form a dirty queue: an update marks the device dirty and
+ * queues its ID only if it was clean, so each dirty device is queued once,
+ * and draining costs one step per changed sensor however many sensors the
+ * node has. Any thread may record updates; the queue is lock-free.
  */
 public final class DeviceUpdateTracker {
 
   private final Map<String, Long> deviceTimestamps = new ConcurrentHashMap<>();
   private final Map<String, Boolean> pendingSensors = new ConcurrentHashMap<>();
+  private final Queue<String> pendingQueue = new ConcurrentLinkedQueue<>();
 
   /**
    * Records a sensor update for the given device.
@@ -22,7 +27,9 @@ public final class DeviceUpdateTracker {
    */
   public void recordSensorUpdate(String deviceId) {
     deviceTimestamps.put(deviceId, System.currentTimeMillis());
-    pendingSensors.put(deviceId, true);
+    if (pendingSensors.putIfAbsent(deviceId, Boolean.TRUE) == null) {
+      pendingQueue.offer(deviceId);
+    }
   }
 
   /**
@@ -51,16 +58,38 @@ public final class DeviceUpdateTracker {
    */
   public void removeDevice(String deviceId) {
     deviceTimestamps.remove(deviceId);
-    pendingSensors.remove(deviceId);
+    pendingSensors.remove(deviceId); // its queue entry is skipped when polled
   }
 
   /**
    * Checks if there are any devices with pending sensor updates.
    * 
+   * <p>May briefly report true for a device that was removed or consumed
+   * directly; polling then returns null.
+   * 
    * @return true if there are pending sensors, false otherwise
    */
   public boolean hasPendingSensors() {
-    return pendingSensors.containsValue(true);
+    return !pendingQueue.isEmpty();
+  }
+
+  /**
+   * Takes the next device with a pending sensor update and marks it clean.
+   * 
+   * <p>The device is marked clean before the caller reads its value, so an
+   * update racing with the drain queues the device again rather than being
+   * lost.
+   * 
+   * @return the device id, or null if no sensor update is pending
+   */
+  public String pollPendingSensor() {
+    String deviceId;
+    while ((deviceId = pendingQueue.poll()) != null) {
+      if (pendingSensors.remove(deviceId) != null) {
+        return deviceId;
+      }
+    }
+    return null;
   }
 
   /**
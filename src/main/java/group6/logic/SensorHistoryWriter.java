@@ -1,48 +1,154 @@
 package group6.logic;
 
-import java.io.BufferedWriter;
-import java.io.IOException;
-import java.nio.file.Files;
+import group6.logic.history.AsyncHistoryWriter;
+import group6.logic.history.CsvHistorySink;
+import group6.logic.history.HistoryCompactionService;
+import group6.logic.history.HistoryRetentionPolicy;
+import group6.logic.history.HistoryStore;
+import group6.logic.history.RollupHistorySink;
+import group6.logic.history.SegmentHistorySink;
+import group6.logic.history.TeeHistorySink;
+import group6.logic.history.ThrottledHistorySink;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
-import java.time.Instant;
 import java.time.LocalDateTime;
-import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Utility for writing sensor history to files.
  *
- * <p>Each sensor's data is stored in a separate CSV file under a directory
- * named with the current date and time when the application started.
+ * <p>History is stored in compressed binary segments under
+ * {@code history/segments/<nodeId>/<sensorKey>/}, one file per day, and
+ * rolled up into 1 s, 1 min and 1 h min/max/average buckets under
+ * {@code history/rollups/} as samples arrive. CSV
+ * output, one file per sensor under a directory named with the date and time
+ * the application started, is optional; see
+ * {@link #setCsvExportEnabled(boolean)} and
+ * {@link group6.logic.history.HistoryCsvExporter} for exporting segments.
+ * A background {@link HistoryCompactionService} compacts finished days and
+ * applies the retention policy.
+ * 
+ * <p>Samples are handed to a background {@link AsyncHistoryWriter}, so
+ * recording never touches the disk on the caller's thread. Queued samples are
+ * flushed when the JVM shuts down.
  */
 public final class SensorHistoryWriter {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(SensorHistoryWriter.class);
   private static final Path HISTORY_DIR = Paths.get("history");
-  
-  private static final DateTimeFormatter FOLDER_FORMAT =
-      DateTimeFormatter.ofPattern("dd-MM-yyyy_HH:mm");
+  private static final Path SEGMENT_DIR = HISTORY_DIR.resolve("segments");
+  private static final Path ROLLUP_DIR = HISTORY_DIR.resolve("rollups");
+  private static final long FLUSH_TIMEOUT_MS = 5000;
 
   private static final String RUN_FOLDER =
-      LocalDateTime.now().format(FOLDER_FORMAT);
+      LocalDateTime.now().format(CsvHistorySink.RUN_FOLDER_FORMAT);
 
-  private static final Map<String, Object> LOCKS = new ConcurrentHashMap<>();
-  private static final Map<String, SensorSample> LAST_WRITTEN = new ConcurrentHashMap<>();
+  private static final CsvHistorySink CSV_SINK = createCsvSink();
+
+  /** Set once {@link Holder} has started the writer. */
+  private static volatile boolean started;
 
   private SensorHistoryWriter() {
   }
 
+  /**
+   * Lazily started writer and maintenance, so nothing is created until the
+   * first sample.
+   */
+  private static final class Holder {
+    static final HistoryCompactionService MAINTENANCE = new HistoryCompactionService(
+        SEGMENT_DIR, ROLLUP_DIR, HISTORY_DIR, HistoryRetentionPolicy.defaults());
+    static final AsyncHistoryWriter WRITER = start();
+
+    private static AsyncHistoryWriter start() {
+      // Rollups see every sample; raw history is thinned to about one per second
+      AsyncHistoryWriter writer = new AsyncHistoryWriter(
+          new TeeHistorySink(new RollupHistorySink(ROLLUP_DIR),
+              new ThrottledHistorySink(
+                  new TeeHistorySink(new SegmentHistorySink(SEGMENT_DIR), CSV_SINK),
+                  AsyncHistoryWriter.DEFAULT_MIN_SAMPLE_INTERVAL_MS)),
+          AsyncHistoryWriter.DEFAULT_QUEUE_CAPACITY, AsyncHistoryWriter.DEFAULT_FLUSH_INTERVAL_MS,
+          0);
+      MAINTENANCE.start(HistoryCompactionService.DEFAULT_INTERVAL_MS);
+      Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+        MAINTENANCE.close();
+        writer.close();
+      }, "history-shutdown"));
+      started = true;
+      return writer;
+    }
+  }
+
+  private static CsvHistorySink createCsvSink() {
+    CsvHistorySink sink = new CsvHistorySink(HISTORY_DIR.resolve(RUN_FOLDER));
+    sink.setEnabled(false);
+    return sink;
+  }
+
+  /**
+   * Turns the CSV copy of the history on or off. Off by default; the binary
+   * segments are always written.
+   * 
+   * @param enabled true to also write CSV files
+   */
+  public static void setCsvExportEnabled(boolean enabled) {
+    CSV_SINK.setEnabled(enabled);
+  }
+
+  /**
+   * Returns whether history is also written as CSV.
+   * 
+   * @return true if CSV files are written
+   */
+  public static boolean isCsvExportEnabled() {
+    return CSV_SINK.isEnabled();
+  }
+
+  /**
+   * Sets how long raw history, rollups and CSV runs are kept. Old files are
+   * removed, and finished days compacted, hourly in the background.
+   * 
+   * @param policy the retention policy
+   */
+  public static void setRetentionPolicy(HistoryRetentionPolicy policy) {
+    Holder.MAINTENANCE.setPolicy(policy);
+  }
+
+  /**
+   * Returns the directory the binary history segments are written to.
+   * 
+   * @return the segment root directory
+   */
+  public static Path getSegmentDirectory() {
+    return SEGMENT_DIR;
+  }
+
+  /**
+   * Returns the directory the history rollups are written to.
+   * 
+   * @return the rollup root directory
+   */
+  public static Path getRollupDirectory() {
+    return ROLLUP_DIR;
+  }
+
+  /**
+   * Opens a reader over the written history and rollups.
+   * 
+   * @return a history store
+   */
+  public static HistoryStore openStore() {
+    return new HistoryStore(SEGMENT_DIR, ROLLUP_DIR);
+  }
+
   /**
    * Records a sensor sample to history.
    * 
-   * <p>If a sample for the same sensor was recorded less than 900 ms ago, it is skipped
-   * to avoid excessive writes.
+   * <p>Every sample updates the rollups. If a sample for the same sensor was
+   * recorded less than 900 ms ago, it is left out of the raw history to avoid
+   * excessive writes. Never blocks; if the writer falls behind,
+   * samples are dropped and a warning is logged.
    * 
    * @param nodeId the sensor node id
    * @param sensorKey the sensor key
@@ -50,50 +156,23 @@ public final class SensorHistoryWriter {
    * @param timestamp the sample timestamp
    */
   public static void recordSample(String nodeId, String sensorKey, double value, long timestamp) {
-    Object lock = LOCKS.computeIfAbsent(nodeId, k -> new Object());
-    synchronized (lock) {
-      try {
-        String cacheKey = nodeId + "/" + sensorKey;
-        SensorSample previous = LAST_WRITTEN.get(cacheKey);
-        if (previous != null && (timestamp - previous.timestamp) < 900) {
-          return;
-        }
-
-        Path folder = HISTORY_DIR.resolve(RUN_FOLDER).resolve(nodeId);
-        Files.createDirectories(folder);
-        Path file = folder.resolve(sensorKey + ".csv");
-        boolean newFile = Files.notExists(file);
-        try (BufferedWriter writer = Files.newBufferedWriter(file,
-            StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
-          if (newFile) {
-            writer.write("timestamp,sensor,value");
-            writer.newLine();
-          }
-          LocalDateTime time = 
-                LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamp), ZoneId.systemDefault());
-
-          writer.write(String.format("%s,%s,%s", time, sensorKey, value));
-          writer.newLine();
-          LAST_WRITTEN.put(cacheKey, new SensorSample(value, timestamp));
-        }
-      } catch (IOException e) {
-        LOGGER.warn("Failed to write sensor history for {}", nodeId, e);
-      }
-    }
+    Holder.WRITER.record(nodeId, sensorKey, value, timestamp);
   }
 
-  // ------- Helper class -------
-
   /**
-   * Represents a sensor sample with value and timestamp.
+   * Writes all samples recorded so far to disk. Does nothing if no sample was
+   * ever recorded, so the writer is not started just to be flushed.
    */
-  private static final class SensorSample {
-    final double value;
-    final long timestamp;
-
-    SensorSample(double value, long timestamp) {
-      this.value = value;
-      this.timestamp = timestamp;
+  public static void flush() {
+    if (!started) {
+      return;
+    }
+    try {
+      if (!Holder.WRITER.flush(FLUSH_TIMEOUT_MS)) {
+        LOGGER.warn("Timed out flushing sensor history");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
     }
   }
 }
@@ -0,0 +1,134 @@
+package group6.logic.events;
+
+import group6.entity.node.SensorNode;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Delivers sensor node updates to one listener off the notifying thread.
+ *
+ * <p>Events carry no payload beyond the node, so the listener's queue is two
+ * pending flags, one for sensors and one for actuators: an event that
+ * arrives while the same kind is still pending is coalesced into it. The
+ * queue therefore never grows, and a listener that blocks (for example on a
+ * slow socket) only delays its own deliveries; the sensor threads that
+ * notify it never wait. Deliveries to one listener run one at a time, in
+ * order, on a task of the executor, by default a virtual thread.
+ */
+public final class AsyncSensorNodeDispatcher implements SensorNodeUpdateListener {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(AsyncSensorNodeDispatcher.class);
+  private static final Executor SHARED_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
+  private final SensorNodeUpdateListener target;
+  private final Executor executor;
+  private final AtomicBoolean sensorsPending = new AtomicBoolean(false);
+  private final AtomicBoolean actuatorsPending = new AtomicBoolean(false);
+  private final AtomicBoolean scheduled = new AtomicBoolean(false);
+  private final AtomicLong coalescedEvents = new AtomicLong();
+  private volatile SensorNode node;
+  private volatile boolean closed;
+
+  /**
+   * Creates a dispatcher that delivers on virtual threads.
+   *
+   * @param target the listener to deliver to
+   */
+  public AsyncSensorNodeDispatcher(SensorNodeUpdateListener target) {
+    this(target, SHARED_EXECUTOR);
+  }
+
+  /**
+   * Creates a dispatcher.
+   *
+   * @param target   the listener to deliver to
+   * @param executor runs the deliveries
+   * @throws IllegalArgumentException if an argument is null
+   */
+  public AsyncSensorNodeDispatcher(SensorNodeUpdateListener target, Executor executor) {
+    if (target == null || executor == null) {
+      throw new IllegalArgumentException("target and executor cannot be null");
+    }
+    this.target = target;
+    this.executor = executor;
+  }
+
+  @Override
+  public void onSensorsUpdated(SensorNode node) {
+    enqueue(node, sensorsPending);
+  }
+
+  @Override
+  public void onActuatorsUpdated(SensorNode node) {
+    enqueue(node, actuatorsPending);
+  }
+
+  /**
+   * Stops delivering; events still pending are dropped.
+   */
+  public void close() {
+    closed = true;
+  }
+
+  /**
+   * Returns the listener this dispatcher delivers to.
+   *
+   * @return the target listener
+   */
+  public SensorNodeUpdateListener getTarget() {
+    return target;
+  }
+
+  /**
+   * Returns how many events were merged into one already pending.
+   *
+   * @return the number of coalesced events
+   */
+  public long getCoalescedEvents() {
+    return coalescedEvents.get();
+  }
+
+  private void enqueue(SensorNode node, AtomicBoolean pending) {
+    if (closed) {
+      return;
+    }
+    this.node = node;
+    if (pending.getAndSet(true)) {
+      coalescedEvents.incrementAndGet();
+    }
+    if (scheduled.compareAndSet(false, true)) {
+      executor.execute(this::drain);
+    }
+  }
+
+  private void drain() {
+    do {
+      SensorNode current = node;
+      deliver(actuatorsPending, current, true);
+      deliver(sensorsPending, current, false);
+      scheduled.set(false);
+      // An event may have been flagged after the checks above but before
+      // scheduled was cleared; take it over instead of leaving it behind
+    } while ((sensorsPending.get() || actuatorsPending.get())
+        && scheduled.compareAndSet(false, true));
+  }
+
+  private void deliver(AtomicBoolean pending, SensorNode current, boolean actuators) {
+    if (!pending.getAndSet(false) || closed) {
+      return;
+    }
+    try {
+      if (actuators) {
+        target.onActuatorsUpdated(current);
+      } else {
+        target.onSensorsUpdated(current);
+      }
+    } catch (RuntimeException e) {
+      LOGGER.warn("Update listener failed for node {}", current.getNodeId(), e);
+    }
+  }
+}
@@ -0,0 +1,18 @@
+package group6.logic.events;
+
+/**
+ * Observer for sensor readings cached by a control panel.
+ */
+public interface SensorDataListener {
+
+  /**
+   * Called after a sensor reading has been stored in the cache. Runs on the
+   * thread that received the data, so implementations must be quick.
+   * 
+   * @param nodeId    the sensor node the reading came from
+   * @param sensorKey the sensor key ({@code type#id})
+   * @param value     the reading
+   * @param timestamp the time the reading was cached, in milliseconds
+   */
+  void onSensorData(String nodeId, String sensorKey, double value, long timestamp);
+}
@@ -0,0 +1,214 @@
+package group6.logic.history;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Moves sensor history writes off the receiving thread.
+ * 
+ * <p>{@link #record} only offers the sample to a bounded queue. A background
+ * thread drains the queue in batches into a {@link HistorySink}, and flushes
+ * the sink at a fixed interval, on {@link #flush()} and on {@link #close()}.
+ * When the queue is full new samples are dropped and counted instead of
+ * blocking the caller.
+ * 
+ * <p>Samples of a sensor that arrive less than the minimum sample interval
+ * after the last written one are skipped (see {@link ThrottledHistorySink}),
+ * to keep history at roughly one sample per second however often a node
+ * pushes.
+ */
+public class AsyncHistoryWriter implements AutoCloseable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(AsyncHistoryWriter.class);
+  public static final int DEFAULT_QUEUE_CAPACITY = 64 * 1024;
+  public static final long DEFAULT_FLUSH_INTERVAL_MS = 1000;
+  public static final long DEFAULT_MIN_SAMPLE_INTERVAL_MS = 900;
+  private static final int MAX_BATCH = 1024;
+  private static final long DROP_LOG_EVERY = 10_000;
+
+  private final HistorySink sink;
+  private final BlockingQueue<HistorySample> queue;
+  private final long flushIntervalMs;
+  private final AtomicLong droppedSamples = new AtomicLong();
+  private final Thread thread;
+  private volatile boolean running = true;
+
+  /**
+   * Creates and starts a writer with default settings.
+   * 
+   * @param sink the sink samples are written to
+   */
+  public AsyncHistoryWriter(HistorySink sink) {
+    this(sink, DEFAULT_QUEUE_CAPACITY, DEFAULT_FLUSH_INTERVAL_MS, DEFAULT_MIN_SAMPLE_INTERVAL_MS);
+  }
+
+  /**
+   * Creates and starts a writer.
+   * 
+   * @param sink                the sink samples are written to
+   * @param queueCapacity       maximum number of queued samples
+   * @param flushIntervalMs     how often the sink is flushed
+   * @param minSampleIntervalMs minimum time between written samples of one
+   *                            sensor, 0 to keep every sample
+   * @throws IllegalArgumentException if an argument is out of range
+   */
+  public AsyncHistoryWriter(HistorySink sink, int queueCapacity, long flushIntervalMs,
+      long minSampleIntervalMs) {
+    if (sink == null) {
+      throw new IllegalArgumentException("sink cannot be null");
+    }
+    if (queueCapacity < 1 || flushIntervalMs < 1 || minSampleIntervalMs < 0) {
+      throw new IllegalArgumentException("Invalid history writer settings");
+    }
+    this.sink = minSampleIntervalMs > 0
+        ? new ThrottledHistorySink(sink, minSampleIntervalMs)
+        : sink;
+    this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    this.flushIntervalMs = flushIntervalMs;
+    this.thread = new Thread(this::run, "history-writer");
+    this.thread.setDaemon(true);
+    this.thread.start();
+  }
+
+  /**
+   * Queues a sample without blocking.
+   * 
+   * @param nodeId    the sensor node ID
+   * @param sensorKey the sensor key
+   * @param value     the sample value
+   * @param timestamp the sample time in milliseconds
+   * @return false if the sample was dropped because the queue is full or
+   *         the writer is closed
+   */
+  public boolean record(String nodeId, String sensorKey, double value, long timestamp) {
+    if (running && queue.offer(new HistorySample(nodeId, sensorKey, timestamp, value))) {
+      return true;
+    }
+    long dropped = droppedSamples.incrementAndGet();
+    if (running && dropped % DROP_LOG_EVERY == 1) {
+      LOGGER.warn("History queue full, {} samples dropped so far", dropped);
+    }
+    return false;
+  }
+
+  /**
+   * Writes every sample queued before this call and flushes the sink.
+   * 
+   * @param timeoutMs maximum time to wait
+   * @return true if the flush completed in time
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public boolean flush(long timeoutMs) throws InterruptedException {
+    if (!thread.isAlive()) {
+      return false;
+    }
+    CountDownLatch flushed = new CountDownLatch(1);
+    if (!queue.offer(HistorySample.flushRequest(flushed), timeoutMs, TimeUnit.MILLISECONDS)) {
+      return false;
+    }
+    return flushed.await(timeoutMs, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Stops accepting samples, writes the queued ones, flushes and closes the
+   * sink. Waits up to five seconds for the writer thread.
+   */
+  @Override
+  public void close() {
+    running = false;
+    queue.offer(HistorySample.flushRequest(new CountDownLatch(1))); // wakes the writer
+    try {
+      thread.join(5000);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Returns the number of samples dropped because the queue was full.
+   * 
+   * @return the number of dropped samples
+   */
+  public long getDroppedSamples() {
+    return droppedSamples.get();
+  }
+
+  /**
+   * Returns the number of samples waiting to be written.
+   * 
+   * @return the queue size
+   */
+  public int getQueuedSamples() {
+    return queue.size();
+  }
+
+  // ------- Writer thread -------
+
+  private void run() {
+    List<HistorySample> batch = new ArrayList<>(MAX_BATCH);
+    long nextFlush = System.currentTimeMillis() + flushIntervalMs;
+    while (running) {
+      try {
+        long waitMs = Math.max(1L, nextFlush - System.currentTimeMillis());
+        HistorySample first = queue.poll(waitMs, TimeUnit.MILLISECONDS);
+        if (first != null) {
+          batch.add(first);
+          queue.drainTo(batch, MAX_BATCH - 1);
+          writeBatch(batch);
+        }
+      } catch (InterruptedException e) {
+        if (running) {
+          LOGGER.warn("History writer interrupted, stopping");
+          running = false;
+        }
+      }
+      if (System.currentTimeMillis() >= nextFlush) {
+        flushSink();
+        nextFlush = System.currentTimeMillis() + flushIntervalMs;
+      }
+    }
+
+    // Drain what was queued before close
+    while (queue.drainTo(batch, MAX_BATCH) > 0) {
+      writeBatch(batch);
+    }
+    flushSink();
+    try {
+      sink.close();
+    } catch (IOException e) {
+      LOGGER.warn("Failed to close sensor history sink", e);
+    }
+  }
+
+  private void writeBatch(List<HistorySample> batch) {
+    for (HistorySample sample : batch) {
+      if (sample.flushed != null) {
+        flushSink();
+        sample.flushed.countDown();
+      } else {
+        try {
+          sink.append(sample.nodeId, sample.sensorKey, sample.timestamp, sample.value);
+        } catch (IOException e) {
+          LOGGER.warn("Failed to write sensor history for {}", sample.nodeId, e);
+        }
+      }
+    }
+    batch.clear();
+  }
+
+  private void flushSink() {
+    try {
+      sink.flush();
+    } catch (IOException e) {
+      LOGGER.warn("Failed to flush sensor history", e);
+    }
+  }
+}
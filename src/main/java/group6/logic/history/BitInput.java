@@ -0,0 +1,50 @@
+package group6.logic.history;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reads bits written by {@link BitOutput} from a region of a buffer, using
+ * absolute reads only so mapped buffers can be shared.
+ */
+final class BitInput {
+
+  private final ByteBuffer buffer;
+  private final int start;
+  private final int end;
+  private long bitPos;
+
+  /**
+   * Creates a reader over {@code length} bytes starting at {@code offset}.
+   */
+  BitInput(ByteBuffer buffer, int offset, int length) {
+    this.buffer = buffer;
+    this.start = offset;
+    this.end = offset + length;
+  }
+
+  /**
+   * Reads {@code count} bits, right-aligned.
+   * 
+   * @throws IllegalArgumentException if the region ends first
+   */
+  long readBits(int count) {
+    long result = 0;
+    while (count > 0) {
+      int bytePos = start + (int) (bitPos >>> 3);
+      if (bytePos >= end) {
+        throw new IllegalArgumentException("Truncated block payload");
+      }
+      int available = 8 - (int) (bitPos & 7);
+      int take = Math.min(available, count);
+      int bits = ((buffer.get(bytePos) & 0xFF) >>> (available - take)) & ((1 << take) - 1);
+      result = (result << take) | bits;
+      bitPos += take;
+      count -= take;
+    }
+    return result;
+  }
+
+  boolean readBit() {
+    return readBits(1) != 0;
+  }
+}
@@ -0,0 +1,56 @@
+package group6.logic.history;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Growable big-endian bit buffer, written most significant bit first.
+ */
+final class BitOutput {
+
+  private byte[] bytes = new byte[256];
+  private long bitLength;
+
+  /**
+   * Writes the lowest {@code count} bits of a value.
+   * 
+   * @param value the bits, right-aligned
+   * @param count number of bits, 0 to 64
+   */
+  void writeBits(long value, int count) {
+    ensureCapacity(bitLength + count);
+    while (count > 0) {
+      int bytePos = (int) (bitLength >>> 3);
+      int free = 8 - (int) (bitLength & 7);
+      int take = Math.min(free, count);
+      int bits = (int) (value >>> (count - take)) & ((1 << take) - 1);
+      bytes[bytePos] |= (byte) (bits << (free - take));
+      bitLength += take;
+      count -= take;
+    }
+  }
+
+  void writeBit(boolean bit) {
+    writeBits(bit ? 1 : 0, 1);
+  }
+
+  int byteLength() {
+    return (int) ((bitLength + 7) >>> 3);
+  }
+
+  void writeTo(ByteBuffer target) {
+    target.put(bytes, 0, byteLength());
+  }
+
+  void reset() {
+    Arrays.fill(bytes, 0, byteLength(), (byte) 0);
+    bitLength = 0;
+  }
+
+  private void ensureCapacity(long bits) {
+    int needed = (int) ((bits + 7) >>> 3);
+    if (needed > bytes.length) {
+      bytes = Arrays.copyOf(bytes, Math.max(needed, bytes.length * 2));
+    }
+  }
+}
@@ -0,0 +1,192 @@
+package group6.logic.history;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Writes history as one CSV file per sensor:
+ * {@code <directory>/<nodeId>/<sensorKey>.csv}, with lines
+ * {@code timestamp,sensor,value}.
+ * 
+ * <p>Files stay open between samples. Lines are buffered per file and written
+ * when the buffer passes a size threshold or the sink is flushed. At most
+ * {@code maxOpenFiles} files are kept open; the least recently written one is
+ * flushed and closed to make room.
+ */
+public class CsvHistorySink implements HistorySink {
+
+  public static final int DEFAULT_MAX_OPEN_FILES = 256;
+
+  /** Name format of the per-run directories CSV history is written to. */
+  public static final DateTimeFormatter RUN_FOLDER_FORMAT =
+      DateTimeFormatter.ofPattern("dd-MM-yyyy_HH:mm");
+  private static final int WRITE_THRESHOLD_CHARS = 8 * 1024;
+  private static final String LINE_SEPARATOR = System.lineSeparator();
+  private static final String HEADER = "timestamp,sensor,value" + LINE_SEPARATOR;
+
+  private final Path directory;
+  private final int maxOpenFiles;
+  private final ZoneId zone = ZoneId.systemDefault();
+  private final Map<String, CsvFile> files = new LinkedHashMap<>(16, 0.75f, true);
+  private volatile boolean enabled = true;
+
+  /**
+   * Creates a sink writing below the given directory.
+   * 
+   * @param directory the run directory
+   */
+  public CsvHistorySink(Path directory) {
+    this(directory, DEFAULT_MAX_OPEN_FILES);
+  }
+
+  /**
+   * Creates a sink writing below the given directory.
+   * 
+   * @param directory    the run directory
+   * @param maxOpenFiles maximum number of files kept open
+   * @throws IllegalArgumentException if maxOpenFiles is less than 1
+   */
+  public CsvHistorySink(Path directory, int maxOpenFiles) {
+    if (maxOpenFiles < 1) {
+      throw new IllegalArgumentException("maxOpenFiles must be at least 1");
+    }
+    this.directory = directory;
+    this.maxOpenFiles = maxOpenFiles;
+  }
+
+  /**
+   * Turns CSV output on or off. While off, samples are ignored and open
+   * files are closed on the next flush.
+   * 
+   * @param enabled true to write CSV files
+   */
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  /**
+   * Returns whether CSV output is on.
+   * 
+   * @return true if samples are written
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  @Override
+  public void append(String nodeId, String sensorKey, long timestamp, double value)
+      throws IOException {
+    if (!enabled) {
+      return;
+    }
+    CsvFile file = open(nodeId, sensorKey);
+    file.pending.append(LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamp), zone))
+        .append(',').append(sensorKey).append(',').append(value).append(LINE_SEPARATOR);
+    if (file.pending.length() >= WRITE_THRESHOLD_CHARS) {
+      file.write();
+    }
+  }
+
+  @Override
+  public void flush() throws IOException {
+    if (!enabled) {
+      close();
+      return;
+    }
+    IOException failure = null;
+    for (CsvFile file : files.values()) {
+      try {
+        file.write();
+      } catch (IOException e) {
+        failure = e;
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    IOException failure = null;
+    for (CsvFile file : files.values()) {
+      try {
+        file.close();
+      } catch (IOException e) {
+        failure = e;
+      }
+    }
+    files.clear();
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  private CsvFile open(String nodeId, String sensorKey) throws IOException {
+    String name = nodeId + "/" + sensorKey;
+    CsvFile file = files.get(name);
+    if (file != null) {
+      return file;
+    }
+    if (files.size() >= maxOpenFiles) {
+      Iterator<CsvFile> eldest = files.values().iterator();
+      CsvFile evicted = eldest.next();
+      eldest.remove();
+      evicted.close();
+    }
+    Path folder = directory.resolve(nodeId);
+    Files.createDirectories(folder);
+    Path path = folder.resolve(sensorKey + ".csv");
+    boolean newFile = Files.notExists(path);
+    file = new CsvFile(FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.APPEND));
+    if (newFile) {
+      file.pending.append(HEADER);
+    }
+    files.put(name, file);
+    return file;
+  }
+
+  /**
+   * An open CSV file and its unwritten lines.
+   */
+  private static final class CsvFile {
+    final FileChannel channel;
+    final StringBuilder pending = new StringBuilder(256);
+
+    CsvFile(FileChannel channel) {
+      this.channel = channel;
+    }
+
+    void write() throws IOException {
+      if (pending.length() == 0) {
+        return;
+      }
+      ByteBuffer bytes = StandardCharsets.UTF_8.encode(pending.toString());
+      pending.setLength(0);
+      while (bytes.hasRemaining()) {
+        channel.write(bytes);
+      }
+    }
+
+    void close() throws IOException {
+      try {
+        write();
+      } finally {
+        channel.close();
+      }
+    }
+  }
+}
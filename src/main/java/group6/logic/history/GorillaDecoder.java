@@ -0,0 +1,96 @@
+package group6.logic.history;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Decodes a block written by {@link GorillaEncoder}, one sample at a time.
+ */
+final class GorillaDecoder {
+
+  private final BitInput in;
+  private final int count;
+  private int read;
+  private long timestamp;
+  private long delta;
+  private long bits;
+  private int leading;
+  private int trailing;
+
+  /**
+   * Creates a decoder for one block payload.
+   * 
+   * @param buffer         the buffer holding the payload
+   * @param offset         absolute payload offset
+   * @param length         payload length in bytes
+   * @param count          number of samples in the block
+   * @param firstTimestamp the block's first timestamp
+   */
+  GorillaDecoder(ByteBuffer buffer, int offset, int length, int count, long firstTimestamp) {
+    this.in = new BitInput(buffer, offset, length);
+    this.count = count;
+    this.timestamp = firstTimestamp;
+  }
+
+  /**
+   * Advances to the next sample.
+   * 
+   * @return false when the block is exhausted
+   * @throws IllegalArgumentException if the payload is truncated
+   */
+  boolean next() {
+    if (read == count) {
+      return false;
+    }
+    if (read == 0) {
+      bits = in.readBits(64);
+    } else {
+      delta += readDeltaOfDelta();
+      timestamp += delta;
+      readValue();
+    }
+    read++;
+    return true;
+  }
+
+  long getTimestamp() {
+    return timestamp;
+  }
+
+  double getValue() {
+    return Double.longBitsToDouble(bits);
+  }
+
+  private long readDeltaOfDelta() {
+    if (!in.readBit()) {
+      return 0;
+    }
+    if (!in.readBit()) {
+      return signExtend(in.readBits(7), 7);
+    }
+    if (!in.readBit()) {
+      return signExtend(in.readBits(9), 9);
+    }
+    if (!in.readBit()) {
+      return signExtend(in.readBits(12), 12);
+    }
+    return in.readBits(64);
+  }
+
+  private void readValue() {
+    if (!in.readBit()) {
+      return; // same value
+    }
+    if (in.readBit()) {
+      leading = (int) in.readBits(5);
+      int significant = (int) in.readBits(6) + 1;
+      trailing = 64 - leading - significant;
+    }
+    int significant = 64 - leading - trailing;
+    bits ^= in.readBits(significant) << trailing;
+  }
+
+  private static long signExtend(long value, int bits) {
+    int shift = 64 - bits;
+    return (value << shift) >> shift;
+  }
+}
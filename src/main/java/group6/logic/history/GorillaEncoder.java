@@ -0,0 +1,137 @@
+package group6.logic.history;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Compresses a block of (timestamp, value) samples as described in the
+ * Gorilla paper (Pelkonen et al., VLDB 2015).
+ * 
+ * <p>Timestamps are stored as delta-of-delta with variable-width buckets, so
+ * samples at a steady rate cost one bit each. Values are XORed with the
+ * previous value and only the meaningful bits are stored, which for slowly
+ * drifting sensor readings is typically well under 2 bytes a sample. The
+ * first timestamp is kept by the caller (in the block header); the first
+ * value is stored raw.
+ */
+final class GorillaEncoder {
+
+  private final BitOutput out = new BitOutput();
+  private int count;
+  private long firstTimestamp;
+  private long lastTimestamp;
+  private long previousDelta;
+  private long previousBits;
+  private int previousLeading = -1;
+  private int previousTrailing;
+  private double min;
+  private double max;
+
+  /**
+   * Appends a sample. Timestamps should not decrease within a block.
+   */
+  void add(long timestamp, double value) {
+    long bits = Double.doubleToRawLongBits(value);
+    if (count == 0) {
+      firstTimestamp = timestamp;
+      out.writeBits(bits, 64);
+      min = value;
+      max = value;
+    } else {
+      long delta = timestamp - lastTimestamp;
+      writeTimestamp(delta - previousDelta);
+      previousDelta = delta;
+      writeValue(bits ^ previousBits);
+      min = Math.min(min, value);
+      max = Math.max(max, value);
+    }
+    lastTimestamp = timestamp;
+    previousBits = bits;
+    count++;
+  }
+
+  private void writeTimestamp(long deltaOfDelta) {
+    if (deltaOfDelta == 0) {
+      out.writeBit(false);
+    } else if (fits(deltaOfDelta, 7)) {
+      out.writeBits(0b10, 2);
+      out.writeBits(deltaOfDelta, 7);
+    } else if (fits(deltaOfDelta, 9)) {
+      out.writeBits(0b110, 3);
+      out.writeBits(deltaOfDelta, 9);
+    } else if (fits(deltaOfDelta, 12)) {
+      out.writeBits(0b1110, 4);
+      out.writeBits(deltaOfDelta, 12);
+    } else {
+      out.writeBits(0b1111, 4);
+      out.writeBits(deltaOfDelta, 64);
+    }
+  }
+
+  private void writeValue(long xor) {
+    if (xor == 0) {
+      out.writeBit(false);
+      return;
+    }
+    out.writeBit(true);
+    int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+    int trailing = Long.numberOfTrailingZeros(xor);
+    if (previousLeading >= 0 && leading >= previousLeading && trailing >= previousTrailing) {
+      out.writeBit(false);
+      out.writeBits(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+    } else {
+      int significant = 64 - leading - trailing;
+      out.writeBit(true);
+      out.writeBits(leading, 5);
+      out.writeBits(significant - 1, 6);
+      out.writeBits(xor >>> trailing, significant);
+      previousLeading = leading;
+      previousTrailing = trailing;
+    }
+  }
+
+  private static boolean fits(long value, int bits) {
+    long limit = 1L << (bits - 1);
+    return value >= -limit && value < limit;
+  }
+
+  // ------- Block state -------
+
+  int getCount() {
+    return count;
+  }
+
+  long getFirstTimestamp() {
+    return firstTimestamp;
+  }
+
+  long getLastTimestamp() {
+    return lastTimestamp;
+  }
+
+  double getMin() {
+    return min;
+  }
+
+  double getMax() {
+    return max;
+  }
+
+  int getPayloadLength() {
+    return out.byteLength();
+  }
+
+  void writePayload(ByteBuffer target) {
+    out.writeTo(target);
+  }
+
+  /**
+   * Clears the encoder for the next block.
+   */
+  void reset() {
+    out.reset();
+    count = 0;
+    previousDelta = 0;
+    previousLeading = -1;
+    previousTrailing = 0;
+  }
+}
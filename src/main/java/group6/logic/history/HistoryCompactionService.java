@@ -0,0 +1,391 @@
+package group6.logic.history;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the history directories from growing without bound.
+ * 
+ * <p>Each run, on a low-priority background thread:
+ * <ul>
+ *   <li>rewrites finished day segments whose samples are spread over many
+ *       small blocks (one per minute at one sample per second) into full,
+ *       time-ordered blocks, dropping corrupt ones;</li>
+ *   <li>deletes raw segments, rollup files and CSV export runs older than
+ *       the {@link HistoryRetentionPolicy}.</li>
+ * </ul>
+ * 
+ * <p>Ingestion is never blocked: the writers only append to the current
+ * period, and a day file is only compacted once its day ended and the file
+ * has not been written for {@link #SETTLE_MS}. Compacted files replace the
+ * originals with an atomic rename, so readers see either version.
+ */
+public class HistoryCompactionService implements AutoCloseable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(HistoryCompactionService.class);
+  public static final long DEFAULT_INTERVAL_MS = 60 * 60_000L;
+  public static final long SETTLE_MS = 60 * 60_000L;
+  private static final String TEMP_SUFFIX = ".tmp";
+
+  private final Path segmentRoot;
+  private final Path rollupRoot;
+  private final Path csvRoot;
+  private volatile HistoryRetentionPolicy policy;
+  private final int blockSamples;
+  private final AtomicLong compactedFiles = new AtomicLong();
+  private final AtomicLong deletedFiles = new AtomicLong();
+  private ScheduledExecutorService executor;
+
+  /**
+   * Creates a service with default block size.
+   * 
+   * @param segmentRoot the segment root directory
+   * @param rollupRoot  the rollup root directory, or null for none
+   * @param csvRoot     the directory holding CSV export runs, or null for none
+   * @param policy      the retention policy
+   */
+  public HistoryCompactionService(Path segmentRoot, Path rollupRoot, Path csvRoot,
+      HistoryRetentionPolicy policy) {
+    this(segmentRoot, rollupRoot, csvRoot, policy, SegmentHistorySink.DEFAULT_BLOCK_SAMPLES);
+  }
+
+  /**
+   * Creates a service.
+   * 
+   * @param segmentRoot  the segment root directory
+   * @param rollupRoot   the rollup root directory, or null for none
+   * @param csvRoot      the directory holding CSV export runs, or null for none
+   * @param policy       the retention policy
+   * @param blockSamples samples per block in compacted segments
+   * @throws IllegalArgumentException if segmentRoot or policy is null or
+   *                                  blockSamples is less than 1
+   */
+  public HistoryCompactionService(Path segmentRoot, Path rollupRoot, Path csvRoot,
+      HistoryRetentionPolicy policy, int blockSamples) {
+    if (segmentRoot == null || policy == null) {
+      throw new IllegalArgumentException("Segment root and policy cannot be null");
+    }
+    if (blockSamples < 1) {
+      throw new IllegalArgumentException("Block samples must be positive");
+    }
+    this.segmentRoot = segmentRoot;
+    this.rollupRoot = rollupRoot;
+    this.csvRoot = csvRoot;
+    this.policy = policy;
+    this.blockSamples = blockSamples;
+  }
+
+  /**
+   * Starts running maintenance in the background at a fixed interval. The
+   * first run happens after one minute.
+   * 
+   * @param intervalMs time between runs
+   */
+  public synchronized void start(long intervalMs) {
+    if (intervalMs <= 0) {
+      throw new IllegalArgumentException("Interval must be positive");
+    }
+    if (executor != null) {
+      return;
+    }
+    executor = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "history-maintenance");
+      thread.setDaemon(true);
+      thread.setPriority(Thread.MIN_PRIORITY);
+      return thread;
+    });
+    executor.scheduleWithFixedDelay(this::runSafely, Math.min(60_000L, intervalMs), intervalMs,
+        TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Stops background runs. A run in progress finishes its current file.
+   */
+  @Override
+  public synchronized void close() {
+    if (executor != null) {
+      executor.shutdownNow();
+      executor = null;
+    }
+  }
+
+  /**
+   * Replaces the retention policy. Takes effect from the next run.
+   * 
+   * @param policy the new policy
+   */
+  public void setPolicy(HistoryRetentionPolicy policy) {
+    if (policy == null) {
+      throw new IllegalArgumentException("Policy cannot be null");
+    }
+    this.policy = policy;
+  }
+
+  /**
+   * Returns the retention policy.
+   * 
+   * @return the policy
+   */
+  public HistoryRetentionPolicy getPolicy() {
+    return policy;
+  }
+
+  /**
+   * Runs compaction and retention once, on the calling thread.
+   * 
+   * @throws IOException if a history directory cannot be listed
+   */
+  public void runOnce() throws IOException {
+    runOnce(System.currentTimeMillis());
+  }
+
+  /**
+   * Returns the number of segment files compacted so far.
+   * 
+   * @return the number of compacted files
+   */
+  public long getCompactedFiles() {
+    return compactedFiles.get();
+  }
+
+  /**
+   * Returns the number of files deleted by retention so far.
+   * 
+   * @return the number of deleted files
+   */
+  public long getDeletedFiles() {
+    return deletedFiles.get();
+  }
+
+  private void runSafely() {
+    try {
+      runOnce();
+    } catch (IOException | RuntimeException e) {
+      LOGGER.warn("History maintenance failed", e);
+    }
+  }
+
+  synchronized void runOnce(long now) throws IOException {
+    maintainSegments(now);
+    if (rollupRoot != null) {
+      for (RollupResolution resolution : RollupResolution.values()) {
+        expireRollups(resolution, now);
+      }
+    }
+    if (csvRoot != null) {
+      expireCsvRuns(now);
+    }
+  }
+
+  // ------- Raw segments -------
+
+  private void maintainSegments(long now) throws IOException {
+    long retention = policy.getRawRetentionMs();
+    for (Path sensor : seriesDirectories(segmentRoot)) {
+      for (Path file : list(sensor)) {
+        String name = file.getFileName().toString();
+        if (name.endsWith(TEMP_SUFFIX)) {
+          Files.deleteIfExists(file); // left over from an interrupted compaction
+          continue;
+        }
+        long dayStart = parseDay(name);
+        if (dayStart == Long.MIN_VALUE) {
+          continue;
+        }
+        long dayEnd = dayStart + SegmentFormat.DAY_MS;
+        if (retention != HistoryRetentionPolicy.KEEP_FOREVER && dayEnd <= now - retention) {
+          delete(file);
+        } else if (dayEnd <= now - SETTLE_MS
+            && Files.getLastModifiedTime(file).toMillis() <= now - SETTLE_MS) {
+          compactIfNeeded(file);
+        }
+      }
+      deleteIfEmpty(sensor);
+      deleteIfEmpty(sensor.getParent());
+    }
+  }
+
+  private static long parseDay(String name) {
+    if (!name.endsWith(SegmentFormat.FILE_SUFFIX)) {
+      return Long.MIN_VALUE;
+    }
+    try {
+      return LocalDate.parse(name.substring(0, name.length() - SegmentFormat.FILE_SUFFIX.length()))
+          .toEpochDay() * SegmentFormat.DAY_MS;
+    } catch (DateTimeParseException e) {
+      return Long.MIN_VALUE;
+    }
+  }
+
+  /**
+   * Rewrites a segment into full time-ordered blocks, unless it already is.
+   */
+  private void compactIfNeeded(Path file) {
+    try {
+      MappedSegment segment = MappedSegment.map(file);
+      long fullBlocks = (segment.getSampleCount() + blockSamples - 1) / blockSamples;
+      if (segment.isClean() && segment.isTimeOrdered()
+          && segment.getBlockCount() <= fullBlocks) {
+        return;
+      }
+      SampleCollector samples = new SampleCollector();
+      segment.scan(Long.MIN_VALUE, Long.MAX_VALUE, samples::add);
+      HistorySeries series = samples.toSeries();
+
+      Path temp = file.resolveSibling(file.getFileName() + TEMP_SUFFIX);
+      try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+          StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+        GorillaEncoder encoder = new GorillaEncoder();
+        for (int i = 0; i < series.size(); i++) {
+          encoder.add(series.getTimestamp(i), series.getValue(i));
+          if (encoder.getCount() == blockSamples || i == series.size() - 1) {
+            ByteBuffer block = SegmentFormat.encodeBlock(encoder);
+            while (block.hasRemaining()) {
+              channel.write(block);
+            }
+            encoder.reset();
+          }
+        }
+        channel.force(false);
+      }
+      Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+      compactedFiles.incrementAndGet();
+      LOGGER.debug("Compacted {}: {} blocks into {}", file, segment.getBlockCount(), fullBlocks);
+    } catch (IOException e) {
+      LOGGER.warn("Failed to compact {}", file, e);
+    }
+  }
+
+  // ------- Rollups and CSV -------
+
+  private void expireRollups(RollupResolution resolution, long now) throws IOException {
+    long retention = policy.getRollupRetentionMs(resolution);
+    if (retention == HistoryRetentionPolicy.KEEP_FOREVER) {
+      return;
+    }
+    for (Path sensor : seriesDirectories(rollupRoot.resolve(resolution.getDirectoryName()))) {
+      for (Path file : list(sensor)) {
+        String name = file.getFileName().toString();
+        if (!name.endsWith(RollupFormat.FILE_SUFFIX)) {
+          continue;
+        }
+        try {
+          long start = resolution.parsePartitionStart(
+              name.substring(0, name.length() - RollupFormat.FILE_SUFFIX.length()));
+          if (resolution.partitionEnd(start) <= now - retention) {
+            delete(file);
+          }
+        } catch (DateTimeParseException e) {
+          LOGGER.debug("Ignoring unexpected rollup file {}", file);
+        }
+      }
+      deleteIfEmpty(sensor);
+      deleteIfEmpty(sensor.getParent());
+    }
+  }
+
+  private void expireCsvRuns(long now) throws IOException {
+    long retention = policy.getCsvRetentionMs();
+    if (retention == HistoryRetentionPolicy.KEEP_FOREVER || !Files.isDirectory(csvRoot)) {
+      return;
+    }
+    for (Path run : list(csvRoot)) {
+      if (!Files.isDirectory(run) || !isCsvRun(run)) {
+        continue;
+      }
+      long lastWrite;
+      try (Stream<Path> paths = Files.walk(run)) {
+        lastWrite = paths.mapToLong(HistoryCompactionService::lastModified).max().orElse(0);
+      }
+      if (lastWrite <= now - retention) {
+        try (Stream<Path> paths = Files.walk(run)) {
+          for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+            if (Files.isDirectory(path)) {
+              deleteIfEmpty(path);
+            } else {
+              delete(path);
+            }
+          }
+        }
+      }
+    }
+  }
+
+  private static boolean isCsvRun(Path directory) {
+    try {
+      LocalDateTime.parse(directory.getFileName().toString(), CsvHistorySink.RUN_FOLDER_FORMAT);
+      return true;
+    } catch (DateTimeParseException e) {
+      return false;
+    }
+  }
+
+  private static long lastModified(Path path) {
+    try {
+      return Files.getLastModifiedTime(path).toMillis();
+    } catch (IOException e) {
+      return Long.MAX_VALUE; // keep what cannot be checked
+    }
+  }
+
+  // ------- Files -------
+
+  /**
+   * Lists {@code <root>/<nodeId>/<sensorKey>} directories.
+   */
+  private static List<Path> seriesDirectories(Path root) throws IOException {
+    if (!Files.isDirectory(root)) {
+      return List.of();
+    }
+    try (Stream<Path> paths = Files.walk(root, 2)) {
+      return paths.filter(path -> root.relativize(path).getNameCount() == 2)
+          .filter(Files::isDirectory)
+          .sorted()
+          .toList();
+    }
+  }
+
+  private static List<Path> list(Path directory) throws IOException {
+    try (Stream<Path> paths = Files.list(directory)) {
+      return paths.sorted().toList();
+    }
+  }
+
+  private void delete(Path file) {
+    try {
+      if (Files.deleteIfExists(file)) {
+        deletedFiles.incrementAndGet();
+      }
+    } catch (IOException e) {
+      LOGGER.warn("Failed to delete {}", file, e);
+    }
+  }
+
+  private static void deleteIfEmpty(Path directory) {
+    try (Stream<Path> entries = Files.list(directory)) {
+      if (entries.findAny().isEmpty()) {
+        Files.delete(directory);
+      }
+    } catch (IOException e) {
+      LOGGER.debug("Could not remove {}", directory, e);
+    }
+  }
+}
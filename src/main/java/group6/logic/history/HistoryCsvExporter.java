@@ -0,0 +1,77 @@
+package group6.logic.history;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Exports binary history segments to CSV, in the same layout
+ * {@link CsvHistorySink} writes: {@code <csvRoot>/<nodeId>/<sensorKey>.csv}.
+ */
+public final class HistoryCsvExporter {
+
+  private HistoryCsvExporter() {
+  }
+
+  /**
+   * Exports every sensor below a segment root.
+   * 
+   * @param segmentRoot the segment root directory
+   * @param csvRoot     the directory to write CSV files to
+   * @return the number of exported samples
+   * @throws IOException if reading or writing fails
+   */
+  public static long exportAll(Path segmentRoot, Path csvRoot) throws IOException {
+    if (!Files.isDirectory(segmentRoot)) {
+      return 0;
+    }
+    long exported = 0;
+    for (Path node : list(segmentRoot)) {
+      for (Path sensor : list(node)) {
+        exported += export(segmentRoot, node.getFileName().toString(),
+            sensor.getFileName().toString(), csvRoot);
+      }
+    }
+    return exported;
+  }
+
+  /**
+   * Exports one sensor.
+   * 
+   * @param segmentRoot the segment root directory
+   * @param nodeId      the sensor node ID
+   * @param sensorKey   the sensor key
+   * @param csvRoot     the directory to write CSV files to
+   * @return the number of exported samples
+   * @throws IOException if reading or writing fails
+   */
+  public static long export(Path segmentRoot, String nodeId, String sensorKey, Path csvRoot)
+      throws IOException {
+    Path directory = SegmentFormat.seriesDirectory(segmentRoot, nodeId, sensorKey);
+    if (!Files.isDirectory(directory)) {
+      return 0;
+    }
+    long exported = 0;
+    try (CsvHistorySink csv = new CsvHistorySink(csvRoot)) {
+      for (Path file : list(directory)) {
+        if (file.getFileName().toString().endsWith(SegmentFormat.FILE_SUFFIX)) {
+          long[] copied = new long[1];
+          MappedSegment.map(file).scan(Long.MIN_VALUE, Long.MAX_VALUE, (timestamp, value) -> {
+            csv.append(nodeId, sensorKey, timestamp, value);
+            copied[0]++;
+          });
+          exported += copied[0];
+        }
+      }
+    }
+    return exported;
+  }
+
+  private static List<Path> list(Path directory) throws IOException {
+    try (Stream<Path> paths = Files.list(directory)) {
+      return paths.sorted().toList();
+    }
+  }
+}
@@ -0,0 +1,84 @@
+package group6.logic.history;
+
+/**
+ * How long each kind of history is kept. A retention of
+ * {@link #KEEP_FOREVER} keeps data indefinitely.
+ */
+public final class HistoryRetentionPolicy {
+
+  public static final long KEEP_FOREVER = 0;
+  private static final long DAY_MS = SegmentFormat.DAY_MS;
+
+  private final long rawRetentionMs;
+  private final long secondRetentionMs;
+  private final long minuteRetentionMs;
+  private final long hourRetentionMs;
+  private final long csvRetentionMs;
+
+  /**
+   * Creates a policy.
+   * 
+   * @param rawRetentionMs    how long raw segments are kept
+   * @param secondRetentionMs how long 1 s rollups are kept
+   * @param minuteRetentionMs how long 1 min rollups are kept
+   * @param hourRetentionMs   how long 1 h rollups are kept
+   * @param csvRetentionMs    how long CSV export runs are kept after their
+   *                          last write
+   * @throws IllegalArgumentException if a retention is negative
+   */
+  public HistoryRetentionPolicy(long rawRetentionMs, long secondRetentionMs,
+      long minuteRetentionMs, long hourRetentionMs, long csvRetentionMs) {
+    if (rawRetentionMs < 0 || secondRetentionMs < 0 || minuteRetentionMs < 0
+        || hourRetentionMs < 0 || csvRetentionMs < 0) {
+      throw new IllegalArgumentException("Retention cannot be negative");
+    }
+    this.rawRetentionMs = rawRetentionMs;
+    this.secondRetentionMs = secondRetentionMs;
+    this.minuteRetentionMs = minuteRetentionMs;
+    this.hourRetentionMs = hourRetentionMs;
+    this.csvRetentionMs = csvRetentionMs;
+  }
+
+  /**
+   * Returns the default policy: raw history and CSV runs for 30 days, 1 s
+   * rollups for 7 days, 1 min rollups for a year and 1 h rollups forever.
+   * 
+   * @return the default policy
+   */
+  public static HistoryRetentionPolicy defaults() {
+    return new HistoryRetentionPolicy(30 * DAY_MS, 7 * DAY_MS, 366 * DAY_MS, KEEP_FOREVER,
+        30 * DAY_MS);
+  }
+
+  /**
+   * Returns how long raw segments are kept.
+   * 
+   * @return the retention in milliseconds, or {@link #KEEP_FOREVER}
+   */
+  public long getRawRetentionMs() {
+    return rawRetentionMs;
+  }
+
+  /**
+   * Returns how long a rollup tier is kept.
+   * 
+   * @param resolution the rollup tier
+   * @return the retention in milliseconds, or {@link #KEEP_FOREVER}
+   */
+  public long getRollupRetentionMs(RollupResolution resolution) {
+    return switch (resolution) {
+      case SECOND -> secondRetentionMs;
+      case MINUTE -> minuteRetentionMs;
+      case HOUR -> hourRetentionMs;
+    };
+  }
+
+  /**
+   * Returns how long CSV export runs are kept after their last write.
+   * 
+   * @return the retention in milliseconds, or {@link #KEEP_FOREVER}
+   */
+  public long getCsvRetentionMs() {
+    return csvRetentionMs;
+  }
+}
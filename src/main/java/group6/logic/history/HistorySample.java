@@ -0,0 +1,32 @@
+package group6.logic.history;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Queue entry of {@link AsyncHistoryWriter}: a sample, or a flush request
+ * when {@link #flushed} is set.
+ */
+final class HistorySample {
+  final String nodeId;
+  final String sensorKey;
+  final long timestamp;
+  final double value;
+  final CountDownLatch flushed;
+
+  HistorySample(String nodeId, String sensorKey, long timestamp, double value) {
+    this(nodeId, sensorKey, timestamp, value, null);
+  }
+
+  private HistorySample(String nodeId, String sensorKey, long timestamp, double value,
+      CountDownLatch flushed) {
+    this.nodeId = nodeId;
+    this.sensorKey = sensorKey;
+    this.timestamp = timestamp;
+    this.value = value;
+    this.flushed = flushed;
+  }
+
+  static HistorySample flushRequest(CountDownLatch flushed) {
+    return new HistorySample(null, null, 0L, 0.0, flushed);
+  }
+}
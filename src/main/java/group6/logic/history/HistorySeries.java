@@ -0,0 +1,128 @@
+package group6.logic.history;
+
+import java.util.Arrays;
+import java.util.stream.DoubleStream;
+import java.util.stream.LongStream;
+
+/**
+ * Samples of one sensor in time order, as parallel primitive arrays.
+ */
+public final class HistorySeries {
+
+  private static final HistorySeries EMPTY = new HistorySeries(new long[0], new double[0], 0);
+
+  private final long[] timestamps;
+  private final double[] values;
+  private final int size;
+
+  HistorySeries(long[] timestamps, double[] values, int size) {
+    this.timestamps = timestamps;
+    this.values = values;
+    this.size = size;
+  }
+
+  static HistorySeries empty() {
+    return EMPTY;
+  }
+
+  /**
+   * Returns the number of samples.
+   * 
+   * @return the number of samples
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns whether there are no samples.
+   * 
+   * @return true if empty
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Returns the timestamp of a sample.
+   * 
+   * @param index the sample index
+   * @return the timestamp in milliseconds
+   */
+  public long getTimestamp(int index) {
+    return timestamps[checkIndex(index)];
+  }
+
+  /**
+   * Returns the value of a sample.
+   * 
+   * @param index the sample index
+   * @return the value
+   */
+  public double getValue(int index) {
+    return values[checkIndex(index)];
+  }
+
+  /**
+   * Returns a copy of the timestamps.
+   * 
+   * @return the timestamps in milliseconds
+   */
+  public long[] getTimestamps() {
+    return Arrays.copyOf(timestamps, size);
+  }
+
+  /**
+   * Returns a copy of the values.
+   * 
+   * @return the values
+   */
+  public double[] getValues() {
+    return Arrays.copyOf(values, size);
+  }
+
+  /**
+   * Streams the timestamps without copying.
+   * 
+   * @return the timestamps in milliseconds
+   */
+  public LongStream timestamps() {
+    return Arrays.stream(timestamps, 0, size);
+  }
+
+  /**
+   * Streams the values without copying.
+   * 
+   * @return the values
+   */
+  public DoubleStream values() {
+    return Arrays.stream(values, 0, size);
+  }
+
+  /**
+   * Finds the first sample at or after a time.
+   * 
+   * @param timestamp the time in milliseconds
+   * @return the index, or {@link #size()} if every sample is earlier
+   */
+  public int indexAtOrAfter(long timestamp) {
+    int low = 0;
+    int high = size;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (timestamps[mid] < timestamp) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  private int checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+    }
+    return index;
+  }
+}
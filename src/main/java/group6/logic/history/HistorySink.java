@@ -0,0 +1,26 @@
+package group6.logic.history;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+
+/**
+ * Destination for sensor history samples, fed by {@link AsyncHistoryWriter}.
+ * 
+ * <p>All calls come from the writer's background thread, so implementations
+ * do not need to be thread-safe. {@link #append} may buffer; data only has to
+ * be durable after {@link #flush()}.
+ */
+public interface HistorySink extends Flushable, Closeable {
+
+  /**
+   * Appends one sample.
+   * 
+   * @param nodeId    the sensor node ID
+   * @param sensorKey the sensor key ({@code type#id})
+   * @param timestamp the sample time in milliseconds
+   * @param value     the sample value
+   * @throws IOException if the sample cannot be written
+   */
+  void append(String nodeId, String sensorKey, long timestamp, double value) throws IOException;
+}
@@ -0,0 +1,273 @@
+package group6.logic.history;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Reads sensor history back from the segment files written by
+ * {@link SegmentHistorySink} and the rollups written by
+ * {@link RollupHistorySink}.
+ * 
+ * <p>Segment files are memory-mapped rather than read, and only the blocks
+ * whose time range overlaps a query are decoded, so asking for an hour out of
+ * a busy day touches a few pages of one file. Mappings are cached and reused
+ * until the file changes on disk. Long ranges are best read from the rollups,
+ * which hold a few hundred buckets where raw history holds millions of
+ * samples.
+ * 
+ * <p>Samples still buffered by the writer (see
+ * {@link SegmentHistorySink#DEFAULT_MAX_BLOCK_AGE_MS}) are not visible yet;
+ * recent readings are available from the control panel cache.
+ */
+public class HistoryStore {
+
+  /** Default number of segment files kept mapped. */
+  public static final int DEFAULT_MAX_MAPPED_FILES = 128;
+
+  private final Path root;
+  private final Path rollupRoot;
+  private final int maxMappedFiles;
+  private final Map<Path, CachedSegment> mapped;
+
+  /**
+   * Creates a store reading raw history only.
+   * 
+   * @param root the segment root directory
+   */
+  public HistoryStore(Path root) {
+    this(root, null, DEFAULT_MAX_MAPPED_FILES);
+  }
+
+  /**
+   * Creates a store reading raw history and rollups.
+   * 
+   * @param root       the segment root directory
+   * @param rollupRoot the rollup root directory
+   */
+  public HistoryStore(Path root, Path rollupRoot) {
+    this(root, rollupRoot, DEFAULT_MAX_MAPPED_FILES);
+  }
+
+  /**
+   * Creates a store.
+   * 
+   * @param root           the segment root directory
+   * @param rollupRoot     the rollup root directory, or null for none
+   * @param maxMappedFiles the number of segment files to keep mapped
+   */
+  public HistoryStore(Path root, Path rollupRoot, int maxMappedFiles) {
+    if (root == null) {
+      throw new IllegalArgumentException("Root directory cannot be null");
+    }
+    if (maxMappedFiles <= 0) {
+      throw new IllegalArgumentException("Max mapped files must be positive");
+    }
+    this.root = root;
+    this.rollupRoot = rollupRoot;
+    this.maxMappedFiles = maxMappedFiles;
+    this.mapped = new LinkedHashMap<>(16, 0.75f, true);
+  }
+
+  /**
+   * Returns the samples of a sensor between two times, inclusive, in time
+   * order.
+   * 
+   * @param nodeId    the sensor node ID
+   * @param sensorKey the sensor key
+   * @param fromMs    the start of the range in milliseconds
+   * @param toMs      the end of the range in milliseconds
+   * @return the matching samples, empty if there are none
+   * @throws IOException if a segment file cannot be read
+   */
+  public HistorySeries query(String nodeId, String sensorKey, long fromMs, long toMs)
+      throws IOException {
+    checkQuery(nodeId, sensorKey, fromMs, toMs);
+    SampleCollector collector = new SampleCollector();
+    Path directory = SegmentFormat.seriesDirectory(root, nodeId, sensorKey);
+    for (Path file : listFiles(directory, SegmentFormat.FILE_SUFFIX,
+        LocalDate.ofEpochDay(SegmentFormat.epochDay(fromMs)).toString(),
+        LocalDate.ofEpochDay(SegmentFormat.epochDay(toMs)).toString())) {
+      segment(file).scan(fromMs, toMs, collector::add);
+    }
+    return collector.toSeries();
+  }
+
+  /**
+   * Returns the rollup buckets of a sensor that start between two times,
+   * inclusive, in time order. The bucket holding {@code fromMs} is included.
+   * 
+   * @param nodeId     the sensor node ID
+   * @param sensorKey  the sensor key
+   * @param resolution the rollup tier to read
+   * @param fromMs     the start of the range in milliseconds
+   * @param toMs       the end of the range in milliseconds
+   * @return the matching buckets, empty if there are none
+   * @throws IOException           if a rollup file cannot be read
+   * @throws IllegalStateException if the store has no rollup directory
+   */
+  public RollupSeries queryRollups(String nodeId, String sensorKey,
+      RollupResolution resolution, long fromMs, long toMs) throws IOException {
+    checkQuery(nodeId, sensorKey, fromMs, toMs);
+    if (resolution == null) {
+      throw new IllegalArgumentException("Resolution cannot be null");
+    }
+    if (rollupRoot == null) {
+      throw new IllegalStateException("No rollup directory configured");
+    }
+    long fromBucket = resolution.bucketStart(fromMs);
+    RollupCollector collector = new RollupCollector();
+    Path directory = RollupFormat.seriesDirectory(rollupRoot, resolution, nodeId, sensorKey);
+    for (Path file : listFiles(directory, RollupFormat.FILE_SUFFIX,
+        resolution.partitionName(fromBucket), resolution.partitionName(toMs))) {
+      scanRollups(file, fromBucket, toMs, collector);
+    }
+    return collector.toSeries();
+  }
+
+  /**
+   * Returns the rollup buckets of a sensor between two times from the finest
+   * tier that covers the range in at most {@code maxPoints} buckets.
+   * 
+   * @param nodeId    the sensor node ID
+   * @param sensorKey the sensor key
+   * @param fromMs    the start of the range in milliseconds
+   * @param toMs      the end of the range in milliseconds
+   * @param maxPoints the maximum number of buckets wanted, for example the
+   *                  width of a chart
+   * @return the matching buckets, empty if there are none
+   * @throws IOException if a rollup file cannot be read
+   */
+  public RollupSeries queryRollups(String nodeId, String sensorKey, long fromMs, long toMs,
+      int maxPoints) throws IOException {
+    return queryRollups(nodeId, sensorKey,
+        RollupResolution.forSpan(toMs - fromMs, maxPoints), fromMs, toMs);
+  }
+
+  /**
+   * Returns the rollup root directory.
+   * 
+   * @return the rollup root directory, or null if none is configured
+   */
+  public Path getRollupRoot() {
+    return rollupRoot;
+  }
+
+  /**
+   * Returns the segment root directory.
+   * 
+   * @return the root directory
+   */
+  public Path getRoot() {
+    return root;
+  }
+
+  /**
+   * Drops every cached mapping. The mappings are released once no query
+   * result refers to them any more.
+   */
+  public synchronized void clearCache() {
+    mapped.clear();
+  }
+
+  private static void checkQuery(String nodeId, String sensorKey, long fromMs, long toMs) {
+    if (nodeId == null || sensorKey == null) {
+      throw new IllegalArgumentException("Node ID and sensor key cannot be null");
+    }
+    if (fromMs > toMs) {
+      throw new IllegalArgumentException("Range start must not be after its end");
+    }
+  }
+
+  /**
+   * Lists the files of a directory whose names, without the suffix, fall
+   * between two names. File names are dates, so they sort in time order.
+   */
+  private static List<Path> listFiles(Path directory, String suffix, String first, String last)
+      throws IOException {
+    if (!Files.isDirectory(directory)) {
+      return List.of();
+    }
+    List<Path> files = new ArrayList<>();
+    try (Stream<Path> paths = Files.list(directory)) {
+      for (Path file : (Iterable<Path>) paths.sorted()::iterator) {
+        String name = file.getFileName().toString();
+        if (!name.endsWith(suffix)) {
+          continue;
+        }
+        String period = name.substring(0, name.length() - suffix.length());
+        if (period.length() == first.length() && period.compareTo(first) >= 0
+            && period.compareTo(last) <= 0) {
+          files.add(file);
+        }
+      }
+    }
+    return files;
+  }
+
+  /**
+   * Collects the records of a rollup file starting in {@code [fromMs, toMs]}.
+   */
+  private static void scanRollups(Path file, long fromMs, long toMs, RollupCollector out)
+      throws IOException {
+    ByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    int records = buffer.limit() / RollupFormat.RECORD_BYTES;
+    int low = 0;
+    int high = records;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (buffer.getLong(mid * RollupFormat.RECORD_BYTES) < fromMs) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    for (int i = low; i < records; i++) {
+      int offset = i * RollupFormat.RECORD_BYTES;
+      long start = buffer.getLong(offset);
+      if (start > toMs) {
+        break;
+      }
+      out.add(start, buffer.getInt(offset + 8), buffer.getDouble(offset + 12),
+          buffer.getDouble(offset + 20), buffer.getDouble(offset + 28));
+    }
+  }
+
+  /**
+   * Returns the mapping of a file, remapping it if it changed since.
+   */
+  private MappedSegment segment(Path file) throws IOException {
+    BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+    long modified = attributes.lastModifiedTime().toMillis();
+    synchronized (this) {
+      CachedSegment cached = mapped.get(file);
+      if (cached != null && cached.size == attributes.size() && cached.modified == modified) {
+        return cached.segment;
+      }
+    }
+    MappedSegment segment = MappedSegment.map(file);
+    synchronized (this) {
+      mapped.put(file, new CachedSegment(segment, attributes.size(), modified));
+      if (mapped.size() > maxMappedFiles) {
+        mapped.remove(mapped.keySet().iterator().next());
+      }
+    }
+    return segment;
+  }
+
+  private record CachedSegment(MappedSegment segment, long size, long modified) {
+  }
+}
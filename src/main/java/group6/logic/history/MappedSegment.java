@@ -0,0 +1,155 @@
+package group6.logic.history;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A segment file mapped into memory, with its block headers indexed.
+ * 
+ * <p>Mapping only reads the headers; payloads are paged in when a query
+ * decodes them. Blocks whose checksum fails are left out of the index, and a
+ * torn block at the end of the file (the writer died mid-append) ends it.
+ */
+final class MappedSegment {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(MappedSegment.class);
+
+  private final MappedByteBuffer buffer;
+  private final SegmentFormat.BlockHeader[] blocks;
+  private final long[] maxLastTimestamp; // running max, for the binary search
+  private final boolean clean;
+  private long sampleCount;
+  private boolean timeOrdered = true;
+
+  private MappedSegment(MappedByteBuffer buffer, SegmentFormat.BlockHeader[] blocks,
+      boolean clean) {
+    this.buffer = buffer;
+    this.blocks = blocks;
+    this.clean = clean;
+    this.maxLastTimestamp = new long[blocks.length];
+    long max = Long.MIN_VALUE;
+    for (int i = 0; i < blocks.length; i++) {
+      if (blocks[i].firstTimestamp < max) {
+        timeOrdered = false;
+      }
+      max = Math.max(max, blocks[i].lastTimestamp);
+      maxLastTimestamp[i] = max;
+      sampleCount += blocks[i].count;
+    }
+  }
+
+  /**
+   * Maps a segment file and indexes its blocks.
+   * 
+   * @param file the segment file
+   * @return the mapped segment
+   * @throws IOException if the file cannot be mapped
+   */
+  static MappedSegment map(Path file) throws IOException {
+    MappedByteBuffer buffer;
+    long size;
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        throw new IOException("Segment too large to map: " + file);
+      }
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    }
+
+    SegmentFormat.BlockHeader[] blocks = new SegmentFormat.BlockHeader[16];
+    int count = 0;
+    int offset = 0;
+    boolean clean = true;
+    while (offset < size) {
+      SegmentFormat.BlockHeader header;
+      try {
+        header = SegmentFormat.BlockHeader.read(buffer, offset);
+      } catch (IOException e) {
+        LOGGER.warn("Stopped indexing {}: {}", file, e.getMessage());
+        clean = false;
+        break;
+      }
+      if (header.isIntact(buffer)) {
+        if (count == blocks.length) {
+          blocks = Arrays.copyOf(blocks, count * 2);
+        }
+        blocks[count++] = header;
+      } else {
+        LOGGER.warn("Skipping corrupt block at offset {} in {}", offset, file);
+        clean = false;
+      }
+      offset = header.nextOffset();
+    }
+    return new MappedSegment(buffer, Arrays.copyOf(blocks, count), clean);
+  }
+
+  int getBlockCount() {
+    return blocks.length;
+  }
+
+  long getSampleCount() {
+    return sampleCount;
+  }
+
+  /**
+   * Returns whether every block starts after the previous ones end.
+   */
+  boolean isTimeOrdered() {
+    return timeOrdered;
+  }
+
+  /**
+   * Returns whether the file had no corrupt or torn blocks.
+   */
+  boolean isClean() {
+    return clean;
+  }
+
+  /**
+   * Receives decoded samples.
+   */
+  @FunctionalInterface
+  interface SampleConsumer {
+    void accept(long timestamp, double value) throws IOException;
+  }
+
+  /**
+   * Passes the samples in {@code [fromMs, toMs]} to a consumer, block by block.
+   */
+  void scan(long fromMs, long toMs, SampleConsumer out) throws IOException {
+    // Blocks are appended in time order, so the running max of their last
+    // timestamps is sorted: skip every block that ends before fromMs.
+    int low = 0;
+    int high = blocks.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (maxLastTimestamp[mid] < fromMs) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    for (int i = low; i < blocks.length; i++) {
+      SegmentFormat.BlockHeader block = blocks[i];
+      if (!block.overlaps(fromMs, toMs)) {
+        continue;
+      }
+      GorillaDecoder decoder = block.decoder(buffer);
+      while (decoder.next()) {
+        long timestamp = decoder.getTimestamp();
+        if (timestamp > toMs) {
+          break;
+        }
+        if (timestamp >= fromMs) {
+          out.accept(timestamp, decoder.getValue());
+        }
+      }
+    }
+  }
+}
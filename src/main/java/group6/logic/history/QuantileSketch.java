@@ -0,0 +1,295 @@
+package group6.logic.history;
+
+import java.util.Arrays;
+
+/**
+ * Mergeable quantile sketch with relative-error guarantees (DDSketch).
+ * 
+ * <p>Values are counted in logarithmic bins: bin {@code i} holds magnitudes
+ * in {@code (gamma^(i-1), gamma^i]} with {@code gamma = (1 + a) / (1 - a)},
+ * so every quantile is returned within relative accuracy {@code a} of a
+ * true sample. Positive and negative values have their own bins; magnitudes
+ * too small to index count as zero. Two sketches with the same accuracy
+ * merge by adding bin counts, which makes per-minute sketches combinable
+ * into any longer window, or across sensors and nodes.
+ * 
+ * <p>Each sign keeps at most {@link #MAX_BINS} bins; beyond that the bins
+ * closest to zero are folded together, which only affects quantiles of
+ * values many orders of magnitude smaller than the rest. Not thread-safe.
+ */
+public final class QuantileSketch {
+
+  public static final double DEFAULT_RELATIVE_ACCURACY = 0.01;
+  public static final int MAX_BINS = 2048;
+  private static final double MIN_INDEXABLE = 1e-9;
+  private static final int INITIAL_BINS = 8;
+
+  private final double relativeAccuracy;
+  private final double gamma;
+  private final double multiplier;
+  private final Bins positive = new Bins();
+  private final Bins negative = new Bins();
+  private long zeroCount;
+  private double min = Double.NaN;
+  private double max = Double.NaN;
+  private double sum;
+
+  /**
+   * Creates a sketch with 1% relative accuracy.
+   */
+  public QuantileSketch() {
+    this(DEFAULT_RELATIVE_ACCURACY);
+  }
+
+  /**
+   * Creates a sketch.
+   * 
+   * @param relativeAccuracy the relative accuracy of returned quantiles,
+   *                         between 0 and 1 exclusive
+   * @throws IllegalArgumentException if the accuracy is out of range
+   */
+  public QuantileSketch(double relativeAccuracy) {
+    if (!(relativeAccuracy > 0 && relativeAccuracy < 1)) {
+      throw new IllegalArgumentException("Relative accuracy must be between 0 and 1");
+    }
+    this.relativeAccuracy = relativeAccuracy;
+    this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+    this.multiplier = 1 / Math.log(gamma);
+  }
+
+  /**
+   * Adds a value. NaN is ignored.
+   * 
+   * @param value the value
+   */
+  public void add(double value) {
+    if (Double.isNaN(value)) {
+      return;
+    }
+    if (value > MIN_INDEXABLE) {
+      positive.add(index(value), 1);
+    } else if (value < -MIN_INDEXABLE) {
+      negative.add(index(-value), 1);
+    } else {
+      zeroCount++;
+    }
+    min = getCount() == 1 || value < min ? value : min;
+    max = getCount() == 1 || value > max ? value : max;
+    sum += value;
+  }
+
+  /**
+   * Adds every value counted by another sketch.
+   * 
+   * @param other a sketch with the same relative accuracy
+   * @throws IllegalArgumentException if the accuracies differ
+   */
+  public void merge(QuantileSketch other) {
+    if (other.relativeAccuracy != relativeAccuracy) {
+      throw new IllegalArgumentException("Cannot merge sketches of different accuracy");
+    }
+    if (other.getCount() == 0) {
+      return;
+    }
+    boolean wasEmpty = getCount() == 0;
+    positive.addAll(other.positive);
+    negative.addAll(other.negative);
+    zeroCount += other.zeroCount;
+    min = wasEmpty ? other.min : Math.min(min, other.min);
+    max = wasEmpty ? other.max : Math.max(max, other.max);
+    sum += other.sum;
+  }
+
+  /**
+   * Returns the value at a quantile.
+   * 
+   * @param quantile the quantile, from 0 (minimum) to 1 (maximum)
+   * @return the value, within the relative accuracy, or {@link Double#NaN}
+   *         if the sketch is empty
+   * @throws IllegalArgumentException if the quantile is out of range
+   */
+  public double getQuantile(double quantile) {
+    if (!(quantile >= 0 && quantile <= 1)) {
+      throw new IllegalArgumentException("Quantile must be between 0 and 1");
+    }
+    long count = getCount();
+    if (count == 0) {
+      return Double.NaN;
+    }
+    double rank = quantile * (count - 1);
+    double value;
+    if (rank < negative.total) {
+      // Most negative first: highest magnitude bin first
+      value = -value(negative.indexFromTop((long) rank));
+    } else if (rank < negative.total + zeroCount) {
+      value = 0;
+    } else {
+      value = value(positive.indexFromBottom((long) rank - negative.total - zeroCount));
+    }
+    return Math.max(min, Math.min(max, value));
+  }
+
+  /**
+   * Returns the number of values added.
+   * 
+   * @return the count
+   */
+  public long getCount() {
+    return positive.total + negative.total + zeroCount;
+  }
+
+  /**
+   * Returns the smallest value added.
+   * 
+   * @return the minimum, or {@link Double#NaN} if empty
+   */
+  public double getMin() {
+    return min;
+  }
+
+  /**
+   * Returns the largest value added.
+   * 
+   * @return the maximum, or {@link Double#NaN} if empty
+   */
+  public double getMax() {
+    return max;
+  }
+
+  /**
+   * Returns the mean of the values added.
+   * 
+   * @return the average, or {@link Double#NaN} if empty
+   */
+  public double getAverage() {
+    long count = getCount();
+    return count == 0 ? Double.NaN : sum / count;
+  }
+
+  /**
+   * Returns the relative accuracy.
+   * 
+   * @return the relative accuracy
+   */
+  public double getRelativeAccuracy() {
+    return relativeAccuracy;
+  }
+
+  /**
+   * Removes every value, keeping the allocated bins.
+   */
+  public void clear() {
+    positive.clear();
+    negative.clear();
+    zeroCount = 0;
+    min = Double.NaN;
+    max = Double.NaN;
+    sum = 0;
+  }
+
+  private int index(double magnitude) {
+    return (int) Math.ceil(Math.log(magnitude) * multiplier);
+  }
+
+  /**
+   * Returns the representative of a bin, within the relative accuracy of
+   * every magnitude it holds.
+   */
+  private double value(int index) {
+    return 2 * Math.pow(gamma, index) / (gamma + 1);
+  }
+
+  /**
+   * Dense counts for a contiguous range of bin indices.
+   */
+  private static final class Bins {
+    long[] counts = new long[0];
+    int offset; // bin index of counts[0]
+    long total;
+
+    void add(int index, long n) {
+      if (counts.length == 0) {
+        counts = new long[INITIAL_BINS];
+        offset = index - INITIAL_BINS / 2;
+      }
+      if (index < offset || index >= offset + counts.length) {
+        index = extendTo(index);
+      }
+      counts[index - offset] += n;
+      total += n;
+    }
+
+    void addAll(Bins other) {
+      for (int i = 0; i < other.counts.length; i++) {
+        if (other.counts[i] != 0) {
+          add(other.offset + i, other.counts[i]);
+        }
+      }
+    }
+
+    /**
+     * Widens the range to hold an index, folding the lowest bins together
+     * if the range would exceed the maximum.
+     * 
+     * @return the bin the index is now counted in
+     */
+    private int extendTo(int index) {
+      int low = Math.min(offset, index);
+      int high = Math.max(offset + counts.length - 1, index);
+      int span = high - low + 1;
+      int newOffset;
+      long[] grown;
+      if (span <= MAX_BINS) {
+        int length = Math.min(MAX_BINS, Math.max(span, counts.length * 2));
+        newOffset = index < offset ? high - length + 1 : low;
+        grown = new long[length];
+      } else {
+        newOffset = high - MAX_BINS + 1;
+        grown = new long[MAX_BINS];
+      }
+      for (int i = 0; i < counts.length; i++) {
+        if (counts[i] != 0) {
+          grown[Math.max(offset + i, newOffset) - newOffset] += counts[i];
+        }
+      }
+      counts = grown;
+      offset = newOffset;
+      return Math.max(index, newOffset);
+    }
+
+    /**
+     * Returns the index of the bin holding the value of the given rank,
+     * counting from the lowest bin.
+     */
+    int indexFromBottom(long rank) {
+      long seen = 0;
+      for (int i = 0; i < counts.length; i++) {
+        seen += counts[i];
+        if (seen > rank) {
+          return offset + i;
+        }
+      }
+      return offset + counts.length - 1;
+    }
+
+    /**
+     * Returns the index of the bin holding the value of the given rank,
+     * counting from the highest bin.
+     */
+    int indexFromTop(long rank) {
+      long seen = 0;
+      for (int i = counts.length - 1; i >= 0; i--) {
+        seen += counts[i];
+        if (seen > rank) {
+          return offset + i;
+        }
+      }
+      return offset;
+    }
+
+    void clear() {
+      Arrays.fill(counts, 0);
+      total = 0;
+    }
+  }
+}
@@ -0,0 +1,86 @@
+package group6.logic.history;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Growable parallel arrays that collect rollup buckets, merging records of
+ * the same bucket.
+ */
+final class RollupCollector {
+
+  private long[] starts = new long[64];
+  private int[] counts = new int[64];
+  private double[] mins = new double[64];
+  private double[] maxes = new double[64];
+  private double[] sums = new double[64];
+  private int size;
+  private boolean sorted = true;
+
+  void add(long start, int count, double min, double max, double sum) {
+    if (count <= 0) {
+      return;
+    }
+    if (size > 0 && starts[size - 1] == start) {
+      merge(size - 1, count, min, max, sum);
+      return;
+    }
+    if (size == starts.length) {
+      int capacity = size * 2;
+      starts = Arrays.copyOf(starts, capacity);
+      counts = Arrays.copyOf(counts, capacity);
+      mins = Arrays.copyOf(mins, capacity);
+      maxes = Arrays.copyOf(maxes, capacity);
+      sums = Arrays.copyOf(sums, capacity);
+    }
+    if (size > 0 && start < starts[size - 1]) {
+      sorted = false;
+    }
+    starts[size] = start;
+    counts[size] = count;
+    mins[size] = min;
+    maxes[size] = max;
+    sums[size] = sum;
+    size++;
+  }
+
+  RollupSeries toSeries() {
+    if (size == 0) {
+      return RollupSeries.empty();
+    }
+    if (!sorted) {
+      sortAndMerge();
+    }
+    return new RollupSeries(starts, counts, mins, maxes, sums, size);
+  }
+
+  private void merge(int index, int count, double min, double max, double sum) {
+    counts[index] += count;
+    mins[index] = Math.min(mins[index], min);
+    maxes[index] = Math.max(maxes[index], max);
+    sums[index] += sum;
+  }
+
+  /**
+   * Sorts by bucket start and merges duplicates. Only needed when the clock
+   * went back between runs, so it favours brevity over speed.
+   */
+  private void sortAndMerge() {
+    Integer[] order = new Integer[size];
+    for (int i = 0; i < size; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, Comparator.comparingLong(i -> starts[i]));
+    RollupCollector merged = new RollupCollector();
+    for (int i : order) {
+      merged.add(starts[i], counts[i], mins[i], maxes[i], sums[i]);
+    }
+    starts = merged.starts;
+    counts = merged.counts;
+    mins = merged.mins;
+    maxes = merged.maxes;
+    sums = merged.sums;
+    size = merged.size;
+    sorted = true;
+  }
+}
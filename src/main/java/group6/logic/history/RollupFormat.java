@@ -0,0 +1,54 @@
+package group6.logic.history;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * On-disk layout of the history rollups.
+ * 
+ * <p>Files live at {@code <root>/<tier>/<nodeId>/<sensorKey>/<partition>.rol},
+ * for example {@code 1m/node-1/temperature#t1/2025-11.rol}, and hold
+ * fixed-size bucket records in bucket order:
+ * 
+ * <pre>
+ * 0  long   bucket start (ms)
+ * 8  int    sample count
+ * 12 double min
+ * 20 double max
+ * 28 double sum
+ * </pre>
+ * 
+ * <p>The record of the bucket still being filled is rewritten in place, so a
+ * file may end with a partial bucket; a bucket may also appear twice after a
+ * restart. Readers merge records with the same start.
+ */
+final class RollupFormat {
+
+  static final int RECORD_BYTES = 36;
+  static final String FILE_SUFFIX = ".rol";
+
+  private RollupFormat() {
+  }
+
+  /**
+   * Returns the directory holding a sensor's files of one tier.
+   */
+  static Path seriesDirectory(Path root, RollupResolution resolution, String nodeId,
+      String sensorKey) {
+    return root.resolve(resolution.getDirectoryName()).resolve(nodeId).resolve(sensorKey);
+  }
+
+  /**
+   * Returns the file holding the bucket of a time.
+   */
+  static Path partitionFile(Path root, RollupResolution resolution, String nodeId,
+      String sensorKey, long timestamp) {
+    return seriesDirectory(root, resolution, nodeId, sensorKey)
+        .resolve(resolution.partitionName(timestamp) + FILE_SUFFIX);
+  }
+
+  static void putRecord(ByteBuffer buffer, long start, int count, double min, double max,
+      double sum) {
+    buffer.putLong(start).putInt(count).putDouble(min).putDouble(max).putDouble(sum);
+  }
+}
@@ -0,0 +1,286 @@
+package group6.logic.history;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Maintains min/max/sum/count buckets of every sensor at several resolutions
+ * as samples stream in, see {@link RollupFormat} for the file layout.
+ * 
+ * <p>Each tier of each sensor keeps its current bucket in memory. Finished
+ * buckets are buffered and appended on flush, and the current bucket is
+ * written in place after them, so a flush makes the partial bucket visible
+ * to readers and later flushes overwrite it until it is finished. Files stay
+ * open between flushes; at most {@code maxOpenFiles} are kept open.
+ * 
+ * <p>Buckets are written in time order. A sample older than a tier's current
+ * bucket (the clock went back) is left out of that tier and counted; raw
+ * segments still keep it.
+ */
+public class RollupHistorySink implements HistorySink {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(RollupHistorySink.class);
+  public static final int DEFAULT_MAX_OPEN_FILES = 256;
+  private static final int PENDING_RECORDS = 64;
+
+  private final Path root;
+  private final int maxOpenFiles;
+  private final RollupResolution[] resolutions;
+  private final Map<String, Tier[]> series = new HashMap<>();
+  private final Map<Path, FileChannel> channels = new LinkedHashMap<>(16, 0.75f, true);
+  private long lateSamples;
+
+  /**
+   * Creates a sink maintaining every resolution.
+   * 
+   * @param root the rollup root directory
+   */
+  public RollupHistorySink(Path root) {
+    this(root, DEFAULT_MAX_OPEN_FILES, RollupResolution.values());
+  }
+
+  /**
+   * Creates a sink.
+   * 
+   * @param root         the rollup root directory
+   * @param maxOpenFiles maximum number of files kept open
+   * @param resolutions  the tiers to maintain
+   * @throws IllegalArgumentException if maxOpenFiles is less than 1 or no
+   *                                  resolution is given
+   */
+  public RollupHistorySink(Path root, int maxOpenFiles, RollupResolution... resolutions) {
+    if (maxOpenFiles < 1) {
+      throw new IllegalArgumentException("maxOpenFiles must be at least 1");
+    }
+    if (resolutions.length == 0) {
+      throw new IllegalArgumentException("At least one resolution is required");
+    }
+    this.root = root;
+    this.maxOpenFiles = maxOpenFiles;
+    this.resolutions = resolutions.clone();
+  }
+
+  @Override
+  public void append(String nodeId, String sensorKey, long timestamp, double value)
+      throws IOException {
+    Tier[] tiers = series.computeIfAbsent(nodeId + "/" + sensorKey, k -> {
+      Tier[] created = new Tier[resolutions.length];
+      for (int i = 0; i < created.length; i++) {
+        created[i] = new Tier(resolutions[i], nodeId, sensorKey);
+      }
+      return created;
+    });
+    IOException failure = null;
+    for (Tier tier : tiers) {
+      try {
+        tier.add(timestamp, value);
+      } catch (IOException e) {
+        failure = e;
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  /**
+   * Writes finished buckets and the current state of open ones.
+   */
+  @Override
+  public void flush() throws IOException {
+    IOException failure = null;
+    for (Tier[] tiers : series.values()) {
+      for (Tier tier : tiers) {
+        try {
+          tier.flush();
+        } catch (IOException e) {
+          failure = e;
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    IOException failure = null;
+    try {
+      flush();
+    } catch (IOException e) {
+      failure = e;
+    }
+    for (FileChannel channel : channels.values()) {
+      try {
+        channel.close();
+      } catch (IOException e) {
+        failure = e;
+      }
+    }
+    channels.clear();
+    series.clear();
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  /**
+   * Returns the number of samples left out of a tier because they were older
+   * than its current bucket.
+   * 
+   * @return the number of late samples
+   */
+  public long getLateSamples() {
+    return lateSamples;
+  }
+
+  private FileChannel channel(Path file) throws IOException {
+    FileChannel channel = channels.get(file);
+    if (channel != null) {
+      return channel;
+    }
+    if (channels.size() >= maxOpenFiles) {
+      Iterator<FileChannel> eldest = channels.values().iterator();
+      FileChannel evicted = eldest.next();
+      eldest.remove();
+      evicted.close();
+    }
+    Files.createDirectories(file.getParent());
+    channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    channels.put(file, channel);
+    return channel;
+  }
+
+  /**
+   * Buckets of one sensor at one resolution.
+   */
+  private final class Tier {
+    final RollupResolution resolution;
+    final String nodeId;
+    final String sensorKey;
+    final ByteBuffer pending =
+        ByteBuffer.allocate((PENDING_RECORDS + 1) * RollupFormat.RECORD_BYTES);
+    long start = Long.MIN_VALUE;
+    int count;
+    double min;
+    double max;
+    double sum;
+    boolean dirty;
+    Path file; // file the pending records belong to
+    long fileStart;
+    long fileEnd;
+    long committed = -1; // offset of the first record not finished on disk
+
+    Tier(RollupResolution resolution, String nodeId, String sensorKey) {
+      this.resolution = resolution;
+      this.nodeId = nodeId;
+      this.sensorKey = sensorKey;
+    }
+
+    void add(long timestamp, double value) throws IOException {
+      long bucket = resolution.bucketStart(timestamp);
+      if (bucket != start) {
+        if (start != Long.MIN_VALUE && bucket < start) {
+          if (lateSamples++ == 0) {
+            LOGGER.warn("Sample for {} at {} is older than its {} bucket, left out of rollups",
+                sensorKey, timestamp, resolution);
+          }
+          return;
+        }
+        if (count > 0) {
+          finish();
+        }
+        start = bucket;
+        count = 0;
+        min = value;
+        max = value;
+        sum = 0;
+      }
+      min = Math.min(min, value);
+      max = Math.max(max, value);
+      sum += value;
+      count++;
+      dirty = true;
+    }
+
+    /**
+     * Moves the current bucket to the pending records.
+     */
+    private void finish() throws IOException {
+      moveToFileOf(start);
+      RollupFormat.putRecord(pending, start, count, min, max, sum);
+      count = 0;
+      if (pending.position() >= PENDING_RECORDS * RollupFormat.RECORD_BYTES) {
+        write(false);
+      }
+    }
+
+    void flush() throws IOException {
+      if (!dirty && pending.position() == 0) {
+        return;
+      }
+      if (count > 0) {
+        moveToFileOf(start);
+      }
+      write(dirty && count > 0);
+      dirty = false;
+    }
+
+    /**
+     * Writes the pending records of the current file before switching to the
+     * file holding the given bucket.
+     */
+    private void moveToFileOf(long bucket) throws IOException {
+      if (file != null && bucket >= fileStart && bucket < fileEnd) {
+        return;
+      }
+      if (file != null) {
+        write(false);
+      }
+      file = RollupFormat.partitionFile(root, resolution, nodeId, sensorKey, bucket);
+      fileStart = resolution.partitionStart(bucket);
+      fileEnd = resolution.partitionEnd(bucket);
+      committed = -1;
+    }
+
+    /**
+     * Writes the pending records, and optionally the current bucket after
+     * them, at the end of the finished records.
+     */
+    private void write(boolean includeOpen) throws IOException {
+      int finished = pending.position() / RollupFormat.RECORD_BYTES;
+      if (includeOpen) {
+        RollupFormat.putRecord(pending, start, count, min, max, sum);
+      }
+      pending.flip();
+      try {
+        if (!pending.hasRemaining()) {
+          return;
+        }
+        FileChannel channel = channel(file);
+        if (committed < 0) {
+          long size = channel.size();
+          committed = size - size % RollupFormat.RECORD_BYTES; // drop a torn record
+        }
+        long position = committed;
+        while (pending.hasRemaining()) {
+          position += channel.write(pending, position);
+        }
+        committed += (long) finished * RollupFormat.RECORD_BYTES;
+      } finally {
+        pending.clear(); // drop the records even if the write fails, so one bad file cannot stall
+      }
+    }
+  }
+}
@@ -0,0 +1,124 @@
+package group6.logic.history;
+
+import java.time.LocalDate;
+import java.time.Year;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Bucket sizes of the history rollup tiers.
+ * 
+ * <p>Each tier is stored in fixed-size files; a file holds one UTC day of
+ * second buckets, one month of minute buckets or one year of hour buckets.
+ */
+public enum RollupResolution {
+  SECOND("1s", 1000L, DateTimeFormatter.ofPattern("yyyy-MM-dd")),
+  MINUTE("1m", 60_000L, DateTimeFormatter.ofPattern("yyyy-MM")),
+  HOUR("1h", 3_600_000L, DateTimeFormatter.ofPattern("yyyy"));
+
+  private final String directoryName;
+  private final long bucketMs;
+  private final DateTimeFormatter partitionFormat;
+
+  RollupResolution(String directoryName, long bucketMs, DateTimeFormatter partitionFormat) {
+    this.directoryName = directoryName;
+    this.bucketMs = bucketMs;
+    this.partitionFormat = partitionFormat;
+  }
+
+  /**
+   * Returns the length of one bucket.
+   * 
+   * @return the bucket length in milliseconds
+   */
+  public long getBucketMs() {
+    return bucketMs;
+  }
+
+  /**
+   * Returns the start of the bucket a time falls in.
+   * 
+   * @param timestamp the time in milliseconds
+   * @return the bucket start in milliseconds
+   */
+  public long bucketStart(long timestamp) {
+    return Math.floorDiv(timestamp, bucketMs) * bucketMs;
+  }
+
+  /**
+   * Picks the finest tier that covers a time span in at most the given number
+   * of buckets, or the coarsest tier if none does.
+   * 
+   * @param spanMs    the time span in milliseconds
+   * @param maxPoints the maximum number of buckets wanted
+   * @return the resolution to query
+   */
+  public static RollupResolution forSpan(long spanMs, int maxPoints) {
+    if (maxPoints < 1) {
+      throw new IllegalArgumentException("maxPoints must be at least 1");
+    }
+    for (RollupResolution resolution : values()) {
+      if (spanMs / resolution.bucketMs < maxPoints) {
+        return resolution;
+      }
+    }
+    return HOUR;
+  }
+
+  String getDirectoryName() {
+    return directoryName;
+  }
+
+  /**
+   * Returns the start of the file period a time falls in.
+   */
+  long partitionStart(long timestamp) {
+    return firstDay(timestamp).toEpochDay() * SegmentFormat.DAY_MS;
+  }
+
+  /**
+   * Returns the end, exclusive, of the file period a time falls in.
+   */
+  long partitionEnd(long timestamp) {
+    LocalDate first = firstDay(timestamp);
+    LocalDate next = switch (this) {
+      case SECOND -> first.plusDays(1);
+      case MINUTE -> first.plusMonths(1);
+      case HOUR -> first.plusYears(1);
+    };
+    return next.toEpochDay() * SegmentFormat.DAY_MS;
+  }
+
+  private LocalDate firstDay(long timestamp) {
+    LocalDate day = LocalDate.ofEpochDay(SegmentFormat.epochDay(timestamp));
+    return switch (this) {
+      case SECOND -> day;
+      case MINUTE -> day.withDayOfMonth(1);
+      case HOUR -> day.withDayOfYear(1);
+    };
+  }
+
+  /**
+   * Returns the start of the file period with the given name.
+   * 
+   * @throws java.time.format.DateTimeParseException if the name is not a
+   *                                                 period of this tier
+   */
+  long parsePartitionStart(String name) {
+    LocalDate first = switch (this) {
+      case SECOND -> LocalDate.parse(name, partitionFormat);
+      case MINUTE -> YearMonth.parse(name, partitionFormat).atDay(1);
+      case HOUR -> Year.parse(name, partitionFormat).atDay(1);
+    };
+    return first.toEpochDay() * SegmentFormat.DAY_MS;
+  }
+
+  /**
+   * Returns the name of the file holding the bucket of a time. Names sort in
+   * time order.
+   */
+  String partitionName(long timestamp) {
+    return partitionFormat.format(
+        LocalDate.ofEpochDay(SegmentFormat.epochDay(timestamp)));
+  }
+}
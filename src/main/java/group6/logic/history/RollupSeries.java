@@ -0,0 +1,148 @@
+package group6.logic.history;
+
+import java.util.Arrays;
+
+/**
+ * Rollup buckets of one sensor in time order, as parallel primitive arrays.
+ */
+public final class RollupSeries {
+
+  private static final RollupSeries EMPTY = new RollupSeries(new long[0], new int[0],
+      new double[0], new double[0], new double[0], 0);
+
+  private final long[] starts;
+  private final int[] counts;
+  private final double[] mins;
+  private final double[] maxes;
+  private final double[] sums;
+  private final int size;
+
+  RollupSeries(long[] starts, int[] counts, double[] mins, double[] maxes, double[] sums,
+      int size) {
+    this.starts = starts;
+    this.counts = counts;
+    this.mins = mins;
+    this.maxes = maxes;
+    this.sums = sums;
+    this.size = size;
+  }
+
+  static RollupSeries empty() {
+    return EMPTY;
+  }
+
+  /**
+   * Returns the number of buckets.
+   * 
+   * @return the number of buckets
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns whether there are no buckets.
+   * 
+   * @return true if empty
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Returns the start time of a bucket.
+   * 
+   * @param index the bucket index
+   * @return the start time in milliseconds
+   */
+  public long getStart(int index) {
+    return starts[checkIndex(index)];
+  }
+
+  /**
+   * Returns the number of samples in a bucket.
+   * 
+   * @param index the bucket index
+   * @return the sample count
+   */
+  public int getCount(int index) {
+    return counts[checkIndex(index)];
+  }
+
+  /**
+   * Returns the smallest sample of a bucket.
+   * 
+   * @param index the bucket index
+   * @return the minimum
+   */
+  public double getMin(int index) {
+    return mins[checkIndex(index)];
+  }
+
+  /**
+   * Returns the largest sample of a bucket.
+   * 
+   * @param index the bucket index
+   * @return the maximum
+   */
+  public double getMax(int index) {
+    return maxes[checkIndex(index)];
+  }
+
+  /**
+   * Returns the mean of a bucket.
+   * 
+   * @param index the bucket index
+   * @return the average
+   */
+  public double getAverage(int index) {
+    return sums[checkIndex(index)] / counts[index];
+  }
+
+  /**
+   * Returns a copy of the bucket start times.
+   * 
+   * @return the start times in milliseconds
+   */
+  public long[] getStarts() {
+    return Arrays.copyOf(starts, size);
+  }
+
+  /**
+   * Returns the bucket averages.
+   * 
+   * @return the averages
+   */
+  public double[] getAverages() {
+    double[] averages = new double[size];
+    for (int i = 0; i < size; i++) {
+      averages[i] = sums[i] / counts[i];
+    }
+    return averages;
+  }
+
+  /**
+   * Returns a copy of the bucket minimums.
+   * 
+   * @return the minimums
+   */
+  public double[] getMins() {
+    return Arrays.copyOf(mins, size);
+  }
+
+  /**
+   * Returns a copy of the bucket maximums.
+   * 
+   * @return the maximums
+   */
+  public double[] getMaxes() {
+    return Arrays.copyOf(maxes, size);
+  }
+
+  private int checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+    }
+    return index;
+  }
+}
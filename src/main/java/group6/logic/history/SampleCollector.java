@@ -0,0 +1,74 @@
+package group6.logic.history;
+
+import java.util.Arrays;
+
+/**
+ * Growable parallel arrays that collect query results, sorting them by time
+ * only if they arrived out of order.
+ */
+final class SampleCollector {
+
+  private long[] timestamps = new long[256];
+  private double[] values = new double[256];
+  private int size;
+  private boolean sorted = true;
+
+  void add(long timestamp, double value) {
+    if (size == timestamps.length) {
+      timestamps = Arrays.copyOf(timestamps, size * 2);
+      values = Arrays.copyOf(values, size * 2);
+    }
+    if (size > 0 && timestamp < timestamps[size - 1]) {
+      sorted = false;
+    }
+    timestamps[size] = timestamp;
+    values[size] = value;
+    size++;
+  }
+
+  HistorySeries toSeries() {
+    if (size == 0) {
+      return HistorySeries.empty();
+    }
+    if (!sorted) {
+      sort();
+    }
+    return new HistorySeries(timestamps, values, size);
+  }
+
+  /**
+   * Stable bottom-up merge sort of both arrays by timestamp.
+   */
+  private void sort() {
+    long[] ts = timestamps;
+    double[] vs = values;
+    long[] tsTmp = new long[size];
+    double[] vsTmp = new double[size];
+    for (int width = 1; width < size; width *= 2) {
+      for (int left = 0; left < size; left += 2 * width) {
+        int mid = Math.min(left + width, size);
+        int right = Math.min(left + 2 * width, size);
+        int i = left;
+        int j = mid;
+        for (int k = left; k < right; k++) {
+          if (i < mid && (j >= right || ts[i] <= ts[j])) {
+            tsTmp[k] = ts[i];
+            vsTmp[k] = vs[i++];
+          } else {
+            tsTmp[k] = ts[j];
+            vsTmp[k] = vs[j++];
+          }
+        }
+      }
+      long[] swapTs = ts;
+      ts = tsTmp;
+      tsTmp = swapTs;
+      double[] swapVs = vs;
+      vs = vsTmp;
+      vsTmp = swapVs;
+    }
+    timestamps = ts;
+    values = vs;
+    sorted = true;
+  }
+}
@@ -0,0 +1,147 @@
+package group6.logic.history;
+
+/**
+ * Recent samples of one sensor in a ring of primitive arrays.
+ * 
+ * <p>One thread adds samples; any number of threads may read concurrently
+ * without locking. The writer fills a slot and then publishes it by bumping
+ * a volatile sample counter; readers take the counter, read backwards from
+ * the newest slot, and read again if the writer may have overwritten a slot
+ * meanwhile. Readers keep clear of the oldest eighth of the ring, which is
+ * only reached once it stops growing.
+ * 
+ * <p>The ring starts small and doubles, up to a maximum, whenever the sample
+ * about to drop into that oldest eighth is still inside the time window, so
+ * its readable part always covers the window and its size follows the
+ * sensor's actual rate. Adding a sample allocates nothing once the
+ * ring has grown to fit.
+ */
+public final class SampleRingBuffer {
+
+  private static final int INITIAL_CAPACITY = 64;
+
+  private final long windowMs;
+  private final int maxCapacity;
+  private volatile Ring ring;
+  private volatile long written; // samples published so far
+
+  /**
+   * Creates a buffer covering a time window.
+   * 
+   * @param windowMs      how far back samples must be kept
+   * @param minIntervalMs the shortest expected time between samples, which
+   *                      bounds the capacity
+   * @throws IllegalArgumentException if an argument is not positive
+   */
+  public SampleRingBuffer(long windowMs, long minIntervalMs) {
+    if (windowMs <= 0 || minIntervalMs <= 0) {
+      throw new IllegalArgumentException("Window and interval must be positive");
+    }
+    this.windowMs = windowMs;
+    long samples = windowMs / minIntervalMs + 1;
+    long needed = Math.max(INITIAL_CAPACITY, samples + samples / 7 + 1); // readable 7/8
+    this.maxCapacity = (int) Math.min(1 << 30, Long.highestOneBit(needed - 1) << 1);
+    this.ring = new Ring(Math.min(INITIAL_CAPACITY, maxCapacity));
+  }
+
+  /**
+   * Adds a sample. Must only be called from one thread at a time.
+   * 
+   * @param timestamp the sample time in milliseconds
+   * @param value     the sample value
+   */
+  public void add(long timestamp, double value) {
+    Ring r = ring;
+    long n = written;
+    // Once sample n is published, readers stop at n + 1 - capacity + capacity / 8
+    long leaving = n - r.capacity() + (r.capacity() >> 3);
+    if (leaving >= 0 && r.capacity() < maxCapacity
+        && timestamp - r.timestamps[r.slot(leaving)] < windowMs) {
+      r = grow(r, n);
+    }
+    int slot = r.slot(n);
+    r.timestamps[slot] = timestamp;
+    r.values[slot] = value;
+    written = n + 1;
+  }
+
+  private Ring grow(Ring old, long n) {
+    Ring grown = new Ring(old.capacity() * 2);
+    for (long i = Math.max(0, n - old.capacity()); i < n; i++) {
+      grown.timestamps[grown.slot(i)] = old.timestamps[old.slot(i)];
+      grown.values[grown.slot(i)] = old.values[old.slot(i)];
+    }
+    ring = grown;
+    return grown;
+  }
+
+  /**
+   * Returns the mean of the samples taken at or after a time.
+   * 
+   * @param sinceMs the earliest sample time to include
+   * @return the average, or {@link Double#NaN} if there are no such samples
+   */
+  public double average(long sinceMs) {
+    while (true) {
+      long n = written;
+      Ring r = ring; // read after the counter, so it holds every published slot
+      long floor = Math.max(0, n - r.capacity() + (r.capacity() >> 3));
+      double sum = 0;
+      long count = 0;
+      long i = n - 1;
+      for (; i >= floor; i--) {
+        int slot = r.slot(i);
+        if (r.timestamps[slot] < sinceMs) {
+          break;
+        }
+        sum += r.values[slot];
+        count++;
+      }
+      // The writer is at most filling slot "written", which held written - capacity
+      if (Math.max(i, floor) > written - r.capacity()) {
+        return count == 0 ? Double.NaN : sum / count;
+      }
+    }
+  }
+
+  /**
+   * Returns the number of samples currently held.
+   * 
+   * @return the number of samples, at most the capacity
+   */
+  public int size() {
+    return (int) Math.min(written, ring.capacity());
+  }
+
+  /**
+   * Returns the current number of slots.
+   * 
+   * @return the capacity
+   */
+  public int getCapacity() {
+    return ring.capacity();
+  }
+
+  /**
+   * Slot arrays of one size; replaced as a whole when the ring grows.
+   */
+  private static final class Ring {
+    final long[] timestamps;
+    final double[] values;
+    final int mask;
+
+    Ring(int capacity) {
+      this.timestamps = new long[capacity];
+      this.values = new double[capacity];
+      this.mask = capacity - 1;
+    }
+
+    int capacity() {
+      return mask + 1;
+    }
+
+    int slot(long index) {
+      return (int) (index & mask);
+    }
+  }
+}
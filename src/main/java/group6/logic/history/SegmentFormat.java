@@ -0,0 +1,155 @@
+package group6.logic.history;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.zip.CRC32;
+
+/**
+ * Layout of history segment files.
+ * 
+ * <p>A segment file holds the samples of one sensor for one UTC day, at
+ * {@code <root>/<nodeId>/<sensorKey>/<yyyy-MM-dd>.seg}. It is a sequence of
+ * self-describing blocks, appended as they are sealed:
+ * 
+ * <pre>
+ * offset size
+ *   0     4   magic "HSB1"
+ *   4     4   sample count
+ *   8     8   first timestamp (ms)
+ *  16     8   last timestamp (ms)
+ *  24     8   min value
+ *  32     8   max value
+ *  40     4   payload length in bytes
+ *  44     4   CRC32 of the payload
+ *  48     n   Gorilla-compressed samples ({@link GorillaEncoder})
+ * </pre>
+ * 
+ * <p>The header doubles as the time index: readers skip blocks outside a
+ * time range, or whose min/max cannot match, without decoding them. Samples
+ * within a block are in time order; blocks may overlap when samples arrive
+ * out of order.
+ */
+final class SegmentFormat {
+
+  static final int BLOCK_MAGIC = 0x48534231; // "HSB1"
+  static final int HEADER_BYTES = 48;
+  static final String FILE_SUFFIX = ".seg";
+  static final long DAY_MS = 86_400_000L;
+
+  private SegmentFormat() {
+  }
+
+  /**
+   * Returns the UTC day a timestamp belongs to.
+   */
+  static long epochDay(long timestamp) {
+    return Math.floorDiv(timestamp, DAY_MS);
+  }
+
+  /**
+   * Returns the segment file of a sensor for a UTC day.
+   */
+  static Path segmentFile(Path root, String nodeId, String sensorKey, long epochDay) {
+    return seriesDirectory(root, nodeId, sensorKey)
+        .resolve(LocalDate.ofEpochDay(epochDay) + FILE_SUFFIX);
+  }
+
+  /**
+   * Returns the directory holding the segment files of a sensor.
+   */
+  static Path seriesDirectory(Path root, String nodeId, String sensorKey) {
+    return root.resolve(nodeId).resolve(sensorKey);
+  }
+
+  /**
+   * Encodes a sealed block, header and payload, ready to append.
+   */
+  static ByteBuffer encodeBlock(GorillaEncoder encoder) {
+    int payloadLength = encoder.getPayloadLength();
+    ByteBuffer block = ByteBuffer.allocate(HEADER_BYTES + payloadLength);
+    block.position(HEADER_BYTES);
+    encoder.writePayload(block);
+    CRC32 crc = new CRC32();
+    crc.update(block.array(), HEADER_BYTES, payloadLength);
+    block.putInt(0, BLOCK_MAGIC)
+        .putInt(4, encoder.getCount())
+        .putLong(8, encoder.getFirstTimestamp())
+        .putLong(16, encoder.getLastTimestamp())
+        .putDouble(24, encoder.getMin())
+        .putDouble(32, encoder.getMax())
+        .putInt(40, payloadLength)
+        .putInt(44, (int) crc.getValue());
+    block.flip();
+    return block;
+  }
+
+  /**
+   * Header of one block, read from a segment buffer.
+   */
+  static final class BlockHeader {
+    final int offset;
+    final int count;
+    final long firstTimestamp;
+    final long lastTimestamp;
+    final double min;
+    final double max;
+    final int payloadLength;
+    final int crc;
+
+    private BlockHeader(ByteBuffer buffer, int offset) {
+      this.offset = offset;
+      this.count = buffer.getInt(offset + 4);
+      this.firstTimestamp = buffer.getLong(offset + 8);
+      this.lastTimestamp = buffer.getLong(offset + 16);
+      this.min = buffer.getDouble(offset + 24);
+      this.max = buffer.getDouble(offset + 32);
+      this.payloadLength = buffer.getInt(offset + 40);
+      this.crc = buffer.getInt(offset + 44);
+    }
+
+    /**
+     * Reads the header at an absolute offset.
+     * 
+     * @throws IOException if the header is not a valid block header or the
+     *                     block runs past the end of the buffer
+     */
+    static BlockHeader read(ByteBuffer buffer, int offset) throws IOException {
+      if (buffer.limit() - offset < HEADER_BYTES || buffer.getInt(offset) != BLOCK_MAGIC) {
+        throw new IOException("Invalid block header at offset " + offset);
+      }
+      BlockHeader header = new BlockHeader(buffer, offset);
+      if (header.count < 1 || header.payloadLength < 0
+          || header.payloadLength > buffer.limit() - offset - HEADER_BYTES) {
+        throw new IOException("Truncated block at offset " + offset);
+      }
+      return header;
+    }
+
+    int payloadOffset() {
+      return offset + HEADER_BYTES;
+    }
+
+    int nextOffset() {
+      return payloadOffset() + payloadLength;
+    }
+
+    boolean overlaps(long fromMs, long toMs) {
+      return lastTimestamp >= fromMs && firstTimestamp <= toMs;
+    }
+
+    /**
+     * Checks the payload checksum.
+     */
+    boolean isIntact(ByteBuffer buffer) {
+      CRC32 checksum = new CRC32();
+      checksum.update(buffer.slice(payloadOffset(), payloadLength));
+      return (int) checksum.getValue() == crc;
+    }
+
+    GorillaDecoder decoder(ByteBuffer buffer) {
+      return new GorillaDecoder(buffer, payloadOffset(), payloadLength, count, firstTimestamp);
+    }
+  }
+}
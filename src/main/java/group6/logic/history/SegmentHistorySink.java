@@ -0,0 +1,161 @@
+package group6.logic.history;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Stores history in compact binary segment files, see {@link SegmentFormat}.
+ * 
+ * <p>Each sensor collects samples in an in-memory Gorilla block. A block is
+ * sealed and appended to the sensor's file for the day when it is full, when
+ * a flush finds it older than the maximum block age, when the day changes or
+ * a sample goes back in time, and on close. Samples in an open block are
+ * lost if the process dies; the block age bounds how many.
+ */
+public class SegmentHistorySink implements HistorySink {
+
+  public static final int DEFAULT_BLOCK_SAMPLES = 4096;
+  public static final long DEFAULT_MAX_BLOCK_AGE_MS = 60_000;
+
+  private final Path root;
+  private final int blockSamples;
+  private final long maxBlockAgeMs;
+  private final Map<String, Series> series = new HashMap<>();
+
+  /**
+   * Creates a sink with default block settings.
+   * 
+   * @param root the segment root directory
+   */
+  public SegmentHistorySink(Path root) {
+    this(root, DEFAULT_BLOCK_SAMPLES, DEFAULT_MAX_BLOCK_AGE_MS);
+  }
+
+  /**
+   * Creates a sink.
+   * 
+   * @param root          the segment root directory
+   * @param blockSamples  samples per block before it is sealed
+   * @param maxBlockAgeMs age after which a flush seals an open block
+   * @throws IllegalArgumentException if a setting is not positive
+   */
+  public SegmentHistorySink(Path root, int blockSamples, long maxBlockAgeMs) {
+    if (blockSamples < 1 || maxBlockAgeMs < 1) {
+      throw new IllegalArgumentException("Block settings must be positive");
+    }
+    this.root = root;
+    this.blockSamples = blockSamples;
+    this.maxBlockAgeMs = maxBlockAgeMs;
+  }
+
+  @Override
+  public void append(String nodeId, String sensorKey, long timestamp, double value)
+      throws IOException {
+    Series s = series.computeIfAbsent(nodeId + "/" + sensorKey,
+        k -> new Series(nodeId, sensorKey));
+    GorillaEncoder block = s.block;
+    long day = SegmentFormat.epochDay(timestamp);
+    if (block.getCount() > 0 && (day != s.day || timestamp < block.getLastTimestamp())) {
+      seal(s);
+    }
+    if (block.getCount() == 0) {
+      s.day = day;
+      s.openedAt = System.currentTimeMillis();
+    }
+    block.add(timestamp, value);
+    if (block.getCount() >= blockSamples) {
+      seal(s);
+    }
+  }
+
+  /**
+   * Seals blocks older than the maximum block age.
+   */
+  @Override
+  public void flush() throws IOException {
+    long now = System.currentTimeMillis();
+    IOException failure = null;
+    for (Series s : series.values()) {
+      if (s.block.getCount() > 0 && now - s.openedAt >= maxBlockAgeMs) {
+        try {
+          seal(s);
+        } catch (IOException e) {
+          failure = e;
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  /**
+   * Seals every open block.
+   */
+  @Override
+  public void close() throws IOException {
+    IOException failure = null;
+    for (Series s : series.values()) {
+      if (s.block.getCount() > 0) {
+        try {
+          seal(s);
+        } catch (IOException e) {
+          failure = e;
+        }
+      }
+    }
+    series.clear();
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  private void seal(Series s) throws IOException {
+    ByteBuffer block = SegmentFormat.encodeBlock(s.block);
+    s.block.reset(); // drop the samples even if the write fails, so one bad file cannot stall
+    Path file = SegmentFormat.segmentFile(root, s.nodeId, s.sensorKey, s.day);
+    if (!s.directoryCreated) {
+      Files.createDirectories(file.getParent());
+      s.directoryCreated = true;
+    }
+    try {
+      appendBlock(file, block);
+    } catch (NoSuchFileException e) {
+      Files.createDirectories(file.getParent()); // removed by retention meanwhile
+      appendBlock(file, block);
+    }
+  }
+
+  private static void appendBlock(Path file, ByteBuffer block) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+      while (block.hasRemaining()) {
+        channel.write(block);
+      }
+    }
+  }
+
+  /**
+   * Open block of one sensor.
+   */
+  private static final class Series {
+    final String nodeId;
+    final String sensorKey;
+    final GorillaEncoder block = new GorillaEncoder();
+    long day;
+    long openedAt;
+    boolean directoryCreated;
+
+    Series(String nodeId, String sensorKey) {
+      this.nodeId = nodeId;
+      this.sensorKey = sensorKey;
+    }
+  }
+}
@@ -0,0 +1,333 @@
+package group6.logic.history;
+
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * Count, average, variance, min and max of one sensor over a sliding time
+ * window, readable in constant time however many samples the window holds.
+ * 
+ * <p>The window is split into slices. Each slice keeps the aggregates of its
+ * samples, running totals cover every live slice, and two monotonic deques of
+ * slice indices keep the window minimum and maximum at their front. Adding a
+ * sample and expiring a slice are O(1) amortized; a read subtracts the
+ * slices that expired since the last sample, so a sensor that went quiet
+ * still reports an up-to-date window. The window edge is exact to one slice:
+ * it covers the current slice plus the previous {@code slices - 1}.
+ * 
+ * <p>One thread adds samples; any number of threads may read. Readers use a
+ * sequence lock: they retry if the writer changed the aggregates meanwhile.
+ */
+public final class SlidingWindowStats {
+
+  public static final int DEFAULT_SLICES = 60;
+
+  // Aggregates a read can ask for
+  private static final int COUNT = 0;
+  private static final int AVERAGE = 1;
+  private static final int VARIANCE = 2;
+  private static final int MIN = 3;
+  private static final int MAX = 4;
+
+  private final long windowMs;
+  private final long sliceMs;
+  private final int slices;
+
+  // Per slice, indexed by slice number modulo slices
+  private final int[] counts;
+  private final double[] sums;
+  private final double[] squares;
+  private final double[] mins;
+  private final double[] maxes;
+
+  // Monotonic deques of slice numbers: mins increasing, maxes decreasing
+  private final long[] minDeque;
+  private final long[] maxDeque;
+  private int minHead;
+  private int minSize;
+  private int maxHead;
+  private int maxSize;
+
+  private long current = Long.MIN_VALUE; // newest slice number
+  private long count;
+  private double sum;
+  private double sumOfSquares;
+  private volatile int version; // odd while the writer is updating
+
+  /**
+   * Creates a window with the default number of slices.
+   * 
+   * @param windowMs the window length in milliseconds
+   */
+  public SlidingWindowStats(long windowMs) {
+    this(windowMs, DEFAULT_SLICES);
+  }
+
+  /**
+   * Creates a window.
+   * 
+   * @param windowMs the window length in milliseconds
+   * @param slices   the number of slices; more gives a sharper window edge
+   * @throws IllegalArgumentException if windowMs is shorter than slices or
+   *                                  slices is less than 1
+   */
+  public SlidingWindowStats(long windowMs, int slices) {
+    if (slices < 1 || windowMs < slices) {
+      throw new IllegalArgumentException("Window must be at least one ms per slice");
+    }
+    this.windowMs = windowMs;
+    this.sliceMs = windowMs / slices;
+    this.slices = slices;
+    this.counts = new int[slices];
+    this.sums = new double[slices];
+    this.squares = new double[slices];
+    this.mins = new double[slices];
+    this.maxes = new double[slices];
+    this.minDeque = new long[slices];
+    this.maxDeque = new long[slices];
+  }
+
+  /**
+   * Returns the window length.
+   * 
+   * @return the window length in milliseconds
+   */
+  public long getWindowMs() {
+    return windowMs;
+  }
+
+  /**
+   * Adds a sample. Must only be called from one thread at a time. Samples
+   * older than the newest slice count towards the newest slice.
+   * 
+   * @param timestamp the sample time in milliseconds
+   * @param value     the sample value
+   */
+  public void add(long timestamp, double value) {
+    version++; // odd: readers retry
+    VarHandle.storeStoreFence();
+    long slice = Math.floorDiv(timestamp, sliceMs);
+    if (slice > current) {
+      advance(slice);
+    }
+    int i = index(current);
+    if (counts[i] == 0) {
+      mins[i] = value;
+      maxes[i] = value;
+    } else {
+      mins[i] = Math.min(mins[i], value);
+      maxes[i] = Math.max(maxes[i], value);
+    }
+    counts[i]++;
+    sums[i] += value;
+    squares[i] += value * value;
+    count++;
+    sum += value;
+    sumOfSquares += value * value;
+    pushMin(current);
+    pushMax(current);
+    version++; // even: published
+  }
+
+  /**
+   * Moves the window forward so {@code slice} is the newest, expiring the
+   * slices that fall out.
+   */
+  private void advance(long slice) {
+    boolean wrapped = current == Long.MIN_VALUE || slice - current >= slices;
+    if (wrapped) {
+      Arrays.fill(counts, 0);
+      Arrays.fill(sums, 0);
+      Arrays.fill(squares, 0);
+      count = 0;
+      sum = 0;
+      sumOfSquares = 0;
+      minSize = 0;
+      maxSize = 0;
+    } else {
+      for (long s = current + 1; s <= slice; s++) {
+        expire(s - slices);
+      }
+    }
+    long previous = current;
+    current = slice;
+    if (!wrapped && Math.floorDiv(slice, slices) != Math.floorDiv(previous, slices)) {
+      recomputeTotals(); // once per lap, so subtraction error cannot build up
+    }
+  }
+
+  private void expire(long slice) {
+    int i = index(slice);
+    if (counts[i] > 0) {
+      count -= counts[i];
+      sum -= sums[i];
+      sumOfSquares -= squares[i];
+      counts[i] = 0;
+      sums[i] = 0;
+      squares[i] = 0;
+    }
+    if (minSize > 0 && minDeque[minHead] == slice) {
+      minHead = (minHead + 1) % slices;
+      minSize--;
+    }
+    if (maxSize > 0 && maxDeque[maxHead] == slice) {
+      maxHead = (maxHead + 1) % slices;
+      maxSize--;
+    }
+  }
+
+  private void recomputeTotals() {
+    count = 0;
+    sum = 0;
+    sumOfSquares = 0;
+    for (int i = 0; i < slices; i++) {
+      count += counts[i];
+      sum += sums[i];
+      sumOfSquares += squares[i];
+    }
+  }
+
+  private void pushMin(long slice) {
+    double value = mins[index(slice)];
+    while (minSize > 0) {
+      long back = minDeque[(minHead + minSize - 1) % slices];
+      if (back != slice && mins[index(back)] < value) {
+        break;
+      }
+      minSize--;
+    }
+    minDeque[(minHead + minSize) % slices] = slice;
+    minSize++;
+  }
+
+  private void pushMax(long slice) {
+    double value = maxes[index(slice)];
+    while (maxSize > 0) {
+      long back = maxDeque[(maxHead + maxSize - 1) % slices];
+      if (back != slice && maxes[index(back)] > value) {
+        break;
+      }
+      maxSize--;
+    }
+    maxDeque[(maxHead + maxSize) % slices] = slice;
+    maxSize++;
+  }
+
+  private int index(long slice) {
+    return Math.floorMod(slice, slices);
+  }
+
+  // ------- Readers -------
+
+  /**
+   * Returns the number of samples in the window ending now.
+   * 
+   * @param nowMs the current time in milliseconds
+   * @return the sample count
+   */
+  public long getCount(long nowMs) {
+    return (long) read(nowMs, COUNT);
+  }
+
+  /**
+   * Returns the mean of the window ending now.
+   * 
+   * @param nowMs the current time in milliseconds
+   * @return the average, or {@link Double#NaN} if the window is empty
+   */
+  public double getAverage(long nowMs) {
+    return read(nowMs, AVERAGE);
+  }
+
+  /**
+   * Returns the population variance of the window ending now.
+   * 
+   * @param nowMs the current time in milliseconds
+   * @return the variance, or {@link Double#NaN} if the window is empty
+   */
+  public double getVariance(long nowMs) {
+    return read(nowMs, VARIANCE);
+  }
+
+  /**
+   * Returns the smallest sample in the window ending now.
+   * 
+   * @param nowMs the current time in milliseconds
+   * @return the minimum, or {@link Double#NaN} if the window is empty
+   */
+  public double getMin(long nowMs) {
+    return read(nowMs, MIN);
+  }
+
+  /**
+   * Returns the largest sample in the window ending now.
+   * 
+   * @param nowMs the current time in milliseconds
+   * @return the maximum, or {@link Double#NaN} if the window is empty
+   */
+  public double getMax(long nowMs) {
+    return read(nowMs, MAX);
+  }
+
+  private double read(long nowMs, int what) {
+    while (true) {
+      int before = version;
+      if ((before & 1) != 0) {
+        Thread.onSpinWait();
+        continue;
+      }
+      double result = compute(Math.floorDiv(nowMs, sliceMs), what);
+      VarHandle.loadLoadFence();
+      if (version == before) {
+        return result;
+      }
+    }
+  }
+
+  /**
+   * Computes an aggregate for the window whose newest slice is
+   * {@code nowSlice}, leaving out slices that expired since the last sample.
+   * Only reads state.
+   */
+  private double compute(long nowSlice, int what) {
+    long oldestLive = Math.max(nowSlice, current) - slices + 1;
+    if (current == Long.MIN_VALUE || current < oldestLive) {
+      return what == COUNT ? 0 : Double.NaN;
+    }
+    long n = count;
+    double s = sum;
+    double sq = sumOfSquares;
+    for (long slice = current - slices + 1; slice < oldestLive; slice++) {
+      int i = index(slice);
+      n -= counts[i];
+      s -= sums[i];
+      sq -= squares[i];
+    }
+    switch (what) {
+      case COUNT:
+        return n;
+      case AVERAGE:
+        return n == 0 ? Double.NaN : s / n;
+      case VARIANCE:
+        if (n == 0) {
+          return Double.NaN;
+        }
+        double mean = s / n;
+        return Math.max(0, sq / n - mean * mean);
+      case MIN:
+        return front(minDeque, minHead, minSize, mins, oldestLive);
+      default:
+        return front(maxDeque, maxHead, maxSize, maxes, oldestLive);
+    }
+  }
+
+  private double front(long[] deque, int head, int size, double[] values, long oldestLive) {
+    for (int k = 0; k < size; k++) {
+      long slice = deque[(head + k) % slices];
+      if (slice >= oldestLive) {
+        return values[index(slice)];
+      }
+    }
+    return Double.NaN;
+  }
+}
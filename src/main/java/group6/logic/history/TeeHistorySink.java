@@ -0,0 +1,68 @@
+package group6.logic.history;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes every sample to several sinks in order. A failing sink does not
+ * stop the others; the first failure is rethrown afterwards.
+ */
+public class TeeHistorySink implements HistorySink {
+
+  private final List<HistorySink> sinks;
+
+  /**
+   * Creates a tee over the given sinks.
+   * 
+   * @param sinks the sinks, in write order
+   */
+  public TeeHistorySink(HistorySink... sinks) {
+    this.sinks = List.of(sinks);
+  }
+
+  @Override
+  public void append(String nodeId, String sensorKey, long timestamp, double value)
+      throws IOException {
+    IOException failure = null;
+    for (HistorySink sink : sinks) {
+      try {
+        sink.append(nodeId, sensorKey, timestamp, value);
+      } catch (IOException e) {
+        failure = failure == null ? e : failure;
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  @Override
+  public void flush() throws IOException {
+    IOException failure = null;
+    for (HistorySink sink : sinks) {
+      try {
+        sink.flush();
+      } catch (IOException e) {
+        failure = failure == null ? e : failure;
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    IOException failure = null;
+    for (HistorySink sink : sinks) {
+      try {
+        sink.close();
+      } catch (IOException e) {
+        failure = failure == null ? e : failure;
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+}
@@ -0,0 +1,57 @@
+package group6.logic.history;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Passes on at most one sample per sensor per minimum interval, to keep raw
+ * history at roughly one sample per second however often a node pushes.
+ */
+public class ThrottledHistorySink implements HistorySink {
+
+  private final HistorySink target;
+  private final long minSampleIntervalMs;
+  private final Map<String, long[]> lastWritten = new HashMap<>();
+
+  /**
+   * Creates a throttle in front of a sink.
+   * 
+   * @param target              the sink kept samples are written to
+   * @param minSampleIntervalMs minimum time between kept samples of one sensor
+   * @throws IllegalArgumentException if target is null or the interval is
+   *                                  negative
+   */
+  public ThrottledHistorySink(HistorySink target, long minSampleIntervalMs) {
+    if (target == null) {
+      throw new IllegalArgumentException("target cannot be null");
+    }
+    if (minSampleIntervalMs < 0) {
+      throw new IllegalArgumentException("Minimum sample interval cannot be negative");
+    }
+    this.target = target;
+    this.minSampleIntervalMs = minSampleIntervalMs;
+  }
+
+  @Override
+  public void append(String nodeId, String sensorKey, long timestamp, double value)
+      throws IOException {
+    long[] last = lastWritten.computeIfAbsent(nodeId + "/" + sensorKey,
+        k -> new long[] {Long.MIN_VALUE});
+    if (last[0] != Long.MIN_VALUE && timestamp - last[0] < minSampleIntervalMs) {
+      return;
+    }
+    last[0] = timestamp;
+    target.append(nodeId, sensorKey, timestamp, value);
+  }
+
+  @Override
+  public void flush() throws IOException {
+    target.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    target.close();
+  }
+}
@@ -0,0 +1,129 @@
+package group6.logic.history;
+
+/**
+ * Quantiles of one sensor over recent time, kept as a ring of per-bucket
+ * {@link QuantileSketch}es.
+ * 
+ * <p>Each bucket (one minute by default) has its own sketch. A query merges
+ * the buckets overlapping the requested range into a fresh sketch, so any
+ * window up to the retained span can be answered, and the result can be
+ * merged further with other sensors' or nodes' sketches. The range is exact
+ * to one bucket. Samples older than the oldest retained bucket are ignored.
+ * 
+ * <p>One thread adds samples; queries may come from any thread. Both hold
+ * the sketch's monitor, which the writer almost always takes uncontended.
+ */
+public final class WindowedQuantileSketch {
+
+  public static final long DEFAULT_BUCKET_MS = 60_000;
+  public static final int DEFAULT_BUCKETS = 60;
+
+  private final long bucketMs;
+  private final double relativeAccuracy;
+  private final QuantileSketch[] sketches;
+  private final long[] bucketNumbers;
+  private long newest = Long.MIN_VALUE;
+
+  /**
+   * Creates a ring of one-minute buckets covering the last hour, with 1%
+   * relative accuracy.
+   */
+  public WindowedQuantileSketch() {
+    this(DEFAULT_BUCKET_MS, DEFAULT_BUCKETS, QuantileSketch.DEFAULT_RELATIVE_ACCURACY);
+  }
+
+  /**
+   * Creates a ring of buckets.
+   * 
+   * @param bucketMs         the time each bucket covers, in milliseconds
+   * @param buckets          the number of buckets kept
+   * @param relativeAccuracy the relative accuracy of the sketches
+   * @throws IllegalArgumentException if an argument is out of range
+   */
+  public WindowedQuantileSketch(long bucketMs, int buckets, double relativeAccuracy) {
+    if (bucketMs < 1 || buckets < 1) {
+      throw new IllegalArgumentException("Bucket length and count must be positive");
+    }
+    if (!(relativeAccuracy > 0 && relativeAccuracy < 1)) {
+      throw new IllegalArgumentException("Relative accuracy must be between 0 and 1");
+    }
+    this.bucketMs = bucketMs;
+    this.relativeAccuracy = relativeAccuracy;
+    this.sketches = new QuantileSketch[buckets];
+    this.bucketNumbers = new long[buckets];
+  }
+
+  /**
+   * Adds a sample.
+   * 
+   * @param timestamp the sample time in milliseconds
+   * @param value     the sample value
+   */
+  public synchronized void add(long timestamp, double value) {
+    long bucket = Math.floorDiv(timestamp, bucketMs);
+    if (newest != Long.MIN_VALUE && bucket <= newest - sketches.length) {
+      return;
+    }
+    newest = Math.max(newest, bucket);
+    int slot = (int) Math.floorMod(bucket, (long) sketches.length);
+    QuantileSketch sketch = sketches[slot];
+    if (sketch == null) {
+      sketch = new QuantileSketch(relativeAccuracy);
+      sketches[slot] = sketch;
+      bucketNumbers[slot] = bucket;
+    } else if (bucketNumbers[slot] != bucket) {
+      sketch.clear();
+      bucketNumbers[slot] = bucket;
+    }
+    sketch.add(value);
+  }
+
+  /**
+   * Returns a sketch of the samples in a time range.
+   * 
+   * @param fromMs the range start in milliseconds, inclusive
+   * @param toMs   the range end in milliseconds, inclusive
+   * @return a new sketch, empty if no retained sample falls in the range
+   */
+  public QuantileSketch query(long fromMs, long toMs) {
+    QuantileSketch result = new QuantileSketch(relativeAccuracy);
+    mergeInto(result, fromMs, toMs);
+    return result;
+  }
+
+  /**
+   * Merges the buckets overlapping a time range into a sketch.
+   * 
+   * @param target the sketch to merge into, with the same relative accuracy
+   * @param fromMs the range start in milliseconds, inclusive
+   * @param toMs   the range end in milliseconds, inclusive
+   */
+  public synchronized void mergeInto(QuantileSketch target, long fromMs, long toMs) {
+    long first = Math.max(Math.floorDiv(fromMs, bucketMs), newest - sketches.length + 1);
+    long last = Math.min(Math.floorDiv(toMs, bucketMs), newest);
+    for (int slot = 0; slot < sketches.length; slot++) {
+      long bucket = bucketNumbers[slot];
+      if (sketches[slot] != null && bucket >= first && bucket <= last) {
+        target.merge(sketches[slot]);
+      }
+    }
+  }
+
+  /**
+   * Returns the time each bucket covers.
+   * 
+   * @return the bucket length in milliseconds
+   */
+  public long getBucketMs() {
+    return bucketMs;
+  }
+
+  /**
+   * Returns the span of time retained.
+   * 
+   * @return the bucket length times the bucket count, in milliseconds
+   */
+  public long getRetainedMs() {
+    return bucketMs * sketches.length;
+  }
+}
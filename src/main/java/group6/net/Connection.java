@@ -1,20 +1,24 @@
 package group6.net;
 
 import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.Closeable;
 import java.io.DataInputStream;
-import java.io.DataOutputStream;
 import java.io.EOFException;
 import java.io.IOException;
 import java.net.Socket;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * TCP Connection wrapper class.
  * Simple 4-byte length prefixed framing.
  * Thread-safe for concurrent send/receive from different threads.
+ * Uses explicit locks rather than {@code synchronized} so virtual threads
+ * blocked on socket I/O do not pin their carrier thread.
  * 
  * <p>Frame format:
  * [ length:int32_be ][ payload:byte[length] ]
@@ -23,18 +27,39 @@ import java.util.Objects;
  * - Validates non-negative length
  * - Enforces a max frame size to prevent OOM
  * - Honors socket timeouts if configurred externally
+ * 
+ * <p>Writes are flushed per frame by default. With
+ * {@link #enableWriteBatching(int, long)} frames are buffered and flushed
+ * together once enough bytes are pending, when a frame is sent after the
+ * linger delay has passed, or on an explicit {@link #flush()}. The connection
+ * starts no timer of its own: whoever writes to it must call {@link #flush()}
+ * when it runs out of frames. Frame order is preserved either way.
+ * 
+ * <p>Frames are written through a {@link StreamFrameWriter}. Non-blocking
+ * sessions that write straight from the payload buffers use a
+ * {@link GatheringFrameWriter} on their channel instead.
  */
 public class Connection implements Closeable {
 
+  private static final Logger LOGGER = LoggerFactory.getLogger(Connection.class);
+
   public static final int DEFAULT_MAX_FRAME_SIZE = 1 * 1024 * 1024; // 1 MiB
+  private static final int INITIAL_RECV_BUFFER_SIZE = 4 * 1024;
 
   private final Socket socket;
   private final DataInputStream in;
-  private final DataOutputStream out;
+  private final FrameWriter out;
   private final int maxFrameSize;
 
-  private final Object sendLock = new Object();
-  private final Object recvLock = new Object();
+  private final ReentrantLock sendLock = new ReentrantLock();
+  private final ReentrantLock recvLock = new ReentrantLock();
+  // Write batching, written under sendLock. Threshold 0 means flush every frame.
+  private volatile int batchThresholdBytes = 0;
+  private long batchLingerMs = 0;
+  private int pendingBytes = 0;
+  private long firstPendingAt; // when the oldest unflushed frame was written
+
+  private ByteBuffer recvBuffer = ByteBuffer.allocate(INITIAL_RECV_BUFFER_SIZE); // reused per frame
 
   /**
    * Default constructor with default max frame size.
@@ -69,8 +94,7 @@ public class Connection implements Closeable {
     // Buffered streams, data simplifies int/byte handling
     this.in = new DataInputStream(
         new BufferedInputStream(socket.getInputStream())); // buffer for performance & efficiency
-    this.out = new DataOutputStream(
-        new BufferedOutputStream(socket.getOutputStream())); // avoids spam
+    this.out = new StreamFrameWriter(socket.getOutputStream());
   }
 
   // -------- Framed I/O --------
@@ -83,19 +107,108 @@ public class Connection implements Closeable {
    */
   public void sendFrame(byte[] payload) throws IOException {
     Objects.requireNonNull(payload, "payload");
-    if (payload.length > maxFrameSize) {
+    sendFrame(ByteBuffer.wrap(payload));
+  }
+
+  /**
+   * Sends one frame from a buffer (length + bytes from position to limit).
+   * 
+   * <p>The buffer's position is not changed.
+   * 
+   * @param payload bytes to send (non-null), empty allowed (zero-length frame).
+   * @throws IOException on IO errors
+   */
+  public void sendFrame(ByteBuffer payload) throws IOException {
+    Objects.requireNonNull(payload, "payload");
+    int len = payload.remaining();
+    if (len > maxFrameSize) {
       throw new IOException(
-          "Payload size exceeds maximum frame size: " + payload.length + " > " + maxFrameSize);
+          "Payload size exceeds maximum frame size: " + len + " > " + maxFrameSize);
     }
-    synchronized (sendLock) { // to avoid interleaved messages.
-      out.writeInt(payload.length); // length prefix, to know when message ends
-      if (payload.length > 0) { // useful for pings or empty messages
-        out.write(payload); // length=0 means no body
+    sendLock.lock(); // to avoid interleaved messages.
+    try {
+      out.writeFrame(payload);
+      if (batchThresholdBytes == 0) {
+        out.flush(); // ensure data is sent out and not stuck in memory buffer
+      } else {
+        long now = System.currentTimeMillis();
+        if (pendingBytes == 0) {
+          firstPendingAt = now;
+        }
+        pendingBytes += Integer.BYTES + len;
+        if (pendingBytes >= batchThresholdBytes || now - firstPendingAt >= batchLingerMs) {
+          flushLocked();
+        }
       }
-      out.flush(); // ensure data is sent out and not stuck in memory buffer
+    } finally {
+      sendLock.unlock();
+    }
+  }
+
+  // -------- Write batching --------
+
+  /**
+   * Buffers outgoing frames instead of flushing each one.
+   * 
+   * <p>Pending frames are flushed when at least {@code flushThresholdBytes} are
+   * buffered, when a frame is sent {@code lingerMs} or more after the first
+   * unflushed one, or when {@link #flush()} is called. The caller must flush
+   * once it has no more frames to send, since nothing else will. Also
+   * disables Nagle's algorithm, since coalescing now happens here.
+   * 
+   * @param flushThresholdBytes pending bytes that trigger an immediate flush
+   * @param lingerMs            max time a frame may wait while more frames
+   *                            keep following it
+   * @throws IOException on IO errors
+   */
+  public void enableWriteBatching(int flushThresholdBytes, long lingerMs) throws IOException {
+    if (flushThresholdBytes <= 0) {
+      throw new IllegalArgumentException("Flush threshold must be larger than zero");
+    }
+    if (lingerMs < 0) {
+      throw new IllegalArgumentException("Linger time cannot be negative");
+    }
+    socket.setTcpNoDelay(true);
+    sendLock.lock();
+    try {
+      this.batchThresholdBytes = flushThresholdBytes;
+      this.batchLingerMs = lingerMs;
+    } finally {
+      sendLock.unlock();
     }
   }
 
+  /**
+   * Returns whether write batching is enabled.
+   * 
+   * @return true if frames are buffered between flushes
+   */
+  public boolean isWriteBatching() {
+    return batchThresholdBytes > 0;
+  }
+
+  /**
+   * Flushes all buffered frames to the socket.
+   * 
+   * @throws IOException on IO errors
+   */
+  public void flush() throws IOException {
+    sendLock.lock();
+    try {
+      flushLocked();
+    } finally {
+      sendLock.unlock();
+    }
+  }
+
+  /**
+   * Flushes and clears the batching state. Caller must hold the send lock.
+   */
+  private void flushLocked() throws IOException {
+    pendingBytes = 0;
+    out.flush();
+  }
+
   /**
    * Receives one frame (blocks until full frame is available or socket timeout
    * fires.
@@ -105,26 +218,98 @@ public class Connection implements Closeable {
    * @throws IOException  on IO errors
    */
   public byte[] recvFrame() throws IOException {
-    synchronized (recvLock) { // to avoid corruption if called at same time.
-      int len;
-      try {
-        len = in.readInt(); // read length prefix
-      } catch (EOFException eof) {
-        throw eof; // propagate eof, caller should treat as connection closed
-      }
+    recvLock.lock(); // to avoid corruption if called at same time.
+    try {
+      int len = readFrameLength();
+      byte[] buf = new byte[len];
+      in.readFully(buf); // Blocks until all bytes are read or EOF
+      return buf;
+    } finally {
+      recvLock.unlock();
+    }
+  }
 
-      if (len < 0) {
-        throw new IOException("Invalid negative frame length: " + len);
+  /**
+   * Receives one frame into this connection's reusable receive buffer.
+   * 
+   * <p>The returned buffer is the connection's own receive buffer, positioned
+   * over the payload (position 0, limit = frame length). It is only valid
+   * until the next receive call on this connection, so callers must parse it
+   * before reading again and must not modify it. The buffer grows as needed up
+   * to the max frame size and is kept for later frames, so steady-state
+   * receiving does not allocate.
+   * 
+   * @return the payload view (never null, can be empty)
+   * @throws EOFException if the stream is closed before a full frame is read
+   * @throws IOException  on IO errors
+   */
+  public ByteBuffer recvFrameView() throws IOException {
+    recvLock.lock();
+    try {
+      int len = readFrameLength();
+      if (recvBuffer.capacity() < len) {
+        recvBuffer = ByteBuffer.allocate(Math.min(maxFrameSize,
+            Math.max(len, recvBuffer.capacity() * 2)));
       }
-      if (len > maxFrameSize) {
+      in.readFully(recvBuffer.array(), recvBuffer.arrayOffset(), len);
+      return recvBuffer.clear().limit(len);
+    } finally {
+      recvLock.unlock();
+    }
+  }
+
+  /**
+   * Receives one frame into a caller-supplied buffer.
+   * 
+   * <p>The payload is written at the buffer's position, after which the
+   * position is advanced by the frame length. If the frame does not fit in the
+   * remaining space it is skipped and an exception is thrown, keeping the
+   * stream aligned on frame boundaries.
+   * 
+   * @param target the buffer to fill
+   * @return the frame length in bytes
+   * @throws EOFException if the stream is closed before a full frame is read
+   * @throws IOException  on IO errors or if the frame does not fit
+   */
+  public int recvFrame(ByteBuffer target) throws IOException {
+    Objects.requireNonNull(target, "target");
+    recvLock.lock();
+    try {
+      int len = readFrameLength();
+      if (len > target.remaining()) {
+        in.skipNBytes(len);
         throw new IOException(
-            "Frame length exceeds maximum frame size: " + len + " > " + maxFrameSize);
+            "Frame length exceeds target buffer: " + len + " > " + target.remaining());
       }
+      if (target.hasArray() && !target.isReadOnly()) {
+        in.readFully(target.array(), target.arrayOffset() + target.position(), len);
+        target.position(target.position() + len);
+      } else {
+        if (recvBuffer.capacity() < len) {
+          recvBuffer = ByteBuffer.allocate(len);
+        }
+        in.readFully(recvBuffer.array(), recvBuffer.arrayOffset(), len);
+        target.put(recvBuffer.clear().limit(len));
+      }
+      return len;
+    } finally {
+      recvLock.unlock();
+    }
+  }
 
-      byte[] buf = new byte[len];
-      in.readFully(buf); // Blocks until all bytes are read or EOF
-      return buf;
+  /**
+   * Reads and validates a length prefix. Caller must hold the receive lock.
+   */
+  private int readFrameLength() throws IOException {
+    int len = in.readInt(); // EOFException propagates, caller treats as closed
+    if (len < 0) {
+      throw new IOException("Invalid negative frame length: " + len);
     }
+    if (len > maxFrameSize) {
+      throw new IOException(
+          "Frame length exceeds maximum frame size: " + len + " > " + maxFrameSize);
+    }
+    return len;
   }
 
   // -------- UTF Helpers --------
@@ -213,8 +398,36 @@ public class Connection implements Closeable {
     return maxFrameSize;
   }
 
+  /**
+   * Closes the socket without flushing batched frames. Never waits for the
+   * send lock, so it is safe on threads that must not block; a writer stuck
+   * in a socket write fails with an exception.
+   * 
+   * @throws IOException on IO errors
+   */
+  public void abort() throws IOException {
+    socket.close();
+  }
+
+  /**
+   * Flushes batched frames if no other thread is writing, then closes the
+   * socket. If a writer holds the send lock, for instance because it is
+   * blocked on a slow peer, the batched frames are dropped rather than
+   * waiting for it.
+   * 
+   * @throws IOException on IO errors
+   */
   @Override
   public void close() throws IOException {
+    if (isWriteBatching() && isOpen() && sendLock.tryLock()) {
+      try {
+        flushLocked(); // best effort, do not lose batched frames on a clean close
+      } catch (IOException e) {
+        LOGGER.debug("Flush on close failed for {}", getRemoteAddress(), e);
+      } finally {
+        sendLock.unlock();
+      }
+    }
     socket.close(); // closes underlying streams as well
   }
 
@@ -0,0 +1,32 @@
+package group6.net;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Writes length-prefixed frames to a transport.
+ * 
+ * <p>Frame format:
+ * [ length:int32_be ][ payload:byte[length] ]
+ * 
+ * <p>Frames may be held by the writer until {@link #flush()} is called.
+ * Implementations are not thread-safe; callers serialize access.
+ */
+public interface FrameWriter {
+
+  /**
+   * Writes or queues one frame.
+   * 
+   * @param payload the frame payload, from position to limit. The buffer's
+   *                position is left untouched.
+   * @throws IOException on IO errors
+   */
+  void writeFrame(ByteBuffer payload) throws IOException;
+
+  /**
+   * Pushes all written frames to the transport.
+   * 
+   * @throws IOException on IO errors
+   */
+  void flush() throws IOException;
+}
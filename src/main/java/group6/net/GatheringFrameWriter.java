@@ -0,0 +1,122 @@
+package group6.net;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * {@link FrameWriter} using gathering writes on a channel.
+ * 
+ * <p>Each frame is queued as a 4-byte header buffer plus a view of the
+ * payload, and {@link #flush()} hands all queued buffers to the channel in a
+ * single {@link GatheringByteChannel#write(ByteBuffer[], int, int)} call, so
+ * payloads are never copied into an intermediate buffer. The payload's
+ * contents must therefore not change until the frame has been flushed.
+ * Header buffers belong to queue slots and are reused, so steady-state
+ * writing only allocates the payload view.
+ * 
+ * <p>Works on blocking and non-blocking channels. On a non-blocking channel a
+ * flush may stop early when the socket buffer is full; {@link #hasPending()}
+ * then returns true and the next flush continues where this one stopped.
+ */
+public class GatheringFrameWriter implements FrameWriter {
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  private final GatheringByteChannel channel;
+  private ByteBuffer[] buffers = new ByteBuffer[INITIAL_CAPACITY];
+  private ByteBuffer[] headers = new ByteBuffer[INITIAL_CAPACITY]; // per slot, reused
+  private int head;
+  private int tail;
+
+  /**
+   * Creates a writer on top of the given channel.
+   * 
+   * @param channel the channel to write to
+   */
+  public GatheringFrameWriter(GatheringByteChannel channel) {
+    if (channel == null) {
+      throw new IllegalArgumentException("Channel cannot be null");
+    }
+    this.channel = channel;
+  }
+
+  @Override
+  public void writeFrame(ByteBuffer payload) throws IOException {
+    makeRoom(payload.hasRemaining() ? 2 : 1);
+    ByteBuffer header = headers[tail];
+    if (header == null) {
+      header = ByteBuffer.allocate(Integer.BYTES);
+      headers[tail] = header;
+    }
+    header.clear().putInt(0, payload.remaining());
+    buffers[tail++] = header;
+    if (payload.hasRemaining()) {
+      buffers[tail++] = payload.duplicate(); // own position, shared content
+    }
+  }
+
+  /**
+   * Writes queued frames to the channel.
+   * 
+   * <p>On a blocking channel this returns once everything is written. On a
+   * non-blocking channel it returns when the channel stops accepting bytes.
+   * 
+   * @throws IOException on IO errors
+   */
+  @Override
+  public void flush() throws IOException {
+    while (head < tail) {
+      long written = channel.write(buffers, head, tail - head);
+      while (head < tail && !buffers[head].hasRemaining()) {
+        buffers[head++] = null;
+      }
+      if (written == 0 && head < tail) {
+        return; // socket buffer full, try again when writable
+      }
+    }
+    head = 0;
+    tail = 0;
+  }
+
+  /**
+   * Returns whether queued bytes are still waiting to be written.
+   * 
+   * @return true if a flush is still needed
+   */
+  public boolean hasPending() {
+    return head < tail;
+  }
+
+  /**
+   * Drops all queued frames.
+   */
+  public void clear() {
+    Arrays.fill(buffers, head, tail, null);
+    head = 0;
+    tail = 0;
+  }
+
+  /**
+   * Makes sure the given number of slots are free after the tail. Queued
+   * slots move to the front together with their header buffers, so a header
+   * still waiting to be written is never handed out again.
+   */
+  private void makeRoom(int slots) {
+    if (tail + slots <= buffers.length) {
+      return;
+    }
+    int used = tail - head;
+    Collections.rotate(Arrays.asList(buffers), -head);
+    Collections.rotate(Arrays.asList(headers), -head);
+    Arrays.fill(buffers, used, buffers.length, null);
+    head = 0;
+    tail = used;
+    if ((used + slots) * 2 > buffers.length) {
+      buffers = Arrays.copyOf(buffers, buffers.length * 2);
+      headers = Arrays.copyOf(headers, headers.length * 2);
+    }
+  }
+}
@@ -0,0 +1,163 @@
+package group6.net;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.LongSupplier;
+
+/**
+ * Sends a keepalive when a connection has been idle, and notices a peer that
+ * went silent.
+ *
+ * <p>The owner reports traffic with {@link #markSent()} and
+ * {@link #markReceived()}. One task, by default on the shared
+ * {@link SessionScheduler}, wakes up when the connection would next become
+ * idle: if something was sent meanwhile it just sleeps again until the new
+ * deadline, otherwise it sends a keepalive. A busy connection therefore
+ * never sends one, and an idle one costs one timer entry rather than a
+ * thread.
+ *
+ * <p>If a read timeout is given, the timer also reports the peer as dead once
+ * nothing was received for that long. Blocking connections can leave this to
+ * {@link Connection#setSoTimeout(int)} instead and pass 0. The timeout can
+ * also be turned on later with {@link #setReadTimeout(long)}, once the peer
+ * has said it sends keepalives.
+ */
+public final class KeepAliveTimer {
+
+  public static final long DEFAULT_IDLE_MS = 10_000;
+  public static final long DEFAULT_READ_TIMEOUT_MS = 30_000;
+
+  private final long idleMs;
+  private volatile long readTimeoutMs;
+  private final Runnable sendKeepAlive;
+  private final Runnable onTimeout;
+  private final TaskScheduler scheduler;
+  private final LongSupplier clock;
+  private volatile long lastSent;
+  private volatile long lastReceived;
+  private volatile ScheduledFuture<?> timer;
+  private volatile boolean stopped;
+
+  /**
+   * Creates a timer. Nothing is scheduled until {@link #start()}.
+   *
+   * @param idleMs        time without sending after which a keepalive is sent
+   * @param readTimeoutMs time without receiving after which the peer counts
+   *                      as dead, or 0 to not check
+   * @param sendKeepAlive sends one keepalive, must not block for long
+   * @param onTimeout     closes the connection when the peer counts as dead
+   * @throws IllegalArgumentException if idleMs is not positive or
+   *                                  readTimeoutMs is negative
+   */
+  public KeepAliveTimer(long idleMs, long readTimeoutMs, Runnable sendKeepAlive,
+      Runnable onTimeout) {
+    this(idleMs, readTimeoutMs, sendKeepAlive, onTimeout, SessionScheduler::schedule,
+        System::currentTimeMillis);
+  }
+
+  /**
+   * Creates a timer that runs on the given scheduler and clock. Nothing is
+   * scheduled until {@link #start()}.
+   *
+   * @param idleMs        time without sending after which a keepalive is sent
+   * @param readTimeoutMs time without receiving after which the peer counts
+   *                      as dead, or 0 to not check
+   * @param sendKeepAlive sends one keepalive, must not block for long
+   * @param onTimeout     closes the connection when the peer counts as dead
+   * @param scheduler     runs the timer task
+   * @param clock         current time in milliseconds
+   * @throws IllegalArgumentException if idleMs is not positive or
+   *                                  readTimeoutMs is negative
+   */
+  public KeepAliveTimer(long idleMs, long readTimeoutMs, Runnable sendKeepAlive,
+      Runnable onTimeout, TaskScheduler scheduler, LongSupplier clock) {
+    if (idleMs <= 0 || readTimeoutMs < 0) {
+      throw new IllegalArgumentException("Invalid keepalive settings");
+    }
+    this.idleMs = idleMs;
+    this.readTimeoutMs = readTimeoutMs;
+    this.sendKeepAlive = sendKeepAlive;
+    this.onTimeout = onTimeout;
+    this.scheduler = scheduler;
+    this.clock = clock;
+  }
+
+  /**
+   * Starts counting idle time from now.
+   */
+  public void start() {
+    long now = clock.getAsLong();
+    lastSent = now;
+    lastReceived = now;
+    reschedule(now);
+  }
+
+  /**
+   * Changes the read timeout. Counting starts again from now, and the new
+   * timeout is applied from the next wakeup, at most one idle time away.
+   *
+   * @param readTimeoutMs time without receiving after which the peer counts
+   *                      as dead, or 0 to not check
+   * @throws IllegalArgumentException if readTimeoutMs is negative
+   */
+  public void setReadTimeout(long readTimeoutMs) {
+    if (readTimeoutMs < 0) {
+      throw new IllegalArgumentException("Invalid read timeout");
+    }
+    lastReceived = clock.getAsLong();
+    this.readTimeoutMs = readTimeoutMs;
+  }
+
+  /**
+   * Records that a frame was sent.
+   */
+  public void markSent() {
+    lastSent = clock.getAsLong();
+  }
+
+  /**
+   * Records that a frame was received.
+   */
+  public void markReceived() {
+    lastReceived = clock.getAsLong();
+  }
+
+  /**
+   * Cancels the timer.
+   */
+  public void stop() {
+    stopped = true;
+    ScheduledFuture<?> pending = timer;
+    if (pending != null) {
+      pending.cancel(false);
+    }
+  }
+
+  private void run() {
+    if (stopped) {
+      return;
+    }
+    long now = clock.getAsLong();
+    long readTimeout = readTimeoutMs;
+    if (readTimeout > 0 && now - lastReceived >= readTimeout) {
+      stopped = true;
+      onTimeout.run();
+      return;
+    }
+    if (now - lastSent >= idleMs) {
+      sendKeepAlive.run();
+      lastSent = now;
+    }
+    reschedule(now);
+  }
+
+  private void reschedule(long now) {
+    long next = lastSent + idleMs;
+    long readTimeout = readTimeoutMs;
+    if (readTimeout > 0) {
+      next = Math.min(next, lastReceived + readTimeout);
+    }
+    if (!stopped) {
+      timer = scheduler.schedule(this::run, Math.max(1, next - now));
+    }
+  }
+}
@@ -0,0 +1,31 @@
+package group6.net;
+
+/**
+ * What a sensor node session does when its outbound queue passes the high
+ * watermark because the control panel reads slower than the node sends.
+ *
+ * <p>Replies, handshake messages, dictionary updates and actuator states are
+ * still queued; the policies only differ in how they treat sensor DATA
+ * deltas, which a later reading makes obsolete anyway. Past a hard limit of
+ * four times the high watermark the session is closed under every policy.
+ */
+public enum OverloadPolicy {
+  /**
+   * Drop queued and new sensor deltas until the queue is back under the low
+   * watermark, then send one full sensor snapshot, so the control panel ends
+   * up with every latest reading.
+   */
+  COALESCE,
+
+  /**
+   * Drop queued and new sensor deltas until the queue is back under the low
+   * watermark. Sensors resume with their next reading.
+   */
+  DROP_STALE,
+
+  /**
+   * Close the session. The control panel reconnects and starts from a fresh
+   * snapshot.
+   */
+  DISCONNECT
+}
@@ -0,0 +1,16 @@
+package group6.net;
+
+/**
+ * How a {@link TcpServer} serves its connected control panels.
+ */
+public enum ServerMode {
+  /**
+   * Blocking sockets, one handler thread per connected control panel.
+   */
+  BLOCKING,
+
+  /**
+   * Non-blocking channels multiplexed on a shared pool of selector threads.
+   */
+  NIO
+}
@@ -0,0 +1,53 @@
+package group6.net;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared timer for periodic session work (keepalives, coalesced pushes).
+ *
+ * <p>Sessions schedule short tasks here instead of keeping a sleeping thread
+ * each, so the number of timer threads stays fixed regardless of how many
+ * control panels are connected. Tasks must therefore never block on a
+ * socket: a stuck task holds one of the few threads every session shares.
+ */
+public final class SessionScheduler {
+
+  private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+  private static final ScheduledExecutorService EXECUTOR = Executors.newScheduledThreadPool(
+      Math.max(1, Runtime.getRuntime().availableProcessors() / 2),
+      runnable -> {
+        Thread thread = new Thread(runnable,
+            "SessionScheduler-" + THREAD_COUNTER.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      });
+
+  private SessionScheduler() {
+  }
+
+  /**
+   * Runs a task repeatedly with a fixed delay between runs.
+   *
+   * @param task       the task to run, must not block for long
+   * @param delayMs    delay between the end of one run and the start of the next
+   * @return future that can be used to cancel the task
+   */
+  public static ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, long delayMs) {
+    return EXECUTOR.scheduleWithFixedDelay(task, delayMs, delayMs, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Runs a task once after the given delay.
+   *
+   * @param task    the task to run, must not block for long
+   * @param delayMs delay in milliseconds
+   * @return future that can be used to cancel the task
+   */
+  public static ScheduledFuture<?> schedule(Runnable task, long delayMs) {
+    return EXECUTOR.schedule(task, delayMs, TimeUnit.MILLISECONDS);
+  }
+}
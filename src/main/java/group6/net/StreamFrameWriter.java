@@ -0,0 +1,51 @@
+package group6.net;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * {@link FrameWriter} over a buffered output stream.
+ * 
+ * <p>Length prefix and payload are copied into the stream buffer and merged
+ * there; large payloads bypass the buffer once it is full.
+ */
+public class StreamFrameWriter implements FrameWriter {
+
+  private final DataOutputStream out;
+
+  /**
+   * Creates a writer on top of the given stream.
+   * 
+   * @param out the raw output stream, buffered by this writer
+   */
+  public StreamFrameWriter(OutputStream out) {
+    if (out == null) {
+      throw new IllegalArgumentException("Output stream cannot be null");
+    }
+    this.out = new DataOutputStream(new BufferedOutputStream(out)); // avoids spam
+  }
+
+  @Override
+  public void writeFrame(ByteBuffer payload) throws IOException {
+    int len = payload.remaining();
+    out.writeInt(len); // length prefix, to know when message ends
+    if (len == 0) {
+      return; // length=0 means no body
+    }
+    if (payload.hasArray()) {
+      out.write(payload.array(), payload.arrayOffset() + payload.position(), len);
+    } else {
+      byte[] copy = new byte[len];
+      payload.duplicate().get(copy);
+      out.write(copy);
+    }
+  }
+
+  @Override
+  public void flush() throws IOException {
+    out.flush(); // ensure data is sent out and not stuck in memory buffer
+  }
+}
@@ -0,0 +1,23 @@
+package group6.net;
+
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Schedules one-shot tasks for the session timers.
+ *
+ * <p>Production code passes {@code SessionScheduler::schedule}. Tests pass a
+ * scheduler they step by hand together with a fake clock, so timer behaviour
+ * can be checked without sleeping.
+ */
+@FunctionalInterface
+public interface TaskScheduler {
+
+  /**
+   * Runs a task once after the given delay.
+   *
+   * @param task    the task to run, must not block for long
+   * @param delayMs delay in milliseconds
+   * @return future that can be used to cancel the task
+   */
+  ScheduledFuture<?> schedule(Runnable task, long delayMs);
+}
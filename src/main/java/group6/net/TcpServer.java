@@ -2,6 +2,9 @@ package group6.net;
 
 import group6.entity.node.SensorNode;
 import group6.net.server.ClientHandler;
+import group6.net.server.ClientSession;
+import group6.net.server.NioAcceptor;
+import group6.net.server.NioEventLoopGroup;
 import java.io.IOException;
 import java.net.ServerSocket;
 import java.net.Socket;
@@ -15,35 +18,76 @@ import org.slf4j.LoggerFactory;
 /**
  * TCP Server to handle incoming connections.
  * Wrapping them in Connection objects.
+ *
+ * <p>In {@link ServerMode#BLOCKING} mode every control panel gets its own
+ * handler thread, platform or virtual depending on the {@link ThreadMode}.
+ * In {@link ServerMode#NIO} mode the listen socket and all sessions are
+ * multiplexed on a shared {@link NioEventLoopGroup}.
  */
 public class TcpServer {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(TcpServer.class);
   private final int port;
   private final SensorNode sensorNode;
+  private final ServerMode mode;
+  private final ThreadMode threadMode;
   private volatile boolean running;
   private ServerSocket serverSocket;
-  private final List<ClientHandler> clientHandlers = 
+  private NioAcceptor acceptor;
+  private final List<ClientSession> clientHandlers =
       Collections.synchronizedList(new ArrayList<>());
 
   /**
-   * Constructs a TcpServer.
-   * 
+   * Constructs a blocking TcpServer.
+   *
    * @param port the TCP port to listen on
    * @param sensorNode the SensorNode this server belongs to
    */
   public TcpServer(int port, SensorNode sensorNode) {
+    this(port, sensorNode, ServerMode.BLOCKING);
+  }
+
+  /**
+   * Constructs a TcpServer with the given serving mode.
+   *
+   * @param port the TCP port to listen on
+   * @param sensorNode the SensorNode this server belongs to
+   * @param mode how connected control panels are served
+   */
+  public TcpServer(int port, SensorNode sensorNode, ServerMode mode) {
+    this(port, sensorNode, mode, ThreadMode.PLATFORM);
+  }
+
+  /**
+   * Constructs a TcpServer with the given serving mode and handler threads.
+   *
+   * @param port the TCP port to listen on
+   * @param sensorNode the SensorNode this server belongs to
+   * @param mode how connected control panels are served
+   * @param threadMode kind of thread used per client handler, and for its
+   *                   writer, in blocking mode
+   */
+  public TcpServer(int port, SensorNode sensorNode, ServerMode mode, ThreadMode threadMode) {
     this.port = port;
     this.sensorNode = sensorNode;
+    this.mode = mode == null ? ServerMode.BLOCKING : mode;
+    this.threadMode = threadMode == null ? ThreadMode.PLATFORM : threadMode;
   }
 
   /**
    * Starts the TCP server to listen for incoming connections.
-   * Typically runs in its own thread.
-   * 
+   *
+   * <p>In blocking mode this call runs the accept loop and typically runs in
+   * its own thread. In NIO mode it binds the port and returns immediately.
+   *
    * @throws IOException if the server socket fails to open
    */
   public void start() throws IOException {
+    if (mode == ServerMode.NIO) {
+      startNio();
+      return;
+    }
+
     serverSocket = new ServerSocket(port);
     running = true;
 
@@ -54,16 +98,15 @@ public class TcpServer {
         Socket socket = serverSocket.accept(); // Blocking call
         LOGGER.info("Control panel connected: {}", socket.getRemoteSocketAddress());
 
-        ClientHandler handler = new ClientHandler(socket, sensorNode);
+        ClientHandler handler = new ClientHandler(socket, sensorNode, threadMode);
         clientHandlers.add(handler);
-        Thread handlerThread = new Thread(() -> {
+        threadMode.start("client-" + socket.getPort(), () -> {
           try {
             handler.run();
           } finally {
             clientHandlers.remove(handler);
           }
-        }, "client-" + socket.getPort());
-        handlerThread.start();
+        });
       } catch (SocketException e) {
         if (running) {
           throw e;
@@ -74,6 +117,46 @@ public class TcpServer {
     }
   }
 
+  /**
+   * Binds the listen socket on the shared event loops.
+   */
+  private void startNio() throws IOException {
+    acceptor = NioAcceptor.bind(port, sensorNode, NioEventLoopGroup.shared(),
+        clientHandlers::add, clientHandlers::remove);
+    running = true;
+    LOGGER.info("Listening on port {} (nio)", port);
+  }
+
+  /**
+   * Returns the mode this server was created with.
+   *
+   * @return the serving mode
+   */
+  public ServerMode getMode() {
+    return mode;
+  }
+
+  /**
+   * Returns the kind of thread used per client handler.
+   *
+   * @return the thread mode
+   */
+  public ThreadMode getThreadMode() {
+    return threadMode;
+  }
+
+  /**
+   * Returns the sessions of the control panels currently connected, for
+   * example to read their outbound queue metrics.
+   *
+   * @return a copy of the session list
+   */
+  public List<ClientSession> getSessions() {
+    synchronized (clientHandlers) {
+      return new ArrayList<>(clientHandlers);
+    }
+  }
+
   /**
    * Stops the servers and closes the listen socket.
    */
@@ -87,8 +170,11 @@ public class TcpServer {
         LOGGER.debug("Server socket already closed.", ignored);
       }
     }
+    if (acceptor != null) {
+      acceptor.close();
+    }
     synchronized (clientHandlers) {
-      for (ClientHandler handler : new ArrayList<>(clientHandlers)) {
+      for (ClientSession handler : new ArrayList<>(clientHandlers)) {
         handler.stop();
       }
       clientHandlers.clear();
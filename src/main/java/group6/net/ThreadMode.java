@@ -0,0 +1,34 @@
+package group6.net;
+
+/**
+ * Kind of thread used for per-connection work (client handlers, receive loops).
+ *
+ * <p>Virtual threads are cheap to block on socket reads, so one control panel
+ * can hold thousands of sensor node connections without running out of
+ * native threads.
+ */
+public enum ThreadMode {
+  /**
+   * One platform (OS) thread per connection.
+   */
+  PLATFORM,
+
+  /**
+   * One virtual thread per connection.
+   */
+  VIRTUAL;
+
+  /**
+   * Starts a new thread of this kind.
+   *
+   * @param name the thread name
+   * @param task the task to run
+   * @return the started thread
+   */
+  public Thread start(String name, Runnable task) {
+    if (this == VIRTUAL) {
+      return Thread.ofVirtual().name(name).start(task);
+    }
+    return Thread.ofPlatform().name(name).start(task);
+  }
+}
@@ -2,39 +2,83 @@ package group6.net.client;
 
 import group6.entity.node.ControlPanel;
 import group6.net.Connection;
+import group6.net.KeepAliveTimer;
 import group6.net.TcpClient;
+import group6.net.ThreadMode;
+import group6.protocol.BinaryDataDecoder;
+import group6.protocol.DataEncoding;
+import group6.protocol.HandshakeOptions;
 import group6.protocol.Message;
 import group6.protocol.MessageType;
 import group6.protocol.RefreshTarget;
+import group6.protocol.TextDataParser;
 import java.io.EOFException;
 import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Per-sensor client running on the control-panel side.
  * - Uses TcpClient and Connection to talk to one SensorNode.
- * - Runs a receive loop in its own thread.
+ * - Runs a receive loop in its own thread; outgoing messages are queued and
+ *   written by a second thread of the same kind, so callers never block on
+ *   the socket.
  * - Forwards parsed messages back to ControlPanel.
+ * - Requests a DATA encoding (and optionally a device dictionary) in its
+ *   HELLO; binary DATA frames are passed on undecoded to the node's cache.
+ * - Sends a KEEPALIVE when it has sent nothing for the control panel's
+ *   keepalive time, and drops a node that stays silent past the read timeout.
  */
 public class SensorNodeClient implements Runnable {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(SensorNodeClient.class);
+  private static final long WRITER_POLL_MS = 100;
   private final String sensorNodeId;
   private final String host;
   private final int port;
   private final ControlPanel controlPanel;
+  private final ThreadMode threadMode;
+  private final DataEncoding requestedEncoding;
+  private volatile DataEncoding dataEncoding = DataEncoding.TEXT;
   private Connection connection;
+  private final BlockingQueue<String> outgoing = new LinkedBlockingQueue<>();
+  private volatile KeepAliveTimer keepAlive;
   private volatile boolean running;
 
   /**
-   * Constructs a SensorNodeClient.
+   * Constructs a SensorNodeClient running on a platform thread.
    */
   public SensorNodeClient(String sensorNodeId, String host, int port, ControlPanel controlPanel) {
+    this(sensorNodeId, host, port, controlPanel, ThreadMode.PLATFORM);
+  }
+
+  /**
+   * Constructs a SensorNodeClient running on the given kind of thread.
+   */
+  public SensorNodeClient(String sensorNodeId, String host, int port, ControlPanel controlPanel,
+      ThreadMode threadMode) {
+    this(sensorNodeId, host, port, controlPanel, threadMode, DataEncoding.TEXT);
+  }
+
+  /**
+   * Constructs a SensorNodeClient that requests the given DATA encoding.
+   */
+  public SensorNodeClient(String sensorNodeId, String host, int port, ControlPanel controlPanel,
+      ThreadMode threadMode, DataEncoding requestedEncoding) {
     this.sensorNodeId = sensorNodeId;
     this.host = host;
     this.port = port;
     this.controlPanel = controlPanel;
+    this.threadMode = threadMode == null ? ThreadMode.PLATFORM : threadMode;
+    this.requestedEncoding = requestedEncoding == null ? DataEncoding.TEXT : requestedEncoding;
     this.running = false;
   }
 
@@ -42,8 +86,7 @@ public class SensorNodeClient implements Runnable {
    * Starts the client on its own thread.
    */
   public void start() {
-    Thread thread = new Thread(this, "SensorClient-" + sensorNodeId);
-    thread.start();
+    threadMode.start("SensorClient-" + sensorNodeId, this);
   }
 
   /**
@@ -61,18 +104,33 @@ public class SensorNodeClient implements Runnable {
       TcpClient tcpClient = new TcpClient(host, port);
       tcpClient.connect();
       this.connection = tcpClient.getConnection();
+      connection.setSoTimeout(
+          (int) Math.min(Integer.MAX_VALUE, controlPanel.getReadTimeoutMs()));
       this.running = true;
+      threadMode.start("SensorClientWriter-" + sensorNodeId, this::writeLoop);
 
       LOGGER.info("Connected to control panel at {}:{}", host, port);
 
       // 2) Handshake
-      Message hello = new Message(MessageType.HELLO, sensorNodeId, "");
+      Map<String, String> options = new LinkedHashMap<>();
+      options.put(HandshakeOptions.ENCODING, requestedEncoding.getHandshakeValue());
+      options.put(HandshakeOptions.DICTIONARY,
+          controlPanel.isDeviceDictionaryEnabled() ? "1" : "0");
+      options.put(HandshakeOptions.KEEPALIVE, "1");
+      Message hello = new Message(MessageType.HELLO, sensorNodeId,
+          HandshakeOptions.format(options));
       sendMessage(hello);
+      keepAlive = new KeepAliveTimer(controlPanel.getKeepAliveIdleMs(), 0,
+          this::sendKeepAlive, this::stop);
+      keepAlive.start();
 
       // 3) Loop
       listenLoop();
     } catch (EOFException e) {
       LOGGER.info("Sensor node {} closed the connection", sensorNodeId);
+    } catch (SocketTimeoutException e) {
+      LOGGER.warn("No traffic from sensor node {} for {} ms, closing connection",
+          sensorNodeId, controlPanel.getReadTimeoutMs());
     } catch (IOException e) {
       LOGGER.error("Connection error on {}", sensorNodeId, e);
     } finally {
@@ -88,30 +146,47 @@ public class SensorNodeClient implements Runnable {
    */
   private void listenLoop() throws IOException {
     while (running && connection.isOpen()) {
-      String line;
+      ByteBuffer frame;
       try {
-        line = connection.recvUtf();
+        frame = connection.recvFrameView(); // reused buffer, valid until next receive
       } catch (EOFException e) {
         LOGGER.info("Connection closed while reading from {}", sensorNodeId);
         break;
       }
-      if (line == null || line.isBlank()) {
+      if (!frame.hasRemaining()) {
+        continue;
+      }
+      if (BinaryDataDecoder.isBinaryFrame(frame)) {
+        controlPanel.handleBinaryData(sensorNodeId, frame);
+        continue;
+      }
+      if (TextDataParser.isDataFrame(frame)) {
+        controlPanel.handleTextData(sensorNodeId, frame);
         continue;
       }
 
-      Message msg = Message.fromProtocolString(line);
+      Message msg = Message.fromProtocolBytes(frame, sensorNodeId);
       if (msg == null) {
-        LOGGER.warn("Received invalid message from {}: {}", sensorNodeId, line);
+        LOGGER.warn("Received invalid message from {}: {}", sensorNodeId,
+            StandardCharsets.UTF_8.decode(frame));
         continue;
       }
 
+      if (msg.getMessageType() == MessageType.WELCOME) {
+        dataEncoding = DataEncoding.fromHandshakeValue(
+            HandshakeOptions.parse(msg.getData()).get(HandshakeOptions.ENCODING));
+        LOGGER.info("Sensor node {} sends {} data", sensorNodeId,
+            dataEncoding.getHandshakeValue());
+      }
+
       // Forward to ControlPanel
       controlPanel.handleIncomingMessage(sensorNodeId, msg);
     }
   }
 
   /**
-   * Sends a message to the sensor node.
+   * Queues a message for the sensor node. Never blocks; the writer thread
+   * sends it.
    * 
    * @param message the message to send
    */
@@ -120,15 +195,44 @@ public class SensorNodeClient implements Runnable {
       LOGGER.warn("Cannot send, connection closed for node {}", sensorNodeId);
       return;
     }
+    outgoing.add(message.toProtocolString());
+  }
 
+  /**
+   * Writes queued messages until the client stops. Runs on the writer
+   * thread.
+   */
+  private void writeLoop() {
     try {
-      connection.sendUtf(message.toProtocolString());
+      while (running && connection.isOpen()) {
+        String message = outgoing.poll(WRITER_POLL_MS, TimeUnit.MILLISECONDS);
+        if (message == null) {
+          continue;
+        }
+        connection.sendUtf(message);
+        KeepAliveTimer timer = keepAlive;
+        if (timer != null) {
+          timer.markSent();
+        }
+      }
     } catch (IOException e) {
-      LOGGER.error("Failed to send message from {}", sensorNodeId, e);
+      if (running) {
+        LOGGER.error("Failed to send message from {}", sensorNodeId, e);
+      }
       running = false;
+      abortConnection(); // also ends the receive loop
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
     }
   }
 
+  /**
+   * Sends a KEEPALIVE so the sensor node knows the control panel is alive.
+   */
+  private void sendKeepAlive() {
+    sendMessage(new Message(MessageType.KEEPALIVE, sensorNodeId, ""));
+  }
+
   /**
    * Sends a command to the sensor node.
    * 
@@ -153,6 +257,15 @@ public class SensorNodeClient implements Runnable {
     sendMessage(command);
   }
 
+  /**
+   * Returns the DATA encoding confirmed by the sensor node.
+   *
+   * @return the negotiated encoding, TEXT until the node has answered
+   */
+  public DataEncoding getDataEncoding() {
+    return dataEncoding;
+  }
+
   /**
    * Stops the client and closes the connection.
    */
@@ -164,6 +277,9 @@ public class SensorNodeClient implements Runnable {
    * Cleans up resources on shutdown.
    */
   private void cleanup() {
+    if (keepAlive != null) {
+      keepAlive.stop();
+    }
     try {
       if (connection != null) {
         connection.close();
@@ -171,7 +287,16 @@ public class SensorNodeClient implements Runnable {
     } catch (IOException ignored) {
       // ignore
     }
+    outgoing.clear();
     LOGGER.info("Closed connection for node {}", sensorNodeId);
 
   }
+
+  private void abortConnection() {
+    try {
+      connection.abort();
+    } catch (IOException ignored) {
+      // ignore
+    }
+  }
 }
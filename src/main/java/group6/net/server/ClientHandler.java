@@ -1,27 +1,36 @@
 package group6.net.server;
 
-import group6.entity.device.actuator.Actuator;
 import group6.entity.node.SensorNode;
-import group6.logic.events.SensorNodeUpdateListener;
 import group6.net.Connection;
-import group6.protocol.Message;
-import group6.protocol.MessageType;
+import group6.net.ThreadMode;
 import java.io.EOFException;
 import java.io.IOException;
 import java.net.Socket;
 import java.net.SocketException;
+import java.net.SocketTimeoutException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Handles communication with connected control panel.
- * Runs in its own thread.
+ * Runs in its own thread (platform or virtual, see {@link group6.net.ThreadMode}).
+ * Keepalives are scheduled on the shared session scheduler. Once the control
+ * panel has announced keepalives, one that stays silent past the node's read
+ * timeout is detected by a socket read timeout. Outgoing frames
+ * are written by a dedicated writer thread, of the same kind as the handler's
+ * own, that drains the session's
+ * outbound queue, so a slow control panel never blocks the sensor update or
+ * command threads. Frames are flushed when the queue runs empty, so bursts
+ * (delta, snapshot, reply) share one write.
  */
-public class ClientHandler implements Runnable, SensorNodeUpdateListener {
+public class ClientHandler extends ClientSession implements Runnable {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(ClientHandler.class);
+  private static final int WRITE_BATCH_BYTES = 8 * 1024;
+  private static final long WRITE_LINGER_MS = 5;
+  private static final long WRITER_POLL_MS = 100;
   private final Socket socket;
-  private final SensorNode sensorNode;
+  private final ThreadMode threadMode;
   private Connection connection;
   private volatile boolean running;
 
@@ -32,8 +41,21 @@ public class ClientHandler implements Runnable, SensorNodeUpdateListener {
    * @param sensorNode the sensor node this handler belongs to
    */
   public ClientHandler(Socket socket, SensorNode sensorNode) {
+    this(socket, sensorNode, ThreadMode.PLATFORM);
+  }
+
+  /**
+   * Creates a handler whose writer runs on the given kind of thread.
+   *
+   * @param socket     the client socket
+   * @param sensorNode the sensor node this handler belongs to
+   * @param threadMode kind of thread used for the writer, the same as the
+   *                   handler's
+   */
+  public ClientHandler(Socket socket, SensorNode sensorNode, ThreadMode threadMode) {
+    super(sensorNode);
     this.socket = socket;
-    this.sensorNode = sensorNode;
+    this.threadMode = threadMode == null ? ThreadMode.PLATFORM : threadMode;
     this.running = false;
   }
 
@@ -41,20 +63,15 @@ public class ClientHandler implements Runnable, SensorNodeUpdateListener {
   public void run() {
     try {
       connection = new Connection(socket);
+      connection.enableWriteBatching(WRITE_BATCH_BYTES, WRITE_LINGER_MS);
       running = true;
+      threadMode.start("writer-" + sensorNode.getNodeId(), this::writeLoop);
 
       LOGGER.info("Control panel connected for node {}", sensorNode.getNodeId());
 
+      startTimers();
       sensorNode.addUpdateListener(this);
 
-      Thread sensorThread = new Thread(this::sendSensorDataPeriodically,
-           "sensor-data-" + sensorNode.getNodeId());
-      sensorThread.start();
-
-      Thread actuatorThread = new Thread(this::sendActuatorStatusPeriodically,
-          "actuator-status-" + sensorNode.getNodeId());
-      actuatorThread.start();
-
       // Loop
       listenForCommands();
 
@@ -66,60 +83,80 @@ public class ClientHandler implements Runnable, SensorNodeUpdateListener {
   }
 
   /**
-   * Sends a message to the control panel.
-   *
-   * @param message the message to send
+   * Writes queued frames until the session stops. Runs on the writer thread.
    */
-  public void sendMessage(Message message) {
-    if (connection == null || !connection.isOpen()) {
-      LOGGER.warn("Cannot send, connection closed for node {}", sensorNode.getNodeId());
-      return;
-    }
+  private void writeLoop() {
     try {
-      connection.sendUtf(message.toProtocolString());
+      while (running && connection.isOpen()) {
+        byte[] payload = pollOutbound(WRITER_POLL_MS);
+        if (payload != null) {
+          connection.sendFrame(payload);
+        }
+        if (isOutboundEmpty()) {
+          connection.flush();
+        }
+      }
     } catch (IOException e) {
-      LOGGER.error("Error sending message for node {}", sensorNode.getNodeId(), e);
+      if (running) {
+        LOGGER.error("Error sending message for node {}", sensorNode.getNodeId(), e);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
       running = false;
+      closeConnection(); // also ends the reader if the write side failed
     }
   }
 
+  /**
+   * The writer polls the queue itself, so there is nothing to wake.
+   */
+  @Override
+  protected void wakeWriter() {
+    // writer thread waits on the queue
+  }
+
   /**
    * Closes connection and stops handler. Used when the server shuts down.
    */
+  @Override
   public void stop() {
     running = false;
+    stopTimers();
     sensorNode.removeUpdateListener(this);
     closeConnection();
   }
 
   /**
-   * Sends sensor data to control panel according to the configured interval.
-   * Default is every 5 seconds.
+   * Closes the socket without flushing. The reader and writer threads fail
+   * on their next socket call and clean up.
    */
-  private void sendSensorDataPeriodically() {
+  @Override
+  protected void abort() {
+    running = false;
+    stopTimers();
+    sensorNode.removeUpdateListener(this);
     try {
-      while (running && connection.isOpen()) {
-        sendHeartbeat();
-        Thread.sleep(sensorNode.getSensorNodeInterval());
+      if (connection != null) {
+        connection.abort();
+      } else {
+        socket.close();
       }
-    } catch (InterruptedException e) {
-      LOGGER.debug("Sensor data thread interrupted for node {}", sensorNode.getNodeId(), e);
-      Thread.currentThread().interrupt();
+    } catch (IOException e) {
+      LOGGER.debug("Error while aborting connection for {}", sensorNode.getNodeId(), e);
     }
   }
 
   /**
-   * Sends actuator status to control panel every 10 seconds.
+   * Uses a socket read timeout, which ends the blocking read loop. Called
+   * on the reader thread while it handles the HELLO.
    */
-  private void sendActuatorStatusPeriodically() {
+  @Override
+  protected void enableReadTimeout(long timeoutMs) {
     try {
-      while (running && connection.isOpen()) {
-        sendHeartbeat();
-        Thread.sleep(10000);
-      }
-    } catch (InterruptedException e) {
-      LOGGER.debug("Actuator status thread interrupted for node {}", sensorNode.getNodeId(), e);
-      Thread.currentThread().interrupt();
+      connection.setSoTimeout((int) Math.min(Integer.MAX_VALUE, timeoutMs));
+    } catch (IOException e) {
+      LOGGER.warn("Could not set read timeout for node {}", sensorNode.getNodeId(), e);
     }
   }
 
@@ -129,24 +166,13 @@ public class ClientHandler implements Runnable, SensorNodeUpdateListener {
   private void listenForCommands() {
     try {
       while (running && connection.isOpen()) {
-        String line = connection.recvUtf();
-        if (line == null || line.isEmpty()) {
-          continue;
-        }
-
-        Message message = Message.fromProtocolString(line);
-
-        if (message == null) {
-          sendError("Invalid message received");
-          continue;
-        }
-
-        if (message.getMessageType() == MessageType.COMMAND) {
-          handleCommand(message.getData());
-        }
+        handleIncoming(connection.recvFrameView());
       }
     } catch (EOFException | SocketException e) {
       LOGGER.info("Control panel disconnected from node {}", sensorNode.getNodeId());
+    } catch (SocketTimeoutException e) {
+      LOGGER.warn("No traffic from control panel for {} ms, closing session for node {}",
+          sensorNode.getReadTimeoutMs(), sensorNode.getNodeId());
     } catch (IOException e) {
       LOGGER.error("Error reading command for node {}", sensorNode.getNodeId(), e);
     } finally {
@@ -154,131 +180,19 @@ public class ClientHandler implements Runnable, SensorNodeUpdateListener {
     }
   }
 
-  /**
-   * Handles a command from the control panel.
-   * Format: "actuatorType:action" (fan:1)
-   */
-  private void handleCommand(String commandData) {
-    if (commandData == null || commandData.isEmpty()) {
-      sendError("Empty command");
-      return;
-    }
-    String[] parts = commandData.split(":");
-    if (parts.length != 2) {
-      sendError("Invalid command format (expected actuator:action)");
-      return;
-    }
-
-    String actuatorType = parts[0];
-    String action = parts[1];
-
-    if ("refresh".equalsIgnoreCase(action)) {
-      handleRefreshCommand(actuatorType);
-      return;
-    }
-
-    Actuator actuator = sensorNode.findActuatorByDeviceId(actuatorType);
-    if (actuator == null) {
-      actuator = sensorNode.findActuatorByType(actuatorType);
-    }
-    if (actuator == null) {
-      sendError("Unknown actuator: " + actuatorType);
-      return;
-    }
-
-    boolean newState = "1".equals(action);
-    actuator.setState(newState);
-
-    Message reply = new Message(MessageType.SUCCESS, sensorNode.getNodeId(),
-        actuatorType + ":" + action);
-
-    sendMessage(reply);
-  }
-
-  /**
-   * Sends an error message to the control panel.
-   */
-  private void sendError(String errorMessage) {
-    Message error = new Message(MessageType.ERROR, sensorNode.getNodeId(), errorMessage);
-
-    sendMessage(error);
-  }
-
-  /**
-   * Handles refresh command from control panel.
-   * Used to request immediate data update.
-   * Often used after adding/removing sensors/actuators.
-   *
-   * @param action the refresh target (sensors, actuators, all)
-   */
-  private void handleRefreshCommand(String action) {
-    String normalized = action == null ? "" : action.trim().toLowerCase();
-
-    boolean refreshSensors = normalized.isEmpty() 
-        || "all".equals(normalized) || "sensors".equals(normalized);
-
-    boolean refreshActuators = normalized.isEmpty() 
-        || "all".equals(normalized) || "actuators".equals(normalized);
-
-    if (!refreshSensors && !refreshActuators) {
-      sendError("Unknown refresh target: " + action);
-      return;
-    }
-
-    if (refreshSensors) {
-      sendSensorSnapshot();
-    }
-    if (refreshActuators) {
-      sendActuatorSnapshot();
-    }
-
-    Message reply = new Message(MessageType.SUCCESS, sensorNode.getNodeId(),
-        "refresh:" + (normalized.isEmpty() ? "all" : normalized));
-    sendMessage(reply);
-  }
-
-  /**
-   * Sends a full snapshot of all sensor readings regardless of pending changes.
-   */
-  private void sendSensorSnapshot() {
-    String snapshot = sensorNode.getSensorSnapshot();
-    Message message = new Message(MessageType.DATA, sensorNode.getNodeId(), snapshot);
-    sendMessage(message);
-  }
-
-  /**
-   * Sends only sensors that have reported new readings since the last send (delta
-   * update).
-   */
-  private void sendSensorDelta() {
-    String updates = sensorNode.drainPendingSensorUpdates();
-    if (updates == null || updates.isEmpty()) {
-      return;
-    }
-    Message message = new Message(MessageType.DATA, sensorNode.getNodeId(), updates);
-    sendMessage(message);
-  }
-
-  /**
-   * Sends a full snapshot of actuator states.
-   */
-  private void sendActuatorSnapshot() {
-    String actuatorStatus = sensorNode.getActuatorSnapshot();
-    Message message = new Message(MessageType.DATA, sensorNode.getNodeId(), actuatorStatus);
-    sendMessage(message);
-  }
-
-  private void sendHeartbeat() {
-    Message heartbeat = new Message(MessageType.DATA, sensorNode.getNodeId(), "");
-    sendMessage(heartbeat);
+  @Override
+  protected boolean isOpen() {
+    return running && connection != null && connection.isOpen();
   }
 
   /**
    ** cleans up resources.
    */
   private void cleanup() {
+    stopTimers();
     sensorNode.removeUpdateListener(this);
     closeConnection();
+    outbound.clear();
     LOGGER.info("Closed session for {}", sensorNode.getNodeId());
   }
 
@@ -293,18 +207,4 @@ public class ClientHandler implements Runnable, SensorNodeUpdateListener {
       LOGGER.debug("Error while closing connection for {}", sensorNode.getNodeId(), e);
     }
   }
-
-  @Override
-  public void onSensorsUpdated(SensorNode node) {
-    if (running && connection != null && connection.isOpen()) {
-      sendSensorDelta();
-    }
-  }
-
-  @Override
-  public void onActuatorsUpdated(SensorNode node) {
-    if (running && connection != null && connection.isOpen()) {
-      sendActuatorSnapshot();
-    }
-  }
 }
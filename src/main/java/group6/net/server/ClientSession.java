@@ -0,0 +1,719 @@
+package group6.net.server;
+
+import group6.entity.device.ActuatorType;
+import group6.entity.device.SensorType;
+import group6.entity.device.actuator.Actuator;
+import group6.entity.device.sensor.Sensor;
+import group6.entity.node.SensorNode;
+import group6.logic.events.SensorNodeUpdateListener;
+import group6.net.KeepAliveTimer;
+import group6.net.SessionScheduler;
+import group6.protocol.BinaryDataEncoder;
+import group6.protocol.DataEncoding;
+import group6.protocol.DataVisitor;
+import group6.protocol.DeviceDictionary;
+import group6.protocol.DeviceKey;
+import group6.protocol.HandshakeOptions;
+import group6.protocol.Message;
+import group6.protocol.MessageType;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Protocol logic for one control panel session on a sensor node.
+ *
+ * <p>Transport independent: subclasses decide how frames are read and written
+ * (one blocking thread per session, or multiplexed on a selector), while this
+ * class handles the handshake, commands, refresh requests and sensor/actuator
+ * pushes.
+ *
+ * <p>DATA pushes use the encoding the control panel asked for in its HELLO;
+ * sessions start in text mode until then. If the control panel also asked
+ * for a device dictionary, devices are sent as indices: the full table goes
+ * out right after the WELCOME, and entries for devices added later are sent
+ * in a DICT message just before the first DATA that uses them. Binary
+ * records only carry the node's update timestamps if the control panel asked
+ * for them.
+ *
+ * <p>Sensor updates are coalesced: each one only marks the session dirty,
+ * and the changed sensors are sent together at most once per the node's
+ * push interval, or sooner when a full batch has accumulated (see
+ * {@link SensorNode#setPushCoalescing}).
+ *
+ * <p>Frames are never written by the thread that produces them. They go to a
+ * per-session {@link OutboundQueue} that the subclass's writer drains; if the
+ * control panel falls behind, the node's {@link group6.net.OverloadPolicy}
+ * decides what happens to sensor deltas (see
+ * {@link SensorNode#setOutboundLimits}).
+ *
+ * <p>Actuator states are only sent when they change. There is no periodic
+ * traffic otherwise: a {@link KeepAliveTimer} sends a KEEPALIVE once the
+ * session has been idle for the node's keepalive time. A control panel that
+ * announced keepalives in its HELLO, and then stays silent past the read
+ * timeout, is disconnected (see {@link SensorNode#setKeepAlive}); older
+ * control panels never send keepalives and are not timed out.
+ */
+public abstract class ClientSession implements SensorNodeUpdateListener {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ClientSession.class);
+  private static final String[] SENSOR_TYPE_NAMES = typeNames(SensorType.values());
+  private static final String[] ACTUATOR_TYPE_NAMES = typeNames(ActuatorType.values());
+
+  protected final SensorNode sensorNode;
+  final OutboundQueue outbound = new OutboundQueue();
+  private volatile CoalescingPublisher sensorPublisher; // null until started
+  private volatile KeepAliveTimer keepAlive;
+  private volatile DataEncoding dataEncoding = DataEncoding.TEXT;
+  private volatile boolean sendTimestamps; // only if negotiated
+  private volatile DeviceDictionary dictionary; // null unless negotiated
+  // Reused for every structured DATA frame, guarded by encoder
+  private final BinaryDataEncoder encoder = new BinaryDataEncoder();
+  private final IndexedDataWriter indexedWriter = new IndexedDataWriter();
+  private int dictionarySent; // entries already sent, guarded by dictionary
+
+  /**
+   * Creates a session for the given sensor node.
+   *
+   * @param sensorNode the sensor node this session belongs to
+   */
+  protected ClientSession(SensorNode sensorNode) {
+    this.sensorNode = sensorNode;
+  }
+
+  /**
+   * Sends a message to the control panel.
+   *
+   * @param message the message to send
+   */
+  public void sendMessage(Message message) {
+    sendFrame(message.toProtocolString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Queues one frame payload for the control panel.
+   *
+   * @param payload the encoded payload; not modified after this call
+   */
+  protected void sendFrame(byte[] payload) {
+    enqueue(payload, false);
+  }
+
+  /**
+   * Queues a frame and wakes the writer, or applies the overload policy.
+   */
+  private void enqueue(byte[] payload, boolean delta) {
+    if (!isOpen()) {
+      LOGGER.warn("Cannot send, connection closed for node {}", sensorNode.getNodeId());
+      return;
+    }
+    OutboundQueue.Result result = outbound.offer(payload, delta,
+        sensorNode.getOutboundHighWatermark(), sensorNode.getOverloadPolicy());
+    if (result == OutboundQueue.Result.QUEUED) {
+      KeepAliveTimer timer = keepAlive;
+      if (timer != null) {
+        timer.markSent();
+      }
+      wakeWriter();
+    } else if (result == OutboundQueue.Result.DISCONNECT) {
+      LOGGER.warn("Control panel too slow, closing session for node {} ({} bytes queued)",
+          sensorNode.getNodeId(), outbound.getQueuedBytes());
+      abort();
+    }
+  }
+
+  /**
+   * Makes the writer drain the outbound queue. Must not block.
+   */
+  protected abstract void wakeWriter();
+
+  /**
+   * Takes the next queued frame for the writer without waiting.
+   *
+   * @return the payload, or null if nothing is queued
+   */
+  protected byte[] pollOutbound() {
+    byte[] payload = outbound.poll();
+    checkRecovered();
+    return payload;
+  }
+
+  /**
+   * Takes the next queued frame for the writer, waiting up to the given time.
+   *
+   * @param timeoutMs maximum time to wait in milliseconds
+   * @return the payload, or null if nothing arrived in time
+   * @throws InterruptedException if interrupted while waiting
+   */
+  protected byte[] pollOutbound(long timeoutMs) throws InterruptedException {
+    byte[] payload = outbound.poll(timeoutMs);
+    checkRecovered();
+    return payload;
+  }
+
+  /**
+   * Returns whether the outbound queue is empty.
+   *
+   * @return true if nothing is waiting to be written
+   */
+  protected boolean isOutboundEmpty() {
+    return outbound.isEmpty();
+  }
+
+  /**
+   * Sends a full sensor snapshot once an overload that dropped deltas has
+   * ended, so the control panel catches up on every sensor.
+   */
+  private void checkRecovered() {
+    if (outbound.checkRecovered(sensorNode.getOutboundLowWatermark())) {
+      SessionScheduler.schedule(() -> {
+        if (isOpen()) {
+          sendSensorSnapshot();
+        }
+      }, 0);
+    }
+  }
+
+  /**
+   * Returns the bytes waiting in the outbound queue.
+   *
+   * @return the queued bytes
+   */
+  public long getOutboundQueuedBytes() {
+    return outbound.getQueuedBytes();
+  }
+
+  /**
+   * Returns the number of frames waiting in the outbound queue.
+   *
+   * @return the queued frames
+   */
+  public int getOutboundQueuedFrames() {
+    return outbound.getQueuedFrames();
+  }
+
+  /**
+   * Returns the most bytes the outbound queue has held.
+   *
+   * @return the peak queue size in bytes
+   */
+  public long getOutboundPeakBytes() {
+    return outbound.getPeakBytes();
+  }
+
+  /**
+   * Returns how many sensor deltas were dropped because the control panel
+   * fell behind.
+   *
+   * @return the number of dropped frames
+   */
+  public long getDroppedFrames() {
+    return outbound.getDroppedFrames();
+  }
+
+  /**
+   * Returns how many times the outbound queue passed the high watermark.
+   *
+   * @return the number of overloads
+   */
+  public long getOverloadCount() {
+    return outbound.getOverloads();
+  }
+
+  /**
+   * Returns whether the session is currently overloaded.
+   *
+   * @return true between passing the high and reaching the low watermark
+   */
+  public boolean isOverloaded() {
+    return outbound.isOverloaded();
+  }
+
+  /**
+   * Closes the session and releases its resources.
+   */
+  public abstract void stop();
+
+  /**
+   * Closes the session at once, dropping anything not yet written. Unlike
+   * {@link #stop()} this must never block, as it runs on producer and
+   * scheduler threads while the writer may be stuck on the socket.
+   */
+  protected abstract void abort();
+
+  /**
+   * Returns whether the session can still send and receive frames.
+   *
+   * @return true if open, false otherwise
+   */
+  protected abstract boolean isOpen();
+
+  /**
+   * Starts the sensor publisher and the keepalive timer with the node's
+   * settings. Call before registering the session as an update listener.
+   * Reads are not timed out until the control panel announces keepalives.
+   */
+  protected void startTimers() {
+    sensorPublisher = new CoalescingPublisher(this::publishSensorDelta,
+        sensorNode::getPushIntervalMs, sensorNode::getPushBatchSize);
+    KeepAliveTimer timer = new KeepAliveTimer(sensorNode.getKeepAliveIdleMs(), 0,
+        this::sendKeepAlive, this::onReadTimeout);
+    keepAlive = timer;
+    timer.start();
+  }
+
+  /**
+   * Starts closing the session when the control panel is silent for the
+   * given time. By default the keepalive timer watches for it; subclasses
+   * with blocking reads can use a socket read timeout instead.
+   *
+   * @param timeoutMs the read timeout in milliseconds, positive
+   */
+  protected void enableReadTimeout(long timeoutMs) {
+    KeepAliveTimer timer = keepAlive;
+    if (timer != null) {
+      timer.setReadTimeout(timeoutMs);
+    }
+  }
+
+  /**
+   * Cancels the keepalive timer and any pending sensor push, if started.
+   */
+  protected void stopTimers() {
+    CoalescingPublisher publisher = sensorPublisher;
+    if (publisher != null) {
+      publisher.close();
+    }
+    KeepAliveTimer timer = keepAlive;
+    if (timer != null) {
+      timer.stop();
+    }
+  }
+
+  /**
+   * Closes the session because the control panel has been silent for too
+   * long.
+   */
+  protected void onReadTimeout() {
+    LOGGER.warn("No traffic from control panel for {} ms, closing session for node {}",
+        sensorNode.getReadTimeoutMs(), sensorNode.getNodeId());
+    abort();
+  }
+
+  /**
+   * Handles one frame received from the control panel.
+   *
+   * @param frame the payload bytes, only valid for the duration of the call
+   */
+  protected void handleIncoming(ByteBuffer frame) {
+    KeepAliveTimer timer = keepAlive;
+    if (timer != null) {
+      timer.markReceived();
+    }
+    if (frame == null || !frame.hasRemaining()) {
+      return;
+    }
+
+    Message message = Message.fromProtocolBytes(frame, sensorNode.getNodeId());
+
+    if (message == null) {
+      sendError("Invalid message received");
+      return;
+    }
+
+    if (message.getMessageType() == MessageType.HELLO) {
+      handleHello(message.getData());
+    } else if (message.getMessageType() == MessageType.COMMAND) {
+      handleCommand(message.getData());
+    }
+  }
+
+  /**
+   * Handles the control panel's HELLO: picks the requested DATA encoding and
+   * device dictionary and confirms them with a WELCOME. If the control panel
+   * sends keepalives, the read timeout is turned on.
+   * Format: "encoding:binary,dict:1,keepalive:1,ts:1" (empty or unknown
+   * options mean text, no dictionary, no read timeout, no timestamps)
+   *
+   * @param helloData the data field of the HELLO message
+   */
+  protected void handleHello(String helloData) {
+    Map<String, String> requested = HandshakeOptions.parse(helloData);
+    dataEncoding = DataEncoding.fromHandshakeValue(requested.get(HandshakeOptions.ENCODING));
+    boolean useDictionary = "1".equals(requested.get(HandshakeOptions.DICTIONARY));
+    sendTimestamps = "1".equals(requested.get(HandshakeOptions.TIMESTAMPS));
+    long readTimeout = "1".equals(requested.get(HandshakeOptions.KEEPALIVE))
+        ? sensorNode.getReadTimeoutMs() : 0;
+
+    Map<String, String> accepted = new LinkedHashMap<>();
+    accepted.put(HandshakeOptions.ENCODING, dataEncoding.getHandshakeValue());
+    accepted.put(HandshakeOptions.DICTIONARY, useDictionary ? "1" : "0");
+    accepted.put(HandshakeOptions.KEEPALIVE, readTimeout > 0 ? "1" : "0");
+    accepted.put(HandshakeOptions.TIMESTAMPS, sendTimestamps ? "1" : "0");
+    sendMessage(new Message(MessageType.WELCOME, sensorNode.getNodeId(),
+        HandshakeOptions.format(accepted)));
+    if (readTimeout > 0) {
+      enableReadTimeout(readTimeout);
+    }
+
+    if (useDictionary && dictionary == null) {
+      DeviceDictionary dict = new DeviceDictionary();
+      synchronized (dict) {
+        for (Sensor sensor : sensorNode.getSensors()) {
+          dict.add(DeviceKey.of(sensor.getDeviceType().toString(), sensor.getDeviceId()));
+        }
+        for (Actuator actuator : sensorNode.getActuators()) {
+          dict.add(DeviceKey.of(actuator.getDeviceType().toString(), actuator.getDeviceId()));
+        }
+        dictionary = dict;
+        sendDictionaryUpdates(dict);
+      }
+    }
+  }
+
+  /**
+   * Sends dictionary entries the control panel has not seen yet. Caller must
+   * hold the dictionary's lock.
+   */
+  private void sendDictionaryUpdates(DeviceDictionary dict) {
+    if (dict.size() > dictionarySent) {
+      sendMessage(new Message(MessageType.DICT, sensorNode.getNodeId(),
+          dict.toProtocolString(dictionarySent)));
+      dictionarySent = dict.size();
+    }
+  }
+
+  /**
+   * Returns the DATA encoding used by this session.
+   *
+   * @return the negotiated encoding, TEXT before the handshake
+   */
+  public DataEncoding getDataEncoding() {
+    return dataEncoding;
+  }
+
+  /**
+   * Handles a command from the control panel.
+   * Format: "actuatorType:action" (fan:1)
+   */
+  protected void handleCommand(String commandData) {
+    if (commandData == null || commandData.isEmpty()) {
+      sendError("Empty command");
+      return;
+    }
+    String[] parts = commandData.split(":");
+    if (parts.length != 2) {
+      sendError("Invalid command format (expected actuator:action)");
+      return;
+    }
+
+    String actuatorType = parts[0];
+    String action = parts[1];
+
+    if ("refresh".equalsIgnoreCase(action)) {
+      handleRefreshCommand(actuatorType);
+      return;
+    }
+
+    Actuator actuator = sensorNode.findActuatorByDeviceId(actuatorType);
+    if (actuator == null) {
+      actuator = sensorNode.findActuatorByType(actuatorType);
+    }
+    if (actuator == null) {
+      sendError("Unknown actuator: " + actuatorType);
+      return;
+    }
+
+    boolean newState = "1".equals(action);
+    actuator.setState(newState);
+
+    Message reply = new Message(MessageType.SUCCESS, sensorNode.getNodeId(),
+        actuatorType + ":" + action);
+
+    sendMessage(reply);
+  }
+
+  /**
+   * Sends an error message to the control panel.
+   */
+  protected void sendError(String errorMessage) {
+    Message error = new Message(MessageType.ERROR, sensorNode.getNodeId(), errorMessage);
+
+    sendMessage(error);
+  }
+
+  /**
+   * Handles refresh command from control panel.
+   * Used to request immediate data update.
+   * Often used after adding/removing sensors/actuators.
+   *
+   * @param action the refresh target (sensors, actuators, all)
+   */
+  protected void handleRefreshCommand(String action) {
+    String normalized = action == null ? "" : action.trim().toLowerCase();
+
+    boolean refreshSensors = normalized.isEmpty()
+        || "all".equals(normalized) || "sensors".equals(normalized);
+
+    boolean refreshActuators = normalized.isEmpty()
+        || "all".equals(normalized) || "actuators".equals(normalized);
+
+    if (!refreshSensors && !refreshActuators) {
+      sendError("Unknown refresh target: " + action);
+      return;
+    }
+
+    if (refreshSensors) {
+      sendSensorSnapshot();
+    }
+    if (refreshActuators) {
+      sendActuatorSnapshot();
+    }
+
+    Message reply = new Message(MessageType.SUCCESS, sensorNode.getNodeId(),
+        "refresh:" + (normalized.isEmpty() ? "all" : normalized));
+    sendMessage(reply);
+  }
+
+  /**
+   * Sends a full snapshot of all sensor readings regardless of pending changes.
+   */
+  protected void sendSensorSnapshot() {
+    if (isStructured()) {
+      sendStructuredData(out -> {
+        sensorNode.writeSensorSnapshot(out);
+        return true;
+      }, false);
+      return;
+    }
+    String snapshot = sensorNode.getSensorSnapshot();
+    Message message = new Message(MessageType.DATA, sensorNode.getNodeId(), snapshot);
+    sendMessage(message);
+  }
+
+  /**
+   * Sends only sensors that have reported new readings since the last send (delta
+   * update).
+   */
+  protected void sendSensorDelta() {
+    if (isStructured()) {
+      sendStructuredData(sensorNode::drainPendingSensorUpdates, true);
+      return;
+    }
+    String updates = sensorNode.drainPendingSensorUpdates();
+    if (updates == null || updates.isEmpty()) {
+      return;
+    }
+    Message message = new Message(MessageType.DATA, sensorNode.getNodeId(), updates);
+    enqueue(message.toProtocolString().getBytes(StandardCharsets.UTF_8), true);
+  }
+
+  /**
+   * Sends a full snapshot of actuator states.
+   */
+  protected void sendActuatorSnapshot() {
+    if (isStructured()) {
+      sendStructuredData(out -> {
+        sensorNode.writeActuatorSnapshot(out);
+        return true;
+      }, false);
+      return;
+    }
+    String actuatorStatus = sensorNode.getActuatorSnapshot();
+    Message message = new Message(MessageType.DATA, sensorNode.getNodeId(), actuatorStatus);
+    sendMessage(message);
+  }
+
+  /**
+   * Returns whether DATA is built from structured records rather than the
+   * node's text snapshots (binary encoding or device dictionary in use).
+   */
+  private boolean isStructured() {
+    return dataEncoding == DataEncoding.BINARY || dictionary != null;
+  }
+
+  /**
+   * Source of DATA records, returns false if there is nothing to send.
+   */
+  @FunctionalInterface
+  private interface DataSource {
+    boolean writeTo(DataVisitor out);
+  }
+
+  /**
+   * Encodes records from the source in the negotiated form and sends them.
+   * With a dictionary, new entries are sent first, under the dictionary lock,
+   * so indices always reach the control panel before they are used; a
+   * dropped delta therefore never leaves an index unexplained.
+   */
+  private void sendStructuredData(DataSource source, boolean delta) {
+    synchronized (encoder) {
+      encoder.reset();
+      encoder.setTimestampsEnabled(sendTimestamps);
+      DeviceDictionary dict = dictionary;
+      if (dict == null) {
+        if (source.writeTo(encoder)) {
+          enqueue(encoder.toByteArray(), delta);
+        }
+        return;
+      }
+      synchronized (dict) {
+        indexedWriter.begin(dict, dataEncoding == DataEncoding.BINARY);
+        if (!source.writeTo(indexedWriter)) {
+          return;
+        }
+        sendDictionaryUpdates(dict);
+        enqueue(indexedWriter.toPayload(), delta);
+      }
+    }
+  }
+
+  /**
+   * Rewrites records to refer to devices by dictionary index, in binary or
+   * as {@code @index:value} text. One per session, reused for every frame
+   * while the encoder lock is held.
+   *
+   * <p>Indices are cached per device type and id, so a push does not build
+   * a key for devices the dictionary already knows. Once the dictionary is
+   * full, devices without an index are sent with their full key.
+   */
+  private final class IndexedDataWriter implements DataVisitor {
+    private final StringBuilder text = new StringBuilder();
+    private final List<Map<String, Integer>> sensorIndices = indexCache(SENSOR_TYPE_NAMES);
+    private final List<Map<String, Integer>> actuatorIndices = indexCache(ACTUATOR_TYPE_NAMES);
+    private DeviceDictionary dict;
+    private BinaryDataEncoder binary; // null for text
+    private boolean fullReported;
+
+    /**
+     * Starts a new frame. The session encoder must be reset already.
+     */
+    void begin(DeviceDictionary dict, boolean useBinary) {
+      this.dict = dict;
+      this.binary = useBinary ? encoder : null;
+      text.setLength(0);
+    }
+
+    @Override
+    public void onReading(int typeOrdinal, CharSequence deviceId, double value,
+        long timestamp) {
+      int index = indexOf(sensorIndices, SENSOR_TYPE_NAMES, typeOrdinal, deviceId);
+      if (binary != null) {
+        if (index < 0) {
+          binary.onReading(typeOrdinal, deviceId, value, timestamp);
+        } else {
+          binary.onIndexedReading(index, value, timestamp);
+        }
+      } else {
+        appendText(index, SENSOR_TYPE_NAMES[typeOrdinal], deviceId, String.valueOf(value));
+      }
+    }
+
+    @Override
+    public void onActuatorState(int typeOrdinal, CharSequence deviceId, boolean on,
+        long timestamp) {
+      int index = indexOf(actuatorIndices, ACTUATOR_TYPE_NAMES, typeOrdinal, deviceId);
+      if (binary != null) {
+        if (index < 0) {
+          binary.onActuatorState(typeOrdinal, deviceId, on, timestamp);
+        } else {
+          binary.onIndexedActuatorState(index, on, timestamp);
+        }
+      } else {
+        appendText(index, ACTUATOR_TYPE_NAMES[typeOrdinal], deviceId, on ? "1" : "0");
+      }
+    }
+
+    /**
+     * Returns the dictionary index of a device, or -1 if it has none because
+     * the dictionary is full. Caller holds the dictionary lock.
+     */
+    private int indexOf(List<Map<String, Integer>> cache, String[] typeNames, int typeOrdinal,
+        CharSequence deviceId) {
+      Map<String, Integer> byId = cache.get(typeOrdinal);
+      String id = deviceId.toString();
+      Integer index = byId.get(id);
+      if (index == null) {
+        index = dict.tryAdd(DeviceKey.of(typeNames[typeOrdinal], id));
+        if (index < 0 && !fullReported) {
+          LOGGER.warn("Device dictionary full for node {}, sending full keys for new devices",
+              sensorNode.getNodeId());
+          fullReported = true;
+        }
+        byId.put(id, index);
+      }
+      return index;
+    }
+
+    private void appendText(int index, String typeName, CharSequence deviceId, String value) {
+      if (text.length() > 0) {
+        text.append(",");
+      }
+      if (index < 0) {
+        text.append(typeName).append("#").append(deviceId);
+      } else {
+        text.append("@").append(index);
+      }
+      text.append(":").append(value);
+    }
+
+    byte[] toPayload() {
+      if (binary != null) {
+        return binary.toByteArray();
+      }
+      return new Message(MessageType.DATA, sensorNode.getNodeId(), text.toString())
+          .toProtocolString().getBytes(StandardCharsets.UTF_8);
+    }
+  }
+
+  private static List<Map<String, Integer>> indexCache(String[] typeNames) {
+    List<Map<String, Integer>> cache = new ArrayList<>(typeNames.length);
+    for (int i = 0; i < typeNames.length; i++) {
+      cache.add(new HashMap<>());
+    }
+    return cache;
+  }
+
+  private static String[] typeNames(Enum<?>[] types) {
+    String[] names = new String[types.length];
+    for (int i = 0; i < types.length; i++) {
+      names[i] = types[i].name().toLowerCase(Locale.ROOT);
+    }
+    return names;
+  }
+
+  /**
+   * Sends a KEEPALIVE so the control panel knows the node is alive.
+   */
+  protected void sendKeepAlive() {
+    sendMessage(new Message(MessageType.KEEPALIVE, sensorNode.getNodeId(), ""));
+  }
+
+  @Override
+  public void onSensorsUpdated(SensorNode node) {
+    CoalescingPublisher publisher = sensorPublisher;
+    if (publisher != null && isOpen()) {
+      publisher.markDirty();
+    }
+  }
+
+  private void publishSensorDelta() {
+    if (isOpen()) {
+      sendSensorDelta();
+    }
+  }
+
+  @Override
+  public void onActuatorsUpdated(SensorNode node) {
+    if (isOpen()) {
+      sendActuatorSnapshot();
+    }
+  }
+}
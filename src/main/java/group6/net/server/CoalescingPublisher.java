@@ -0,0 +1,112 @@
+package group6.net.server;
+
+import group6.net.SessionScheduler;
+import group6.net.TaskScheduler;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Coalesces change notifications into rate-limited flushes.
+ *
+ * <p>{@link #markDirty()} only counts the change and, if no flush is pending,
+ * schedules one, by default on the shared {@link SessionScheduler}, for
+ * one interval after the previous flush. Changes arriving meanwhile ride along with that
+ * flush, unless the batch size is reached first, which flushes right away.
+ * The flush itself always runs on a scheduler thread, so the notifying
+ * thread never touches the socket. An interval of 0 flushes on the
+ * notifying thread for every change.
+ */
+final class CoalescingPublisher {
+
+  private final Runnable flush;
+  private final LongSupplier intervalMs;
+  private final IntSupplier batchSize;
+  private final TaskScheduler scheduler;
+  private final LongSupplier clock;
+  private final AtomicInteger pendingChanges = new AtomicInteger();
+  private final AtomicBoolean scheduled = new AtomicBoolean(false);
+  private volatile ScheduledFuture<?> timer;
+  private volatile long lastFlush;
+  private volatile boolean closed;
+
+  /**
+   * Creates a publisher. The settings are read on every change, so they can
+   * be changed while the publisher runs.
+   *
+   * @param flush      sends everything that changed, must not block for long
+   * @param intervalMs minimum time between flushes in milliseconds
+   * @param batchSize  number of changes that triggers a flush before the
+   *                   interval is over
+   */
+  CoalescingPublisher(Runnable flush, LongSupplier intervalMs, IntSupplier batchSize) {
+    this(flush, intervalMs, batchSize, SessionScheduler::schedule, System::currentTimeMillis);
+  }
+
+  /**
+   * Creates a publisher that flushes through the given scheduler and clock.
+   *
+   * @param flush      sends everything that changed, must not block for long
+   * @param intervalMs minimum time between flushes in milliseconds
+   * @param batchSize  number of changes that triggers a flush before the
+   *                   interval is over
+   * @param scheduler  runs the flushes
+   * @param clock      current time in milliseconds
+   */
+  CoalescingPublisher(Runnable flush, LongSupplier intervalMs, IntSupplier batchSize,
+      TaskScheduler scheduler, LongSupplier clock) {
+    this.flush = flush;
+    this.intervalMs = intervalMs;
+    this.batchSize = batchSize;
+    this.scheduler = scheduler;
+    this.clock = clock;
+  }
+
+  /**
+   * Records one change and makes sure a flush will follow.
+   */
+  void markDirty() {
+    if (closed) {
+      return;
+    }
+    long interval = intervalMs.getAsLong();
+    if (interval <= 0) {
+      flush.run();
+      return;
+    }
+    int changes = pendingChanges.incrementAndGet();
+    boolean full = changes >= batchSize.getAsInt();
+    if (scheduled.compareAndSet(false, true)) {
+      long delay = full ? 0 : lastFlush + interval - clock.getAsLong();
+      timer = scheduler.schedule(this::run, Math.max(0, delay));
+    } else if (full) {
+      ScheduledFuture<?> pending = timer;
+      if (pending != null && pending.cancel(false)) {
+        timer = scheduler.schedule(this::run, 0);
+      }
+    }
+  }
+
+  /**
+   * Cancels a pending flush and ignores later changes.
+   */
+  void close() {
+    closed = true;
+    ScheduledFuture<?> pending = timer;
+    if (pending != null) {
+      pending.cancel(false);
+    }
+  }
+
+  private void run() {
+    // Reset first: changes from here on schedule the next flush
+    pendingChanges.set(0);
+    lastFlush = clock.getAsLong();
+    scheduled.set(false);
+    if (!closed) {
+      flush.run();
+    }
+  }
+}
@@ -0,0 +1,98 @@
+package group6.net.server;
+
+import group6.entity.node.SensorNode;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Accepts control panel connections for one sensor node on an event loop and
+ * hands each accepted channel to a {@link NioClientSession}.
+ */
+public class NioAcceptor implements NioChannelHandler {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(NioAcceptor.class);
+
+  private final ServerSocketChannel serverChannel;
+  private final SensorNode sensorNode;
+  private final NioEventLoopGroup group;
+  private final Consumer<ClientSession> onOpen;
+  private final Consumer<ClientSession> onClose;
+
+  private NioAcceptor(ServerSocketChannel serverChannel, SensorNode sensorNode,
+      NioEventLoopGroup group, Consumer<ClientSession> onOpen,
+      Consumer<ClientSession> onClose) {
+    this.serverChannel = serverChannel;
+    this.sensorNode = sensorNode;
+    this.group = group;
+    this.onOpen = onOpen;
+    this.onClose = onClose;
+  }
+
+  /**
+   * Binds a non-blocking listen socket and starts accepting on the group.
+   *
+   * @param port       the TCP port to listen on
+   * @param sensorNode the sensor node served by accepted sessions
+   * @param group      the event loops serving the listen socket and sessions
+   * @param onOpen     called for every accepted session
+   * @param onClose    called when a session closes
+   * @return the acceptor, used to stop listening
+   * @throws IOException if the port cannot be bound
+   */
+  public static NioAcceptor bind(int port, SensorNode sensorNode, NioEventLoopGroup group,
+      Consumer<ClientSession> onOpen, Consumer<ClientSession> onClose) throws IOException {
+    ServerSocketChannel serverChannel = ServerSocketChannel.open();
+    try {
+      serverChannel.bind(new InetSocketAddress(port));
+      serverChannel.configureBlocking(false);
+    } catch (IOException e) {
+      serverChannel.close();
+      throw e;
+    }
+    NioAcceptor acceptor = new NioAcceptor(serverChannel, sensorNode, group, onOpen, onClose);
+    group.next().register(serverChannel, SelectionKey.OP_ACCEPT, acceptor);
+    return acceptor;
+  }
+
+  /**
+   * Returns the local port of the listen socket, for example after binding
+   * port 0.
+   *
+   * @return the bound port
+   */
+  public int getPort() {
+    return serverChannel.socket().getLocalPort();
+  }
+
+  @Override
+  public void onReady(SelectionKey key) throws IOException {
+    SocketChannel channel;
+    while ((channel = serverChannel.accept()) != null) {
+      LOGGER.info("Control panel connected: {}", channel.getRemoteAddress());
+      NioClientSession session =
+          new NioClientSession(channel, sensorNode, group.next(), onClose);
+      onOpen.accept(session);
+      try {
+        session.open();
+      } catch (IOException e) {
+        LOGGER.warn("Could not open session for node {}", sensorNode.getNodeId(), e);
+        session.close();
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    try {
+      serverChannel.close();
+    } catch (IOException e) {
+      LOGGER.debug("Server channel already closed.", e);
+    }
+  }
+}
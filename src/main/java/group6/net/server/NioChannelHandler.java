@@ -0,0 +1,32 @@
+package group6.net.server;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+
+/**
+ * Callback attached to a channel registered on a {@link NioEventLoop}.
+ */
+interface NioChannelHandler {
+
+  /**
+   * Called on the event loop thread once the channel has been registered.
+   *
+   * @param key the key of the registered channel
+   */
+  default void onRegistered(SelectionKey key) {
+  }
+
+  /**
+   * Called on the event loop thread when the channel is ready for one of its
+   * interest operations.
+   *
+   * @param key the selected key
+   * @throws IOException on IO errors, the handler is then closed
+   */
+  void onReady(SelectionKey key) throws IOException;
+
+  /**
+   * Called on the event loop thread when the handler failed or the loop stops.
+   */
+  void close();
+}
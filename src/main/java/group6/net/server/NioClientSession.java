@@ -0,0 +1,229 @@
+package group6.net.server;
+
+import group6.entity.node.SensorNode;
+import group6.net.Connection;
+import group6.net.GatheringFrameWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Control panel session served from a shared {@link NioEventLoop}.
+ *
+ * <p>Uses the same length-prefixed framing as {@link Connection}, but reads and
+ * writes happen on the event loop thread without blocking. The loop is the
+ * writer for the session's outbound queue: it takes frames only while the
+ * socket keeps up, so a slow control panel leaves them queued where the
+ * overload policy can see them. Queued payloads go out with gathering writes,
+ * without being copied behind their length prefix. Keepalives run on the
+ * shared session scheduler, which also closes the session when the control
+ * panel stays silent past the node's read timeout.
+ */
+public class NioClientSession extends ClientSession implements NioChannelHandler {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(NioClientSession.class);
+  private static final int INITIAL_READ_BUFFER_SIZE = 8 * 1024;
+  private static final int MAX_FRAMES_PER_FLUSH = 64;
+
+  private final SocketChannel channel;
+  private final NioEventLoop loop;
+  private final int maxFrameSize;
+  private final Consumer<ClientSession> onClose;
+  private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+  private final AtomicBoolean closed = new AtomicBoolean(false);
+  private final GatheringFrameWriter writer; // only used on the loop thread
+  private ByteBuffer readBuffer = ByteBuffer.allocate(INITIAL_READ_BUFFER_SIZE);
+  private SelectionKey key;
+
+  /**
+   * Creates a session for an accepted channel.
+   *
+   * @param channel    the accepted client channel
+   * @param sensorNode the sensor node this session belongs to
+   * @param loop       the event loop serving this session
+   * @param onClose    callback run once when the session closes
+   */
+  public NioClientSession(SocketChannel channel, SensorNode sensorNode, NioEventLoop loop,
+      Consumer<ClientSession> onClose) {
+    super(sensorNode);
+    this.channel = channel;
+    this.loop = loop;
+    this.maxFrameSize = Connection.DEFAULT_MAX_FRAME_SIZE;
+    this.onClose = onClose;
+    this.writer = new GatheringFrameWriter(channel);
+  }
+
+  /**
+   * Switches the channel to non-blocking mode and registers it with the loop.
+   *
+   * @throws IOException if the channel cannot be configured
+   */
+  public void open() throws IOException {
+    channel.configureBlocking(false);
+    channel.socket().setTcpNoDelay(true);
+    loop.register(channel, SelectionKey.OP_READ, this);
+  }
+
+  @Override
+  public void onRegistered(SelectionKey key) {
+    this.key = key;
+    LOGGER.info("Control panel connected for node {}", sensorNode.getNodeId());
+
+    startTimers();
+    sensorNode.addUpdateListener(this);
+    flushWrites();
+  }
+
+  @Override
+  public void onReady(SelectionKey key) throws IOException {
+    try {
+      if (key.isReadable()) {
+        readFrames();
+      }
+      if (key.isValid() && key.isWritable()) {
+        flushWrites();
+      }
+    } catch (IOException e) {
+      LOGGER.info("Control panel disconnected from node {}", sensorNode.getNodeId());
+      close();
+    }
+  }
+
+  /**
+   * Asks the loop to flush the outbound queue.
+   */
+  @Override
+  protected void wakeWriter() {
+    if (flushScheduled.compareAndSet(false, true)) {
+      loop.execute(this::flushWrites);
+    }
+  }
+
+  @Override
+  public void stop() {
+    close();
+  }
+
+  /**
+   * Closing a non-blocking channel never waits, so this is just
+   * {@link #close()}.
+   */
+  @Override
+  protected void abort() {
+    close();
+  }
+
+  @Override
+  protected boolean isOpen() {
+    return !closed.get() && channel.isOpen();
+  }
+
+  /**
+   * Reads available bytes and dispatches every complete frame.
+   */
+  private void readFrames() throws IOException {
+    int read = channel.read(readBuffer);
+    if (read < 0) {
+      throw new IOException("End of stream");
+    }
+
+    readBuffer.flip();
+    int limit = readBuffer.limit();
+    int needed = 0;
+    while (readBuffer.remaining() >= Integer.BYTES) {
+      int start = readBuffer.position();
+      int len = readBuffer.getInt(start);
+      if (len < 0) {
+        throw new IOException("Invalid negative frame length: " + len);
+      }
+      if (len > maxFrameSize) {
+        throw new IOException(
+            "Frame length exceeds maximum frame size: " + len + " > " + maxFrameSize);
+      }
+      if (readBuffer.remaining() < Integer.BYTES + len) {
+        needed = Integer.BYTES + len;
+        break;
+      }
+      int frameEnd = start + Integer.BYTES + len;
+      readBuffer.position(start + Integer.BYTES).limit(frameEnd); // view of this frame
+      handleIncoming(readBuffer);
+      readBuffer.limit(limit).position(frameEnd);
+    }
+    readBuffer.compact();
+
+    if (needed > readBuffer.capacity()) {
+      ByteBuffer larger = ByteBuffer.allocate(Math.max(needed, readBuffer.capacity() * 2));
+      readBuffer.flip();
+      larger.put(readBuffer);
+      readBuffer = larger;
+    }
+  }
+
+  /**
+   * Writes queued frames until the socket buffer is full. Runs on the loop.
+   * Frames are only taken from the outbound queue once the previous ones
+   * are on the socket.
+   */
+  private void flushWrites() {
+    flushScheduled.set(false);
+    if (key == null || !key.isValid()) {
+      return;
+    }
+    try {
+      writer.flush();
+      while (!writer.hasPending()) {
+        int taken = 0;
+        byte[] payload;
+        while (taken < MAX_FRAMES_PER_FLUSH && (payload = pollOutbound()) != null) {
+          if (payload.length > maxFrameSize) {
+            LOGGER.error("Payload size exceeds maximum frame size for node {}: {} > {}",
+                sensorNode.getNodeId(), payload.length, maxFrameSize);
+            continue;
+          }
+          writer.writeFrame(ByteBuffer.wrap(payload));
+          taken++;
+        }
+        if (taken == 0) {
+          break;
+        }
+        writer.flush();
+      }
+      key.interestOps(writer.hasPending()
+          ? SelectionKey.OP_READ | SelectionKey.OP_WRITE
+          : SelectionKey.OP_READ);
+    } catch (IOException e) {
+      LOGGER.error("Error sending message for node {}", sensorNode.getNodeId(), e);
+      close();
+    }
+  }
+
+  @Override
+  public void close() {
+    if (!closed.compareAndSet(false, true)) {
+      return;
+    }
+    sensorNode.removeUpdateListener(this);
+    stopTimers();
+    if (key != null) {
+      key.cancel();
+    }
+    try {
+      channel.close();
+    } catch (IOException e) {
+      LOGGER.debug("Error while closing connection for {}", sensorNode.getNodeId(), e);
+    }
+    outbound.clear();
+    if (loop.inEventLoop()) {
+      writer.clear();
+    }
+    if (onClose != null) {
+      onClose.accept(this);
+    }
+    LOGGER.info("Closed session for {}", sensorNode.getNodeId());
+  }
+}
@@ -0,0 +1,141 @@
+package group6.net.server;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Single selector thread multiplexing many non-blocking channels.
+ *
+ * <p>All channel operations (register, read, write, interest changes) happen on
+ * the loop thread. Other threads hand work over with {@link #execute(Runnable)}.
+ */
+public final class NioEventLoop implements Runnable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(NioEventLoop.class);
+
+  private final Selector selector;
+  private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+  private final Thread thread;
+  private volatile boolean running = true;
+
+  /**
+   * Opens the selector and starts the loop thread.
+   *
+   * @param name the thread name
+   * @throws IOException if the selector cannot be opened
+   */
+  NioEventLoop(String name) throws IOException {
+    this.selector = Selector.open();
+    this.thread = new Thread(this, name);
+    this.thread.setDaemon(true);
+    this.thread.start();
+  }
+
+  /**
+   * Returns whether the caller is running on this loop's thread.
+   *
+   * @return true if on the loop thread
+   */
+  public boolean inEventLoop() {
+    return Thread.currentThread() == thread;
+  }
+
+  /**
+   * Queues a task to run on the loop thread.
+   *
+   * @param task the task, must not block
+   */
+  public void execute(Runnable task) {
+    tasks.add(task);
+    if (!inEventLoop()) {
+      selector.wakeup();
+    }
+  }
+
+  /**
+   * Registers a channel with this loop.
+   *
+   * @param channel the non-blocking channel
+   * @param ops     the initial interest set
+   * @param handler the handler invoked when the channel is ready
+   */
+  void register(SelectableChannel channel, int ops, NioChannelHandler handler) {
+    execute(() -> {
+      try {
+        handler.onRegistered(channel.register(selector, ops, handler));
+      } catch (ClosedChannelException e) {
+        LOGGER.debug("Channel closed before registration", e);
+        handler.close();
+      }
+    });
+  }
+
+  /**
+   * Stops the loop and closes all registered handlers.
+   */
+  void shutdown() {
+    running = false;
+    selector.wakeup();
+  }
+
+  @Override
+  public void run() {
+    while (running) {
+      try {
+        if (tasks.isEmpty()) {
+          selector.select();
+        } else {
+          selector.selectNow(); // tasks queued from the loop itself must not wait
+        }
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+          SelectionKey key = keys.next();
+          keys.remove();
+          NioChannelHandler handler = (NioChannelHandler) key.attachment();
+          try {
+            if (key.isValid()) {
+              handler.onReady(key);
+            }
+          } catch (IOException | RuntimeException e) {
+            LOGGER.debug("Channel handler failed on {}", thread.getName(), e);
+            handler.close();
+          }
+        }
+        runTasks();
+      } catch (IOException e) {
+        LOGGER.error("Selector failed on {}", thread.getName(), e);
+      }
+    }
+    closeAll();
+  }
+
+  private void runTasks() {
+    Runnable task;
+    while ((task = tasks.poll()) != null) {
+      try {
+        task.run();
+      } catch (RuntimeException e) {
+        LOGGER.warn("Event loop task failed on {}", thread.getName(), e);
+      }
+    }
+  }
+
+  private void closeAll() {
+    for (SelectionKey key : selector.keys()) {
+      ((NioChannelHandler) key.attachment()).close();
+    }
+    try {
+      selector.close();
+    } catch (IOException e) {
+      LOGGER.debug("Error closing selector on {}", thread.getName(), e);
+    }
+  }
+}
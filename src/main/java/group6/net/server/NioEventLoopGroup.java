@@ -0,0 +1,79 @@
+package group6.net.server;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fixed pool of {@link NioEventLoop}s. Channels are spread round-robin.
+ *
+ * <p>A process-wide {@link #shared()} group lets every embedded sensor node
+ * share the same few selector threads.
+ */
+public final class NioEventLoopGroup {
+
+  private static final AtomicInteger GROUP_COUNTER = new AtomicInteger();
+  private static volatile NioEventLoopGroup shared;
+
+  private final NioEventLoop[] loops;
+  private final AtomicInteger next = new AtomicInteger();
+
+  /**
+   * Creates a group with the given number of loop threads.
+   *
+   * @param size the number of selector threads, must be positive
+   * @throws IOException if a selector cannot be opened
+   */
+  public NioEventLoopGroup(int size) throws IOException {
+    if (size <= 0) {
+      throw new IllegalArgumentException("Event loop group size must be positive");
+    }
+    int groupId = GROUP_COUNTER.incrementAndGet();
+    this.loops = new NioEventLoop[size];
+    for (int i = 0; i < size; i++) {
+      loops[i] = new NioEventLoop("nio-" + groupId + "-" + i);
+    }
+  }
+
+  /**
+   * Returns the process-wide group, sized to half the available processors.
+   *
+   * @return the shared group
+   */
+  public static NioEventLoopGroup shared() {
+    NioEventLoopGroup group = shared;
+    if (group == null) {
+      synchronized (NioEventLoopGroup.class) {
+        group = shared;
+        if (group == null) {
+          try {
+            group = new NioEventLoopGroup(
+                Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+          } catch (IOException e) {
+            throw new UncheckedIOException("Could not open shared event loops", e);
+          }
+          shared = group;
+        }
+      }
+    }
+    return group;
+  }
+
+  /**
+   * Picks the next loop round-robin.
+   *
+   * @return an event loop
+   */
+  public NioEventLoop next() {
+    return loops[Math.floorMod(next.getAndIncrement(), loops.length)];
+  }
+
+  /**
+   * Stops all loops in the group.
+   */
+  public void shutdown() {
+    for (NioEventLoop loop : loops) {
+      loop.shutdown();
+    }
+  }
+}
@@ -0,0 +1,223 @@
+package group6.net.server;
+
+import group6.net.OverloadPolicy;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Frames waiting to be written to one control panel, with byte watermarks.
+ *
+ * <p>Any thread may offer frames; one writer takes them. When the queued
+ * bytes pass the high watermark the queue is overloaded until the writer has
+ * brought them back to the low watermark. While overloaded, sensor deltas are
+ * handled by the {@link OverloadPolicy}; other frames are queued up to a hard
+ * limit of {@link #HARD_LIMIT_FACTOR} times the high watermark. A frame that
+ * would pass it is refused with {@link Result#DISCONNECT} whatever the
+ * policy, so a control panel that stops reading cannot grow the queue
+ * without bound.
+ */
+final class OutboundQueue {
+
+  /** Hard limit on queued bytes, as a multiple of the high watermark. */
+  static final int HARD_LIMIT_FACTOR = 4;
+
+  /**
+   * Outcome of offering a frame.
+   */
+  enum Result {
+    QUEUED,
+    DROPPED,
+    DISCONNECT
+  }
+
+  private final BlockingQueue<Frame> frames = new LinkedBlockingQueue<>();
+  private final AtomicLong queuedBytes = new AtomicLong();
+  private final AtomicLong peakBytes = new AtomicLong();
+  private final AtomicLong droppedFrames = new AtomicLong();
+  private final AtomicLong overloads = new AtomicLong();
+  private final Object stateLock = new Object();
+  private volatile boolean overloaded;
+  private boolean resyncNeeded; // guarded by stateLock
+
+  /**
+   * Queues a frame, applying the overload policy.
+   *
+   * @param payload       the frame payload
+   * @param delta         whether the frame is a sensor delta that may be
+   *                      dropped
+   * @param highWatermark bytes above which the queue is overloaded
+   * @param policy        what to do when overloaded
+   * @return whether the frame was queued, dropped, or the session should be
+   *         closed; a frame past the hard limit is not queued
+   */
+  Result offer(byte[] payload, boolean delta, long highWatermark, OverloadPolicy policy) {
+    if (delta && overloaded) {
+      droppedFrames.incrementAndGet();
+      return Result.DROPPED;
+    }
+    long queued = queuedBytes.get();
+    if (queued > 0 && queued + payload.length > hardLimit(highWatermark)) {
+      return Result.DISCONNECT;
+    }
+    frames.add(new Frame(payload, delta));
+    long bytes = queuedBytes.addAndGet(payload.length);
+    peakBytes.accumulateAndGet(bytes, Math::max);
+    if (bytes <= highWatermark) {
+      return Result.QUEUED;
+    }
+    synchronized (stateLock) {
+      if (overloaded) {
+        return Result.QUEUED;
+      }
+      overloaded = true;
+      overloads.incrementAndGet();
+      if (policy == OverloadPolicy.DISCONNECT) {
+        return Result.DISCONNECT;
+      }
+      dropQueuedDeltas();
+      resyncNeeded = policy == OverloadPolicy.COALESCE;
+    }
+    return Result.QUEUED;
+  }
+
+  /**
+   * Takes the next frame without waiting.
+   *
+   * @return the payload, or null if the queue is empty
+   */
+  byte[] poll() {
+    Frame frame;
+    while ((frame = frames.poll()) != null) {
+      if (frame.claim()) {
+        queuedBytes.addAndGet(-frame.payload.length);
+        return frame.payload;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Takes the next frame, waiting up to the given time for one.
+   *
+   * @param timeoutMs maximum time to wait in milliseconds
+   * @return the payload, or null if none arrived in time
+   * @throws InterruptedException if interrupted while waiting
+   */
+  byte[] poll(long timeoutMs) throws InterruptedException {
+    Frame frame = frames.poll(timeoutMs, TimeUnit.MILLISECONDS);
+    if (frame != null && frame.claim()) {
+      queuedBytes.addAndGet(-frame.payload.length);
+      return frame.payload;
+    }
+    return frame == null ? null : poll();
+  }
+
+  /**
+   * Ends an overload once the queue has drained to the low watermark.
+   *
+   * @param lowWatermark bytes at which an overload ends
+   * @return true if the overload just ended and the control panel needs a
+   *         full sensor snapshot
+   */
+  boolean checkRecovered(long lowWatermark) {
+    if (!overloaded || queuedBytes.get() > lowWatermark) {
+      return false;
+    }
+    synchronized (stateLock) {
+      if (!overloaded || queuedBytes.get() > lowWatermark) {
+        return false;
+      }
+      overloaded = false;
+      boolean resync = resyncNeeded;
+      resyncNeeded = false;
+      return resync;
+    }
+  }
+
+  /**
+   * Drops every queued frame.
+   */
+  void clear() {
+    while (poll() != null) {
+      // discard
+    }
+  }
+
+  boolean isEmpty() {
+    return frames.isEmpty();
+  }
+
+  long getQueuedBytes() {
+    return queuedBytes.get();
+  }
+
+  int getQueuedFrames() {
+    return frames.size();
+  }
+
+  long getPeakBytes() {
+    return peakBytes.get();
+  }
+
+  long getDroppedFrames() {
+    return droppedFrames.get();
+  }
+
+  long getOverloads() {
+    return overloads.get();
+  }
+
+  boolean isOverloaded() {
+    return overloaded;
+  }
+
+  private static long hardLimit(long highWatermark) {
+    return highWatermark > Long.MAX_VALUE / HARD_LIMIT_FACTOR
+        ? Long.MAX_VALUE : highWatermark * HARD_LIMIT_FACTOR;
+  }
+
+  /**
+   * Marks the sensor deltas still waiting as dropped; they are stale by now
+   * and the writer skips them. Caller holds the state lock.
+   */
+  private void dropQueuedDeltas() {
+    for (Frame frame : frames) {
+      if (frame.delta && frame.claim()) {
+        queuedBytes.addAndGet(-frame.payload.length);
+        droppedFrames.incrementAndGet();
+      }
+    }
+  }
+
+  /**
+   * One queued frame. Claimed exactly once, by the writer or by a drop.
+   */
+  private static final class Frame {
+    private static final VarHandle CLAIMED;
+
+    static {
+      try {
+        CLAIMED = MethodHandles.lookup().findVarHandle(Frame.class, "claimed", boolean.class);
+      } catch (ReflectiveOperationException e) {
+        throw new ExceptionInInitializerError(e);
+      }
+    }
+
+    final byte[] payload;
+    final boolean delta;
+    private volatile boolean claimed;
+
+    Frame(byte[] payload, boolean delta) {
+      this.payload = payload;
+      this.delta = delta;
+    }
+
+    boolean claim() {
+      return CLAIMED.compareAndSet(this, false, true);
+    }
+  }
+}
@@ -0,0 +1,119 @@
+package group6.protocol;
+
+import static group6.protocol.BinaryDataFormat.FLAG_ACTUATOR;
+import static group6.protocol.BinaryDataFormat.FLAG_INDEXED;
+import static group6.protocol.BinaryDataFormat.FLAG_TIMESTAMP;
+import static group6.protocol.BinaryDataFormat.HEADER_BYTES;
+import static group6.protocol.BinaryDataFormat.MAGIC;
+import static group6.protocol.BinaryDataFormat.VERSION;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads binary DATA frames (see {@link BinaryDataFormat} for the layout).
+ * 
+ * <p>Records are handed to a {@link DataVisitor} as they are read. Device IDs
+ * are decoded into a buffer owned by the decoder, so ASCII IDs cost no
+ * allocation; the visitor must copy an ID if it keeps it. Not thread-safe,
+ * use one decoder per connection.
+ */
+public class BinaryDataDecoder {
+
+  private final StringBuilder idBuffer = new StringBuilder(32);
+
+  /**
+   * Checks whether a frame uses the binary DATA encoding.
+   * 
+   * @param frame the payload bytes, between position and limit
+   * @return true if the frame starts with the binary magic byte
+   */
+  public static boolean isBinaryFrame(ByteBuffer frame) {
+    return frame != null && frame.hasRemaining() && frame.get(frame.position()) == MAGIC;
+  }
+
+  /**
+   * Decodes a binary DATA frame. The buffer's position is left unchanged.
+   * 
+   * @param frame   the payload bytes, between position and limit
+   * @param visitor receives every record in order
+   * @return the number of records in the frame
+   * @throws IllegalArgumentException if the frame is malformed
+   */
+  public int decode(ByteBuffer frame, DataVisitor visitor) {
+    if (!isBinaryFrame(frame)) {
+      throw new IllegalArgumentException("Not a binary DATA frame");
+    }
+    int pos = frame.position();
+    int end = frame.limit();
+    if (end - pos < HEADER_BYTES) {
+      throw new IllegalArgumentException("Truncated binary frame header");
+    }
+    if (frame.get(pos + 1) != VERSION) {
+      throw new IllegalArgumentException("Unsupported binary frame version: "
+          + frame.get(pos + 1));
+    }
+    int count = frame.getShort(pos + 2) & 0xFFFF;
+    pos += HEADER_BYTES;
+
+    for (int i = 0; i < count; i++) {
+      require(pos, 1, end);
+      int flags = frame.get(pos++) & 0xFF;
+      boolean actuator = (flags & FLAG_ACTUATOR) != 0;
+      boolean hasTimestamp = (flags & FLAG_TIMESTAMP) != 0;
+      int valueBytes = actuator ? 1 : Double.BYTES;
+      int tailBytes = valueBytes + (hasTimestamp ? Long.BYTES : 0);
+
+      if ((flags & FLAG_INDEXED) != 0) {
+        require(pos, Short.BYTES + tailBytes, end);
+        int index = frame.getShort(pos) & 0xFFFF;
+        pos += Short.BYTES;
+        long timestamp = hasTimestamp ? frame.getLong(pos + valueBytes) : 0L;
+        if (actuator) {
+          visitor.onIndexedActuatorState(index, frame.get(pos) != 0, timestamp);
+        } else {
+          visitor.onIndexedReading(index, frame.getDouble(pos), timestamp);
+        }
+        pos += tailBytes;
+        continue;
+      }
+
+      require(pos, 2, end);
+      int typeOrdinal = frame.get(pos) & 0xFF;
+      int idLength = frame.get(pos + 1) & 0xFF;
+      pos += 2;
+      require(pos, idLength + tailBytes, end);
+
+      CharSequence deviceId = readId(frame, pos, idLength);
+      pos += idLength;
+      long timestamp = hasTimestamp ? frame.getLong(pos + valueBytes) : 0L;
+      if (actuator) {
+        visitor.onActuatorState(typeOrdinal, deviceId, frame.get(pos) != 0, timestamp);
+      } else {
+        visitor.onReading(typeOrdinal, deviceId, frame.getDouble(pos), timestamp);
+      }
+      pos += tailBytes;
+    }
+    return count;
+  }
+
+  private CharSequence readId(ByteBuffer frame, int from, int length) {
+    idBuffer.setLength(0);
+    for (int i = 0; i < length; i++) {
+      byte b = frame.get(from + i);
+      if (b < 0) {
+        byte[] bytes = new byte[length];
+        frame.get(from, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+      }
+      idBuffer.append((char) b);
+    }
+    return idBuffer;
+  }
+
+  private static void require(int pos, int bytes, int end) {
+    if (end - pos < bytes) {
+      throw new IllegalArgumentException("Truncated binary frame at byte " + pos);
+    }
+  }
+}
@@ -0,0 +1,36 @@
+package group6.protocol;
+
+/**
+ * Layout of binary DATA frames.
+ * 
+ * <p>All numbers are big-endian:
+ * <pre>
+ * frame  = magic:u8 (0xB1) version:u8 count:u16 record*
+ * record = flags:u8 device value [timestamp:i64]
+ * device = type:u8 idLength:u8 id:byte[idLength], or index:u16 if indexed
+ * value  = f64 for sensor readings, u8 (0 or 1) for actuator states
+ * </pre>
+ * Indexed records refer to an entry of the session's
+ * {@link DeviceDictionary}.
+ * The magic byte can never start a text frame (it is not ASCII and not a
+ * valid first byte of UTF-8), so both encodings can share a connection.
+ */
+final class BinaryDataFormat {
+
+  static final byte MAGIC = (byte) 0xB1;
+  static final byte VERSION = 1;
+  static final int HEADER_BYTES = 4;
+  static final int MAX_RECORDS = 0xFFFF;
+  static final int MAX_ID_BYTES = 0xFF;
+  static final int MAX_TYPE_ORDINAL = 0xFF;
+
+  /** Record is an actuator state rather than a sensor reading. */
+  static final int FLAG_ACTUATOR = 0x01;
+  /** Record ends with a timestamp. */
+  static final int FLAG_TIMESTAMP = 0x02;
+  /** Record names its device by dictionary index instead of type and ID. */
+  static final int FLAG_INDEXED = 0x04;
+
+  private BinaryDataFormat() {
+  }
+}
@@ -0,0 +1,43 @@
+package group6.protocol;
+
+import java.util.Locale;
+
+/**
+ * Encoding used for DATA frames on a session.
+ * 
+ * <p>Negotiated in the HELLO/WELCOME handshake. Every other message type is
+ * always sent as text.
+ */
+public enum DataEncoding {
+  TEXT("text"),
+  BINARY("binary");
+
+  private final String handshakeValue;
+
+  DataEncoding(String handshakeValue) {
+    this.handshakeValue = handshakeValue;
+  }
+
+  public String getHandshakeValue() {
+    return handshakeValue;
+  }
+
+  /**
+   * Resolves an encoding from its handshake value.
+   * 
+   * @param value the handshake value, for example {@code binary}
+   * @return the matching encoding, or TEXT if unknown or null
+   */
+  public static DataEncoding fromHandshakeValue(String value) {
+    if (value == null) {
+      return TEXT;
+    }
+    String normalized = value.trim().toLowerCase(Locale.ROOT);
+    for (DataEncoding encoding : values()) {
+      if (encoding.handshakeValue.equals(normalized)) {
+        return encoding;
+      }
+    }
+    return TEXT;
+  }
+}
@@ -0,0 +1,59 @@
+package group6.protocol;
+
+/**
+ * Receives the records of a DATA payload one at a time.
+ * 
+ * <p>Used both to produce DATA payloads (a sensor node walks its devices into
+ * an encoder) and to consume them (a decoder walks a frame into a cache),
+ * so neither side needs an intermediate list of readings.
+ * 
+ * <p>Records that refer to devices by {@link DeviceDictionary} index arrive
+ * through the indexed callbacks; visitors that cannot resolve indices keep
+ * the default, which rejects them.
+ */
+public interface DataVisitor {
+
+  /**
+   * Called for a sensor reading.
+   * 
+   * @param typeOrdinal ordinal of the sensor type
+   * @param deviceId    the normalized device ID, only valid during the call
+   * @param value       the reading
+   * @param timestamp   epoch millis of the reading, or 0 if not known
+   */
+  void onReading(int typeOrdinal, CharSequence deviceId, double value, long timestamp);
+
+  /**
+   * Called for an actuator state.
+   * 
+   * @param typeOrdinal ordinal of the actuator type
+   * @param deviceId    the normalized device ID, only valid during the call
+   * @param on          true if the actuator is ON
+   * @param timestamp   epoch millis of the last change, or 0 if not known
+   */
+  void onActuatorState(int typeOrdinal, CharSequence deviceId, boolean on, long timestamp);
+
+  /**
+   * Called for a sensor reading that refers to its device by index.
+   * 
+   * @param index     the dictionary index of the sensor
+   * @param value     the reading
+   * @param timestamp epoch millis of the reading, or 0 if not known
+   * @throws IllegalArgumentException if this visitor has no dictionary
+   */
+  default void onIndexedReading(int index, double value, long timestamp) {
+    throw new IllegalArgumentException("Indexed reading without a device dictionary");
+  }
+
+  /**
+   * Called for an actuator state that refers to its device by index.
+   * 
+   * @param index     the dictionary index of the actuator
+   * @param on        true if the actuator is ON
+   * @param timestamp epoch millis of the last change, or 0 if not known
+   * @throws IllegalArgumentException if this visitor has no dictionary
+   */
+  default void onIndexedActuatorState(int index, boolean on, long timestamp) {
+    throw new IllegalArgumentException("Indexed actuator state without a device dictionary");
+  }
+}
@@ -0,0 +1,165 @@
+package group6.protocol;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-session table mapping small integer indices to {@link DeviceKey}s.
+ * 
+ * <p>When negotiated in the handshake, the sensor node assigns every device an
+ * index, sends the table in DICT messages and then refers to devices as
+ * {@code @index} (text) or by index (binary) in DATA messages. The control
+ * panel keeps the same table to resolve indices back to keys.
+ * 
+ * <p>Entries are formatted like other key-value lists:
+ * {@code index:type#id,index:type#id}. Thread-safe.
+ */
+public final class DeviceDictionary {
+
+  /** Largest index that fits the binary record format. */
+  public static final int MAX_INDEX = 0xFFFF;
+
+  private final List<DeviceKey> keys = new ArrayList<>();
+  private final List<String> protocolKeys = new ArrayList<>();
+  private final Map<DeviceKey, Integer> indices = new HashMap<>();
+
+  /**
+   * Returns the index of a key, assigning the next free index if it is new.
+   * 
+   * @param key the device key
+   * @return the index of the key
+   * @throws IllegalStateException if the dictionary is full
+   */
+  public synchronized int add(DeviceKey key) {
+    int index = tryAdd(key);
+    if (index < 0) {
+      throw new IllegalStateException("Device dictionary is full");
+    }
+    return index;
+  }
+
+  /**
+   * Returns the index of a key, assigning the next free index if it is new
+   * and there is one left.
+   * 
+   * @param key the device key
+   * @return the index of the key, or -1 if it is new and the dictionary is
+   *         full
+   */
+  public synchronized int tryAdd(DeviceKey key) {
+    Integer index = indices.get(key);
+    if (index != null) {
+      return index;
+    }
+    if (keys.size() > MAX_INDEX) {
+      return -1;
+    }
+    put(keys.size(), key);
+    return keys.size() - 1;
+  }
+
+  /**
+   * Stores a key at the given index, replacing any previous entry.
+   * 
+   * @param index the index
+   * @param key   the device key
+   */
+  public synchronized void put(int index, DeviceKey key) {
+    if (index < 0 || index > MAX_INDEX) {
+      throw new IllegalArgumentException("Dictionary index out of range: " + index);
+    }
+    if (key == null) {
+      throw new IllegalArgumentException("Key cannot be null");
+    }
+    while (keys.size() <= index) {
+      keys.add(null);
+      protocolKeys.add(null);
+    }
+    DeviceKey previous = keys.set(index, key);
+    if (previous != null) {
+      indices.remove(previous);
+    }
+    protocolKeys.set(index, key.toProtocolKey());
+    indices.put(key, index);
+  }
+
+  /**
+   * Gets the key stored at an index.
+   * 
+   * @param index the index
+   * @return the device key, or null if unknown
+   */
+  public synchronized DeviceKey get(int index) {
+    return index >= 0 && index < keys.size() ? keys.get(index) : null;
+  }
+
+  /**
+   * Gets the protocol key ({@code type#id}) stored at an index.
+   * 
+   * @param index the index
+   * @return the protocol key, or null if unknown
+   */
+  public synchronized String getProtocolKey(int index) {
+    return index >= 0 && index < protocolKeys.size() ? protocolKeys.get(index) : null;
+  }
+
+  /**
+   * Returns the number of slots in the table.
+   * 
+   * @return one past the highest index in use
+   */
+  public synchronized int size() {
+    return keys.size();
+  }
+
+  /**
+   * Formats the entries from an index onwards for a DICT message.
+   * 
+   * @param fromIndex first index to include
+   * @return the formatted entries, empty if there are none
+   */
+  public synchronized String toProtocolString(int fromIndex) {
+    StringBuilder data = new StringBuilder();
+    for (int i = Math.max(0, fromIndex); i < keys.size(); i++) {
+      if (keys.get(i) == null) {
+        continue;
+      }
+      if (data.length() > 0) {
+        data.append(",");
+      }
+      data.append(i).append(":").append(protocolKeys.get(i));
+    }
+    return data.toString();
+  }
+
+  /**
+   * Applies the entries of a DICT message.
+   * 
+   * @param data the formatted entries
+   * @return the number of entries applied
+   * @throws IllegalArgumentException if an entry is malformed
+   */
+  public synchronized int apply(String data) {
+    if (data == null || data.isBlank()) {
+      return 0;
+    }
+    int applied = 0;
+    for (String entry : data.split(",")) {
+      int colon = entry.indexOf(':');
+      if (colon <= 0) {
+        throw new IllegalArgumentException("Invalid dictionary entry: " + entry);
+      }
+      int index;
+      try {
+        index = Integer.parseInt(entry.substring(0, colon).trim());
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("Invalid dictionary index: " + entry);
+      }
+      put(index, DeviceKey.parse(entry.substring(colon + 1)));
+      applied++;
+    }
+    return applied;
+  }
+}
@@ -0,0 +1,128 @@
+package group6.protocol;
+
+/**
+ * Cache of protocol keys for one device type.
+ * 
+ * <p>Maps a device ID, given as any {@link CharSequence}, to its key
+ * ({@code type#id}, as {@link DeviceKey#toProtocolKey()}) without allocating
+ * once the ID has been seen. Parsers hand over IDs in a reused buffer, so the
+ * lookup compares characters instead of building a string first.
+ * 
+ * <p>Open addressing with linear probing. A node may report thousands of
+ * devices, and IDs that are gone are never reported as such, so the table is
+ * bounded instead: once it holds {@code maxEntries} IDs it is emptied and
+ * refilled from the IDs that keep arriving. Keys handed out before that stay
+ * valid, only the next lookup of each ID allocates again. Not thread-safe.
+ */
+public final class DeviceKeyInterner {
+
+  /** Default bound on cached IDs, the same as the device dictionary's. */
+  public static final int DEFAULT_MAX_ENTRIES = 65_536;
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  private final String typeName;
+  private final int maxEntries;
+  private String[] ids = new String[INITIAL_CAPACITY];
+  private String[] keys = new String[INITIAL_CAPACITY];
+  private int size;
+
+  /**
+   * Creates an interner for the given device type.
+   * 
+   * @param typeName the device type name
+   */
+  public DeviceKeyInterner(String typeName) {
+    this(typeName, DEFAULT_MAX_ENTRIES);
+  }
+
+  /**
+   * Creates an interner for the given device type that caches at most
+   * {@code maxEntries} IDs.
+   * 
+   * @param typeName   the device type name
+   * @param maxEntries the number of IDs after which the cache is emptied
+   * @throws IllegalArgumentException if maxEntries is not positive
+   */
+  public DeviceKeyInterner(String typeName, int maxEntries) {
+    if (maxEntries <= 0) {
+      throw new IllegalArgumentException("maxEntries must be positive");
+    }
+    this.typeName = DeviceKey.of(typeName, "").getType();
+    this.maxEntries = maxEntries;
+  }
+
+  /**
+   * Returns the protocol key for a device ID.
+   * 
+   * @param deviceId the device ID, empty for a key without ID
+   * @return the cached protocol key
+   */
+  public String intern(CharSequence deviceId) {
+    int mask = ids.length - 1;
+    int slot = hash(deviceId) & mask;
+    String id;
+    while ((id = ids[slot]) != null) {
+      if (id.contentEquals(deviceId)) {
+        return keys[slot];
+      }
+      slot = (slot + 1) & mask;
+    }
+    id = deviceId.toString();
+    String key = DeviceKey.of(typeName, id).toProtocolKey();
+    if (size >= maxEntries) {
+      clear();
+      slot = hash(id) & (ids.length - 1);
+    }
+    ids[slot] = id;
+    keys[slot] = key;
+    if (++size * 2 > ids.length) {
+      grow();
+    }
+    return key;
+  }
+
+  /**
+   * Returns the number of cached IDs.
+   * 
+   * @return the number of cached IDs
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Empties the cache.
+   */
+  public void clear() {
+    ids = new String[INITIAL_CAPACITY];
+    keys = new String[INITIAL_CAPACITY];
+    size = 0;
+  }
+
+  private void grow() {
+    String[] oldIds = ids;
+    String[] oldKeys = keys;
+    ids = new String[oldIds.length * 2];
+    keys = new String[oldKeys.length * 2];
+    int mask = ids.length - 1;
+    for (int i = 0; i < oldIds.length; i++) {
+      if (oldIds[i] != null) {
+        int slot = hash(oldIds[i]) & mask;
+        while (ids[slot] != null) {
+          slot = (slot + 1) & mask;
+        }
+        ids[slot] = oldIds[i];
+        keys[slot] = oldKeys[i];
+      }
+    }
+  }
+
+  private static int hash(CharSequence text) {
+    int h = 0;
+    for (int i = 0, n = text.length(); i < n; i++) {
+      h = 31 * h + text.charAt(i);
+    }
+    return h ^ (h >>> 16);
+  }
+}
@@ -0,0 +1,245 @@
+package group6.protocol;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parses decimal numbers without creating intermediate strings.
+ * 
+ * <p>Results are identical to {@link Double#parseDouble(String)}. Short
+ * values (up to 15-16 digits, small exponents) are converted with one exact
+ * multiplication or division. Longer values, such as the 17 digits written by
+ * {@link Double#toString(double)}, use the Eisel-Lemire algorithm with a table
+ * of 128-bit powers of five. The rare remaining cases (more than 19 significant
+ * digits, subnormal results, NaN, Infinity) fall back to
+ * {@link Double#parseDouble(String)}.
+ */
+public final class FastDoubleParser {
+
+  private static final int MAX_DIGITS = 19; // fits an unsigned long
+  private static final int SMALLEST_POWER = -342;
+  private static final int LARGEST_POWER = 308;
+  private static final double[] EXACT_POWERS = {
+      1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+      1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+  /** High and low 64 bits of 5^q, normalized, for q in [-342, 308]. */
+  private static final long[] POWERS_OF_FIVE = powersOfFive();
+
+  private FastDoubleParser() {
+  }
+
+  /**
+   * Parses the characters between {@code from} and {@code to}.
+   * 
+   * @param text the text
+   * @param from first index, inclusive
+   * @param to   last index, exclusive
+   * @return the parsed value
+   * @throws NumberFormatException if the text is not a number
+   */
+  public static double parse(CharSequence text, int from, int to) {
+    double value = parseFast(text::charAt, from, to);
+    if (Double.isNaN(value)) {
+      return Double.parseDouble(text.subSequence(from, to).toString());
+    }
+    return value;
+  }
+
+  /**
+   * Parses ASCII bytes between {@code from} and {@code to}, absolute indices.
+   * The buffer's position is not changed.
+   * 
+   * @param buf  the buffer
+   * @param from first index, inclusive
+   * @param to   last index, exclusive
+   * @return the parsed value
+   * @throws NumberFormatException if the bytes are not a number
+   */
+  public static double parse(ByteBuffer buf, int from, int to) {
+    double value = parseFast(buf::get, from, to);
+    if (Double.isNaN(value)) {
+      return Double.parseDouble(decode(buf, from, to));
+    }
+    return value;
+  }
+
+  // ------- Scanning -------
+
+  /**
+   * Characters of the input by absolute index, so one scanner serves both
+   * strings and byte buffers.
+   */
+  @FunctionalInterface
+  private interface CharSource {
+    int charAt(int index);
+  }
+
+  /**
+   * Scans a number and converts it on the fast path.
+   * 
+   * @param src  the characters
+   * @param from first index, inclusive
+   * @param to   last index, exclusive
+   * @return the value, or NaN if the input is invalid or needs the slow path
+   */
+  private static double parseFast(CharSource src, int from, int to) {
+    int i = from;
+    boolean negative = false;
+    if (i < to && (src.charAt(i) == '-' || src.charAt(i) == '+')) {
+      negative = src.charAt(i) == '-';
+      i++;
+    }
+    long mantissa = 0;
+    int digits = 0;
+    int exponent = 0;
+    boolean anyDigit = false;
+    boolean truncated = false;
+    int c;
+    for (; i < to && isDigit(c = src.charAt(i)); i++) {
+      anyDigit = true;
+      if (digits < MAX_DIGITS) {
+        mantissa = mantissa * 10 + (c - '0');
+        digits += mantissa == 0 ? 0 : 1;
+      } else {
+        exponent++;
+        truncated |= c != '0';
+      }
+    }
+    if (i < to && src.charAt(i) == '.') {
+      for (i++; i < to && isDigit(c = src.charAt(i)); i++) {
+        anyDigit = true;
+        if (digits < MAX_DIGITS) {
+          mantissa = mantissa * 10 + (c - '0');
+          digits += mantissa == 0 ? 0 : 1;
+          exponent--;
+        } else {
+          truncated |= c != '0';
+        }
+      }
+    }
+    if (anyDigit && i < to && (src.charAt(i) == 'e' || src.charAt(i) == 'E')) {
+      i++;
+      boolean negativeExp = false;
+      if (i < to && (src.charAt(i) == '-' || src.charAt(i) == '+')) {
+        negativeExp = src.charAt(i) == '-';
+        i++;
+      }
+      int start = i;
+      int exp = 0;
+      for (; i < to && isDigit(c = src.charAt(i)); i++) {
+        exp = Math.min(exp * 10 + (c - '0'), 100000);
+      }
+      if (i == start) {
+        anyDigit = false; // "1e" is not a number
+      }
+      exponent += negativeExp ? -exp : exp;
+    }
+    if (!anyDigit || i != to || truncated) {
+      return Double.NaN;
+    }
+    double value = toDouble(mantissa, exponent);
+    return negative ? -value : value;
+  }
+
+  // ------- Conversion -------
+
+  /**
+   * Converts mantissa * 10^exponent to the nearest double.
+   * 
+   * @param mantissa  unsigned decimal mantissa, at most 19 digits
+   * @param exponent  decimal exponent
+   * @return the value, or NaN if the slow path is needed
+   */
+  private static double toDouble(long mantissa, int exponent) {
+    if (mantissa == 0 || exponent < SMALLEST_POWER) {
+      return 0.0;
+    }
+    if (exponent > LARGEST_POWER) {
+      return Double.POSITIVE_INFINITY;
+    }
+    // Clinger: both operands exact, so one rounding gives the right answer
+    if (exponent >= -22 && exponent <= 22 && Long.compareUnsigned(mantissa, 1L << 53) <= 0) {
+      double value = mantissa;
+      return exponent < 0 ? value / EXACT_POWERS[-exponent] : value * EXACT_POWERS[exponent];
+    }
+    return eiselLemire(mantissa, exponent);
+  }
+
+  private static double eiselLemire(long w, int q) {
+    int lz = Long.numberOfLeadingZeros(w);
+    w <<= lz;
+    int index = 2 * (q - SMALLEST_POWER);
+    long high = Math.unsignedMultiplyHigh(w, POWERS_OF_FIVE[index]);
+    long low = w * POWERS_OF_FIVE[index];
+    if ((high & 0x1FF) == 0x1FF) { // not enough precision yet, use the low half too
+      long secondHigh = Math.unsignedMultiplyHigh(w, POWERS_OF_FIVE[index + 1]);
+      long newLow = low + secondHigh;
+      if (Long.compareUnsigned(secondHigh, newLow) > 0) {
+        high++;
+      }
+      low = newLow;
+    }
+
+    int upperBit = (int) (high >>> 63);
+    int shift = upperBit + 9;
+    long mantissa = high >>> shift;
+    int power2 = (((152170 + 65536) * q) >> 16) + 63 + upperBit - lz + 1023;
+    if (power2 <= 0) {
+      return Double.NaN; // subnormal, leave to the slow path
+    }
+    if (Long.compareUnsigned(low, 1) <= 0 && q >= -4 && q <= 23 && (mantissa & 3) == 1
+        && (mantissa << shift) == high) {
+      mantissa &= ~1L; // exactly halfway, round to even
+    }
+    mantissa += mantissa & 1;
+    mantissa >>>= 1;
+    if (mantissa >= (2L << 52)) {
+      mantissa = 1L << 52;
+      power2++;
+    }
+    mantissa &= ~(1L << 52);
+    if (power2 >= 0x7FF) {
+      return Double.POSITIVE_INFINITY;
+    }
+    return Double.longBitsToDouble(mantissa | ((long) power2 << 52));
+  }
+
+  private static long[] powersOfFive() {
+    long[] table = new long[2 * (LARGEST_POWER - SMALLEST_POWER + 1)];
+    BigInteger two128 = BigInteger.ONE.shiftLeft(128);
+    BigInteger mask64 = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+    BigInteger five = BigInteger.valueOf(5);
+    for (int q = SMALLEST_POWER; q <= LARGEST_POWER; q++) {
+      BigInteger value;
+      if (q < 0) {
+        BigInteger power5 = five.pow(-q);
+        int z = power5.bitLength();
+        int b = q >= -27 ? z + 127 : 2 * z + 128;
+        value = BigInteger.ONE.shiftLeft(b).divide(power5).add(BigInteger.ONE);
+        while (value.compareTo(two128) >= 0) {
+          value = value.shiftRight(1);
+        }
+      } else {
+        value = five.pow(q);
+        int bits = value.bitLength();
+        value = bits < 128 ? value.shiftLeft(128 - bits) : value.shiftRight(bits - 128);
+      }
+      int index = 2 * (q - SMALLEST_POWER);
+      table[index] = value.shiftRight(64).longValue();
+      table[index + 1] = value.and(mask64).longValue();
+    }
+    return table;
+  }
+
+  private static boolean isDigit(int c) {
+    return c >= '0' && c <= '9';
+  }
+
+  private static String decode(ByteBuffer buf, int from, int to) {
+    byte[] bytes = new byte[to - from];
+    buf.get(from, bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
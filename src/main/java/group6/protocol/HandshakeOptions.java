@@ -0,0 +1,72 @@
+package group6.protocol;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Options carried in the data field of HELLO and WELCOME messages.
+ * 
+ * <p>Format is the same key-value list used elsewhere in the protocol:
+ * {@code key:value,key:value}. Unknown keys are ignored by the receiver, so
+ * older peers simply fall back to the defaults.
+ */
+public final class HandshakeOptions {
+
+  /** Requested (HELLO) or chosen (WELCOME) DATA encoding. */
+  public static final String ENCODING = "encoding";
+  /** Requested (HELLO) or accepted (WELCOME) device dictionary, value 1 or 0. */
+  public static final String DICTIONARY = "dict";
+  /**
+   * Sends KEEPALIVE when idle (HELLO), or will close a silent control panel
+   * (WELCOME), value 1 or 0.
+   */
+  public static final String KEEPALIVE = "keepalive";
+  /**
+   * Requested (HELLO) or accepted (WELCOME) sender timestamps on binary DATA
+   * records, value 1 or 0.
+   */
+  public static final String TIMESTAMPS = "ts";
+
+  private HandshakeOptions() {
+  }
+
+  /**
+   * Parses a handshake data field.
+   * 
+   * @param data the data field, may be null or empty
+   * @return the options with lower case keys, never null
+   */
+  public static Map<String, String> parse(String data) {
+    Map<String, String> options = new LinkedHashMap<>();
+    if (data == null || data.isBlank()) {
+      return options;
+    }
+    for (String pair : data.split(",")) {
+      int colon = pair.indexOf(':');
+      if (colon <= 0) {
+        continue;
+      }
+      String key = pair.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+      options.put(key, pair.substring(colon + 1).trim());
+    }
+    return options;
+  }
+
+  /**
+   * Formats options as a handshake data field.
+   * 
+   * @param options the options to format
+   * @return the formatted data field, empty if there are no options
+   */
+  public static String format(Map<String, String> options) {
+    StringBuilder data = new StringBuilder();
+    for (Map.Entry<String, String> option : options.entrySet()) {
+      if (data.length() > 0) {
+        data.append(",");
+      }
+      data.append(option.getKey()).append(":").append(option.getValue());
+    }
+    return data.toString();
+  }
+}
@@ -1,5 +1,7 @@
 package group6.protocol;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Objects;
 
 /**
@@ -9,6 +11,15 @@ import java.util.Objects;
 
 public class Message {
 
+  private static final MessageType[] TYPES = MessageType.values();
+  private static final byte[][] TYPE_NAMES = new byte[TYPES.length][];
+
+  static {
+    for (int i = 0; i < TYPES.length; i++) {
+      TYPE_NAMES[i] = TYPES[i].name().getBytes(StandardCharsets.US_ASCII);
+    }
+  }
+
   private final MessageType messageType;
   private final String nodeId;
   private final String data;
@@ -78,6 +89,128 @@ public class Message {
     return new Message(type, nodeId, data);
   }
 
+  /**
+   * Parses a UTF-8 encoded frame payload into a Message object.
+   * 
+   * <p>Same rules as {@link #fromProtocolString(String)}, but scans the bytes
+   * directly: no intermediate copy of the frame, no regex split and no array
+   * of parts. The buffer's position and limit are left unchanged.
+   *
+   * @param frame the payload bytes, between position and limit
+   * @return Message object, or null if parsing fails
+   */
+  public static Message fromProtocolBytes(ByteBuffer frame) {
+    return fromProtocolBytes(frame, null);
+  }
+
+  /**
+   * Parses a UTF-8 encoded frame payload, reusing a known node ID string.
+   * 
+   * <p>When the node ID in the frame equals {@code knownNodeId} the given
+   * instance is reused instead of decoding a new string, which is the common
+   * case for a client connected to a single node.
+   *
+   * @param frame       the payload bytes, between position and limit
+   * @param knownNodeId the expected node ID, may be null
+   * @return Message object, or null if parsing fails
+   */
+  public static Message fromProtocolBytes(ByteBuffer frame, String knownNodeId) {
+    if (frame == null) {
+      return null;
+    }
+    int end = frame.limit();
+    int firstBar = indexOf(frame, frame.position(), end, (byte) '|');
+    if (firstBar < 0) {
+      return null;
+    }
+
+    MessageType type = matchType(frame, trimStart(frame, frame.position(), firstBar),
+        trimEnd(frame, frame.position(), firstBar));
+    if (type == null) {
+      return null;
+    }
+
+    int secondBar = indexOf(frame, firstBar + 1, end, (byte) '|');
+    int nodeEnd = secondBar < 0 ? end : secondBar;
+    int idStart = trimStart(frame, firstBar + 1, nodeEnd);
+    int idEnd = trimEnd(frame, idStart, nodeEnd);
+    if (idStart >= idEnd) {
+      return null;
+    }
+
+    String nodeId = asciiEquals(frame, idStart, idEnd, knownNodeId)
+        ? knownNodeId : decode(frame, idStart, idEnd);
+    String data = secondBar < 0 ? "" : decode(frame, secondBar + 1, end);
+
+    return new Message(type, nodeId, data);
+  }
+
+  // ------- Byte helpers -------
+
+  private static int indexOf(ByteBuffer buf, int from, int to, byte value) {
+    for (int i = from; i < to; i++) {
+      if (buf.get(i) == value) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /** Skips leading bytes that {@link String#trim()} would remove. */
+  private static int trimStart(ByteBuffer buf, int from, int to) {
+    while (from < to && (buf.get(from) & 0xFF) <= ' ') {
+      from++;
+    }
+    return from;
+  }
+
+  /** Skips trailing bytes that {@link String#trim()} would remove. */
+  private static int trimEnd(ByteBuffer buf, int from, int to) {
+    while (to > from && (buf.get(to - 1) & 0xFF) <= ' ') {
+      to--;
+    }
+    return to;
+  }
+
+  private static MessageType matchType(ByteBuffer buf, int from, int to) {
+    for (int t = 0; t < TYPE_NAMES.length; t++) {
+      byte[] name = TYPE_NAMES[t];
+      if (name.length != to - from) {
+        continue;
+      }
+      int i = 0;
+      while (i < name.length && buf.get(from + i) == name[i]) {
+        i++;
+      }
+      if (i == name.length) {
+        return TYPES[t];
+      }
+    }
+    return null;
+  }
+
+  private static boolean asciiEquals(ByteBuffer buf, int from, int to, String text) {
+    if (text == null || text.length() != to - from) {
+      return false;
+    }
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (c >= 0x80 || buf.get(from + i) != (byte) c) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static String decode(ByteBuffer buf, int from, int to) {
+    if (buf.hasArray()) {
+      return new String(buf.array(), buf.arrayOffset() + from, to - from, StandardCharsets.UTF_8);
+    }
+    byte[] bytes = new byte[to - from];
+    buf.get(from, bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
   // Getters
   public MessageType getMessageType() {
     return messageType;
@@ -9,6 +9,7 @@ package group6.protocol;
  * KEEPALIVE messages ensure connection is alive.
  * ERROR indicates a protocol error.
  * HELLO and WELCOME are used during connection.
+ * DICT carries device dictionary entries when negotiated.
  */
 public enum MessageType {
   HELLO, // sent when a node connects
@@ -18,5 +19,6 @@ public enum MessageType {
   SUCCESS, // command executed successfully
   FAILURE, // command failed
   KEEPALIVE, // periodic pings during idle
-  ERROR // malformed message or protocol error
+  ERROR, // malformed message or protocol error
+  DICT // device index table, sensor -> control
 }
\ No newline at end of file
@@ -0,0 +1,282 @@
+package group6.protocol;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Cursor-based parser for text DATA payloads.
+ * 
+ * <p>Walks {@code key:value,key:value} entries straight from the frame bytes
+ * and reports each one to a {@link DataVisitor}: no split, no substrings and
+ * no boxed values. Keys are {@code type}, {@code type#id} or {@code @index}
+ * (device dictionary). Types are matched case-insensitively against the
+ * known type names and reported by ordinal; device IDs are handed over in a
+ * reused buffer. Values are parsed with {@link FastDoubleParser}.
+ * 
+ * <p>A {@code 0} or {@code 1} value on an actuator type is an actuator state,
+ * as is any {@code 0}/{@code 1} value on an indexed key. Entries that cannot
+ * be interpreted are skipped and counted. Not thread-safe, use one parser per
+ * connection.
+ */
+public class TextDataParser {
+
+  private static final byte[] DATA_PREFIX = "DATA".getBytes(StandardCharsets.US_ASCII);
+
+  private final byte[][] sensorTypeNames;
+  private final byte[][] actuatorTypeNames;
+  private final StringBuilder idBuffer = new StringBuilder(32);
+  private int skipped;
+
+  /**
+   * Creates a parser for the given type names.
+   * 
+   * @param sensorTypeNames   sensor type names, indexed by ordinal
+   * @param actuatorTypeNames actuator type names, indexed by ordinal
+   */
+  public TextDataParser(String[] sensorTypeNames, String[] actuatorTypeNames) {
+    this.sensorTypeNames = toAscii(sensorTypeNames);
+    this.actuatorTypeNames = toAscii(actuatorTypeNames);
+  }
+
+  /**
+   * Checks whether a frame is a text DATA message ({@code DATA|...}).
+   * 
+   * @param frame the payload bytes, between position and limit
+   * @return true if the frame's type field is DATA
+   */
+  public static boolean isDataFrame(ByteBuffer frame) {
+    if (frame == null) {
+      return false;
+    }
+    int end = frame.limit();
+    int i = skipSpace(frame, frame.position(), end);
+    for (byte b : DATA_PREFIX) {
+      if (i >= end || frame.get(i++) != b) {
+        return false;
+      }
+    }
+    i = skipSpace(frame, i, end);
+    return i < end && frame.get(i) == '|';
+  }
+
+  /**
+   * Parses the data field of a text DATA frame ({@code DATA|nodeId|data}).
+   * The buffer's position is left unchanged.
+   * 
+   * @param frame   the payload bytes, between position and limit
+   * @param visitor receives every entry in order
+   * @return the number of entries visited, 0 for a heartbeat
+   */
+  public int parseFrame(ByteBuffer frame, DataVisitor visitor) {
+    int end = frame.limit();
+    int firstBar = indexOf(frame, frame.position(), end, (byte) '|');
+    int secondBar = firstBar < 0 ? -1 : indexOf(frame, firstBar + 1, end, (byte) '|');
+    if (secondBar < 0) {
+      skipped = 0;
+      return 0;
+    }
+    return parse(frame, secondBar + 1, end, visitor);
+  }
+
+  /**
+   * Parses a data field given as text.
+   * 
+   * @param data    the data field ({@code key:value,...})
+   * @param visitor receives every entry in order
+   * @return the number of entries visited
+   */
+  public int parse(String data, DataVisitor visitor) {
+    byte[] bytes = data.getBytes(StandardCharsets.UTF_8);
+    return parse(ByteBuffer.wrap(bytes), 0, bytes.length, visitor);
+  }
+
+  /**
+   * Parses the data field between two absolute indices of a buffer.
+   * 
+   * @param buf     the buffer
+   * @param from    first index, inclusive
+   * @param to      last index, exclusive
+   * @param visitor receives every entry in order
+   * @return the number of entries visited
+   */
+  public int parse(ByteBuffer buf, int from, int to, DataVisitor visitor) {
+    skipped = 0;
+    int visited = 0;
+    int i = from;
+    while (i < to) {
+      int comma = indexOf(buf, i, to, (byte) ',');
+      int entryEnd = comma < 0 ? to : comma;
+      if (skipSpace(buf, i, entryEnd) < entryEnd) {
+        if (parseEntry(buf, i, entryEnd, visitor)) {
+          visited++;
+        } else {
+          skipped++;
+        }
+      }
+      i = entryEnd + 1;
+    }
+    return visited;
+  }
+
+  /**
+   * Returns how many entries the last parse call could not interpret.
+   * 
+   * @return the number of skipped entries
+   */
+  public int getSkippedCount() {
+    return skipped;
+  }
+
+  // ------- Entries -------
+
+  private boolean parseEntry(ByteBuffer buf, int from, int to, DataVisitor visitor) {
+    int colon = indexOf(buf, from, to, (byte) ':');
+    if (colon < 0 || indexOf(buf, colon + 1, to, (byte) ':') >= 0) {
+      return false;
+    }
+    int keyStart = skipSpace(buf, from, colon);
+    int keyEnd = trimEnd(buf, keyStart, colon);
+    int valueStart = skipSpace(buf, colon + 1, to);
+    int valueEnd = trimEnd(buf, valueStart, to);
+    if (keyStart == keyEnd || valueStart == valueEnd) {
+      return false;
+    }
+    int state = valueEnd - valueStart == 1 ? buf.get(valueStart) - '0' : -1;
+
+    if (buf.get(keyStart) == '@') {
+      int index = parseIndex(buf, keyStart + 1, keyEnd);
+      if (index < 0) {
+        return false;
+      }
+      if (state == 0 || state == 1) {
+        visitor.onIndexedActuatorState(index, state == 1, 0L);
+        return true;
+      }
+      return visitIndexedReading(buf, valueStart, valueEnd, index, visitor);
+    }
+
+    int hash = indexOf(buf, keyStart, keyEnd, (byte) '#');
+    int typeEnd = hash < 0 ? keyEnd : trimEnd(buf, keyStart, hash);
+    int idStart = hash < 0 ? keyEnd : skipSpace(buf, hash + 1, keyEnd);
+    if (state == 0 || state == 1) {
+      int actuatorType = matchType(actuatorTypeNames, buf, keyStart, typeEnd);
+      if (actuatorType >= 0) {
+        visitor.onActuatorState(actuatorType, readId(buf, idStart, keyEnd), state == 1, 0L);
+        return true;
+      }
+    }
+    int sensorType = matchType(sensorTypeNames, buf, keyStart, typeEnd);
+    if (sensorType < 0) {
+      return false;
+    }
+    return visitReading(buf, valueStart, valueEnd, sensorType, idStart, keyEnd, visitor);
+  }
+
+  private boolean visitIndexedReading(ByteBuffer buf, int valueStart, int valueEnd,
+      int index, DataVisitor visitor) {
+    double value;
+    try {
+      value = FastDoubleParser.parse(buf, valueStart, valueEnd);
+    } catch (NumberFormatException e) {
+      return false;
+    }
+    visitor.onIndexedReading(index, value, 0L);
+    return true;
+  }
+
+  private boolean visitReading(ByteBuffer buf, int valueStart, int valueEnd,
+      int typeOrdinal, int idStart, int idEnd, DataVisitor visitor) {
+    double value;
+    try {
+      value = FastDoubleParser.parse(buf, valueStart, valueEnd);
+    } catch (NumberFormatException e) {
+      return false;
+    }
+    visitor.onReading(typeOrdinal, readId(buf, idStart, idEnd), value, 0L);
+    return true;
+  }
+
+  // ------- Helpers -------
+
+  private CharSequence readId(ByteBuffer buf, int from, int to) {
+    idBuffer.setLength(0);
+    for (int i = from; i < to; i++) {
+      byte b = buf.get(i);
+      if (b < 0) {
+        byte[] bytes = new byte[to - from];
+        buf.get(from, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+      }
+      idBuffer.append((char) b);
+    }
+    return idBuffer;
+  }
+
+  private static int parseIndex(ByteBuffer buf, int from, int to) {
+    if (from == to || to - from > 5) {
+      return -1;
+    }
+    int index = 0;
+    for (int i = from; i < to; i++) {
+      int digit = buf.get(i) - '0';
+      if (digit < 0 || digit > 9) {
+        return -1;
+      }
+      index = index * 10 + digit;
+    }
+    return index <= DeviceDictionary.MAX_INDEX ? index : -1;
+  }
+
+  private static int matchType(byte[][] names, ByteBuffer buf, int from, int to) {
+    for (int t = 0; t < names.length; t++) {
+      byte[] name = names[t];
+      if (name.length != to - from) {
+        continue;
+      }
+      int i = 0;
+      while (i < name.length && toLower(buf.get(from + i)) == name[i]) {
+        i++;
+      }
+      if (i == name.length) {
+        return t;
+      }
+    }
+    return -1;
+  }
+
+  private static byte toLower(byte b) {
+    return b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+  }
+
+  private static int indexOf(ByteBuffer buf, int from, int to, byte value) {
+    for (int i = from; i < to; i++) {
+      if (buf.get(i) == value) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static int skipSpace(ByteBuffer buf, int from, int to) {
+    while (from < to && (buf.get(from) & 0xFF) <= ' ') {
+      from++;
+    }
+    return from;
+  }
+
+  private static int trimEnd(ByteBuffer buf, int from, int to) {
+    while (to > from && (buf.get(to - 1) & 0xFF) <= ' ') {
+      to--;
+    }
+    return to;
+  }
+
+  private static byte[][] toAscii(String[] names) {
+    byte[][] ascii = new byte[names.length][];
+    for (int i = 0; i < names.length; i++) {
+      ascii[i] = names[i].toLowerCase(Locale.ROOT).getBytes(StandardCharsets.US_ASCII);
+    }
+    return ascii;
+  }
+}
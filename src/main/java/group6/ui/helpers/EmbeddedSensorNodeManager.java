@@ -11,7 +11,9 @@ import group6.entity.device.sensor.ThreadedSensorUpdateScheduler;
 import group6.entity.node.SensorNode;
 import group6.logic.factory.ActuatorFactory;
 import group6.logic.factory.SensorFactory;
+import group6.net.ServerMode;
 import group6.net.TcpServer;
+import group6.net.ThreadMode;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -122,6 +124,8 @@ public class EmbeddedSensorNodeManager {
   private final Map<String, EmbeddedNode> nodes;
   private final Map<String, SensorUpdateHandle> sensorUpdateHandles;
   private final SensorUpdateScheduler scheduler;
+  private final ServerMode serverMode;
+  private final ThreadMode threadMode;
   private final DeviceIdRegistry sensorIdRegistry;
   private final DeviceIdRegistry actuatorIdRegistry;
 
@@ -138,7 +142,31 @@ public class EmbeddedSensorNodeManager {
    * @param scheduler the scheduler to use
    */
   public EmbeddedSensorNodeManager(SensorUpdateScheduler scheduler) {
+    this(scheduler, ServerMode.BLOCKING);
+  }
+
+  /**
+   * Allows choosing how the embedded node servers serve control panels.
+   * 
+   * @param scheduler  the scheduler to use
+   * @param serverMode the server mode used for every node created by this manager
+   */
+  public EmbeddedSensorNodeManager(SensorUpdateScheduler scheduler, ServerMode serverMode) {
+    this(scheduler, serverMode, ThreadMode.PLATFORM);
+  }
+
+  /**
+   * Allows choosing the server mode and the kind of thread used by blocking servers.
+   * 
+   * @param scheduler  the scheduler to use
+   * @param serverMode the server mode used for every node created by this manager
+   * @param threadMode the thread kind for accept loops and client handlers
+   */
+  public EmbeddedSensorNodeManager(SensorUpdateScheduler scheduler, ServerMode serverMode,
+      ThreadMode threadMode) {
     this.scheduler = Objects.requireNonNull(scheduler, "scheduler");
+    this.serverMode = Objects.requireNonNull(serverMode, "serverMode");
+    this.threadMode = Objects.requireNonNull(threadMode, "threadMode");
     this.nodes = new ConcurrentHashMap<>();
     this.sensorUpdateHandles = new ConcurrentHashMap<>();
     this.sensorIdRegistry = new DeviceIdRegistry(GLOBAL_SENSOR_IDS, "Sensor");
@@ -169,16 +197,26 @@ public class EmbeddedSensorNodeManager {
     SensorNode sensorNode = new SensorNode(nodeId);
     sensorNode.setSensorNodeInterval(refreshIntervalMs > 0 ? refreshIntervalMs : 5000);
 
-    TcpServer server = new TcpServer(port, sensorNode);
-    Thread serverThread = new Thread(() -> {
-      try {
-        server.start();
-      } catch (IOException e) {
-        LOGGER.error("Sensor node {} server stopped with error", nodeId, e);
+    TcpServer server = new TcpServer(port, sensorNode, serverMode, threadMode);
+    Thread serverThread = null;
+    if (serverMode == ServerMode.NIO) {
+      server.start(); // binds and returns, sessions run on the shared event loops
+    } else {
+      Runnable acceptLoop = () -> {
+        try {
+          server.start();
+        } catch (IOException e) {
+          LOGGER.error("Sensor node {} server stopped with error", nodeId, e);
+        }
+      };
+      if (threadMode == ThreadMode.VIRTUAL) {
+        serverThread = threadMode.start("EmbeddedSensorServer-" + nodeId, acceptLoop);
+      } else {
+        serverThread = new Thread(acceptLoop, "EmbeddedSensorServer-" + nodeId);
+        serverThread.setDaemon(true);
+        serverThread.start();
       }
-    }, "EmbeddedSensorServer-" + nodeId);
-    serverThread.setDaemon(true);
-    serverThread.start();
+    }
 
     EmbeddedNode embeddedNode = new EmbeddedNode(nodeId, host, port,
         sensorNode.getSensorNodeInterval(), sensorNode, server, serverThread);
@@ -202,11 +240,13 @@ public class EmbeddedSensorNodeManager {
     GLOBAL_NODES.remove(nodeId);
     releaseDeviceIds(node);
     node.server.stop();
-    try {
-      node.serverThread.join(2000);
-    } catch (InterruptedException e) {
-      Thread.currentThread().interrupt();
-      LOGGER.warn("Interrupted while stopping node {}", nodeId, e);
+    if (node.serverThread != null) {
+      try {
+        node.serverThread.join(2000);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        LOGGER.warn("Interrupted while stopping node {}", nodeId, e);
+      }
     }
     LOGGER.info("Embedded sensor node {} stopped", nodeId);
   }
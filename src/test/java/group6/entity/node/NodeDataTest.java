@@ -0,0 +1,81 @@
+package group6.entity.node;
+
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the control panel's per-node cache.
+ *
+ *Tests verify:
+ *Actuator states and timestamps are kept per device
+ *The map views follow the cache and reject modification
+ *Removing a device removes its state and timestamp
+ */
+class NodeDataTest {
+
+  /**
+   * Tests for the read-only map views.
+   */
+  @Nested
+  @DisplayName("Map View Tests")
+  class MapViewTests {
+
+    /**
+     * Verifies the actuator view reflects updates made after it was taken.
+     */
+    @Test
+    @DisplayName("Views follow later updates")
+    void testViewIsLive() {
+      ControlPanel.NodeData data = new ControlPanel.NodeData("n1");
+      Map<String, Boolean> states = data.getActuatorStates();
+      assertTrue(states.isEmpty());
+
+      data.updateActuator("heater#h1", true);
+      data.updateActuator("fan#f1", false);
+      data.updateActuator("heater#h1", false);
+
+      assertEquals(2, states.size());
+      assertEquals(Boolean.FALSE, states.get("heater#h1"));
+      assertTrue(states.containsKey("fan#f1"));
+      assertNull(states.get("window#w1"));
+      assertEquals(Map.of("heater#h1", false, "fan#f1", false), Map.copyOf(states));
+      assertTrue(data.getActuatorUpdatedAt("heater#h1") > 0);
+    }
+
+    /**
+     * Verifies the views cannot be modified.
+     */
+    @Test
+    @DisplayName("Views are read-only")
+    void testViewIsReadOnly() {
+      ControlPanel.NodeData data = new ControlPanel.NodeData("n1");
+      data.updateActuator("heater#h1", true);
+
+      assertThrows(UnsupportedOperationException.class,
+          () -> data.getActuatorStates().put("fan#f1", true));
+      assertThrows(UnsupportedOperationException.class,
+          () -> data.getActuatorStates().keySet().remove("heater#h1"));
+      assertThrows(UnsupportedOperationException.class,
+          () -> data.getActuatorStates().remove("heater#h1"));
+    }
+
+    /**
+     * Verifies removing an actuator clears its state and timestamp.
+     */
+    @Test
+    @DisplayName("Removal clears state and timestamp")
+    void testRemove() {
+      ControlPanel.NodeData data = new ControlPanel.NodeData("n1");
+      data.updateActuator("heater#h1", true);
+      data.removeActuator("heater#h1");
+
+      assertFalse(data.getActuatorStates().containsKey("heater#h1"));
+      assertEquals(0L, data.getActuatorUpdatedAt("heater#h1"));
+      assertEquals(0L, data.getSensorUpdatedAt("temperature#t1"));
+    }
+  }
+}
@@ -1,10 +1,17 @@
 package group6.entity.node;
 
+import group6.entity.device.ActuatorType;
+import group6.entity.device.SensorType;
 import group6.entity.device.actuator.Actuator;
 import group6.entity.device.actuator.FanActuator;
 import group6.entity.device.actuator.HeaterActuator;
 import group6.entity.device.sensor.HumiditySensor;
 import group6.entity.device.sensor.TemperatureSensor;
+import group6.net.KeepAliveTimer;
+import group6.net.OverloadPolicy;
+import group6.protocol.DataVisitor;
+import java.util.ArrayList;
+import java.util.List;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -20,7 +27,7 @@ import static org.junit.jupiter.api.Assertions.*;
  *Device management (adding and removing sensors, actuators)
  *Protocol string generation for sensors and actuators
  *Search methods for finding actuators by type or device ID
- *Update interval configuration
+ *Update interval, outbound limit and keepalive configuration
  *Integration of actuator effects on sensors
  */
 class SensorNodeTest {
@@ -61,6 +68,45 @@ class SensorNodeTest {
 
       assertEquals(5000L, node.getSensorNodeInterval());
     }
+
+    /**
+     * Verifies outbound queue limit defaults and rejects invalid settings.
+     */
+    @Test
+    @DisplayName("Outbound limits defaults and validation")
+    void testOutboundLimits() {
+      SensorNode node = new SensorNode("node-01");
+
+      assertEquals(SensorNode.DEFAULT_OUTBOUND_LOW_WATERMARK, node.getOutboundLowWatermark());
+      assertEquals(SensorNode.DEFAULT_OUTBOUND_HIGH_WATERMARK, node.getOutboundHighWatermark());
+      assertEquals(OverloadPolicy.COALESCE, node.getOverloadPolicy());
+      node.setOutboundLimits(1024, 4096, OverloadPolicy.DISCONNECT);
+      assertEquals(1024L, node.getOutboundLowWatermark());
+      assertEquals(4096L, node.getOutboundHighWatermark());
+      assertEquals(OverloadPolicy.DISCONNECT, node.getOverloadPolicy());
+      assertThrows(IllegalArgumentException.class,
+          () -> node.setOutboundLimits(4096, 1024, OverloadPolicy.COALESCE));
+      assertThrows(IllegalArgumentException.class,
+          () -> node.setOutboundLimits(-1, 1024, OverloadPolicy.COALESCE));
+      assertThrows(IllegalArgumentException.class, () -> node.setOutboundLimits(0, 1024, null));
+    }
+
+    /**
+     * Verifies keepalive defaults and rejects invalid settings.
+     */
+    @Test
+    @DisplayName("Keepalive defaults and validation")
+    void testKeepAlive() {
+      SensorNode node = new SensorNode("node-01");
+
+      assertEquals(KeepAliveTimer.DEFAULT_IDLE_MS, node.getKeepAliveIdleMs());
+      assertEquals(KeepAliveTimer.DEFAULT_READ_TIMEOUT_MS, node.getReadTimeoutMs());
+      node.setKeepAlive(1000, 0);
+      assertEquals(1000L, node.getKeepAliveIdleMs());
+      assertEquals(0L, node.getReadTimeoutMs());
+      assertThrows(IllegalArgumentException.class, () -> node.setKeepAlive(0, 1000));
+      assertThrows(IllegalArgumentException.class, () -> node.setKeepAlive(1000, -1));
+    }
   }
 
   /**
@@ -384,6 +430,39 @@ class SensorNodeTest {
       assertTrue(snapshot.contains("fan#fan-01:0"));
       assertTrue(snapshot.contains(","));
     }
+
+    /**
+     * Verifies the structured snapshot carries the same devices as the text one.
+     */
+    @Test
+    @DisplayName("writeSensorSnapshot() and writeActuatorSnapshot() visit every device")
+    void testStructuredSnapshots() {
+      TemperatureSensor temp = new TemperatureSensor("Temp-01");
+      HeaterActuator heater = new HeaterActuator("heater-01");
+      node.addSensor(temp);
+      node.addActuator(heater);
+      heater.setState(true);
+
+      List<String> visited = new ArrayList<>();
+      DataVisitor visitor = new DataVisitor() {
+        @Override
+        public void onReading(int typeOrdinal, CharSequence deviceId, double value,
+            long timestamp) {
+          visited.add(SensorType.values()[typeOrdinal] + "#" + deviceId + ":" + value);
+        }
+
+        @Override
+        public void onActuatorState(int typeOrdinal, CharSequence deviceId, boolean on,
+            long timestamp) {
+          visited.add(ActuatorType.values()[typeOrdinal] + "#" + deviceId + ":" + on);
+        }
+      };
+      node.writeSensorSnapshot(visitor);
+      node.writeActuatorSnapshot(visitor);
+
+      assertEquals(List.of("TEMPERATURE#temp-01:" + temp.getCurrentValue(),
+          "HEATER#heater-01:true"), visited);
+    }
   }
 
   /**
@@ -617,4 +696,50 @@ class SensorNodeTest {
           "Temperature should be within acceptable drift when heater is OFF");
     }
   }
+
+  /**
+   * Tests for draining pending sensor updates.
+   */
+  @Nested
+  @DisplayName("Pending Updates")
+  class PendingUpdateTests {
+
+    /**
+     * Verifies a drain returns only the sensors that changed, once each, and
+     * clears them.
+     */
+    @Test
+    @DisplayName("drainPendingSensorUpdates() returns only changed sensors")
+    void testDrainOnlyChanged() {
+      SensorNode node = new SensorNode("node-01");
+      TemperatureSensor temp = new TemperatureSensor("Temp-01");
+      HumiditySensor humidity = new HumiditySensor("hum-01");
+      node.addSensor(temp);
+      node.addSensor(humidity);
+      node.drainPendingSensorUpdates();
+
+      temp.manualAdjust(0.1);
+      temp.manualAdjust(0.1);
+      String drained = node.drainPendingSensorUpdates();
+
+      assertTrue(drained.startsWith("temperature#temp-01:"), drained);
+      assertFalse(drained.contains(","), drained);
+      assertEquals("", node.drainPendingSensorUpdates());
+    }
+
+    /**
+     * Verifies a removed sensor is not drained.
+     */
+    @Test
+    @DisplayName("Removed sensors are not drained")
+    void testRemovedNotDrained() {
+      SensorNode node = new SensorNode("node-01");
+      TemperatureSensor temp = new TemperatureSensor("temp-01");
+      node.addSensor(temp);
+      temp.manualAdjust(0.1);
+      node.removeSensor(temp);
+
+      assertEquals("", node.drainPendingSensorUpdates());
+    }
+  }
 }
\ No newline at end of file
@@ -0,0 +1,100 @@
+package group6.logic;
+
+import group6.entity.device.actuator.Actuator;
+import group6.entity.device.actuator.FanActuator;
+import group6.entity.device.actuator.HeaterActuator;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for DeviceRegistry.
+ *
+ *Tests verify:
+ *Lookups by ID and type ignore case and find the first added device
+ *Removing a device moves the index to the next matching device
+ *Snapshots are shared, read-only and unaffected by later changes
+ */
+class DeviceRegistryTest {
+
+  /**
+   * Tests for the ID and type indexes.
+   */
+  @Nested
+  @DisplayName("Index Tests")
+  class IndexTests {
+
+    /**
+     * Verifies lookups ignore case and surrounding whitespace.
+     */
+    @Test
+    @DisplayName("Lookups ignore case")
+    void testLookupIgnoresCase() {
+      DeviceRegistry<Actuator> registry = new DeviceRegistry<>();
+      HeaterActuator heater = new HeaterActuator("Heater-01");
+      registry.add(heater);
+
+      assertSame(heater, registry.findById("heater-01"));
+      assertSame(heater, registry.findById(" HEATER-01 "));
+      assertSame(heater, registry.findByType("HEATER"));
+      assertNull(registry.findById("heater-02"));
+      assertNull(registry.findByType("fan"));
+      assertNull(registry.findById(null));
+      assertNull(registry.findByType(null));
+    }
+
+    /**
+     * Verifies the first device of a type is found until it is removed,
+     * then the next one.
+     */
+    @Test
+    @DisplayName("Removal moves the index to the next device")
+    void testRemoveReindexes() {
+      DeviceRegistry<Actuator> registry = new DeviceRegistry<>();
+      FanActuator first = new FanActuator("fan-01");
+      FanActuator second = new FanActuator("fan-02");
+      registry.add(first);
+      registry.add(second);
+
+      assertSame(first, registry.findByType("fan"));
+      assertTrue(registry.remove(first));
+      assertSame(second, registry.findByType("fan"));
+      assertNull(registry.findById("fan-01"));
+      assertFalse(registry.remove(first));
+      assertTrue(registry.remove(second));
+      assertNull(registry.findByType("fan"));
+    }
+  }
+
+  /**
+   * Tests for snapshots.
+   */
+  @Nested
+  @DisplayName("Snapshot Tests")
+  class SnapshotTests {
+
+    /**
+     * Verifies snapshots are not copied per call, cannot be modified, and
+     * keep their content when the registry changes.
+     */
+    @Test
+    @DisplayName("Snapshots are shared and immutable")
+    void testSnapshot() {
+      DeviceRegistry<Actuator> registry = new DeviceRegistry<>();
+      HeaterActuator heater = new HeaterActuator("heater-01");
+      registry.add(heater);
+
+      List<Actuator> snapshot = registry.snapshot();
+      assertSame(snapshot, registry.snapshot());
+      assertThrows(UnsupportedOperationException.class,
+          () -> snapshot.add(new FanActuator("fan-01")));
+
+      registry.add(new FanActuator("fan-01"));
+      assertEquals(List.of(heater), snapshot);
+      assertEquals(2, registry.snapshot().size());
+    }
+  }
+}
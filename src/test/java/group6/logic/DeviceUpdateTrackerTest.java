@@ -0,0 +1,80 @@
+package group6.logic;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for DeviceUpdateTracker.
+ *
+ *Tests verify:
+ *Each dirty sensor is polled once, in the order it became dirty
+ *An update after polling queues the sensor again
+ *Removed and consumed sensors are skipped
+ */
+class DeviceUpdateTrackerTest {
+
+  /**
+   * Tests for the dirty queue.
+   */
+  @Nested
+  @DisplayName("Dirty Queue Tests")
+  class DirtyQueueTests {
+
+    /**
+     * Verifies repeated updates queue a sensor once.
+     */
+    @Test
+    @DisplayName("Dirty sensors are polled once each")
+    void testPollOnce() {
+      DeviceUpdateTracker tracker = new DeviceUpdateTracker();
+      assertFalse(tracker.hasPendingSensors());
+      tracker.recordSensorUpdate("t1");
+      tracker.recordSensorUpdate("h1");
+      tracker.recordSensorUpdate("t1");
+      tracker.recordActuatorUpdate("heater");
+
+      assertTrue(tracker.hasPendingSensors());
+      assertEquals("t1", tracker.pollPendingSensor());
+      assertEquals("h1", tracker.pollPendingSensor());
+      assertNull(tracker.pollPendingSensor());
+      assertFalse(tracker.hasPendingSensors());
+      assertTrue(tracker.getTimestamp("heater") > 0);
+    }
+
+    /**
+     * Verifies an update after the sensor was polled queues it again.
+     */
+    @Test
+    @DisplayName("Update after poll queues again")
+    void testRequeue() {
+      DeviceUpdateTracker tracker = new DeviceUpdateTracker();
+      tracker.recordSensorUpdate("t1");
+      assertEquals("t1", tracker.pollPendingSensor());
+      tracker.recordSensorUpdate("t1");
+
+      assertEquals("t1", tracker.pollPendingSensor());
+      assertNull(tracker.pollPendingSensor());
+    }
+
+    /**
+     * Verifies removed and directly consumed sensors are skipped.
+     */
+    @Test
+    @DisplayName("Removed and consumed sensors are skipped")
+    void testSkipRemovedAndConsumed() {
+      DeviceUpdateTracker tracker = new DeviceUpdateTracker();
+      tracker.recordSensorUpdate("t1");
+      tracker.recordSensorUpdate("h1");
+      tracker.recordSensorUpdate("l1");
+      tracker.removeDevice("t1");
+      assertTrue(tracker.consumePendingSensor("h1"));
+
+      assertEquals("l1", tracker.pollPendingSensor());
+      assertNull(tracker.pollPendingSensor());
+      assertEquals(0L, tracker.getTimestamp("t1"));
+    }
+  }
+}
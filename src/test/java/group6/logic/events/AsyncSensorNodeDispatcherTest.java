@@ -0,0 +1,134 @@
+package group6.logic.events;
+
+import group6.entity.node.SensorNode;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AsyncSensorNodeDispatcher.
+ *
+ *Tests verify:
+ *A blocked listener does not block the notifying thread
+ *Events arriving while the listener is busy are coalesced
+ *Closing the dispatcher drops pending events
+ */
+class AsyncSensorNodeDispatcherTest {
+
+  /**
+   * Listener that blocks in its first sensor callback until released.
+   */
+  private static final class BlockingListener implements SensorNodeUpdateListener {
+    final CountDownLatch entered = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final AtomicInteger sensorCalls = new AtomicInteger();
+    final AtomicInteger actuatorCalls = new AtomicInteger();
+    volatile CountDownLatch done = new CountDownLatch(1);
+
+    @Override
+    public void onSensorsUpdated(SensorNode node) {
+      if (sensorCalls.incrementAndGet() == 1) {
+        entered.countDown();
+        try {
+          release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      } else {
+        done.countDown();
+      }
+    }
+
+    @Override
+    public void onActuatorsUpdated(SensorNode node) {
+      actuatorCalls.incrementAndGet();
+    }
+  }
+
+  /**
+   * Tests for delivery.
+   */
+  @Nested
+  @DisplayName("Delivery Tests")
+  class DeliveryTests {
+
+    /**
+     * Verifies notifications return while the listener is blocked, and the
+     * events sent meanwhile arrive as one sensor and one actuator call.
+     */
+    @Test
+    @DisplayName("Blocked listener does not block producers, events coalesce")
+    void testBlockedListenerCoalesces() throws InterruptedException {
+      SensorNode node = new SensorNode("node-01");
+      BlockingListener listener = new BlockingListener();
+      AsyncSensorNodeDispatcher dispatcher = new AsyncSensorNodeDispatcher(listener);
+
+      dispatcher.onSensorsUpdated(node);
+      assertTrue(listener.entered.await(5, TimeUnit.SECONDS));
+      for (int i = 0; i < 1000; i++) {
+        dispatcher.onSensorsUpdated(node); // returns although the listener is blocked
+      }
+      dispatcher.onActuatorsUpdated(node);
+      listener.release.countDown();
+
+      assertTrue(listener.done.await(5, TimeUnit.SECONDS));
+      assertEquals(2, listener.sensorCalls.get());
+      assertEquals(1, listener.actuatorCalls.get());
+      assertEquals(999, dispatcher.getCoalescedEvents());
+    }
+
+    /**
+     * Verifies a closed dispatcher delivers nothing more.
+     */
+    @Test
+    @DisplayName("Closed dispatcher drops events")
+    void testClose() throws InterruptedException {
+      SensorNode node = new SensorNode("node-01");
+      BlockingListener listener = new BlockingListener();
+      AsyncSensorNodeDispatcher dispatcher = new AsyncSensorNodeDispatcher(listener);
+
+      dispatcher.onSensorsUpdated(node);
+      assertTrue(listener.entered.await(5, TimeUnit.SECONDS));
+      dispatcher.onSensorsUpdated(node);
+      dispatcher.close();
+      listener.release.countDown();
+
+      assertFalse(listener.done.await(200, TimeUnit.MILLISECONDS));
+      assertEquals(1, listener.sensorCalls.get());
+    }
+
+    /**
+     * Verifies events run on the given executor.
+     */
+    @Test
+    @DisplayName("Uses the given executor")
+    void testExecutor() {
+      SensorNode node = new SensorNode("node-01");
+      AtomicInteger calls = new AtomicInteger();
+      SensorNodeUpdateListener listener = new SensorNodeUpdateListener() {
+        @Override
+        public void onSensorsUpdated(SensorNode n) {
+          calls.incrementAndGet();
+        }
+
+        @Override
+        public void onActuatorsUpdated(SensorNode n) {
+        }
+      };
+      AsyncSensorNodeDispatcher dispatcher = new AsyncSensorNodeDispatcher(listener, Runnable::run);
+
+      dispatcher.onSensorsUpdated(node);
+      dispatcher.onSensorsUpdated(node);
+
+      assertEquals(2, calls.get());
+      assertEquals(0, dispatcher.getCoalescedEvents());
+      assertThrows(IllegalArgumentException.class,
+          () -> new AsyncSensorNodeDispatcher(null, Runnable::run));
+    }
+  }
+}
@@ -0,0 +1,167 @@
+package group6.logic.history;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the asynchronous history pipeline.
+ * Tests verify:
+ * Samples reach the sink in order after a flush
+ * Samples closer than the minimum interval are skipped
+ * Queued samples are written on close
+ * CSV files keep the historic layout and survive reopening
+ */
+class AsyncHistoryWriterTest {
+
+  /**
+   * Records appended samples and sink calls.
+   */
+  private static class RecordingSink implements HistorySink {
+    final List<String> samples = Collections.synchronizedList(new ArrayList<>());
+    volatile int flushes;
+    volatile boolean closed;
+
+    @Override
+    public void append(String nodeId, String sensorKey, long timestamp, double value) {
+      samples.add(nodeId + "/" + sensorKey + "@" + timestamp + "=" + value);
+    }
+
+    @Override
+    public void flush() {
+      flushes++;
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
+
+  /**
+   * Tests for the writer pipeline.
+   */
+  @Nested
+  @DisplayName("Pipeline Tests")
+  class PipelineTests {
+
+    /**
+     * Verifies recorded samples reach the sink in order.
+     */
+    @Test
+    @DisplayName("Samples are written in order on flush")
+    void testFlushWritesSamples() throws InterruptedException {
+      RecordingSink sink = new RecordingSink();
+      try (AsyncHistoryWriter writer = new AsyncHistoryWriter(sink, 16, 60_000, 0)) {
+        writer.record("n1", "temperature#t1", 20.0, 1000L);
+        writer.record("n1", "temperature#t1", 21.0, 1001L);
+
+        assertTrue(writer.flush(5000));
+        assertEquals(List.of("n1/temperature#t1@1000=20.0", "n1/temperature#t1@1001=21.0"),
+            sink.samples);
+        assertTrue(sink.flushes > 0);
+      }
+    }
+
+    /**
+     * Verifies samples closer than the minimum interval are skipped per sensor.
+     */
+    @Test
+    @DisplayName("Samples within the minimum interval are skipped")
+    void testMinSampleInterval() throws InterruptedException {
+      RecordingSink sink = new RecordingSink();
+      try (AsyncHistoryWriter writer = new AsyncHistoryWriter(sink, 16, 60_000, 900)) {
+        writer.record("n1", "temperature#t1", 20.0, 1000L);
+        writer.record("n1", "temperature#t1", 20.5, 1500L);
+        writer.record("n1", "humidity#h1", 40.0, 1500L);
+        writer.record("n1", "temperature#t1", 21.0, 1900L);
+        writer.flush(5000);
+
+        assertEquals(List.of("n1/temperature#t1@1000=20.0", "n1/humidity#h1@1500=40.0",
+            "n1/temperature#t1@1900=21.0"), sink.samples);
+      }
+    }
+
+    /**
+     * Verifies close writes queued samples and closes the sink.
+     */
+    @Test
+    @DisplayName("Close drains the queue and closes the sink")
+    void testCloseDrains() {
+      RecordingSink sink = new RecordingSink();
+      AsyncHistoryWriter writer = new AsyncHistoryWriter(sink, 1024, 60_000, 0);
+      for (int i = 0; i < 500; i++) {
+        writer.record("n1", "light#l1", i, i);
+      }
+      writer.close();
+
+      assertEquals(500, sink.samples.size());
+      assertTrue(sink.closed);
+      assertFalse(writer.record("n1", "light#l1", 1.0, 1000L));
+    }
+
+    /**
+     * Verifies invalid settings are rejected.
+     */
+    @Test
+    @DisplayName("Invalid settings throw exception")
+    void testInvalidSettings() {
+      assertThrows(IllegalArgumentException.class, () -> new AsyncHistoryWriter(null));
+      assertThrows(IllegalArgumentException.class,
+          () -> new AsyncHistoryWriter(new RecordingSink(), 0, 1000, 0));
+    }
+  }
+
+  /**
+   * Tests for the CSV sink.
+   */
+  @Nested
+  @DisplayName("CSV Sink Tests")
+  class CsvSinkTests {
+
+    private Path directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+      directory = Files.createTempDirectory("history-test");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+      try (Stream<Path> paths = Files.walk(directory)) {
+        paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+      }
+    }
+
+    /**
+     * Verifies the file has one header and one line per sample, also after
+     * the file was evicted and reopened.
+     */
+    @Test
+    @DisplayName("CSV layout survives eviction and reopening")
+    void testCsvLayout() throws IOException {
+      CsvHistorySink sink = new CsvHistorySink(directory, 1);
+      sink.append("n1", "temperature#t1", 0L, 20.5);
+      sink.append("n1", "humidity#h1", 0L, 40.0); // evicts temperature#t1
+      sink.append("n1", "temperature#t1", 1000L, 21.0);
+      sink.close();
+
+      List<String> lines = Files.readAllLines(directory.resolve("n1").resolve("temperature#t1.csv"));
+      assertEquals(3, lines.size());
+      assertEquals("timestamp,sensor,value", lines.get(0));
+      assertTrue(lines.get(1).endsWith(",temperature#t1,20.5"));
+      assertTrue(lines.get(2).endsWith(",temperature#t1,21.0"));
+    }
+  }
+}
@@ -0,0 +1,209 @@
+package group6.logic.history;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for history compaction and retention.
+ * Tests verify:
+ * Finished days are rewritten into full, time-ordered blocks without losing samples
+ * The current day and corrupt blocks are handled safely
+ * Raw segments, rollup tiers and CSV runs expire per the policy
+ */
+class HistoryCompactionServiceTest {
+
+  private static final long DAY = SegmentFormat.DAY_MS;
+
+  /**
+   * Tests for one maintenance run.
+   */
+  @Nested
+  @DisplayName("Maintenance Tests")
+  class MaintenanceTests {
+
+    private Path root;
+    private Path segments;
+    private Path rollups;
+    private long now;
+    private long today;
+
+    @BeforeEach
+    void setUp() throws IOException {
+      root = Files.createTempDirectory("compaction-test");
+      segments = root.resolve("segments");
+      rollups = root.resolve("rollups");
+      // run as if two settle periods have passed, so files written now count as settled
+      now = System.currentTimeMillis() + 2 * HistoryCompactionService.SETTLE_MS;
+      today = Math.floorDiv(now, DAY) * DAY;
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+      try (Stream<Path> paths = Files.walk(root)) {
+        paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+      }
+    }
+
+    private HistoryCompactionService service(HistoryRetentionPolicy policy) {
+      return new HistoryCompactionService(segments, rollups, root, policy, 1000);
+    }
+
+    /**
+     * Writes samples one second apart in blocks of 10.
+     */
+    private void write(long from, int count) throws IOException {
+      try (SegmentHistorySink sink = new SegmentHistorySink(segments, 10, Long.MAX_VALUE)) {
+        for (int i = 0; i < count; i++) {
+          sink.append("node-1", "temperature#t1", from + i * 1000L, i % 17);
+        }
+      }
+    }
+
+    private Path dayFile(long dayStart) {
+      return SegmentFormat.segmentFile(segments, "node-1", "temperature#t1",
+          SegmentFormat.epochDay(dayStart));
+    }
+
+    private HistorySeries readAll() throws IOException {
+      return new HistoryStore(segments).query("node-1", "temperature#t1", 0, Long.MAX_VALUE);
+    }
+
+    /**
+     * Verifies a finished day with small, out-of-order blocks is rewritten
+     * into full sorted blocks with the same samples.
+     */
+    @Test
+    @DisplayName("Finished days are compacted")
+    void testCompaction() throws IOException {
+      long yesterday = today - DAY;
+      write(yesterday + 3_000_000, 1500);
+      write(yesterday, 1000);
+      HistorySeries before = readAll();
+
+      HistoryCompactionService service = service(HistoryRetentionPolicy.defaults());
+      service.runOnce(now);
+
+      MappedSegment compacted = MappedSegment.map(dayFile(yesterday));
+      assertEquals(3, compacted.getBlockCount());
+      assertTrue(compacted.isTimeOrdered());
+      assertEquals(1, service.getCompactedFiles());
+      HistorySeries after = readAll();
+      assertArrayEquals(before.getTimestamps(), after.getTimestamps());
+      assertArrayEquals(before.getValues(), after.getValues());
+
+      service.runOnce(now);
+      assertEquals(1, service.getCompactedFiles());
+    }
+
+    /**
+     * Verifies the day still being written is left alone.
+     */
+    @Test
+    @DisplayName("Current day is not compacted")
+    void testCurrentDayUntouched() throws IOException {
+      write(today, 100);
+
+      HistoryCompactionService service = service(HistoryRetentionPolicy.defaults());
+      service.runOnce(now);
+
+      assertEquals(10, MappedSegment.map(dayFile(today)).getBlockCount());
+      assertEquals(0, service.getCompactedFiles());
+    }
+
+    /**
+     * Verifies compaction drops a corrupt block and keeps the rest.
+     */
+    @Test
+    @DisplayName("Corrupt blocks are dropped")
+    void testCorruptBlockDropped() throws IOException {
+      long yesterday = today - DAY;
+      write(yesterday, 30);
+      try (RandomAccessFile raf = new RandomAccessFile(dayFile(yesterday).toFile(), "rw")) {
+        raf.seek(SegmentFormat.HEADER_BYTES + 1);
+        raf.write(raf.read() ^ 0xFF);
+      }
+
+      service(HistoryRetentionPolicy.defaults()).runOnce(now);
+
+      MappedSegment compacted = MappedSegment.map(dayFile(yesterday));
+      assertTrue(compacted.isClean());
+      assertEquals(20, compacted.getSampleCount());
+    }
+
+    /**
+     * Verifies raw days older than the retention are deleted with their
+     * directories.
+     */
+    @Test
+    @DisplayName("Raw segments expire")
+    void testRawRetention() throws IOException {
+      write(today - 40 * DAY, 10);
+      write(today - 2 * DAY, 10);
+
+      HistoryCompactionService service = service(HistoryRetentionPolicy.defaults());
+      service.runOnce(now);
+
+      assertFalse(Files.exists(dayFile(today - 40 * DAY)));
+      assertTrue(Files.exists(dayFile(today - 2 * DAY)));
+      assertEquals(1, service.getDeletedFiles());
+
+      service.setPolicy(new HistoryRetentionPolicy(DAY, 0, 0, 0, 0));
+      service.runOnce(now);
+      assertFalse(Files.exists(segments.resolve("node-1")));
+    }
+
+    /**
+     * Verifies each rollup tier expires on its own retention.
+     */
+    @Test
+    @DisplayName("Rollup tiers expire separately")
+    void testRollupRetention() throws IOException {
+      long old = today - 30 * DAY;
+      try (RollupHistorySink sink = new RollupHistorySink(rollups)) {
+        sink.append("node-1", "temperature#t1", old, 1);
+        sink.append("node-1", "temperature#t1", today, 2);
+      }
+
+      service(new HistoryRetentionPolicy(0, 7 * DAY, 0, 0, 0)).runOnce(now);
+
+      HistoryStore store = new HistoryStore(segments, rollups);
+      assertEquals(1, store.queryRollups("node-1", "temperature#t1", RollupResolution.SECOND,
+          old, now).size());
+      assertEquals(2, store.queryRollups("node-1", "temperature#t1", RollupResolution.HOUR,
+          old, now).size());
+    }
+
+    /**
+     * Verifies CSV runs are deleted once unwritten for longer than the
+     * retention, and other directories are left alone.
+     */
+    @Test
+    @DisplayName("Old CSV runs expire")
+    void testCsvRetention() throws IOException {
+      Path run = root.resolve(LocalDateTime.of(2025, 3, 1, 12, 0)
+          .format(CsvHistorySink.RUN_FOLDER_FORMAT));
+      Files.createDirectories(run.resolve("node-1"));
+      Files.writeString(run.resolve("node-1").resolve("temperature#t1.csv"), "x");
+      Path other = Files.createDirectories(root.resolve("notes"));
+
+      service(new HistoryRetentionPolicy(0, 0, 0, 0, DAY)).runOnce(now);
+      assertTrue(Files.exists(run));
+
+      service(new HistoryRetentionPolicy(0, 0, 0, 0, HistoryCompactionService.SETTLE_MS))
+          .runOnce(now);
+      assertFalse(Files.exists(run));
+      assertTrue(Files.exists(other));
+    }
+  }
+}
@@ -0,0 +1,180 @@
+package group6.logic.history;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for HistoryStore range queries.
+ * Tests verify:
+ * Queries return exactly the samples in range, across blocks and days
+ * Blocks written after the clock went back come out in time order
+ * Files appended after a query are remapped
+ * Corrupt blocks are skipped and invalid arguments are rejected
+ */
+class HistoryStoreTest {
+
+  private static final long DAY = SegmentFormat.DAY_MS;
+  private static final long START = 20_000 * DAY; // midnight UTC
+
+  /**
+   * Tests for range queries.
+   */
+  @Nested
+  @DisplayName("Query Tests")
+  class QueryTests {
+
+    private Path root;
+    private HistoryStore store;
+
+    @BeforeEach
+    void setUp() throws IOException {
+      root = Files.createTempDirectory("history-store-test");
+      store = new HistoryStore(root);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+      store.clearCache();
+      try (Stream<Path> paths = Files.walk(root)) {
+        paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+      }
+    }
+
+    /**
+     * Writes one sample per second from a start time, in blocks of 100.
+     */
+    private void writeSeconds(String sensorKey, long from, int count) throws IOException {
+      try (SegmentHistorySink sink = new SegmentHistorySink(root, 100, Long.MAX_VALUE)) {
+        for (int i = 0; i < count; i++) {
+          long timestamp = from + i * 1000L;
+          sink.append("node-1", sensorKey, timestamp, timestamp / 1000 % 1000);
+        }
+      }
+    }
+
+    /**
+     * Verifies a range inside a day returns exactly the matching samples.
+     */
+    @Test
+    @DisplayName("Range inside one day is exact")
+    void testRangeWithinDay() throws IOException {
+      writeSeconds("temperature#t1", START, 1000);
+
+      HistorySeries series = store.query("node-1", "temperature#t1",
+          START + 150_000, START + 449_500);
+
+      assertEquals(300, series.size());
+      assertEquals(START + 150_000, series.getTimestamp(0));
+      assertEquals(START + 449_000, series.getTimestamp(299));
+      assertEquals(150.0, series.getValue(0));
+      assertEquals(300, series.values().count());
+    }
+
+    /**
+     * Verifies a range spanning midnight reads both day files in order.
+     */
+    @Test
+    @DisplayName("Range across midnight spans day files")
+    void testRangeAcrossDays() throws IOException {
+      writeSeconds("temperature#t1", START + DAY - 500_000, 1000);
+
+      HistorySeries series = store.query("node-1", "temperature#t1",
+          START + DAY - 10_000, START + DAY + 9_999);
+
+      assertEquals(20, series.size());
+      assertEquals(2, Files.list(SegmentFormat.seriesDirectory(root, "node-1",
+          "temperature#t1")).count());
+      long[] timestamps = series.getTimestamps();
+      for (int i = 1; i < timestamps.length; i++) {
+        assertEquals(1000, timestamps[i] - timestamps[i - 1]);
+      }
+    }
+
+    /**
+     * Verifies unknown sensors and empty ranges give an empty series.
+     */
+    @Test
+    @DisplayName("Missing data gives an empty series")
+    void testEmpty() throws IOException {
+      writeSeconds("temperature#t1", START, 10);
+
+      assertTrue(store.query("node-1", "humidity#h1", START, START + DAY).isEmpty());
+      assertTrue(store.query("node-1", "temperature#t1", START + DAY, START + 2 * DAY).isEmpty());
+      assertTrue(store.query("node-1", "temperature#t1", START - 5000, START - 1).isEmpty());
+    }
+
+    /**
+     * Verifies samples from a block written after the clock went back are
+     * merged into time order.
+     */
+    @Test
+    @DisplayName("Out-of-order blocks are sorted")
+    void testOutOfOrderBlocks() throws IOException {
+      writeSeconds("temperature#t1", START + 100_000, 50);
+      writeSeconds("temperature#t1", START, 50);
+
+      HistorySeries series = store.query("node-1", "temperature#t1", START, START + DAY - 1);
+
+      assertEquals(100, series.size());
+      assertEquals(START, series.getTimestamp(0));
+      assertEquals(START + 149_000, series.getTimestamp(99));
+      assertEquals(50, series.indexAtOrAfter(START + 100_000));
+    }
+
+    /**
+     * Verifies blocks appended after a query are seen by the next query.
+     */
+    @Test
+    @DisplayName("Appended files are remapped")
+    void testRemapAfterAppend() throws IOException {
+      writeSeconds("temperature#t1", START, 100);
+      assertEquals(100, store.query("node-1", "temperature#t1", START, START + DAY - 1).size());
+
+      writeSeconds("temperature#t1", START + 100_000, 100);
+      assertEquals(200, store.query("node-1", "temperature#t1", START, START + DAY - 1).size());
+    }
+
+    /**
+     * Verifies a block with a bad checksum is skipped.
+     */
+    @Test
+    @DisplayName("Corrupt blocks are skipped")
+    void testCorruptBlock() throws IOException {
+      writeSeconds("temperature#t1", START, 300);
+      Path file = SegmentFormat.segmentFile(root, "node-1", "temperature#t1",
+          SegmentFormat.epochDay(START));
+      try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+        raf.seek(SegmentFormat.HEADER_BYTES + 2);
+        raf.write(raf.read() ^ 0xFF);
+      }
+
+      HistorySeries series = store.query("node-1", "temperature#t1", START, START + DAY - 1);
+
+      assertEquals(200, series.size());
+      assertEquals(START + 100_000, series.getTimestamp(0));
+    }
+
+    /**
+     * Verifies invalid arguments are rejected.
+     */
+    @Test
+    @DisplayName("Invalid arguments are rejected")
+    void testInvalidArguments() {
+      assertThrows(IllegalArgumentException.class,
+          () -> store.query("node-1", "temperature#t1", 10, 5));
+      assertThrows(IllegalArgumentException.class,
+          () -> store.query(null, "temperature#t1", 0, 5));
+      assertThrows(IllegalArgumentException.class, () -> new HistoryStore(root, null, 0));
+    }
+  }
+}
@@ -0,0 +1,194 @@
+package group6.logic.history;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import java.util.Arrays;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for QuantileSketch and WindowedQuantileSketch.
+ * Tests verify:
+ * Quantiles stay within the relative accuracy of the exact ones
+ * Negative values, zero and wide ranges are handled
+ * Merging two sketches equals sketching all values at once
+ * Windowed queries merge only the buckets in range and drop expired ones
+ */
+class QuantileSketchTest {
+
+  private static final double[] QUANTILES = {0, 0.01, 0.25, 0.5, 0.75, 0.95, 0.99, 1};
+
+  /**
+   * Returns the exact quantile with the rank rule the sketch uses.
+   */
+  private static double exact(double[] sorted, double quantile) {
+    return sorted[(int) (quantile * (sorted.length - 1))];
+  }
+
+  private static void assertAccurate(double[] values, QuantileSketch sketch) {
+    double[] sorted = values.clone();
+    Arrays.sort(sorted);
+    for (double q : QUANTILES) {
+      double expected = exact(sorted, q);
+      double actual = sketch.getQuantile(q);
+      assertTrue(Math.abs(actual - expected) <= 0.0101 * Math.abs(expected),
+          "q=" + q + " expected " + expected + " got " + actual);
+    }
+  }
+
+  /**
+   * Tests for a single sketch.
+   */
+  @Nested
+  @DisplayName("Sketch Tests")
+  class SketchTests {
+
+    /**
+     * Verifies quantiles of a typical sensor distribution are within 1%.
+     */
+    @Test
+    @DisplayName("Quantiles are within the relative accuracy")
+    void testAccuracy() {
+      Random random = new Random(42);
+      double[] values = new double[20_000];
+      QuantileSketch sketch = new QuantileSketch();
+      for (int i = 0; i < values.length; i++) {
+        values[i] = 20 + random.nextGaussian() * 3;
+        sketch.add(values[i]);
+      }
+
+      assertEquals(values.length, sketch.getCount());
+      assertAccurate(values, sketch);
+      assertEquals(Arrays.stream(values).min().getAsDouble(), sketch.getMin());
+      assertEquals(Arrays.stream(values).max().getAsDouble(), sketch.getMax());
+    }
+
+    /**
+     * Verifies negative values, zero and values spanning many orders of
+     * magnitude are ordered correctly.
+     */
+    @Test
+    @DisplayName("Negative, zero and wide-range values")
+    void testSignedAndWideRange() {
+      Random random = new Random(7);
+      double[] values = new double[10_000];
+      QuantileSketch sketch = new QuantileSketch();
+      for (int i = 0; i < values.length; i++) {
+        double magnitude = Math.pow(10, random.nextDouble() * 8 - 3);
+        values[i] = i % 10 == 0 ? 0 : random.nextBoolean() ? magnitude : -magnitude;
+        sketch.add(values[i]);
+      }
+
+      assertAccurate(values, sketch);
+    }
+
+    /**
+     * Verifies an empty sketch answers NaN and invalid quantiles are
+     * rejected.
+     */
+    @Test
+    @DisplayName("Empty sketch and invalid arguments")
+    void testEmptyAndInvalid() {
+      QuantileSketch sketch = new QuantileSketch();
+      assertTrue(Double.isNaN(sketch.getQuantile(0.5)));
+      assertThrows(IllegalArgumentException.class, () -> sketch.getQuantile(1.5));
+      assertThrows(IllegalArgumentException.class, () -> new QuantileSketch(0));
+      assertThrows(IllegalArgumentException.class,
+          () -> sketch.merge(new QuantileSketch(0.02)));
+    }
+
+    /**
+     * Verifies merging two sketches gives the same quantiles as one sketch
+     * of all values.
+     */
+    @Test
+    @DisplayName("Merge equals sketching all values")
+    void testMerge() {
+      Random random = new Random(3);
+      QuantileSketch left = new QuantileSketch();
+      QuantileSketch right = new QuantileSketch();
+      QuantileSketch all = new QuantileSketch();
+      double[] values = new double[5000];
+      for (int i = 0; i < values.length; i++) {
+        values[i] = i < 2500 ? 10 + random.nextDouble() : 1000 * random.nextDouble();
+        (i < 2500 ? left : right).add(values[i]);
+        all.add(values[i]);
+      }
+      left.merge(right);
+
+      assertEquals(all.getCount(), left.getCount());
+      for (double q : QUANTILES) {
+        assertEquals(all.getQuantile(q), left.getQuantile(q), 1e-9);
+      }
+      assertAccurate(values, left);
+    }
+  }
+
+  /**
+   * Tests for the time-bucketed sketch.
+   */
+  @Nested
+  @DisplayName("Windowed Tests")
+  class WindowedTests {
+
+    /**
+     * Verifies a query merges only the buckets overlapping the range.
+     */
+    @Test
+    @DisplayName("Query merges buckets in range")
+    void testQueryRange() {
+      WindowedQuantileSketch windowed = new WindowedQuantileSketch(1000, 10, 0.01);
+      for (int second = 0; second < 10; second++) {
+        for (int i = 0; i < 10; i++) {
+          windowed.add(second * 1000L + i * 100, second);
+        }
+      }
+
+      QuantileSketch lastThree = windowed.query(7000, 9999);
+      assertEquals(30, lastThree.getCount());
+      assertEquals(7, lastThree.getMin());
+      assertEquals(9, lastThree.getMax());
+      assertEquals(100, windowed.query(0, 9999).getCount());
+      assertEquals(0, windowed.query(20_000, 30_000).getCount());
+    }
+
+    /**
+     * Verifies buckets older than the retained span are dropped and late
+     * samples for them ignored.
+     */
+    @Test
+    @DisplayName("Expired buckets are dropped")
+    void testExpiry() {
+      WindowedQuantileSketch windowed = new WindowedQuantileSketch(1000, 5, 0.01);
+      windowed.add(0, 1.0);
+      windowed.add(1000, 2.0);
+      windowed.add(5000, 3.0); // reuses the slot of bucket 0
+      windowed.add(0, 4.0);    // too old
+
+      QuantileSketch sketch = windowed.query(0, 5999);
+      assertEquals(2, sketch.getCount());
+      assertEquals(2.0, sketch.getMin());
+      assertEquals(3.0, sketch.getMax());
+    }
+
+    /**
+     * Verifies sketches from several windows merge into one result.
+     */
+    @Test
+    @DisplayName("Windows merge across sensors")
+    void testMergeAcrossSensors() {
+      WindowedQuantileSketch first = new WindowedQuantileSketch();
+      WindowedQuantileSketch second = new WindowedQuantileSketch();
+      for (int i = 0; i < 100; i++) {
+        first.add(i * 1000L, i);
+        second.add(i * 1000L, 100 + i);
+      }
+
+      QuantileSketch merged = first.query(0, 100_000);
+      second.mergeInto(merged, 0, 100_000);
+      assertEquals(200, merged.getCount());
+      assertEquals(99.0, merged.getQuantile(0.5), 1.0);
+    }
+  }
+}
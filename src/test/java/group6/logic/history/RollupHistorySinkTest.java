@@ -0,0 +1,190 @@
+package group6.logic.history;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the history rollup tiers.
+ * Tests verify:
+ * Buckets hold the min, max, average and count of their samples
+ * The open bucket is visible after a flush and rewritten in place
+ * Buckets repeated across restarts are merged on read
+ * Tier files split on day, month and year boundaries
+ * Late samples are left out and the query tier follows the span
+ */
+class RollupHistorySinkTest {
+
+  private static final long START =
+      LocalDate.of(2025, 1, 31).atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli();
+
+  /**
+   * Tests for writing and reading rollups.
+   */
+  @Nested
+  @DisplayName("Rollup Tests")
+  class RollupTests {
+
+    private Path root;
+    private HistoryStore store;
+
+    @BeforeEach
+    void setUp() throws IOException {
+      root = Files.createTempDirectory("rollup-test");
+      store = new HistoryStore(root.resolve("segments"), root.resolve("rollups"));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+      try (Stream<Path> paths = Files.walk(root)) {
+        paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+      }
+    }
+
+    private RollupHistorySink sink() {
+      return new RollupHistorySink(root.resolve("rollups"));
+    }
+
+    private RollupSeries query(RollupResolution resolution, long from, long to)
+        throws IOException {
+      return store.queryRollups("node-1", "temperature#t1", resolution, from, to);
+    }
+
+    /**
+     * Verifies every tier aggregates samples into the right buckets.
+     */
+    @Test
+    @DisplayName("Buckets aggregate their samples")
+    void testAggregates() throws IOException {
+      try (RollupHistorySink sink = sink()) {
+        // 4 samples per second for 2 hours, value = minute of the hour
+        for (long t = 0; t < 7_200_000; t += 250) {
+          sink.append("node-1", "temperature#t1", START + t, t / 60_000 % 60);
+        }
+      }
+
+      RollupSeries hours = query(RollupResolution.HOUR, START, START + 7_199_999);
+      assertEquals(2, hours.size());
+      assertEquals(14_400, hours.getCount(0));
+      assertEquals(0.0, hours.getMin(0));
+      assertEquals(59.0, hours.getMax(0));
+      assertEquals(29.5, hours.getAverage(0), 1e-9);
+
+      RollupSeries minutes = query(RollupResolution.MINUTE, START, START + 7_199_999);
+      assertEquals(120, minutes.size());
+      assertEquals(START + 60_000 * 61, minutes.getStart(61));
+      assertEquals(1.0, minutes.getAverages()[61]);
+
+      RollupSeries seconds = query(RollupResolution.SECOND, START + 10_000, START + 19_999);
+      assertEquals(10, seconds.size());
+      assertEquals(4, seconds.getCount(9));
+    }
+
+    /**
+     * Verifies the open bucket is written on flush and updated in place.
+     */
+    @Test
+    @DisplayName("Open bucket is rewritten in place")
+    void testOpenBucket() throws IOException {
+      try (RollupHistorySink sink = sink()) {
+        sink.append("node-1", "temperature#t1", START, 10);
+        sink.flush();
+        assertEquals(1, query(RollupResolution.HOUR, START, START).getCount(0));
+
+        sink.append("node-1", "temperature#t1", START + 1000, 20);
+        sink.flush();
+        RollupSeries hours = query(RollupResolution.HOUR, START, START);
+        assertEquals(1, hours.size());
+        assertEquals(2, hours.getCount(0));
+        assertEquals(15.0, hours.getAverage(0));
+      }
+      Path file = RollupFormat.partitionFile(root.resolve("rollups"), RollupResolution.HOUR,
+          "node-1", "temperature#t1", START);
+      assertEquals(RollupFormat.RECORD_BYTES, Files.size(file));
+    }
+
+    /**
+     * Verifies a bucket written by two runs reads back as one.
+     */
+    @Test
+    @DisplayName("Buckets from two runs are merged")
+    void testRestartMerge() throws IOException {
+      try (RollupHistorySink sink = sink()) {
+        sink.append("node-1", "temperature#t1", START, 1);
+      }
+      try (RollupHistorySink sink = sink()) {
+        sink.append("node-1", "temperature#t1", START + 5000, 5);
+      }
+
+      RollupSeries minutes = query(RollupResolution.MINUTE, START, START + 59_999);
+      assertEquals(1, minutes.size());
+      assertEquals(2, minutes.getCount(0));
+      assertEquals(1.0, minutes.getMin(0));
+      assertEquals(5.0, minutes.getMax(0));
+    }
+
+    /**
+     * Verifies tiers switch files at their period boundary and queries read
+     * across it.
+     */
+    @Test
+    @DisplayName("Files split at period boundaries")
+    void testPartitions() throws IOException {
+      long nextMonth = START + SegmentFormat.DAY_MS; // 2025-02-01
+      try (RollupHistorySink sink = sink()) {
+        sink.append("node-1", "temperature#t1", nextMonth - 30_000, 1);
+        sink.append("node-1", "temperature#t1", nextMonth + 30_000, 2);
+      }
+
+      assertTrue(Files.exists(RollupFormat.seriesDirectory(root.resolve("rollups"),
+          RollupResolution.MINUTE, "node-1", "temperature#t1").resolve("2025-01.rol")));
+      assertTrue(Files.exists(RollupFormat.seriesDirectory(root.resolve("rollups"),
+          RollupResolution.MINUTE, "node-1", "temperature#t1").resolve("2025-02.rol")));
+      assertEquals(2, query(RollupResolution.MINUTE, nextMonth - 60_000, nextMonth).size());
+      assertEquals(2, query(RollupResolution.SECOND, START, nextMonth + 60_000).size());
+      assertEquals(2, query(RollupResolution.HOUR, START, nextMonth + 60_000).size());
+    }
+
+    /**
+     * Verifies samples older than the open bucket are counted and skipped,
+     * while tiers whose bucket still covers them keep them.
+     */
+    @Test
+    @DisplayName("Late samples are left out")
+    void testLateSamples() throws IOException {
+      try (RollupHistorySink sink = sink()) {
+        sink.append("node-1", "temperature#t1", START + 120_000, 1);
+        sink.append("node-1", "temperature#t1", START, 100);
+        assertEquals(RollupResolution.values().length - 1, sink.getLateSamples());
+      }
+
+      assertEquals(1.0, query(RollupResolution.MINUTE, START, START + 180_000).getMax(0));
+      assertEquals(100.0, query(RollupResolution.HOUR, START, START).getMax(0));
+    }
+
+    /**
+     * Verifies the tier picked for a chart follows the time span.
+     */
+    @Test
+    @DisplayName("Tier follows the span")
+    void testForSpan() {
+      assertEquals(RollupResolution.SECOND, RollupResolution.forSpan(60_000, 500));
+      assertEquals(RollupResolution.MINUTE, RollupResolution.forSpan(3_600_000, 500));
+      assertEquals(RollupResolution.HOUR, RollupResolution.forSpan(7 * SegmentFormat.DAY_MS, 500));
+      assertEquals(RollupResolution.HOUR, RollupResolution.forSpan(Long.MAX_VALUE, 10));
+      assertThrows(IllegalArgumentException.class, () -> RollupResolution.forSpan(1000, 0));
+      assertThrows(IllegalStateException.class, () -> new HistoryStore(root)
+          .queryRollups("node-1", "temperature#t1", RollupResolution.HOUR, 0, 1));
+    }
+  }
+}
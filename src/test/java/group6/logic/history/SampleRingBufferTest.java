@@ -0,0 +1,145 @@
+package group6.logic.history;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SampleRingBuffer.
+ * Tests verify:
+ * Averages cover exactly the samples in the requested window
+ * Averages keep every in-window sample when the window nearly fills the ring
+ * The ring grows to fit the window and no further than its maximum
+ * Concurrent readers never see overwritten slots
+ */
+class SampleRingBufferTest {
+
+  /**
+   * Tests for single-threaded use.
+   */
+  @Nested
+  @DisplayName("Window Tests")
+  class WindowTests {
+
+    /**
+     * Verifies the average only includes samples at or after the cutoff.
+     */
+    @Test
+    @DisplayName("Average covers the window")
+    void testAverage() {
+      SampleRingBuffer buffer = new SampleRingBuffer(60_000, 100);
+      assertTrue(Double.isNaN(buffer.average(0)));
+      for (int i = 0; i < 100; i++) {
+        buffer.add(i * 1000L, i);
+      }
+
+      assertEquals(94.5, buffer.average(90_000));
+      assertEquals(99.0, buffer.average(99_000));
+      assertTrue(Double.isNaN(buffer.average(100_000)));
+    }
+
+    /**
+     * Verifies the ring doubles while the window does not fit, then stops.
+     */
+    @Test
+    @DisplayName("Capacity follows the sample rate")
+    void testGrowth() {
+      SampleRingBuffer slow = new SampleRingBuffer(60_000, 10);
+      for (int i = 0; i < 1000; i++) {
+        slow.add(i * 5000L, 1);
+      }
+      assertEquals(64, slow.getCapacity());
+
+      SampleRingBuffer fast = new SampleRingBuffer(60_000, 10);
+      for (int i = 0; i < 10_000; i++) {
+        fast.add(i * 20L, i);
+      }
+      assertEquals(4096, fast.getCapacity());
+      assertEquals(4096, fast.size());
+      // 3000 samples of the last minute: 7000..9999
+      assertEquals(8499.5, fast.average(140_000));
+
+      SampleRingBuffer capped = new SampleRingBuffer(1000, 100);
+      for (int i = 0; i < 10_000; i++) {
+        capped.add(i, i);
+      }
+      assertEquals(64, capped.getCapacity());
+    }
+
+    /**
+     * Verifies a window holding between 7/8 and all of the ring's capacity
+     * still averages every sample in it: 500 samples at 600 ms over 300 s
+     * used to leave the ring at 512 slots, of which only 448 were read.
+     */
+    @Test
+    @DisplayName("Nearly full window keeps its oldest samples")
+    void testNearlyFullWindow() {
+      SampleRingBuffer buffer = new SampleRingBuffer(300_000, 100);
+      for (int i = 0; i < 10_000; i++) {
+        buffer.add(i * 600L, i);
+      }
+      long now = 9_999 * 600L;
+
+      // samples 9500..9999 lie inside the last 300 s
+      assertEquals(9749.5, buffer.average(now - 299_999));
+      assertTrue(buffer.getCapacity() * 7 / 8 >= 500);
+    }
+
+    /**
+     * Verifies invalid arguments are rejected.
+     */
+    @Test
+    @DisplayName("Invalid arguments are rejected")
+    void testInvalidArguments() {
+      assertThrows(IllegalArgumentException.class, () -> new SampleRingBuffer(0, 10));
+      assertThrows(IllegalArgumentException.class, () -> new SampleRingBuffer(1000, 0));
+    }
+  }
+
+  /**
+   * Tests for concurrent reading.
+   */
+  @Nested
+  @DisplayName("Concurrency Tests")
+  class ConcurrencyTests {
+
+    /**
+     * Verifies readers racing a writer only ever see published, in-window
+     * samples: the value is the second of the timestamp, so the average lies
+     * between the window start and the writer's position after the read.
+     */
+    @Test
+    @DisplayName("Readers never see overwritten slots")
+    void testConcurrentReaders() throws InterruptedException {
+      SampleRingBuffer buffer = new SampleRingBuffer(1000, 1);
+      AtomicBoolean running = new AtomicBoolean(true);
+      AtomicReference<String> failure = new AtomicReference<>();
+      AtomicLong now = new AtomicLong();
+      Thread writer = new Thread(() -> {
+        long t = 0;
+        while (running.get()) {
+          buffer.add(t, t / 1000);
+          now.set(t);
+          t++;
+        }
+      });
+      writer.start();
+      long deadline = System.currentTimeMillis() + 300;
+      while (System.currentTimeMillis() < deadline) {
+        long since = now.get() / 1000 * 1000;
+        double average = buffer.average(since);
+        long latest = (now.get() + 1) / 1000; // the writer may have published one more
+        if (average < since / 1000 || average > latest) {
+          failure.set("average " + average + " outside " + since / 1000 + ".." + latest);
+        }
+      }
+      running.set(false);
+      writer.join();
+      assertNull(failure.get());
+    }
+  }
+}
@@ -0,0 +1,234 @@
+package group6.logic.history;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the binary history segments.
+ * Tests verify:
+ * Gorilla blocks round-trip timestamps and values bit for bit
+ * Compression of a steady sensor stays well below the raw size
+ * The sink seals blocks on size, day change, time going back, and age
+ * CSV export reproduces the written samples and skips corrupt blocks
+ */
+class SegmentStorageTest {
+
+  private static final long DAY = SegmentFormat.DAY_MS;
+
+  private static List<String> decode(GorillaEncoder encoder) throws IOException {
+    ByteBuffer block = SegmentFormat.encodeBlock(encoder);
+    SegmentFormat.BlockHeader header = SegmentFormat.BlockHeader.read(block, 0);
+    assertTrue(header.isIntact(block));
+    GorillaDecoder decoder = header.decoder(block);
+    List<String> samples = new ArrayList<>();
+    while (decoder.next()) {
+      samples.add(decoder.getTimestamp() + "="
+          + Double.doubleToRawLongBits(decoder.getValue()));
+    }
+    return samples;
+  }
+
+  private static int blockCount(Path file) throws IOException {
+    ByteBuffer segment = ByteBuffer.wrap(Files.readAllBytes(file));
+    int blocks = 0;
+    for (int offset = 0; offset < segment.limit(); blocks++) {
+      offset = SegmentFormat.BlockHeader.read(segment, offset).nextOffset();
+    }
+    return blocks;
+  }
+
+  /**
+   * Tests for the block codec.
+   */
+  @Nested
+  @DisplayName("Codec Tests")
+  class CodecTests {
+
+    /**
+     * Verifies irregular timestamps and arbitrary doubles round-trip exactly.
+     */
+    @Test
+    @DisplayName("Random samples round-trip exactly")
+    void testRandomRoundTrip() throws IOException {
+      Random random = new Random(42);
+      GorillaEncoder encoder = new GorillaEncoder();
+      List<String> expected = new ArrayList<>();
+      long timestamp = 1_700_000_000_000L;
+      double[] specials = {Double.NaN, -0.0, Double.MAX_VALUE, Double.MIN_VALUE, 0.0};
+      for (int i = 0; i < 5000; i++) {
+        timestamp += switch (i % 4) {
+          case 0 -> 1000;
+          case 1 -> random.nextInt(3000);
+          case 2 -> random.nextInt(100_000_000);
+          default -> 0;
+        };
+        double value = i % 50 == 0 ? specials[i / 50 % specials.length]
+            : Double.longBitsToDouble(random.nextLong());
+        encoder.add(timestamp, value);
+        expected.add(timestamp + "=" + Double.doubleToRawLongBits(value));
+      }
+
+      assertEquals(expected, decode(encoder));
+    }
+
+    /**
+     * Verifies a steady one-second sensor takes less than half the raw 16
+     * bytes a sample. Timestamps shrink to a few bits; decimal values XOR
+     * poorly, so they dominate.
+     */
+    @Test
+    @DisplayName("Steady sensor compresses well")
+    void testCompression() throws IOException {
+      GorillaEncoder encoder = new GorillaEncoder();
+      double value = 20.0;
+      Random random = new Random(7);
+      for (int i = 0; i < 4096; i++) {
+        value = Math.round((value + random.nextGaussian() * 0.05) * 100) / 100.0;
+        encoder.add(1_700_000_000_000L + i * 1000L + random.nextInt(3), value);
+      }
+
+      double bytesPerSample = (double) encoder.getPayloadLength() / encoder.getCount();
+      assertTrue(bytesPerSample < 8.0, "bytes per sample: " + bytesPerSample);
+      assertEquals(4096, decode(encoder).size());
+    }
+
+    /**
+     * Verifies the encoder can be reused after reset.
+     */
+    @Test
+    @DisplayName("Encoder is reusable after reset")
+    void testReset() throws IOException {
+      GorillaEncoder encoder = new GorillaEncoder();
+      encoder.add(1000L, 1.5);
+      encoder.add(2000L, 2.5);
+      encoder.reset();
+      encoder.add(5000L, 3.5);
+
+      assertEquals(List.of("5000=" + Double.doubleToRawLongBits(3.5)), decode(encoder));
+    }
+  }
+
+  /**
+   * Tests for the segment sink and exporter.
+   */
+  @Nested
+  @DisplayName("Sink Tests")
+  class SinkTests {
+
+    private Path root;
+
+    @BeforeEach
+    void setUp() throws IOException {
+      root = Files.createTempDirectory("segment-test");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+      try (Stream<Path> paths = Files.walk(root)) {
+        paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+      }
+    }
+
+    private List<Path> blocksOf(String nodeId, String sensorKey) throws IOException {
+      try (Stream<Path> files =
+          Files.list(SegmentFormat.seriesDirectory(root, nodeId, sensorKey))) {
+        return files.sorted().toList();
+      }
+    }
+
+    /**
+     * Verifies blocks are sealed when full and on close, in one day file.
+     */
+    @Test
+    @DisplayName("Blocks are sealed when full and on close")
+    void testSealOnSizeAndClose() throws IOException {
+      SegmentHistorySink sink = new SegmentHistorySink(root, 100, 60_000);
+      for (int i = 0; i < 250; i++) {
+        sink.append("n1", "temperature#t1", 10 * DAY + i * 1000L, 20.0 + i);
+      }
+      sink.close();
+
+      List<Path> files = blocksOf("n1", "temperature#t1");
+      assertEquals(1, files.size());
+      assertEquals("1970-01-11.seg", files.get(0).getFileName().toString());
+      assertEquals(3, blockCount(files.get(0)));
+    }
+
+    /**
+     * Verifies a new day starts a new file and going back in time starts a
+     * new block.
+     */
+    @Test
+    @DisplayName("Day change and time going back seal the block")
+    void testSealOnDayAndTimeGoingBack() throws IOException {
+      SegmentHistorySink sink = new SegmentHistorySink(root);
+      sink.append("n1", "humidity#h1", DAY - 1000L, 40.0);
+      sink.append("n1", "humidity#h1", DAY, 41.0);
+      sink.append("n1", "humidity#h1", DAY + 5000L, 42.0);
+      sink.append("n1", "humidity#h1", DAY + 1000L, 43.0);
+      sink.close();
+
+      List<Path> files = blocksOf("n1", "humidity#h1");
+      assertEquals(2, files.size());
+      assertEquals(1, blockCount(files.get(0)));
+      assertEquals(2, blockCount(files.get(1)));
+    }
+
+    /**
+     * Verifies flush only seals blocks older than the maximum age.
+     */
+    @Test
+    @DisplayName("Flush seals only blocks past the maximum age")
+    void testFlushByAge() throws IOException, InterruptedException {
+      SegmentHistorySink sink = new SegmentHistorySink(root, 4096, 50);
+      sink.append("n1", "light#l1", DAY, 100.0);
+      sink.flush();
+      assertFalse(Files.exists(SegmentFormat.seriesDirectory(root, "n1", "light#l1")));
+
+      Thread.sleep(60);
+      sink.flush();
+      assertEquals(1, blockCount(blocksOf("n1", "light#l1").get(0)));
+      sink.close();
+    }
+
+    /**
+     * Verifies exported CSV matches the written samples and corrupt blocks
+     * are skipped.
+     */
+    @Test
+    @DisplayName("CSV export reproduces samples and skips corrupt blocks")
+    void testExport() throws IOException {
+      SegmentHistorySink sink = new SegmentHistorySink(root, 2, 60_000);
+      sink.append("n1", "temperature#t1", DAY, 20.5);
+      sink.append("n1", "temperature#t1", DAY + 1000L, 21.5);
+      sink.append("n1", "temperature#t1", DAY + 2000L, 22.5);
+      sink.close();
+
+      Path file = blocksOf("n1", "temperature#t1").get(0);
+      byte[] bytes = Files.readAllBytes(file);
+      bytes[SegmentFormat.HEADER_BYTES] ^= 0x01; // corrupt the first block's payload
+      Files.write(file, bytes);
+
+      Path csvRoot = root.resolve("csv");
+      long exported = HistoryCsvExporter.exportAll(root, csvRoot);
+
+      assertEquals(1, exported);
+      List<String> lines = Files.readAllLines(csvRoot.resolve("n1").resolve("temperature#t1.csv"));
+      assertEquals(2, lines.size());
+      assertTrue(lines.get(1).endsWith(",temperature#t1,22.5"));
+    }
+  }
+}
@@ -0,0 +1,174 @@
+package group6.logic.history;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SlidingWindowStats.
+ * Tests verify:
+ * Count, average, variance, min and max match a full scan of the window
+ * Slices expire on later samples and on reads after the sensor went quiet
+ * Concurrent readers see consistent aggregates
+ */
+class SlidingWindowStatsTest {
+
+  private static final long WINDOW = 60_000; // 60 slices of one second
+
+  /**
+   * Scans every sample in the window ending at {@code now}, at slice precision.
+   */
+  private static double[] scan(List<double[]> samples, long now) {
+    long oldest = Math.floorDiv(now, 1000) - 59;
+    long count = 0;
+    double sum = 0;
+    double squares = 0;
+    double min = Double.NaN;
+    double max = Double.NaN;
+    for (double[] sample : samples) {
+      if (Math.floorDiv((long) sample[0], 1000) >= oldest) {
+        double v = sample[1];
+        count++;
+        sum += v;
+        squares += v * v;
+        min = Double.isNaN(min) ? v : Math.min(min, v);
+        max = Double.isNaN(max) ? v : Math.max(max, v);
+      }
+    }
+    double mean = sum / count;
+    return new double[] {count, mean, squares / count - mean * mean, min, max};
+  }
+
+  /**
+   * Tests for the aggregates.
+   */
+  @Nested
+  @DisplayName("Aggregate Tests")
+  class AggregateTests {
+
+    /**
+     * Verifies every aggregate matches a full scan while random samples
+     * stream in with irregular gaps.
+     */
+    @Test
+    @DisplayName("Aggregates match a full scan")
+    void testMatchesScan() {
+      Random random = new Random(7);
+      SlidingWindowStats stats = new SlidingWindowStats(WINDOW);
+      List<double[]> samples = new ArrayList<>();
+      long t = 1_000_000;
+      for (int i = 0; i < 5000; i++) {
+        t += random.nextInt(10) == 0 ? random.nextInt(20_000) : random.nextInt(300);
+        double value = 20 + random.nextGaussian() * 5;
+        stats.add(t, value);
+        samples.add(new double[] {t, value});
+
+        if (i % 37 == 0) {
+          long now = t + random.nextInt(5000);
+          double[] expected = scan(samples, now);
+          assertEquals((long) expected[0], stats.getCount(now));
+          assertEquals(expected[1], stats.getAverage(now), 1e-9);
+          assertEquals(expected[2], stats.getVariance(now), 1e-6);
+          assertEquals(expected[3], stats.getMin(now));
+          assertEquals(expected[4], stats.getMax(now));
+        }
+      }
+    }
+
+    /**
+     * Verifies the minimum moves on when the slice holding it expires.
+     */
+    @Test
+    @DisplayName("Min and max expire with their slice")
+    void testMinMaxExpire() {
+      SlidingWindowStats stats = new SlidingWindowStats(WINDOW);
+      stats.add(0, 1);
+      stats.add(10_000, 100);
+      stats.add(20_000, 50);
+
+      assertEquals(1.0, stats.getMin(20_000));
+      assertEquals(100.0, stats.getMax(20_000));
+      assertEquals(50.0, stats.getMin(60_000));
+      assertEquals(100.0, stats.getMax(69_999));
+      assertEquals(50.0, stats.getMax(70_000));
+    }
+
+    /**
+     * Verifies a quiet sensor's window empties over time.
+     */
+    @Test
+    @DisplayName("Quiet sensor window empties")
+    void testQuietSensor() {
+      SlidingWindowStats stats = new SlidingWindowStats(WINDOW);
+      assertEquals(0, stats.getCount(0));
+      assertTrue(Double.isNaN(stats.getAverage(0)));
+
+      stats.add(1000, 10);
+      stats.add(30_000, 20);
+      assertEquals(15.0, stats.getAverage(30_000));
+      assertEquals(20.0, stats.getAverage(61_000));
+      assertEquals(0, stats.getCount(90_000));
+      assertTrue(Double.isNaN(stats.getMax(90_000)));
+
+      stats.add(500_000, 5);
+      assertEquals(1, stats.getCount(500_000));
+      assertEquals(5.0, stats.getMin(500_000));
+    }
+
+    /**
+     * Verifies invalid arguments are rejected.
+     */
+    @Test
+    @DisplayName("Invalid arguments are rejected")
+    void testInvalidArguments() {
+      assertThrows(IllegalArgumentException.class, () -> new SlidingWindowStats(10, 60));
+      assertThrows(IllegalArgumentException.class, () -> new SlidingWindowStats(1000, 0));
+    }
+  }
+
+  /**
+   * Tests for concurrent reading.
+   */
+  @Nested
+  @DisplayName("Concurrency Tests")
+  class ConcurrencyTests {
+
+    /**
+     * Verifies readers racing a writer see matching count and bounds: every
+     * sample is 1 or 3, so the average must lie between min and max.
+     */
+    @Test
+    @DisplayName("Readers see consistent aggregates")
+    void testConcurrentReaders() throws InterruptedException {
+      SlidingWindowStats stats = new SlidingWindowStats(WINDOW);
+      AtomicBoolean running = new AtomicBoolean(true);
+      AtomicReference<String> failure = new AtomicReference<>();
+      Thread writer = new Thread(() -> {
+        long t = 0;
+        while (running.get()) {
+          stats.add(t, t % 2 == 0 ? 1 : 3);
+          t += 7;
+        }
+      });
+      writer.start();
+      long deadline = System.currentTimeMillis() + 300;
+      while (System.currentTimeMillis() < deadline) {
+        double average = stats.getAverage(0);
+        double min = stats.getMin(0);
+        double max = stats.getMax(0);
+        if (!Double.isNaN(average) && (average < 1 || average > 3 || min < 1 || max > 3)) {
+          failure.set("average " + average + " min " + min + " max " + max);
+        }
+      }
+      running.set(false);
+      writer.join();
+      assertNull(failure.get());
+    }
+  }
+}
@@ -0,0 +1,153 @@
+package group6.net;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Loopback tests for Connection write batching.
+ *
+ *Tests verify:
+ *Frames below the threshold stay buffered until flush()
+ *Crossing the threshold, or sending after the linger time, flushes
+ *Frame order is kept across batched and flushed frames
+ *close() flushes pending frames, abort() drops them
+ */
+class ConnectionTest {
+
+  private static final int THRESHOLD = 1024;
+  private static final long QUIET_MS = 200;
+
+  /**
+   * Tests for batched writes.
+   */
+  @Nested
+  @DisplayName("Write Batching")
+  class WriteBatchingTests {
+
+    private ServerSocket server;
+    private Socket peer;
+    private DataInputStream peerIn;
+    private Connection connection;
+
+    /**
+     * Connects a batching connection to a raw peer socket over loopback.
+     */
+    @BeforeEach
+    void setUp() throws IOException {
+      server = new ServerSocket(0);
+      Socket socket = new Socket("localhost", server.getLocalPort());
+      peer = server.accept();
+      peer.setSoTimeout((int) QUIET_MS);
+      peerIn = new DataInputStream(peer.getInputStream());
+      connection = new Connection(socket);
+      connection.enableWriteBatching(THRESHOLD, 60_000);
+    }
+
+    /**
+     * Closes both ends.
+     */
+    @AfterEach
+    void tearDown() throws IOException {
+      connection.close();
+      peer.close();
+      server.close();
+    }
+
+    /**
+     * Verifies small frames are only readable by the peer after flush().
+     */
+    @Test
+    @DisplayName("Frames below the threshold wait for flush")
+    void testBufferedUntilFlush() throws IOException {
+      connection.sendFrame(bytes("one"));
+      connection.sendFrame(bytes("two"));
+
+      assertThrows(SocketTimeoutException.class, peerIn::readInt);
+      connection.flush();
+      assertEquals("one", readFrame());
+      assertEquals("two", readFrame());
+    }
+
+    /**
+     * Verifies the frame that crosses the threshold flushes everything
+     * pending, in order.
+     */
+    @Test
+    @DisplayName("Crossing the threshold flushes in order")
+    void testThresholdFlush() throws IOException {
+      String large = "x".repeat(THRESHOLD);
+      connection.sendFrame(bytes("first"));
+      connection.sendFrame(bytes(large));
+
+      assertEquals("first", readFrame());
+      assertEquals(large, readFrame());
+
+      connection.sendFrame(bytes("after"));
+      assertThrows(SocketTimeoutException.class, peerIn::readInt);
+      connection.flush();
+      assertEquals("after", readFrame());
+    }
+
+    /**
+     * Verifies a frame sent after the linger time flushes the batch.
+     */
+    @Test
+    @DisplayName("Sending after the linger time flushes")
+    void testLingerFlush() throws Exception {
+      connection.enableWriteBatching(THRESHOLD, 50);
+      connection.sendFrame(bytes("early"));
+      Thread.sleep(100);
+      connection.sendFrame(bytes("late"));
+
+      assertEquals("early", readFrame());
+      assertEquals("late", readFrame());
+    }
+
+    /**
+     * Verifies close() writes pending frames before closing.
+     */
+    @Test
+    @DisplayName("close() flushes pending frames")
+    void testCloseFlushes() throws IOException {
+      connection.sendFrame(bytes("last words"));
+      connection.close();
+
+      assertEquals("last words", readFrame());
+      assertThrows(EOFException.class, peerIn::readInt);
+    }
+
+    /**
+     * Verifies abort() closes without writing pending frames.
+     */
+    @Test
+    @DisplayName("abort() drops pending frames")
+    void testAbortDrops() throws IOException {
+      connection.sendFrame(bytes("never sent"));
+      connection.abort();
+
+      assertThrows(EOFException.class, peerIn::readInt);
+    }
+
+    private String readFrame() throws IOException {
+      byte[] payload = new byte[peerIn.readInt()];
+      peerIn.readFully(payload);
+      return new String(payload, StandardCharsets.UTF_8);
+    }
+  }
+
+  private static byte[] bytes(String text) {
+    return text.getBytes(StandardCharsets.UTF_8);
+  }
+}
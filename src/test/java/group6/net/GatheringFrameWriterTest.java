@@ -0,0 +1,175 @@
+package group6.net;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for GatheringFrameWriter.
+ *
+ *Tests verify:
+ *Frames are written length-prefixed and in order, including empty frames
+ *A flush stopped by a full channel continues where it stopped
+ *Frames stay intact when the slot queue is compacted and grown
+ *The caller's payload position is left untouched
+ */
+class GatheringFrameWriterTest {
+
+  /**
+   * Channel that accepts bytes until its room runs out and then writes
+   * nothing, like a non-blocking socket whose send buffer is full.
+   */
+  private static final class LimitedChannel implements GatheringByteChannel {
+    final ByteArrayOutputStream written = new ByteArrayOutputStream();
+    int room;
+
+    LimitedChannel(int room) {
+      this.room = room;
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs, int offset, int length) {
+      long total = 0;
+      for (int i = offset; i < offset + length && room > 0; i++) {
+        while (srcs[i].hasRemaining() && room > 0) {
+          written.write(srcs[i].get());
+          room--;
+          total++;
+        }
+      }
+      return total;
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs) {
+      return write(srcs, 0, srcs.length);
+    }
+
+    @Override
+    public int write(ByteBuffer src) {
+      return (int) write(new ByteBuffer[] {src}, 0, 1);
+    }
+
+    @Override
+    public boolean isOpen() {
+      return true;
+    }
+
+    @Override
+    public void close() {
+      // nothing to close
+    }
+
+    List<String> frames() throws IOException {
+      DataInputStream in = new DataInputStream(new ByteArrayInputStream(written.toByteArray()));
+      List<String> frames = new ArrayList<>();
+      while (in.available() > 0) {
+        byte[] payload = new byte[in.readInt()];
+        in.readFully(payload);
+        frames.add(new String(payload, StandardCharsets.UTF_8));
+      }
+      return frames;
+    }
+  }
+
+  private static ByteBuffer payload(String text) {
+    return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Tests for writing frames.
+   */
+  @Nested
+  @DisplayName("Writing Tests")
+  class WritingTests {
+
+    /**
+     * Verifies frames come out length-prefixed and in order.
+     */
+    @Test
+    @DisplayName("Frames are written in order")
+    void testFramesInOrder() throws IOException {
+      LimitedChannel channel = new LimitedChannel(Integer.MAX_VALUE);
+      GatheringFrameWriter writer = new GatheringFrameWriter(channel);
+
+      writer.writeFrame(payload("first"));
+      writer.writeFrame(payload(""));
+      writer.writeFrame(payload("third"));
+      writer.flush();
+
+      assertFalse(writer.hasPending());
+      assertEquals(List.of("first", "", "third"), channel.frames());
+    }
+
+    /**
+     * Verifies a flush that the channel cuts short resumes on the next flush.
+     */
+    @Test
+    @DisplayName("Partial flush resumes")
+    void testPartialFlush() throws IOException {
+      LimitedChannel channel = new LimitedChannel(3);
+      GatheringFrameWriter writer = new GatheringFrameWriter(channel);
+
+      writer.writeFrame(payload("hello"));
+      writer.flush();
+      assertTrue(writer.hasPending());
+
+      channel.room = Integer.MAX_VALUE;
+      writer.flush();
+      assertFalse(writer.hasPending());
+      assertEquals(List.of("hello"), channel.frames());
+    }
+
+    /**
+     * Verifies frames queued across many partial flushes, which compacts and
+     * grows the slot queue, are written intact.
+     */
+    @Test
+    @DisplayName("Frames survive queue compaction and growth")
+    void testCompactionAndGrowth() throws IOException {
+      LimitedChannel channel = new LimitedChannel(7);
+      GatheringFrameWriter writer = new GatheringFrameWriter(channel);
+      List<String> expected = new ArrayList<>();
+
+      for (int i = 0; i < 200; i++) {
+        String text = "frame-" + i;
+        expected.add(text);
+        writer.writeFrame(payload(text));
+        if (i % 3 == 0) {
+          channel.room = 7;
+          writer.flush(); // leaves frames half written at the front
+        }
+      }
+      channel.room = Integer.MAX_VALUE;
+      writer.flush();
+
+      assertEquals(expected, channel.frames());
+    }
+
+    /**
+     * Verifies the payload buffer's position is not moved by writing.
+     */
+    @Test
+    @DisplayName("Payload position is untouched")
+    void testPayloadPositionUntouched() throws IOException {
+      GatheringFrameWriter writer = new GatheringFrameWriter(new LimitedChannel(100));
+      ByteBuffer buffer = payload("abc");
+
+      writer.writeFrame(buffer);
+      writer.flush();
+
+      assertEquals(0, buffer.position());
+    }
+  }
+}
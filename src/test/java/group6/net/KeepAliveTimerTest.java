@@ -0,0 +1,207 @@
+package group6.net;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for KeepAliveTimer, on a scheduler and clock stepped by hand.
+ *
+ *Tests verify:
+ *A keepalive is sent once nothing was sent for the idle time
+ *No keepalive is sent while traffic keeps flowing
+ *The read timeout fires onTimeout once, unless frames keep arriving
+ *A read timeout turned on later is applied
+ *Stopping cancels the timer, and invalid settings are rejected
+ */
+class KeepAliveTimerTest {
+
+  /**
+   * Tests for sending keepalives.
+   */
+  @Nested
+  @DisplayName("Keepalive Tests")
+  class KeepAliveTests {
+
+    private ManualScheduler scheduler;
+    private List<Long> sendTimes;
+
+    /**
+     * Creates the scheduler and the keepalive recorder.
+     */
+    @BeforeEach
+    void setUp() {
+      scheduler = new ManualScheduler();
+      sendTimes = new ArrayList<>();
+    }
+
+    /**
+     * Verifies an idle connection gets a keepalive after each idle time.
+     */
+    @Test
+    @DisplayName("Idle connection sends keepalive")
+    void testIdleSend() {
+      KeepAliveTimer timer = timer(100);
+      long start = scheduler.now();
+
+      timer.start();
+      scheduler.advance(99);
+      assertEquals(0, sendTimes.size());
+      scheduler.advance(1);
+      scheduler.advance(100);
+
+      assertEquals(List.of(start + 100, start + 200), sendTimes);
+      timer.stop();
+    }
+
+    /**
+     * Verifies a connection that keeps sending never sends a keepalive, and
+     * sends one an idle time after the traffic stops.
+     */
+    @Test
+    @DisplayName("No keepalive while traffic flows")
+    void testNoSendWhileBusy() {
+      KeepAliveTimer timer = timer(150);
+
+      timer.start();
+      for (int i = 0; i < 30; i++) {
+        timer.markSent();
+        scheduler.advance(20);
+      }
+      assertEquals(0, sendTimes.size());
+
+      long lastTraffic = scheduler.now() - 20;
+      scheduler.advance(150);
+      assertEquals(List.of(lastTraffic + 150), sendTimes);
+      timer.stop();
+    }
+
+    /**
+     * Verifies nothing is sent after stop.
+     */
+    @Test
+    @DisplayName("Stop cancels the timer")
+    void testStop() {
+      KeepAliveTimer timer = timer(50);
+
+      timer.start();
+      timer.stop();
+      scheduler.advance(200);
+
+      assertEquals(0, sendTimes.size());
+      assertEquals(0, scheduler.pendingTasks());
+    }
+
+    /**
+     * Verifies invalid settings are rejected.
+     */
+    @Test
+    @DisplayName("Invalid settings throw exception")
+    void testInvalidSettings() {
+      assertThrows(IllegalArgumentException.class,
+          () -> new KeepAliveTimer(0, 0, () -> { }, () -> { }));
+      assertThrows(IllegalArgumentException.class,
+          () -> new KeepAliveTimer(100, -1, () -> { }, () -> { }));
+      KeepAliveTimer timer = new KeepAliveTimer(100, 0, () -> { }, () -> { });
+      assertThrows(IllegalArgumentException.class, () -> timer.setReadTimeout(-1));
+    }
+
+    private KeepAliveTimer timer(long idleMs) {
+      return new KeepAliveTimer(idleMs, 0, () -> sendTimes.add(scheduler.now()), () -> { },
+          scheduler, scheduler::now);
+    }
+  }
+
+  /**
+   * Tests for the read timeout.
+   */
+  @Nested
+  @DisplayName("Read Timeout Tests")
+  class ReadTimeoutTests {
+
+    private ManualScheduler scheduler;
+    private AtomicInteger timeouts;
+
+    /**
+     * Creates the scheduler and the timeout counter.
+     */
+    @BeforeEach
+    void setUp() {
+      scheduler = new ManualScheduler();
+      timeouts = new AtomicInteger();
+    }
+
+    /**
+     * Verifies a silent peer triggers onTimeout once, after the read
+     * timeout.
+     */
+    @Test
+    @DisplayName("Read timeout fires onTimeout")
+    void testReadTimeout() {
+      KeepAliveTimer timer = timer(1000, 150);
+
+      timer.start();
+      scheduler.advance(149);
+      assertEquals(0, timeouts.get());
+      scheduler.advance(1);
+      assertEquals(1, timeouts.get());
+
+      scheduler.advance(5000);
+      assertEquals(1, timeouts.get());
+      assertEquals(0, scheduler.pendingTasks());
+    }
+
+    /**
+     * Verifies frames arriving in time keep the peer alive, and the timeout
+     * fires once they stop.
+     */
+    @Test
+    @DisplayName("Received frames prevent the timeout")
+    void testReceivedFrames() {
+      KeepAliveTimer timer = timer(1000, 150);
+
+      timer.start();
+      for (int i = 0; i < 20; i++) {
+        timer.markReceived();
+        scheduler.advance(25);
+      }
+      assertEquals(0, timeouts.get());
+
+      scheduler.advance(124);
+      assertEquals(0, timeouts.get());
+      scheduler.advance(1);
+      assertEquals(1, timeouts.get());
+    }
+
+    /**
+     * Verifies a read timeout turned on after start is applied, counting
+     * from when it was turned on.
+     */
+    @Test
+    @DisplayName("Read timeout turned on later")
+    void testSetReadTimeout() {
+      KeepAliveTimer timer = timer(100, 0);
+
+      timer.start();
+      scheduler.advance(300);
+      assertEquals(0, timeouts.get());
+
+      timer.setReadTimeout(150);
+      scheduler.advance(149);
+      assertEquals(0, timeouts.get());
+      scheduler.advance(1);
+      assertEquals(1, timeouts.get());
+    }
+
+    private KeepAliveTimer timer(long idleMs, long readTimeoutMs) {
+      return new KeepAliveTimer(idleMs, readTimeoutMs, () -> { }, timeouts::incrementAndGet,
+          scheduler, scheduler::now);
+    }
+  }
+}
@@ -0,0 +1,134 @@
+package group6.net;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scheduler and clock for timer tests, stepped by hand.
+ *
+ * <p>Time only moves in {@link #advance(long)}, which runs every task that
+ * becomes due on the calling thread, in order of due time, with the clock
+ * set to each task's due time while it runs. Tasks scheduled by a running
+ * task are run too if they fall inside the step. The clock starts well
+ * after 0, as the real one does, so a timestamp of 0 reads as long ago.
+ */
+public final class ManualScheduler implements TaskScheduler {
+
+  private final List<Task> tasks = new ArrayList<>();
+  private long now = 1_000_000;
+  private long sequence;
+
+  /**
+   * Returns the current fake time in milliseconds.
+   *
+   * @return the current time
+   */
+  public long now() {
+    return now;
+  }
+
+  @Override
+  public ScheduledFuture<?> schedule(Runnable task, long delayMs) {
+    Task scheduled = new Task(task, now + Math.max(0, delayMs), sequence++);
+    tasks.add(scheduled);
+    return scheduled;
+  }
+
+  /**
+   * Moves the clock forward and runs the tasks that become due.
+   *
+   * @param ms milliseconds to move forward, 0 runs tasks that are due now
+   */
+  public void advance(long ms) {
+    long target = now + ms;
+    Task next = nextDue(target);
+    while (next != null) {
+      tasks.remove(next);
+      now = next.dueAt;
+      next.done = true;
+      next.task.run();
+      next = nextDue(target);
+    }
+    now = target;
+  }
+
+  /**
+   * Returns the number of tasks that are scheduled and not cancelled.
+   *
+   * @return the pending task count
+   */
+  public int pendingTasks() {
+    return tasks.size();
+  }
+
+  private Task nextDue(long target) {
+    Task next = null;
+    for (Task task : tasks) {
+      if (task.dueAt <= target && (next == null || task.dueAt < next.dueAt
+          || (task.dueAt == next.dueAt && task.order < next.order))) {
+        next = task;
+      }
+    }
+    return next;
+  }
+
+  private final class Task implements ScheduledFuture<Object> {
+
+    private final Runnable task;
+    private final long dueAt;
+    private final long order;
+    private boolean done;
+    private boolean cancelled;
+
+    private Task(Runnable task, long dueAt, long order) {
+      this.task = task;
+      this.dueAt = dueAt;
+      this.order = order;
+    }
+
+    @Override
+    public long getDelay(TimeUnit unit) {
+      return unit.convert(dueAt - now, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public int compareTo(Delayed other) {
+      return Long.compare(getDelay(TimeUnit.MILLISECONDS),
+          other.getDelay(TimeUnit.MILLISECONDS));
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      if (done) {
+        return false;
+      }
+      done = true;
+      cancelled = true;
+      tasks.remove(this);
+      return true;
+    }
+
+    @Override
+    public boolean isCancelled() {
+      return cancelled;
+    }
+
+    @Override
+    public boolean isDone() {
+      return done;
+    }
+
+    @Override
+    public Object get() {
+      return null;
+    }
+
+    @Override
+    public Object get(long timeout, TimeUnit unit) {
+      return null;
+    }
+  }
+}
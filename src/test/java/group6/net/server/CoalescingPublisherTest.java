@@ -0,0 +1,193 @@
+package group6.net.server;
+
+import group6.entity.node.SensorNode;
+import group6.net.ManualScheduler;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CoalescingPublisher, on a scheduler and clock stepped by
+ * hand.
+ *
+ *Tests verify:
+ *Changes within one interval are sent together after the interval
+ *A change after a quiet interval is flushed at once
+ *A full batch cancels the pending flush and flushes right away
+ *An interval of 0 flushes on the notifying thread for every change
+ *Closing cancels the pending flush and ignores later changes
+ *The node's push coalescing settings drive the publisher
+ */
+class CoalescingPublisherTest {
+
+  /**
+   * Tests for when flushes happen.
+   */
+  @Nested
+  @DisplayName("Flush Timing")
+  class FlushTimingTests {
+
+    private ManualScheduler scheduler;
+    private List<Long> flushTimes;
+
+    /**
+     * Creates the scheduler and the flush recorder.
+     */
+    @BeforeEach
+    void setUp() {
+      scheduler = new ManualScheduler();
+      flushTimes = new ArrayList<>();
+    }
+
+    /**
+     * Verifies changes after a flush wait for the interval and then go out
+     * in one flush.
+     */
+    @Test
+    @DisplayName("Changes wait for the interval")
+    void testIntervalDelay() {
+      CoalescingPublisher publisher = publisher(300, 100);
+
+      publisher.markDirty(); // no flush yet, so this one goes out at once
+      scheduler.advance(0);
+      assertEquals(1, flushTimes.size());
+      long start = scheduler.now();
+      publisher.markDirty();
+      publisher.markDirty();
+      publisher.markDirty();
+
+      scheduler.advance(299);
+      assertEquals(1, flushTimes.size());
+      scheduler.advance(1);
+      assertEquals(List.of(start, start + 300), flushTimes);
+      scheduler.advance(1000);
+      assertEquals(2, flushTimes.size());
+      assertEquals(0, scheduler.pendingTasks());
+    }
+
+    /**
+     * Verifies a change arriving after the interval already passed is not
+     * held back.
+     */
+    @Test
+    @DisplayName("Change after a quiet interval flushes at once")
+    void testQuietInterval() {
+      CoalescingPublisher publisher = publisher(300, 100);
+
+      publisher.markDirty();
+      scheduler.advance(500);
+      publisher.markDirty();
+      scheduler.advance(0);
+
+      assertEquals(2, flushTimes.size());
+      assertEquals(scheduler.now(), (long) flushTimes.get(1));
+    }
+
+    /**
+     * Verifies reaching the batch size replaces the pending flush with an
+     * immediate one.
+     */
+    @Test
+    @DisplayName("Full batch flushes early")
+    void testBatchFlush() {
+      CoalescingPublisher publisher = publisher(60_000, 3);
+
+      publisher.markDirty();
+      scheduler.advance(0);
+      publisher.markDirty();
+      publisher.markDirty();
+      scheduler.advance(100);
+      assertEquals(1, flushTimes.size());
+
+      publisher.markDirty(); // third change since the flush
+      scheduler.advance(0);
+      assertEquals(2, flushTimes.size());
+      assertEquals(0, scheduler.pendingTasks());
+      scheduler.advance(60_000);
+      assertEquals(2, flushTimes.size());
+    }
+
+    /**
+     * Verifies close cancels the pending flush and ignores later changes.
+     */
+    @Test
+    @DisplayName("Close cancels pending flush")
+    void testClose() {
+      CoalescingPublisher publisher = publisher(200, 100);
+
+      publisher.markDirty();
+      scheduler.advance(0);
+      publisher.markDirty();
+      publisher.close();
+      publisher.markDirty();
+
+      assertEquals(0, scheduler.pendingTasks());
+      scheduler.advance(1000);
+      assertEquals(1, flushTimes.size());
+    }
+
+    /**
+     * Verifies an interval of 0 flushes inline on the caller's thread.
+     */
+    @Test
+    @DisplayName("Interval 0 passes changes through")
+    void testPassThrough() {
+      AtomicInteger flushes = new AtomicInteger();
+      AtomicReference<Thread> flushThread = new AtomicReference<>();
+      CoalescingPublisher publisher = new CoalescingPublisher(() -> {
+        flushes.incrementAndGet();
+        flushThread.set(Thread.currentThread());
+      }, () -> 0, () -> 100, scheduler, scheduler::now);
+
+      publisher.markDirty();
+      publisher.markDirty();
+
+      assertEquals(2, flushes.get());
+      assertSame(Thread.currentThread(), flushThread.get());
+      assertEquals(0, scheduler.pendingTasks());
+    }
+
+    /**
+     * Verifies a publisher reading the node's settings follows changes to
+     * them, and that invalid settings are rejected.
+     */
+    @Test
+    @DisplayName("Node settings drive the publisher")
+    void testNodeSettings() {
+      SensorNode node = new SensorNode("node-01");
+      AtomicInteger flushes = new AtomicInteger();
+      CoalescingPublisher publisher = new CoalescingPublisher(flushes::incrementAndGet,
+          node::getPushIntervalMs, node::getPushBatchSize, scheduler, scheduler::now);
+
+      node.setPushCoalescing(0, 1);
+      publisher.markDirty();
+      publisher.markDirty();
+      assertEquals(2, flushes.get());
+
+      node.setPushCoalescing(100, 10);
+      publisher.markDirty();
+      scheduler.advance(0);
+      publisher.markDirty();
+      scheduler.advance(99);
+      assertEquals(3, flushes.get());
+      scheduler.advance(1);
+      assertEquals(4, flushes.get());
+
+      assertThrows(IllegalArgumentException.class, () -> node.setPushCoalescing(-1, 10));
+      assertThrows(IllegalArgumentException.class, () -> node.setPushCoalescing(50, 0));
+      publisher.close();
+    }
+
+    private CoalescingPublisher publisher(long intervalMs, int batchSize) {
+      return new CoalescingPublisher(() -> flushTimes.add(scheduler.now()),
+          () -> intervalMs, () -> batchSize, scheduler, scheduler::now);
+    }
+  }
+}
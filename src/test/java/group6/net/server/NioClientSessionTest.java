@@ -0,0 +1,276 @@
+package group6.net.server;
+
+import group6.entity.device.sensor.TemperatureSensor;
+import group6.entity.node.SensorNode;
+import group6.net.Connection;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Loopback tests for NioClientSession framing.
+ *
+ *Tests verify:
+ *A frame split over several reads is reassembled
+ *Several frames arriving in one read are all handled, in order
+ *Frames larger than the initial read buffer grow the buffer
+ *Oversize and negative frame lengths close the session
+ *Binary DATA carries timestamps only when the HELLO asks for them
+ */
+class NioClientSessionTest {
+
+  private static final String NODE_ID = "node-01";
+
+  /**
+   * Tests for reading frames from the control panel.
+   */
+  @Nested
+  @DisplayName("Frame Reading")
+  class FrameReadingTests {
+
+    private NioEventLoopGroup group;
+    private NioAcceptor acceptor;
+    private Socket socket;
+
+    /**
+     * Binds a node on a private event loop and connects a raw socket to it.
+     */
+    @BeforeEach
+    void setUp() throws IOException {
+      group = new NioEventLoopGroup(1);
+      acceptor = NioAcceptor.bind(0, new SensorNode(NODE_ID), group, s -> { }, s -> { });
+      socket = new Socket("localhost", acceptor.getPort());
+      socket.setSoTimeout(5000);
+    }
+
+    /**
+     * Closes the socket and stops the event loop.
+     */
+    @AfterEach
+    void tearDown() throws IOException {
+      socket.close();
+      acceptor.close();
+      group.shutdown();
+    }
+
+    /**
+     * Verifies a HELLO split inside its length prefix and its payload is
+     * reassembled and answered.
+     */
+    @Test
+    @DisplayName("Split frame is reassembled")
+    void testSplitFrame() throws Exception {
+      byte[] frame = frame("HELLO|" + NODE_ID + "|encoding:text,dict:0");
+      OutputStream out = socket.getOutputStream();
+      out.write(frame, 0, 2);
+      out.flush();
+      Thread.sleep(50);
+      out.write(frame, 2, 6);
+      out.flush();
+      Thread.sleep(50);
+      out.write(frame, 8, frame.length - 8);
+      out.flush();
+
+      assertTrue(readMessage().startsWith("WELCOME|" + NODE_ID + "|"));
+    }
+
+    /**
+     * Verifies frames written in one call are all handled in order.
+     */
+    @Test
+    @DisplayName("Concatenated frames are handled in order")
+    void testConcatenatedFrames() throws Exception {
+      OutputStream out = socket.getOutputStream();
+      out.write(concat(frame("COMMAND|" + NODE_ID + "|nope-1:1"),
+          frame("COMMAND|" + NODE_ID + "|nope-2:1"),
+          frame("COMMAND|" + NODE_ID + "|nope-3:1")));
+      out.flush();
+
+      assertTrue(readMessage().endsWith("Unknown actuator: nope-1"));
+      assertTrue(readMessage().endsWith("Unknown actuator: nope-2"));
+      assertTrue(readMessage().endsWith("Unknown actuator: nope-3"));
+    }
+
+    /**
+     * Verifies a frame larger than the initial read buffer is read whole,
+     * together with a small frame behind it.
+     */
+    @Test
+    @DisplayName("Large frame grows the read buffer")
+    void testLargeFrame() throws Exception {
+      String longId = "x".repeat(40_000);
+      OutputStream out = socket.getOutputStream();
+      out.write(concat(frame("COMMAND|" + NODE_ID + "|" + longId + ":1"),
+          frame("COMMAND|" + NODE_ID + "|nope-1:1")));
+      out.flush();
+
+      assertTrue(readMessage().endsWith("Unknown actuator: " + longId));
+      assertTrue(readMessage().endsWith("Unknown actuator: nope-1"));
+    }
+
+    /**
+     * Verifies a length above the maximum frame size closes the session.
+     */
+    @Test
+    @DisplayName("Oversize frame length closes the session")
+    void testOversizeFrame() throws Exception {
+      OutputStream out = socket.getOutputStream();
+      out.write(ByteBuffer.allocate(Integer.BYTES)
+          .putInt(Connection.DEFAULT_MAX_FRAME_SIZE + 1).array());
+      out.flush();
+
+      assertThrows(IOException.class, this::readMessage);
+    }
+
+    /**
+     * Verifies a negative length closes the session.
+     */
+    @Test
+    @DisplayName("Negative frame length closes the session")
+    void testNegativeFrameLength() throws Exception {
+      OutputStream out = socket.getOutputStream();
+      out.write(ByteBuffer.allocate(Integer.BYTES).putInt(-1).array());
+      out.flush();
+
+      assertThrows(IOException.class, this::readMessage);
+    }
+
+    /**
+     * Reads the next text message, skipping keepalives.
+     */
+    private String readMessage() throws IOException {
+      DataInputStream in = new DataInputStream(socket.getInputStream());
+      while (true) {
+        byte[] payload = new byte[in.readInt()];
+        in.readFully(payload);
+        String message = new String(payload, StandardCharsets.UTF_8);
+        if (!message.startsWith("KEEPALIVE|")) {
+          return message;
+        }
+      }
+    }
+  }
+
+  /**
+   * Tests for the options negotiated in the HELLO.
+   */
+  @Nested
+  @DisplayName("Handshake")
+  class HandshakeTests {
+
+    private static final int FLAG_TIMESTAMP = 0x02;
+
+    private NioEventLoopGroup group;
+    private NioAcceptor acceptor;
+    private Socket socket;
+
+    /**
+     * Binds a node with one sensor and connects a raw socket to it.
+     */
+    @BeforeEach
+    void setUp() throws IOException {
+      SensorNode node = new SensorNode(NODE_ID);
+      TemperatureSensor sensor = new TemperatureSensor("temp-01");
+      node.addSensor(sensor);
+      sensor.readValue(); // gives the sensor an update timestamp
+      group = new NioEventLoopGroup(1);
+      acceptor = NioAcceptor.bind(0, node, group, s -> { }, s -> { });
+      socket = new Socket("localhost", acceptor.getPort());
+      socket.setSoTimeout(5000);
+    }
+
+    /**
+     * Closes the socket and stops the event loop.
+     */
+    @AfterEach
+    void tearDown() throws IOException {
+      socket.close();
+      acceptor.close();
+      group.shutdown();
+    }
+
+    /**
+     * Verifies binary records leave out the timestamp by default.
+     */
+    @Test
+    @DisplayName("No timestamps unless negotiated")
+    void testNoTimestamps() throws IOException {
+      String welcome = handshake("encoding:binary,dict:1");
+
+      assertTrue(welcome.endsWith(",ts:0"));
+      byte[] data = refreshSensors();
+      assertEquals(0, data[4] & FLAG_TIMESTAMP);
+      assertEquals(4 + 11, data.length); // one indexed reading
+    }
+
+    /**
+     * Verifies binary records carry the timestamp when the HELLO asks.
+     */
+    @Test
+    @DisplayName("Timestamps when negotiated")
+    void testTimestamps() throws IOException {
+      String welcome = handshake("encoding:binary,dict:1,ts:1");
+
+      assertTrue(welcome.endsWith(",ts:1"));
+      byte[] data = refreshSensors();
+      assertEquals(FLAG_TIMESTAMP, data[4] & FLAG_TIMESTAMP);
+      assertEquals(4 + 19, data.length);
+    }
+
+    private String handshake(String options) throws IOException {
+      OutputStream out = socket.getOutputStream();
+      out.write(frame("HELLO|" + NODE_ID + "|" + options));
+      out.flush();
+      String welcome = new String(readFrame(), StandardCharsets.UTF_8);
+      assertTrue(welcome.startsWith("WELCOME|"));
+      assertTrue(new String(readFrame(), StandardCharsets.UTF_8).startsWith("DICT|"));
+      return welcome;
+    }
+
+    private byte[] refreshSensors() throws IOException {
+      OutputStream out = socket.getOutputStream();
+      out.write(frame("COMMAND|" + NODE_ID + "|sensors:refresh"));
+      out.flush();
+      byte[] data;
+      do {
+        data = readFrame();
+      } while ((data[0] & 0xFF) != 0xB1);
+      return data;
+    }
+
+    private byte[] readFrame() throws IOException {
+      DataInputStream in = new DataInputStream(socket.getInputStream());
+      byte[] payload = new byte[in.readInt()];
+      in.readFully(payload);
+      return payload;
+    }
+  }
+
+  private static byte[] frame(String message) {
+    byte[] payload = message.getBytes(StandardCharsets.UTF_8);
+    return ByteBuffer.allocate(Integer.BYTES + payload.length)
+        .putInt(payload.length).put(payload).array();
+  }
+
+  private static byte[] concat(byte[]... frames) {
+    int length = 0;
+    for (byte[] frame : frames) {
+      length += frame.length;
+    }
+    ByteBuffer all = ByteBuffer.allocate(length);
+    for (byte[] frame : frames) {
+      all.put(frame);
+    }
+    return all.array();
+  }
+}
@@ -0,0 +1,215 @@
+package group6.net.server;
+
+import group6.net.OverloadPolicy;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for OutboundQueue.
+ *
+ *Tests verify:
+ *The queue is overloaded from the high watermark until drained to the low
+ *Queued deltas are dropped on overload and new deltas are refused meanwhile
+ *Every frame is taken exactly once, by the writer or by a drop
+ *COALESCE asks for one resync when an overload ends, DROP_STALE does not
+ *DISCONNECT reports the overload instead of dropping anything
+ *Every policy disconnects once frames would pass the hard limit
+ */
+class OutboundQueueTest {
+
+  private static final long LOW = 40;
+  private static final long HIGH = 100;
+
+  /**
+   * Tests for the watermarks and overload policies.
+   */
+  @Nested
+  @DisplayName("Overload Tests")
+  class OverloadTests {
+
+    /**
+     * Verifies the overload starts above the high watermark and ends only
+     * once the queue is back at the low watermark.
+     */
+    @Test
+    @DisplayName("Watermark transitions")
+    void testWatermarks() {
+      OutboundQueue queue = new OutboundQueue();
+
+      assertEquals(OutboundQueue.Result.QUEUED, offer(queue, 60, false, OverloadPolicy.DROP_STALE));
+      assertFalse(queue.isOverloaded());
+      assertEquals(OutboundQueue.Result.QUEUED, offer(queue, 60, false, OverloadPolicy.DROP_STALE));
+      assertTrue(queue.isOverloaded());
+      assertEquals(1, queue.getOverloads());
+      assertEquals(120, queue.getPeakBytes());
+
+      assertFalse(queue.checkRecovered(LOW));
+      assertNotNull(queue.poll());
+      assertFalse(queue.checkRecovered(LOW)); // 60 bytes left, still above low
+      assertTrue(queue.isOverloaded());
+      assertNotNull(queue.poll());
+      assertFalse(queue.checkRecovered(LOW)); // DROP_STALE never resyncs
+      assertFalse(queue.isOverloaded());
+      assertEquals(0, queue.getQueuedBytes());
+      assertEquals(1, queue.getOverloads());
+    }
+
+    /**
+     * Verifies deltas queued before the overload are dropped and skipped by
+     * the writer, and new deltas are refused until it ends.
+     */
+    @Test
+    @DisplayName("Queued deltas are dropped on overload")
+    void testDropQueuedDeltas() {
+      OutboundQueue queue = new OutboundQueue();
+      byte[] reply = new byte[30];
+
+      offer(queue, 30, true, OverloadPolicy.DROP_STALE);
+      queue.offer(reply, false, HIGH, OverloadPolicy.DROP_STALE);
+      offer(queue, 60, false, OverloadPolicy.DROP_STALE); // 120 bytes, overloaded
+
+      assertEquals(1, queue.getDroppedFrames());
+      assertEquals(90, queue.getQueuedBytes());
+      assertEquals(OutboundQueue.Result.DROPPED, offer(queue, 10, true, OverloadPolicy.DROP_STALE));
+      assertEquals(2, queue.getDroppedFrames());
+
+      assertSame(reply, queue.poll());
+      assertEquals(60, queue.poll().length);
+      assertNull(queue.poll());
+      assertEquals(0, queue.getQueuedBytes());
+    }
+
+    /**
+     * Verifies a delta the writer already took is not dropped again, and a
+     * dropped one is never handed to the writer.
+     */
+    @Test
+    @DisplayName("A delta is claimed only once")
+    void testClaimOnce() throws InterruptedException {
+      OutboundQueue queue = new OutboundQueue();
+      byte[] taken = new byte[30];
+
+      queue.offer(taken, true, HIGH, OverloadPolicy.DROP_STALE);
+      offer(queue, 30, true, OverloadPolicy.DROP_STALE);
+      assertSame(taken, queue.poll(10));
+      offer(queue, 80, false, OverloadPolicy.DROP_STALE); // 110 bytes, overloaded
+
+      assertEquals(1, queue.getDroppedFrames());
+      assertEquals(80, queue.getQueuedBytes());
+      assertEquals(80, queue.poll(10).length);
+      assertNull(queue.poll(10));
+      assertEquals(0, queue.getQueuedBytes());
+    }
+
+    /**
+     * Verifies concurrent offers and polls across many overloads account
+     * for every frame once, as taken, dropped or refused at the hard limit,
+     * and leave no bytes behind.
+     */
+    @Test
+    @DisplayName("Concurrent offer and poll claim each frame once")
+    void testConcurrentClaims() throws InterruptedException {
+      OutboundQueue queue = new OutboundQueue();
+      int count = 20_000;
+      AtomicLong taken = new AtomicLong();
+      AtomicLong refused = new AtomicLong();
+      Thread writer = new Thread(() -> {
+        while (taken.get() + queue.getDroppedFrames() + refused.get() < count) {
+          if (queue.poll() != null) {
+            taken.incrementAndGet();
+          }
+          queue.checkRecovered(LOW);
+        }
+      });
+      writer.setDaemon(true);
+      writer.start();
+
+      for (int i = 0; i < count; i++) {
+        if (offer(queue, 10, i % 4 != 0, OverloadPolicy.COALESCE)
+            == OutboundQueue.Result.DISCONNECT) {
+          refused.incrementAndGet();
+        }
+      }
+      writer.join(10_000);
+
+      assertFalse(writer.isAlive());
+      assertEquals(count, taken.get() + queue.getDroppedFrames() + refused.get());
+      assertEquals(0, queue.getQueuedBytes());
+    }
+
+    /**
+     * Verifies COALESCE asks for exactly one resync when the overload ends.
+     */
+    @Test
+    @DisplayName("COALESCE resyncs once after recovery")
+    void testCoalesceResync() {
+      OutboundQueue queue = new OutboundQueue();
+
+      offer(queue, 60, true, OverloadPolicy.COALESCE);
+      offer(queue, 120, false, OverloadPolicy.COALESCE);
+      assertTrue(queue.isOverloaded());
+      assertEquals(1, queue.getDroppedFrames());
+
+      assertFalse(queue.checkRecovered(LOW));
+      assertEquals(120, queue.poll().length);
+      assertTrue(queue.checkRecovered(LOW));
+      assertFalse(queue.checkRecovered(LOW));
+      assertFalse(queue.isOverloaded());
+      assertEquals(OutboundQueue.Result.QUEUED, offer(queue, 10, true, OverloadPolicy.COALESCE));
+    }
+
+    /**
+     * Verifies DISCONNECT reports the overload once and keeps queued deltas.
+     */
+    @Test
+    @DisplayName("DISCONNECT result")
+    void testDisconnect() {
+      OutboundQueue queue = new OutboundQueue();
+
+      assertEquals(OutboundQueue.Result.QUEUED, offer(queue, 60, true, OverloadPolicy.DISCONNECT));
+      assertEquals(OutboundQueue.Result.DISCONNECT,
+          offer(queue, 60, false, OverloadPolicy.DISCONNECT));
+      assertEquals(OutboundQueue.Result.QUEUED, offer(queue, 10, false, OverloadPolicy.DISCONNECT));
+      assertEquals(0, queue.getDroppedFrames());
+      assertEquals(3, queue.getQueuedFrames());
+
+      queue.clear();
+      assertTrue(queue.isEmpty());
+      assertEquals(0, queue.getQueuedBytes());
+    }
+
+    /**
+     * Verifies frames that are never dropped, such as replies, fill the
+     * queue only up to the hard limit under every policy.
+     */
+    @Test
+    @DisplayName("Hard limit disconnects under every policy")
+    void testHardLimit() {
+      long limit = HIGH * OutboundQueue.HARD_LIMIT_FACTOR;
+      for (OverloadPolicy policy : new OverloadPolicy[] {
+          OverloadPolicy.COALESCE, OverloadPolicy.DROP_STALE}) {
+        OutboundQueue queue = new OutboundQueue();
+        for (long queued = 0; queued < limit; queued += 50) {
+          assertEquals(OutboundQueue.Result.QUEUED, offer(queue, 50, false, policy));
+        }
+
+        assertEquals(OutboundQueue.Result.DISCONNECT, offer(queue, 1, false, policy));
+        assertEquals(limit, queue.getQueuedBytes());
+      }
+
+      OutboundQueue queue = new OutboundQueue();
+      assertEquals(OutboundQueue.Result.QUEUED, offer(queue, 500, false, OverloadPolicy.COALESCE));
+      assertEquals(OutboundQueue.Result.DISCONNECT,
+          offer(queue, 1, false, OverloadPolicy.COALESCE));
+    }
+  }
+
+  private static OutboundQueue.Result offer(OutboundQueue queue, int size, boolean delta,
+      OverloadPolicy policy) {
+    return queue.offer(new byte[size], delta, HIGH, policy);
+  }
+}
@@ -0,0 +1,267 @@
+package group6.protocol;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the binary DATA encoding.
+ * Tests verify:
+ * Round-trip of sensor readings and actuator states through encoder and decoder
+ * Optional timestamps
+ * Detection of binary frames versus text frames
+ * Rejection of malformed frames
+ * Handshake option parsing
+ */
+class BinaryDataCodecTest {
+
+  /**
+   * Collects decoded records as strings for easy comparison.
+   */
+  private static class Recorder implements DataVisitor {
+    final List<String> records = new ArrayList<>();
+
+    @Override
+    public void onReading(int typeOrdinal, CharSequence deviceId, double value, long timestamp) {
+      records.add("S" + typeOrdinal + "#" + deviceId + ":" + value + "@" + timestamp);
+    }
+
+    @Override
+    public void onActuatorState(int typeOrdinal, CharSequence deviceId, boolean on,
+        long timestamp) {
+      records.add("A" + typeOrdinal + "#" + deviceId + ":" + on + "@" + timestamp);
+    }
+  }
+
+  /**
+   * Tests for encoding and decoding records.
+   */
+  @Nested
+  @DisplayName("Round-trip Tests")
+  class RoundTripTests {
+
+    /**
+     * Verifies readings and states survive a round-trip in order.
+     */
+    @Test
+    @DisplayName("Readings and actuator states round-trip in order")
+    void testRoundTrip() {
+      BinaryDataEncoder encoder = new BinaryDataEncoder();
+      encoder.onReading(0, "temp-01", 22.5, 1700000000000L);
+      encoder.onActuatorState(1, "heater-01", true, 0L);
+      encoder.onReading(5, "", -3.25, 0L);
+
+      Recorder recorder = new Recorder();
+      int count = new BinaryDataDecoder().decode(ByteBuffer.wrap(encoder.toByteArray()),
+          recorder);
+
+      assertEquals(3, count);
+      assertEquals(List.of("S0#temp-01:22.5@1700000000000", "A1#heater-01:true@0",
+          "S5#:-3.25@0"), recorder.records);
+    }
+
+    /**
+     * Verifies non-ASCII device IDs are preserved.
+     */
+    @Test
+    @DisplayName("Non-ASCII device ID round-trips")
+    void testNonAsciiId() {
+      BinaryDataEncoder encoder = new BinaryDataEncoder();
+      encoder.onReading(2, "drivhus-ø", 1.0, 0L);
+
+      Recorder recorder = new Recorder();
+      new BinaryDataDecoder().decode(ByteBuffer.wrap(encoder.toByteArray()), recorder);
+
+      assertEquals(List.of("S2#drivhus-ø:1.0@0"), recorder.records);
+    }
+
+    /**
+     * Verifies the encoder can be reset and reused, and grows past its
+     * initial buffer.
+     */
+    @Test
+    @DisplayName("Encoder grows and can be reused after reset")
+    void testResetAndGrow() {
+      BinaryDataEncoder encoder = new BinaryDataEncoder();
+      for (int i = 0; i < 100; i++) {
+        encoder.onReading(0, "sensor-" + i, i, 0L);
+      }
+      assertEquals(100, encoder.getRecordCount());
+
+      encoder.reset();
+      encoder.onActuatorState(0, "fan-01", false, 0L);
+      Recorder recorder = new Recorder();
+      int count = new BinaryDataDecoder().decode(ByteBuffer.wrap(encoder.toByteArray()),
+          recorder);
+
+      assertEquals(1, count);
+      assertEquals(List.of("A0#fan-01:false@0"), recorder.records);
+    }
+
+    /**
+     * Verifies indexed records round-trip and reach the indexed callbacks.
+     */
+    @Test
+    @DisplayName("Indexed records round-trip")
+    void testIndexedRoundTrip() {
+      BinaryDataEncoder encoder = new BinaryDataEncoder();
+      encoder.onIndexedReading(300, 18.5, 42L);
+      encoder.onIndexedActuatorState(1, true, 0L);
+
+      Recorder recorder = new Recorder() {
+        @Override
+        public void onIndexedReading(int index, double value, long timestamp) {
+          records.add("@" + index + ":" + value + "@" + timestamp);
+        }
+
+        @Override
+        public void onIndexedActuatorState(int index, boolean on, long timestamp) {
+          records.add("@" + index + ":" + on + "@" + timestamp);
+        }
+      };
+      new BinaryDataDecoder().decode(ByteBuffer.wrap(encoder.toByteArray()), recorder);
+
+      assertEquals(List.of("@300:18.5@42", "@1:true@0"), recorder.records);
+    }
+
+    /**
+     * Verifies turned off timestamps are left out of the frame, so an indexed
+     * reading takes 11 bytes and decodes with timestamp 0.
+     */
+    @Test
+    @DisplayName("Timestamps can be turned off")
+    void testTimestampsDisabled() {
+      BinaryDataEncoder encoder = new BinaryDataEncoder();
+      encoder.onIndexedReading(7, 18.5, 1700000000000L);
+      assertEquals(4 + 19, encoder.toByteArray().length);
+
+      encoder.reset();
+      encoder.setTimestampsEnabled(false);
+      encoder.onIndexedReading(7, 18.5, 1700000000000L);
+      encoder.onReading(0, "temp-01", 22.5, 1700000000000L);
+      byte[] frame = encoder.toByteArray();
+
+      assertEquals(4 + 11 + 3 + 7 + 8, frame.length);
+      Recorder recorder = new Recorder() {
+        @Override
+        public void onIndexedReading(int index, double value, long timestamp) {
+          records.add("@" + index + ":" + value + "@" + timestamp);
+        }
+      };
+      new BinaryDataDecoder().decode(ByteBuffer.wrap(frame), recorder);
+      assertEquals(List.of("@7:18.5@0", "S0#temp-01:22.5@0"), recorder.records);
+    }
+
+    /**
+     * Verifies indexed records are rejected by visitors without a dictionary.
+     */
+    @Test
+    @DisplayName("Indexed record without dictionary throws exception")
+    void testIndexedWithoutDictionary() {
+      BinaryDataEncoder encoder = new BinaryDataEncoder();
+      encoder.onIndexedReading(0, 1.0, 0L);
+      ByteBuffer frame = ByteBuffer.wrap(encoder.toByteArray());
+
+      assertThrows(IllegalArgumentException.class,
+          () -> new BinaryDataDecoder().decode(frame, new Recorder()));
+    }
+
+    /**
+     * Verifies an empty frame decodes to zero records.
+     */
+    @Test
+    @DisplayName("Empty frame has zero records")
+    void testEmptyFrame() {
+      byte[] frame = new BinaryDataEncoder().toByteArray();
+
+      assertEquals(0, new BinaryDataDecoder().decode(ByteBuffer.wrap(frame), new Recorder()));
+    }
+  }
+
+  /**
+   * Tests for frame detection and validation.
+   */
+  @Nested
+  @DisplayName("Validation Tests")
+  class ValidationTests {
+
+    /**
+     * Verifies binary frames are told apart from text frames.
+     */
+    @Test
+    @DisplayName("isBinaryFrame distinguishes binary from text")
+    void testIsBinaryFrame() {
+      byte[] binary = new BinaryDataEncoder().toByteArray();
+      byte[] text = "DATA|node-01|temperature:22.5".getBytes(StandardCharsets.UTF_8);
+
+      assertTrue(BinaryDataDecoder.isBinaryFrame(ByteBuffer.wrap(binary)));
+      assertFalse(BinaryDataDecoder.isBinaryFrame(ByteBuffer.wrap(text)));
+      assertFalse(BinaryDataDecoder.isBinaryFrame(ByteBuffer.allocate(0)));
+    }
+
+    /**
+     * Verifies a truncated frame is rejected.
+     */
+    @Test
+    @DisplayName("Truncated frame throws exception")
+    void testTruncatedFrame() {
+      BinaryDataEncoder encoder = new BinaryDataEncoder();
+      encoder.onReading(0, "temp-01", 22.5, 0L);
+      byte[] frame = encoder.toByteArray();
+      ByteBuffer truncated = ByteBuffer.wrap(frame, 0, frame.length - 1);
+
+      assertThrows(IllegalArgumentException.class,
+          () -> new BinaryDataDecoder().decode(truncated, new Recorder()));
+    }
+
+    /**
+     * Verifies out of range type ordinals are rejected when encoding.
+     */
+    @Test
+    @DisplayName("Type ordinal out of range throws exception")
+    void testTypeOrdinalOutOfRange() {
+      BinaryDataEncoder encoder = new BinaryDataEncoder();
+
+      assertThrows(IllegalArgumentException.class,
+          () -> encoder.onReading(256, "temp-01", 1.0, 0L));
+    }
+  }
+
+  /**
+   * Tests for the handshake options carrying the encoding.
+   */
+  @Nested
+  @DisplayName("Handshake Tests")
+  class HandshakeTests {
+
+    /**
+     * Verifies the encoding option round-trips through format and parse.
+     */
+    @Test
+    @DisplayName("Encoding option round-trips")
+    void testEncodingOption() {
+      String data = HandshakeOptions.format(java.util.Map.of(HandshakeOptions.ENCODING,
+          DataEncoding.BINARY.getHandshakeValue()));
+
+      assertEquals("encoding:binary", data);
+      assertEquals(DataEncoding.BINARY, DataEncoding.fromHandshakeValue(
+          HandshakeOptions.parse(data).get(HandshakeOptions.ENCODING)));
+    }
+
+    /**
+     * Verifies missing or unknown encodings fall back to text.
+     */
+    @Test
+    @DisplayName("Missing or unknown encoding falls back to text")
+    void testFallbackToText() {
+      assertEquals(DataEncoding.TEXT, DataEncoding.fromHandshakeValue(
+          HandshakeOptions.parse("").get(HandshakeOptions.ENCODING)));
+      assertEquals(DataEncoding.TEXT, DataEncoding.fromHandshakeValue("morse"));
+    }
+  }
+}
@@ -0,0 +1,138 @@
+package group6.protocol;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the DeviceDictionary class.
+ * Tests verify:
+ * Index assignment on the sensor node side, and refusing keys once full
+ * Formatting and applying DICT entries
+ * Resolving indices back to keys on the control panel side
+ * Validation of malformed entries
+ */
+class DeviceDictionaryTest {
+
+  /**
+   * Tests for assigning indices.
+   */
+  @Nested
+  @DisplayName("Index Assignment")
+  class AssignmentTests {
+
+    /**
+     * Verifies new keys get consecutive indices and known keys keep theirs.
+     */
+    @Test
+    @DisplayName("add() assigns consecutive indices and reuses known keys")
+    void testAddAssignsIndices() {
+      DeviceDictionary dictionary = new DeviceDictionary();
+
+      assertEquals(0, dictionary.add(DeviceKey.of("temperature", "temp-01")));
+      assertEquals(1, dictionary.add(DeviceKey.of("heater", "heater-01")));
+      assertEquals(0, dictionary.add(DeviceKey.of("TEMPERATURE", "Temp-01")));
+      assertEquals(2, dictionary.size());
+    }
+
+    /**
+     * Verifies a full dictionary still resolves known keys but refuses new
+     * ones: tryAdd() returns -1 and add() throws.
+     */
+    @Test
+    @DisplayName("Full dictionary refuses new keys")
+    void testFullDictionary() {
+      DeviceDictionary dictionary = new DeviceDictionary();
+      for (int i = 0; i <= DeviceDictionary.MAX_INDEX; i++) {
+        dictionary.add(DeviceKey.of("temperature", "temp-" + i));
+      }
+
+      assertEquals(7, dictionary.tryAdd(DeviceKey.of("temperature", "temp-7")));
+      assertEquals(-1, dictionary.tryAdd(DeviceKey.of("heater", "heater-01")));
+      assertThrows(IllegalStateException.class,
+          () -> dictionary.add(DeviceKey.of("heater", "heater-01")));
+    }
+
+    /**
+     * Verifies unknown indices resolve to null.
+     */
+    @Test
+    @DisplayName("Unknown index resolves to null")
+    void testUnknownIndex() {
+      DeviceDictionary dictionary = new DeviceDictionary();
+
+      assertNull(dictionary.get(3));
+      assertNull(dictionary.getProtocolKey(-1));
+    }
+  }
+
+  /**
+   * Tests for DICT message entries.
+   */
+  @Nested
+  @DisplayName("Protocol Entries")
+  class ProtocolTests {
+
+    /**
+     * Verifies entries can be formatted from an index onwards.
+     */
+    @Test
+    @DisplayName("toProtocolString() formats entries from an index")
+    void testToProtocolString() {
+      DeviceDictionary dictionary = new DeviceDictionary();
+      dictionary.add(DeviceKey.of("temperature", "temp-01"));
+      dictionary.add(DeviceKey.of("fan", "fan-01"));
+
+      assertEquals("0:temperature#temp-01,1:fan#fan-01", dictionary.toProtocolString(0));
+      assertEquals("1:fan#fan-01", dictionary.toProtocolString(1));
+      assertEquals("", dictionary.toProtocolString(2));
+    }
+
+    /**
+     * Verifies applied entries resolve back to the same keys.
+     */
+    @Test
+    @DisplayName("apply() round-trips entries")
+    void testApplyRoundTrip() {
+      DeviceDictionary sender = new DeviceDictionary();
+      sender.add(DeviceKey.of("temperature", "temp-01"));
+      sender.add(DeviceKey.of("heater", ""));
+
+      DeviceDictionary receiver = new DeviceDictionary();
+      assertEquals(2, receiver.apply(sender.toProtocolString(0)));
+
+      assertEquals("temperature#temp-01", receiver.getProtocolKey(0));
+      assertEquals("heater", receiver.getProtocolKey(1));
+      assertEquals(DeviceKey.of("temperature", "temp-01"), receiver.get(0));
+    }
+
+    /**
+     * Verifies later entries replace earlier ones at the same index.
+     */
+    @Test
+    @DisplayName("apply() replaces existing entries")
+    void testApplyReplaces() {
+      DeviceDictionary dictionary = new DeviceDictionary();
+      dictionary.apply("0:temperature#temp-01");
+      dictionary.apply("0:humidity#hum-01,2:fan#fan-01");
+
+      assertEquals("humidity#hum-01", dictionary.getProtocolKey(0));
+      assertNull(dictionary.getProtocolKey(1));
+      assertEquals("fan#fan-01", dictionary.getProtocolKey(2));
+    }
+
+    /**
+     * Verifies malformed entries throw IllegalArgumentException.
+     */
+    @Test
+    @DisplayName("Malformed entries throw exception")
+    void testMalformedEntries() {
+      DeviceDictionary dictionary = new DeviceDictionary();
+
+      assertThrows(IllegalArgumentException.class, () -> dictionary.apply("temperature#t1"));
+      assertThrows(IllegalArgumentException.class, () -> dictionary.apply("x:temperature#t1"));
+      assertThrows(IllegalArgumentException.class, () -> dictionary.apply("70000:fan"));
+    }
+  }
+}
@@ -1,5 +1,7 @@
 package group6.protocol;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -681,4 +683,84 @@ public class MessageTest {
       assertEquals(dataWithPipes, parsed.getData());
     }
   }
-}
\ No newline at end of file
+
+  /**
+   * Tests for parsing frame payloads directly from bytes.
+   */
+  @Nested
+  @DisplayName("Byte Parsing Tests")
+  class ByteParsingTests {
+
+    private ByteBuffer bytes(String text) {
+      return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Verifies a full message is parsed from bytes like from a string.
+     */
+    @Test
+    @DisplayName("fromProtocolBytes parses type, nodeId and data")
+    void testParseFromBytes() {
+      Message message = Message.fromProtocolBytes(
+          bytes("DATA|sensor-01|temperature#temp-01:22.5,humidity#hum-01:60.0"));
+
+      assertNotNull(message);
+      assertEquals(MessageType.DATA, message.getMessageType());
+      assertEquals("sensor-01", message.getNodeId());
+      assertEquals("temperature#temp-01:22.5,humidity#hum-01:60.0", message.getData());
+    }
+
+    /**
+     * Verifies bytes and string parsing agree on whitespace, missing data and pipes.
+     */
+    @Test
+    @DisplayName("fromProtocolBytes matches fromProtocolString")
+    void testMatchesStringParser() {
+      String[] inputs = {
+          " COMMAND | node-01 |heater:1",
+          "HELLO|control-01",
+          "DATA|sensor-01|a|||b",
+          "SUCCESS|sensor-01|temp:22°C",
+      };
+      for (String input : inputs) {
+        Message expected = Message.fromProtocolString(input);
+        Message actual = Message.fromProtocolBytes(bytes(input));
+
+        assertNotNull(actual, "Failed to parse: " + input);
+        assertEquals(expected.getMessageType(), actual.getMessageType());
+        assertEquals(expected.getNodeId(), actual.getNodeId());
+        assertEquals(expected.getData(), actual.getData());
+      }
+    }
+
+    /**
+     * Verifies invalid payloads return null.
+     */
+    @Test
+    @DisplayName("fromProtocolBytes returns null for invalid payloads")
+    void testInvalidPayloads() {
+      assertNull(Message.fromProtocolBytes(null));
+      assertNull(Message.fromProtocolBytes(bytes("")));
+      assertNull(Message.fromProtocolBytes(bytes("   ")));
+      assertNull(Message.fromProtocolBytes(bytes("DATA")));
+      assertNull(Message.fromProtocolBytes(bytes("UNKNOWN|sensor-01|data")));
+      assertNull(Message.fromProtocolBytes(bytes("DATA| |data")));
+    }
+
+    /**
+     * Verifies the known node ID instance is reused and the buffer is untouched.
+     */
+    @Test
+    @DisplayName("fromProtocolBytes reuses known nodeId and keeps buffer position")
+    void testReusesKnownNodeId() {
+      String nodeId = new String("sensor-01");
+      ByteBuffer frame = bytes("DATA|sensor-01|temp:1.0");
+
+      Message message = Message.fromProtocolBytes(frame, nodeId);
+
+      assertSame(nodeId, message.getNodeId());
+      assertEquals(0, frame.position());
+      assertEquals(frame.capacity(), frame.limit());
+    }
+  }
+}
@@ -0,0 +1,298 @@
+package group6.protocol;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the zero-copy text DATA path.
+ * Tests verify:
+ * Parsing of typed, untyped and indexed entries
+ * Skipping of malformed entries and unknown types
+ * Detection of text DATA frames
+ * FastDoubleParser results match Double.parseDouble
+ * DeviceKeyInterner returns cached protocol keys and stays bounded
+ */
+class TextDataParserTest {
+
+  private static final String[] SENSORS = {"temperature", "humidity"};
+  private static final String[] ACTUATORS = {"heater", "fan"};
+
+  /**
+   * Collects parsed entries as strings for easy comparison.
+   */
+  private static class Recorder implements DataVisitor {
+    final List<String> records = new ArrayList<>();
+
+    @Override
+    public void onReading(int typeOrdinal, CharSequence deviceId, double value, long timestamp) {
+      records.add("S" + typeOrdinal + "#" + deviceId + ":" + value);
+    }
+
+    @Override
+    public void onActuatorState(int typeOrdinal, CharSequence deviceId, boolean on,
+        long timestamp) {
+      records.add("A" + typeOrdinal + "#" + deviceId + ":" + on);
+    }
+
+    @Override
+    public void onIndexedReading(int index, double value, long timestamp) {
+      records.add("@" + index + ":" + value);
+    }
+
+    @Override
+    public void onIndexedActuatorState(int index, boolean on, long timestamp) {
+      records.add("@" + index + ":" + on);
+    }
+  }
+
+  private static ByteBuffer bytes(String text) {
+    return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Tests for parsing data entries.
+   */
+  @Nested
+  @DisplayName("Parsing Tests")
+  class ParsingTests {
+
+    /**
+     * Verifies readings and states are reported in order with their type.
+     */
+    @Test
+    @DisplayName("Frame entries are reported in order")
+    void testParseFrame() {
+      TextDataParser parser = new TextDataParser(SENSORS, ACTUATORS);
+      Recorder recorder = new Recorder();
+
+      int count = parser.parseFrame(
+          bytes("DATA|node-01|temperature#t1:22.5,fan#f1:1,humidity:-4e-1"), recorder);
+
+      assertEquals(3, count);
+      assertEquals(0, parser.getSkippedCount());
+      assertEquals(List.of("S0#t1:22.5", "A1#f1:true", "S1#:-0.4"), recorder.records);
+    }
+
+    /**
+     * Verifies whitespace is trimmed and type names match case-insensitively.
+     */
+    @Test
+    @DisplayName("Whitespace and type case are ignored")
+    void testWhitespaceAndCase() {
+      TextDataParser parser = new TextDataParser(SENSORS, ACTUATORS);
+      Recorder recorder = new Recorder();
+
+      parser.parse(" Temperature # t1 : 15.0 , HEATER:0", recorder);
+
+      assertEquals(List.of("S0#t1:15.0", "A0#:false"), recorder.records);
+    }
+
+    /**
+     * Verifies indexed keys reach the indexed callbacks.
+     */
+    @Test
+    @DisplayName("Indexed entries are reported by index")
+    void testIndexedEntries() {
+      TextDataParser parser = new TextDataParser(SENSORS, ACTUATORS);
+      Recorder recorder = new Recorder();
+
+      parser.parse("@0:21.25,@12:1", recorder);
+
+      assertEquals(List.of("@0:21.25", "@12:true"), recorder.records);
+    }
+
+    /**
+     * Verifies a 0/1 value on a sensor type stays a reading.
+     */
+    @Test
+    @DisplayName("Sensor value of 1 is a reading")
+    void testSensorValueOne() {
+      TextDataParser parser = new TextDataParser(SENSORS, ACTUATORS);
+      Recorder recorder = new Recorder();
+
+      parser.parse("humidity:1", recorder);
+
+      assertEquals(List.of("S1#:1.0"), recorder.records);
+    }
+
+    /**
+     * Verifies a heartbeat frame has no entries.
+     */
+    @Test
+    @DisplayName("Heartbeat frame has zero entries")
+    void testHeartbeat() {
+      TextDataParser parser = new TextDataParser(SENSORS, ACTUATORS);
+      Recorder recorder = new Recorder();
+
+      assertEquals(0, parser.parseFrame(bytes("DATA|node-01|"), recorder));
+      assertEquals(0, parser.parseFrame(bytes("DATA|node-01"), recorder));
+      assertTrue(recorder.records.isEmpty());
+    }
+
+    /**
+     * Verifies the buffer position is left unchanged.
+     */
+    @Test
+    @DisplayName("Frame position is unchanged")
+    void testPositionUnchanged() {
+      ByteBuffer frame = bytes("DATA|node-01|temperature:1.5");
+
+      new TextDataParser(SENSORS, ACTUATORS).parseFrame(frame, new Recorder());
+
+      assertEquals(0, frame.position());
+    }
+  }
+
+  /**
+   * Tests for malformed input.
+   */
+  @Nested
+  @DisplayName("Validation Tests")
+  class ValidationTests {
+
+    /**
+     * Verifies malformed entries are skipped and counted, and the rest parsed.
+     */
+    @Test
+    @DisplayName("Malformed entries are skipped")
+    void testMalformedEntries() {
+      TextDataParser parser = new TextDataParser(SENSORS, ACTUATORS);
+      Recorder recorder = new Recorder();
+
+      int count = parser.parse(
+          "temperature,humidity:abc,light:5.0,fan:1:2,@x:1,temperature:,heater:1", recorder);
+
+      assertEquals(1, count);
+      assertEquals(6, parser.getSkippedCount());
+      assertEquals(List.of("A0#:true"), recorder.records);
+    }
+
+    /**
+     * Verifies text DATA frames are told apart from other frames.
+     */
+    @Test
+    @DisplayName("isDataFrame detects text DATA frames")
+    void testIsDataFrame() {
+      assertTrue(TextDataParser.isDataFrame(bytes("DATA|node-01|")));
+      assertTrue(TextDataParser.isDataFrame(bytes("  DATA |node-01|temperature:1.0")));
+      assertFalse(TextDataParser.isDataFrame(bytes("DATAX|node-01|")));
+      assertFalse(TextDataParser.isDataFrame(bytes("DICT|node-01|0:heater")));
+      assertFalse(TextDataParser.isDataFrame(ByteBuffer.allocate(0)));
+      assertFalse(TextDataParser.isDataFrame(null));
+    }
+  }
+
+  /**
+   * Tests for the number parser.
+   */
+  @Nested
+  @DisplayName("FastDoubleParser Tests")
+  class FastDoubleParserTests {
+
+    /**
+     * Verifies common and edge case values match Double.parseDouble.
+     */
+    @Test
+    @DisplayName("Edge cases match Double.parseDouble")
+    void testEdgeCases() {
+      String[] values = {"0", "-0.0", "22.5", "+1", ".5", "5.", "1e3", "1E-3",
+          "0.30000000000000004", "1.7976931348623157E308", "4.9E-324", "2.2250738585072014E-308",
+          "123456789012345678901234567890", "NaN", "-Infinity", "1e400", "1e-400"};
+      for (String value : values) {
+        assertEquals(Double.parseDouble(value),
+            FastDoubleParser.parse(value, 0, value.length()), value);
+      }
+    }
+
+    /**
+     * Verifies random doubles round-trip through their shortest string.
+     */
+    @Test
+    @DisplayName("Random values match Double.parseDouble")
+    void testRandomValues() {
+      Random random = new Random(2304);
+      for (int i = 0; i < 100_000; i++) {
+        String text = Double.toString(Double.longBitsToDouble(random.nextLong()));
+        ByteBuffer buf = bytes(text);
+        assertEquals(Double.parseDouble(text), FastDoubleParser.parse(buf, 0, buf.limit()), text);
+      }
+    }
+
+    /**
+     * Verifies invalid numbers are rejected.
+     */
+    @Test
+    @DisplayName("Invalid number throws exception")
+    void testInvalid() {
+      assertThrows(NumberFormatException.class, () -> FastDoubleParser.parse("1.2.3", 0, 5));
+      assertThrows(NumberFormatException.class, () -> FastDoubleParser.parse("", 0, 0));
+    }
+  }
+
+  /**
+   * Tests for the key interner.
+   */
+  @Nested
+  @DisplayName("DeviceKeyInterner Tests")
+  class InternerTests {
+
+    /**
+     * Verifies keys match DeviceKey and are cached per ID.
+     */
+    @Test
+    @DisplayName("Keys are cached and match DeviceKey")
+    void testIntern() {
+      DeviceKeyInterner interner = new DeviceKeyInterner("Temperature");
+      StringBuilder id = new StringBuilder("t1");
+
+      String key = interner.intern(id);
+
+      assertEquals(DeviceKey.of("temperature", "t1").toProtocolKey(), key);
+      assertSame(key, interner.intern("t1"));
+      assertEquals("temperature", interner.intern(""));
+    }
+
+    /**
+     * Verifies the table keeps every key when it grows.
+     */
+    @Test
+    @DisplayName("Growing keeps all keys")
+    void testGrow() {
+      DeviceKeyInterner interner = new DeviceKeyInterner("fan");
+      for (int i = 0; i < 100; i++) {
+        interner.intern("f" + i);
+      }
+
+      assertEquals(100, interner.size());
+      for (int i = 0; i < 100; i++) {
+        assertEquals("fan#f" + i, interner.intern("f" + i));
+      }
+    }
+
+    /**
+     * Verifies a full table is emptied and keeps returning correct keys.
+     */
+    @Test
+    @DisplayName("Full table is emptied")
+    void testBounded() {
+      DeviceKeyInterner interner = new DeviceKeyInterner("fan", 4);
+      for (int i = 0; i < 4; i++) {
+        interner.intern("f" + i);
+      }
+      assertEquals(4, interner.size());
+
+      assertEquals("fan#f4", interner.intern("f4"));
+      assertEquals(1, interner.size());
+      assertEquals("fan#f0", interner.intern("f0"));
+      assertEquals(2, interner.size());
+      assertThrows(IllegalArgumentException.class, () -> new DeviceKeyInterner("fan", 0));
+    }
+  }
+}